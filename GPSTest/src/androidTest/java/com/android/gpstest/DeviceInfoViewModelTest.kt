@@ -46,7 +46,7 @@ class DeviceInfoViewModelTest {
         // Test GPS L1 - should be 1 satellite, no L5 or dual-frequency
         val modelGpsL1 = DeviceInfoViewModel(InstrumentationRegistry.getTargetContext().applicationContext as Application)
         modelGpsL1.setStatuses(listOf(gpsL1(1, true)), null)
-        assertEquals(1, modelGpsL1.gnssSatellites.value?.size)
+        assertEquals(1, modelGpsL1.gnssSatellites.value?.size())
         assertFalse(modelGpsL1.isNonPrimaryCarrierFreqInView)
         assertFalse(modelGpsL1.isNonPrimaryCarrierFreqInUse)
         assertFalse(modelGpsL1.isDualFrequencyPerSatInView)
@@ -72,7 +72,7 @@ class DeviceInfoViewModelTest {
 
         // Test GPS L1 no signal - should be 1 satellite, no L5 or dual-frequency
         modelGpsL1.setStatuses(listOf(gpsL1NoSignal(1)), null)
-        assertEquals(1, modelGpsL1.gnssSatellites.value?.size)
+        assertEquals(1, modelGpsL1.gnssSatellites.value?.size())
         assertFalse(modelGpsL1.isNonPrimaryCarrierFreqInView)
         assertFalse(modelGpsL1.isNonPrimaryCarrierFreqInUse)
         assertFalse(modelGpsL1.isDualFrequencyPerSatInView)
@@ -98,7 +98,7 @@ class DeviceInfoViewModelTest {
         // Test GPS L1 + L5 same sv - should be 1 satellite, dual frequency in view and but not in use
         val modelGpsL1L5 = DeviceInfoViewModel(InstrumentationRegistry.getTargetContext().applicationContext as Application)
         modelGpsL1L5.setStatuses(listOf(gpsL1(1, false), gpsL5(1, true)), null)
-        assertEquals(1, modelGpsL1L5.gnssSatellites.value?.size)
+        assertEquals(1, modelGpsL1L5.gnssSatellites.value?.size())
         assertEquals(1, modelGpsL1L5.supportedGnss.size)
         assertEquals(0, modelGpsL1L5.supportedSbas.size)
         assertEquals(0, modelGpsL1L5.supportedSbasCfs.size)
@@ -123,7 +123,7 @@ class DeviceInfoViewModelTest {
             assertFalse(modelGpsL1L5.isDualFrequencyPerSatInView)
             assertFalse(modelGpsL1L5.isDualFrequencyPerSatInUse)
             // Because carrier frequency isn't considered, these signals should be detected as duplicates
-            assertEquals(1, modelGpsL1L5.duplicateCarrierStatuses.size)
+            assertEquals(1, modelGpsL1L5.duplicateCarrierStatuses.size())
             assertEquals(0, modelGpsL1L5.supportedGnssCfs.size)
         }
 
@@ -131,7 +131,7 @@ class DeviceInfoViewModelTest {
 
         // Test GPS L1 + L5 same sv - should be 1 satellite, dual-frequency in view and use
         modelGpsL1L5.setStatuses(listOf(gpsL1(1, true), gpsL5(1, true)), null)
-        assertEquals(1, modelGpsL1L5.gnssSatellites.value?.size)
+        assertEquals(1, modelGpsL1L5.gnssSatellites.value?.size())
         assertEquals(1, modelGpsL1L5.supportedGnss.size)
         assertEquals(0, modelGpsL1L5.supportedSbas.size)
         assertEquals(0, modelGpsL1L5.supportedSbasCfs.size)
@@ -156,7 +156,7 @@ class DeviceInfoViewModelTest {
             assertFalse(modelGpsL1L5.isDualFrequencyPerSatInView)
             assertFalse(modelGpsL1L5.isDualFrequencyPerSatInUse)
             // Because carrier frequency isn't considered, these signals should be detected as duplicates
-            assertEquals(1, modelGpsL1L5.duplicateCarrierStatuses.size)
+            assertEquals(1, modelGpsL1L5.duplicateCarrierStatuses.size())
             assertEquals(0, modelGpsL1L5.supportedGnssCfs.size)
         }
 
@@ -164,7 +164,7 @@ class DeviceInfoViewModelTest {
 
         // Test GPS L1 + L5 same sv - should be 1 satellite, dual-frequency in view and but not used (only 1 sv in use)
         modelGpsL1L5.setStatuses(listOf(gpsL1(1, true), gpsL5(1, false)), null)
-        assertEquals(1, modelGpsL1L5.gnssSatellites.value?.size)
+        assertEquals(1, modelGpsL1L5.gnssSatellites.value?.size())
         assertEquals(1, modelGpsL1L5.supportedGnss.size)
         assertEquals(0, modelGpsL1L5.supportedSbas.size)
         assertEquals(0, modelGpsL1L5.supportedSbasCfs.size)
@@ -189,7 +189,7 @@ class DeviceInfoViewModelTest {
             assertFalse(modelGpsL1L5.isDualFrequencyPerSatInView)
             assertFalse(modelGpsL1L5.isDualFrequencyPerSatInUse)
             // Because carrier frequency isn't considered, these signals should be detected as duplicates
-            assertEquals(1, modelGpsL1L5.duplicateCarrierStatuses.size)
+            assertEquals(1, modelGpsL1L5.duplicateCarrierStatuses.size())
             assertEquals(0, modelGpsL1L5.supportedGnssCfs.size)
         }
 
@@ -197,7 +197,7 @@ class DeviceInfoViewModelTest {
 
         // Test GPS L1 + L5 but different satellites - should be 2 satellites, non-primary frequency in view and in use, but not dual-frequency in view or use
         modelGpsL1L5.setStatuses(listOf(gpsL1(1, true), gpsL5(2, true)), null)
-        assertEquals(2, modelGpsL1L5.gnssSatellites.value?.size)
+        assertEquals(2, modelGpsL1L5.gnssSatellites.value?.size())
         assertEquals(1, modelGpsL1L5.supportedGnss.size)
         assertEquals(0, modelGpsL1L5.supportedSbas.size)
         assertEquals(0, modelGpsL1L5.supportedSbasCfs.size)
@@ -234,7 +234,7 @@ class DeviceInfoViewModelTest {
 
         // Test GPS L1 + L5 same sv, but no L1 signal - should be 1 satellite, dual-frequency not in view or in use
         modelGpsL1L5.setStatuses(listOf(gpsL1NoSignal(1), gpsL5(1, true)), null)
-        assertEquals(1, modelGpsL1L5.gnssSatellites.value?.size)
+        assertEquals(1, modelGpsL1L5.gnssSatellites.value?.size())
         assertEquals(1, modelGpsL1L5.supportedGnss.size)
         assertEquals(0, modelGpsL1L5.supportedSbas.size)
         assertEquals(0, modelGpsL1L5.supportedSbasCfs.size)
@@ -259,7 +259,7 @@ class DeviceInfoViewModelTest {
             assertFalse(modelGpsL1L5.isDualFrequencyPerSatInView)
             assertFalse(modelGpsL1L5.isDualFrequencyPerSatInUse)
             // Because carrier frequency isn't considered, these signals should be detected as duplicates
-            assertEquals(1, modelGpsL1L5.duplicateCarrierStatuses.size)
+            assertEquals(1, modelGpsL1L5.duplicateCarrierStatuses.size())
             assertEquals(0, modelGpsL1L5.supportedGnssCfs.size)
         }
 
@@ -268,7 +268,7 @@ class DeviceInfoViewModelTest {
         // Test GPS L5 not in use - should be 1 satellites, non-primary frequency in view, but not dual-frequency in view or use
         val modelGpsL5 = DeviceInfoViewModel(InstrumentationRegistry.getTargetContext().applicationContext as Application)
         modelGpsL5.setStatuses(listOf(gpsL5(1, false)), null)
-        assertEquals(1, modelGpsL5.gnssSatellites.value?.size)
+        assertEquals(1, modelGpsL5.gnssSatellites.value?.size())
         assertEquals(1, modelGpsL5.supportedGnss.size)
         assertEquals(0, modelGpsL5.supportedSbas.size)
         assertEquals(0, modelGpsL5.supportedSbasCfs.size)
@@ -303,7 +303,7 @@ class DeviceInfoViewModelTest {
         // Test GPS L1 + GLONASS L1 - should be 2 satellites, no non-primary carrier of dual-freq
         val modelGpsL1GlonassL1 = DeviceInfoViewModel(InstrumentationRegistry.getTargetContext().applicationContext as Application)
         modelGpsL1GlonassL1.setStatuses(listOf(gpsL1(1, true), glonassL1variant1()), null)
-        assertEquals(2, modelGpsL1GlonassL1.gnssSatellites.value?.size)
+        assertEquals(2, modelGpsL1GlonassL1.gnssSatellites.value?.size())
         assertFalse(modelGpsL1GlonassL1.isNonPrimaryCarrierFreqInView)
         assertFalse(modelGpsL1GlonassL1.isNonPrimaryCarrierFreqInUse)
         assertFalse(modelGpsL1GlonassL1.isDualFrequencyPerSatInView)
@@ -329,7 +329,7 @@ class DeviceInfoViewModelTest {
         // Test Galileo E1 + E5a - should be 2 satellites, dual frequency not in use, non-primary carrier of dual-freq
         val modelGalileoE1E5a = DeviceInfoViewModel(InstrumentationRegistry.getTargetContext().applicationContext as Application)
         modelGalileoE1E5a.setStatuses(listOf(galileoE1(1, true), galileoE5a(2, true)), null)
-        assertEquals(2, modelGalileoE1E5a.gnssSatellites.value?.size)
+        assertEquals(2, modelGalileoE1E5a.gnssSatellites.value?.size())
         assertEquals(1, modelGalileoE1E5a.supportedGnss.size)
         assertEquals(0, modelGalileoE1E5a.supportedSbas.size)
         assertEquals(0, modelGalileoE1E5a.supportedSbasCfs.size)
@@ -366,7 +366,7 @@ class DeviceInfoViewModelTest {
 
         // Test Galileo E1 + E5a - should be 1 satellites, dual frequency in use, non-primary carrier of dual-freq
         modelGalileoE1E5a.setStatuses(listOf(galileoE1(1, true), galileoE5a(1, true)), null)
-        assertEquals(1, modelGalileoE1E5a.gnssSatellites.value?.size)
+        assertEquals(1, modelGalileoE1E5a.gnssSatellites.value?.size())
         assertEquals(1, modelGalileoE1E5a.supportedGnss.size)
         assertEquals(0, modelGalileoE1E5a.supportedSbas.size)
         assertEquals(0, modelGalileoE1E5a.supportedSbasCfs.size)
@@ -390,7 +390,7 @@ class DeviceInfoViewModelTest {
             assertFalse(modelGalileoE1E5a.isDualFrequencyPerSatInView)
             assertFalse(modelGalileoE1E5a.isDualFrequencyPerSatInUse)
             // Because carrier frequency isn't considered, these signals should be detected as duplicates
-            assertEquals(1, modelGalileoE1E5a.duplicateCarrierStatuses.size)
+            assertEquals(1, modelGalileoE1E5a.duplicateCarrierStatuses.size())
             assertEquals(0, modelGalileoE1E5a.supportedGnssCfs.size)
         }
 
@@ -399,7 +399,7 @@ class DeviceInfoViewModelTest {
         // Test WAAS SBAS - L1 - should be 1 satellite, dual frequency not in use, no non-primary carrier of dual-freq
         val modelWaasL1L5 = DeviceInfoViewModel(InstrumentationRegistry.getTargetContext().applicationContext as Application)
         modelWaasL1L5.setStatuses(null, listOf(galaxy15_135L1(true)))
-        assertEquals(1, modelWaasL1L5.sbasSatellites.value?.size)
+        assertEquals(1, modelWaasL1L5.sbasSatellites.value?.size())
         assertFalse(modelWaasL1L5.isNonPrimaryCarrierFreqInView)
         assertFalse(modelWaasL1L5.isNonPrimaryCarrierFreqInUse)
         assertFalse(modelWaasL1L5.isDualFrequencyPerSatInView)
@@ -425,7 +425,7 @@ class DeviceInfoViewModelTest {
 
         // Test WAAS SBAS - L1 + L5 - should be 1 satellites, dual frequency in use, non-primary carrier of dual-freq
         modelWaasL1L5.setStatuses(null, listOf(galaxy15_135L1(true), galaxy15_135L5(true)))
-        assertEquals(1, modelWaasL1L5.sbasSatellites.value?.size)
+        assertEquals(1, modelWaasL1L5.sbasSatellites.value?.size())
         assertEquals(0, modelWaasL1L5.supportedGnss.size)
         assertEquals(0, modelWaasL1L5.supportedGnssCfs.size)
         assertEquals(1, modelWaasL1L5.supportedSbas.size)
@@ -450,7 +450,7 @@ class DeviceInfoViewModelTest {
             assertFalse(modelWaasL1L5.isDualFrequencyPerSatInView)
             assertFalse(modelWaasL1L5.isDualFrequencyPerSatInUse)
             // Because carrier frequency isn't considered, these signals should be detected as duplicates
-            assertEquals(1, modelWaasL1L5.duplicateCarrierStatuses.size)
+            assertEquals(1, modelWaasL1L5.duplicateCarrierStatuses.size())
             assertEquals(0, modelWaasL1L5.supportedSbasCfs.size)
         }
     }
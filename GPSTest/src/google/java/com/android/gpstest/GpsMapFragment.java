@@ -22,7 +22,6 @@ import android.content.Intent;
 import android.content.SharedPreferences;
 import android.graphics.Color;
 import android.location.GnssMeasurementsEvent;
-import android.location.GnssStatus;
 import android.location.GpsStatus;
 import android.location.Location;
 import android.net.Uri;
@@ -38,6 +37,8 @@ import androidx.appcompat.app.AlertDialog;
 
 import com.android.gpstest.map.MapViewModelController;
 import com.android.gpstest.map.OnMapClickListener;
+import com.android.gpstest.model.SatelliteSnapshot;
+import com.android.gpstest.nmea.NmeaEpoch;
 import com.android.gpstest.util.MapUtils;
 import com.android.gpstest.util.MathUtils;
 import com.google.android.gms.common.ConnectionResult;
@@ -268,7 +269,7 @@ public class GpsMapFragment extends SupportMapFragment
 
     @RequiresApi(api = Build.VERSION_CODES.N)
     @Override
-    public void onSatelliteStatusChanged(GnssStatus status) {
+    public void onSatelliteStatusChanged(SatelliteSnapshot snapshot) {
     }
 
     @Override
@@ -285,7 +286,7 @@ public class GpsMapFragment extends SupportMapFragment
     }
 
     @Override
-    public void onNmeaMessage(String message, long timestamp) {
+    public void onNmeaEpoch(NmeaEpoch epoch) {
     }
 
     @Override
@@ -19,6 +19,8 @@ package com.android.gpstest;
 import android.content.Context;
 import android.content.SharedPreferences;
 import android.content.res.Configuration;
+import android.os.Handler;
+import android.os.Looper;
 import android.preference.PreferenceManager;
 
 import androidx.multidex.MultiDexApplication;
@@ -46,16 +48,26 @@ public class Application extends MultiDexApplication {
 
     private static LocaleManager mLocaleManager;
 
+    private static CapabilityRegistry mCapabilities;
+
     public static LocaleManager getLocaleManager() {
         return mLocaleManager;
     }
 
+    public static CapabilityRegistry getCapabilities() {
+        return mCapabilities;
+    }
+
     @Override
     public void onCreate() {
         super.onCreate();
 
         mApp = this;
         mPrefs = PreferenceManager.getDefaultSharedPreferences(this);
+        Handler handler = new Handler(Looper.getMainLooper());
+        mCapabilities = new CapabilityRegistry(
+                new CapabilityRegistry.SharedPreferencesStore(mPrefs, getResources()),
+                task -> handler.postDelayed(task, CapabilityRegistry.WRITE_DELAY_MS));
 
         // Set theme
         if (Application.getPrefs().getBoolean(getString(R.string.pref_key_dark_theme), false)) {
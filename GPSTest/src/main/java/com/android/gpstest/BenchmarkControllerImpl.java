@@ -20,7 +20,6 @@ import android.content.SharedPreferences;
 import android.graphics.Color;
 import android.graphics.drawable.GradientDrawable;
 import android.location.GnssMeasurementsEvent;
-import android.location.GnssStatus;
 import android.location.GpsStatus;
 import android.location.Location;
 import android.os.Build;
@@ -45,6 +44,8 @@ import androidx.lifecycle.ViewModelProviders;
 import com.android.gpstest.chart.DistanceValueFormatter;
 import com.android.gpstest.model.AvgError;
 import com.android.gpstest.model.MeasuredError;
+import com.android.gpstest.model.SatelliteSnapshot;
+import com.android.gpstest.nmea.NmeaEpoch;
 import com.android.gpstest.util.IOUtils;
 import com.android.gpstest.util.MathUtils;
 import com.android.gpstest.util.PreferenceUtils;
@@ -597,7 +598,7 @@ public class BenchmarkControllerImpl implements BenchmarkController {
     }
 
     @Override
-    public void onSatelliteStatusChanged(GnssStatus status) {
+    public void onSatelliteStatusChanged(SatelliteSnapshot snapshot) {
 
     }
 
@@ -622,7 +623,7 @@ public class BenchmarkControllerImpl implements BenchmarkController {
     }
 
     @Override
-    public void onNmeaMessage(String message, long timestamp) {
+    public void onNmeaEpoch(NmeaEpoch epoch) {
 
     }
 
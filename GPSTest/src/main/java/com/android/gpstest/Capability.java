@@ -0,0 +1,48 @@
+/*
+ * Copyright (C) 2021 Sean J. Barbeau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.gpstest;
+
+import androidx.annotation.StringRes;
+
+/**
+ * GNSS capabilities of the device that are observed while the app runs and saved across runs in
+ * the {@link CapabilityRegistry}
+ */
+public enum Capability {
+    INJECT_PSDS(R.string.capability_key_inject_psds),
+    INJECT_TIME(R.string.capability_key_inject_time),
+    DELETE_ASSIST(R.string.capability_key_delete_assist),
+    RAW_MEASUREMENTS(R.string.capability_key_raw_measurements),
+    NAV_MESSAGES(R.string.capability_key_nav_messages),
+    NMEA(R.string.capability_key_nmea),
+    MEASUREMENT_AUTOMATIC_GAIN_CONTROL(R.string.capability_key_measurement_automatic_gain_control),
+    MEASUREMENT_DELTA_RANGE(R.string.capability_key_measurement_delta_range);
+
+    @StringRes
+    private final int mKeyResId;
+
+    Capability(@StringRes int keyResId) {
+        mKeyResId = keyResId;
+    }
+
+    /**
+     * @return the resource ID of the SharedPreferences key the capability is saved under
+     */
+    @StringRes
+    public int getKeyResId() {
+        return mKeyResId;
+    }
+}
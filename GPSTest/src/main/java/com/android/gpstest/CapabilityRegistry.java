@@ -0,0 +1,171 @@
+/*
+ * Copyright (C) 2021 Sean J. Barbeau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.gpstest;
+
+import android.content.SharedPreferences;
+import android.content.res.Resources;
+
+import com.android.gpstest.util.PreferenceUtils;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+/**
+ * Holds the current value (PreferenceUtils.CAPABILITY_*) of each {@link Capability} in memory.
+ * Capabilities are reported on every GNSS callback but rarely change, so setting a capability to
+ * its current value does nothing, and changes are written to storage together in one batch after
+ * a delay instead of one SharedPreferences commit per callback.
+ *
+ * Thread-safe - capabilities can be read and set on any thread.
+ */
+public final class CapabilityRegistry {
+
+    /**
+     * Delay before changed capabilities are written to storage, so changes that are reported
+     * together (e.g., at startup) are written together
+     */
+    public static final long WRITE_DELAY_MS = 2000;
+
+    /**
+     * Persistent storage for capabilities
+     */
+    public interface Store {
+        /**
+         * @return the saved value of the capability, or PreferenceUtils.CAPABILITY_UNKNOWN if none
+         */
+        int load(Capability capability);
+
+        void save(Map<Capability, Integer> values);
+    }
+
+    /**
+     * Saves capabilities in SharedPreferences, under their existing keys
+     */
+    public static final class SharedPreferencesStore implements Store {
+
+        private final SharedPreferences mPrefs;
+
+        private final Resources mResources;
+
+        public SharedPreferencesStore(SharedPreferences prefs, Resources resources) {
+            mPrefs = prefs;
+            mResources = resources;
+        }
+
+        @Override
+        public int load(Capability capability) {
+            return mPrefs.getInt(mResources.getString(capability.getKeyResId()),
+                    PreferenceUtils.CAPABILITY_UNKNOWN);
+        }
+
+        @Override
+        public void save(Map<Capability, Integer> values) {
+            SharedPreferences.Editor edit = mPrefs.edit();
+            for (Map.Entry<Capability, Integer> entry : values.entrySet()) {
+                edit.putInt(mResources.getString(entry.getKey().getKeyResId()), entry.getValue());
+            }
+            edit.apply();
+        }
+    }
+
+    private static final Capability[] CAPABILITIES = Capability.values();
+
+    private final Store mStore;
+
+    private final Executor mWriteScheduler;
+
+    private final Runnable mFlushTask = this::flush;
+
+    // The following are guarded by this
+    private final int[] mValues = new int[CAPABILITIES.length];
+
+    private final EnumMap<Capability, Integer> mChanged = new EnumMap<>(Capability.class);
+
+    private boolean mLoaded;
+
+    private boolean mFlushScheduled;
+
+    /**
+     * @param store          storage the capabilities are loaded from and saved to
+     * @param writeScheduler runs the write of changed capabilities, typically after
+     *                       {@link #WRITE_DELAY_MS}
+     */
+    public CapabilityRegistry(Store store, Executor writeScheduler) {
+        mStore = store;
+        mWriteScheduler = writeScheduler;
+    }
+
+    /**
+     * @return the current value of the capability, PreferenceUtils.CAPABILITY_UNKNOWN if it's never
+     * been set
+     */
+    public synchronized int get(Capability capability) {
+        ensureLoaded();
+        return mValues[capability.ordinal()];
+    }
+
+    /**
+     * Sets the current value of the capability, which is written to storage later if it changed
+     *
+     * @param capability capability to set
+     * @param value      PreferenceUtils.CAPABILITY_* constant
+     * @return true if the value changed, false if it was already set to this value
+     */
+    public boolean set(Capability capability, int value) {
+        synchronized (this) {
+            ensureLoaded();
+            if (mValues[capability.ordinal()] == value) {
+                return false;
+            }
+            mValues[capability.ordinal()] = value;
+            mChanged.put(capability, value);
+            if (mFlushScheduled) {
+                return true;
+            }
+            mFlushScheduled = true;
+        }
+        mWriteScheduler.execute(mFlushTask);
+        return true;
+    }
+
+    /**
+     * Writes the changed capabilities to storage now, for example when the app goes to the
+     * background
+     */
+    public void flush() {
+        Map<Capability, Integer> changed;
+        synchronized (this) {
+            mFlushScheduled = false;
+            if (mChanged.isEmpty()) {
+                return;
+            }
+            changed = new EnumMap<>(mChanged);
+            mChanged.clear();
+        }
+        mStore.save(changed);
+    }
+
+    private void ensureLoaded() {
+        if (mLoaded) {
+            return;
+        }
+        for (Capability capability : CAPABILITIES) {
+            mValues[capability.ordinal()] = mStore.load(capability);
+        }
+        mLoaded = true;
+    }
+}
@@ -21,33 +21,42 @@ import androidx.annotation.NonNull;
 import androidx.lifecycle.AndroidViewModel;
 import androidx.lifecycle.MutableLiveData;
 
-import com.android.gpstest.model.ConstellationFamily;
+import com.android.gpstest.model.CarrierBand;
 import com.android.gpstest.model.GnssType;
 import com.android.gpstest.model.Satellite;
+import com.android.gpstest.model.SatelliteChanges;
 import com.android.gpstest.model.SatelliteMetadata;
 import com.android.gpstest.model.SatelliteStatus;
+import com.android.gpstest.model.SatelliteTracker;
 import com.android.gpstest.model.SbasType;
-import com.android.gpstest.util.CarrierFreqUtils;
-import com.android.gpstest.util.SatelliteUtils;
+import com.android.gpstest.util.LongObjectMap;
 
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
 
-import static com.android.gpstest.model.SatelliteStatus.NO_DATA;
-import static com.android.gpstest.util.CarrierFreqUtils.CF_UNKNOWN;
-import static com.android.gpstest.util.CarrierFreqUtils.CF_UNSUPPORTED;
-
 /**
  * View model that holds device properties
  */
 public class DeviceInfoViewModel extends AndroidViewModel {
 
-    private MutableLiveData<Map<String, Satellite>> mGnssSatellites = new MutableLiveData<>();
+    private static final GnssType[] GNSS_TYPES = GnssType.values();
+
+    private static final SbasType[] SBAS_TYPES = SbasType.values();
+
+    private static final CarrierBand[] CARRIER_BANDS = CarrierBand.values();
+
+    private final SatelliteTracker mGnssTracker = new SatelliteTracker();
+
+    private final SatelliteTracker mSbasTracker = new SatelliteTracker();
+
+    private final SatelliteChanges mChanges = new SatelliteChanges();
+
+    private MutableLiveData<LongObjectMap<Satellite>> mGnssSatellites = new MutableLiveData<>();
+
+    private MutableLiveData<LongObjectMap<Satellite>> mSbasSatellites = new MutableLiveData<>();
 
-    private MutableLiveData<Map<String, Satellite>> mSbasSatellites = new MutableLiveData<>();
+    private MutableLiveData<SatelliteChanges> mSatelliteChanges = new MutableLiveData<>();
 
     private boolean mIsDualFrequencyPerSatInView = false;
 
@@ -59,13 +68,13 @@ public class DeviceInfoViewModel extends AndroidViewModel {
 
     private boolean gotFirstFix = false;
 
-    private Set<GnssType> supportedGnss = new HashSet<>();
+    private final Set<GnssType> supportedGnss = new HashSet<>();
 
-    private Set<SbasType> supportedSbas = new HashSet<>();
+    private final Set<SbasType> supportedSbas = new HashSet<>();
 
-    private Set<String> supportedGnssCfs = new HashSet<>();
+    private final Set<String> supportedGnssCfs = new HashSet<>();
 
-    private Set<String> supportedSbasCfs = new HashSet<>();
+    private final Set<String> supportedSbasCfs = new HashSet<>();
 
     /**
      * A set of metadata about all satellites the device knows of
@@ -73,48 +82,72 @@ public class DeviceInfoViewModel extends AndroidViewModel {
     private MutableLiveData<SatelliteMetadata> mSatelliteMetadata = new MutableLiveData<>();
 
     /**
-     * Map of status keys (created using SatelliteUtils.createGnssStatusKey()) to the status that
+     * Map of signal keys (created using SatelliteKey.signal()) to the status that
      * has been detected as having duplicate carrier frequency data with another signal
      */
-    private Map<String, SatelliteStatus> mDuplicateCarrierStatuses = new HashMap<>();
+    private final LongObjectMap<SatelliteStatus> mDuplicateCarrierStatuses = new LongObjectMap<>();
 
     /**
-     * Map of status keys (created using SatelliteUtils.createGnssStatusKey()) to the status that
+     * Map of signal keys (created using SatelliteKey.signal()) to the status that
      * has been detected with an unknown GNSS frequency
      */
-    private Map<String, SatelliteStatus> mUnknownCarrierStatuses = new HashMap<>();
+    private final LongObjectMap<SatelliteStatus> mUnknownCarrierStatuses = new LongObjectMap<>();
+
+    private final CapabilityRegistry mCapabilities;
 
     public DeviceInfoViewModel(@NonNull Application application) {
         super(application);
+        mCapabilities = com.android.gpstest.Application.getCapabilities();
     }
 
-    public MutableLiveData<Map<String, Satellite>> getGnssSatellites() {
+    /**
+     * Returns the GNSS capabilities that have been observed on this device, such as support for raw
+     * measurements, which are updated by GpsTestActivity
+     *
+     * @return the GNSS capabilities that have been observed on this device
+     */
+    public CapabilityRegistry getCapabilities() {
+        return mCapabilities;
+    }
+
+    public MutableLiveData<LongObjectMap<Satellite>> getGnssSatellites() {
         return mGnssSatellites;
     }
 
-    public MutableLiveData<Map<String, Satellite>> getSbasSatellites() {
+    public MutableLiveData<LongObjectMap<Satellite>> getSbasSatellites() {
         return mSbasSatellites;
     }
 
     /**
-     * Returns a map of status keys (created using SatelliteUtils.createGnssStatusKey()) to the status that
+     * Returns the satellites that were added, changed or removed by the last call to
+     * {@link #setStatuses(List, List)}. The same instance is set for each call, so observers
+     * should only read it when notified.
+     *
+     * @return the satellites that were added, changed or removed by the last set of statuses
+     */
+    public MutableLiveData<SatelliteChanges> getSatelliteChanges() {
+        return mSatelliteChanges;
+    }
+
+    /**
+     * Returns a map of signal keys (created using SatelliteKey.signal()) to the status that
      * has been detected as having duplicate carrier frequency data with another signal
      *
-     * @return a map of status keys (created using SatelliteUtils.createGnssStatusKey()) to the status that
+     * @return a map of signal keys (created using SatelliteKey.signal()) to the status that
      * has been detected as having duplicate carrier frequency data with another signal
      */
-    public Map<String, SatelliteStatus> getDuplicateCarrierStatuses() {
+    public LongObjectMap<SatelliteStatus> getDuplicateCarrierStatuses() {
         return mDuplicateCarrierStatuses;
     }
 
     /**
-     * Returns a map of status keys (created using SatelliteUtils.createGnssStatusKey()) to the status that
+     * Returns a map of signal keys (created using SatelliteKey.signal()) to the status that
      * has been detected with an unknown GNSS frequency
      *
-     * @return a map of status keys (created using SatelliteUtils.createGnssStatusKey()) to the status that
+     * @return a map of signal keys (created using SatelliteKey.signal()) to the status that
      * has been detected with an unknown GNSS frequency
      */
-    public Map<String, SatelliteStatus> getUnknownCarrierStatuses() {
+    public LongObjectMap<SatelliteStatus> getUnknownCarrierStatuses() {
         return mUnknownCarrierStatuses;
     }
 
@@ -217,154 +250,88 @@ public class DeviceInfoViewModel extends AndroidViewModel {
 
     /**
      * Adds a new set of GNSS and SBAS status objects (signals) so they can be analyzed and grouped
-     * into satellites
+     * into satellites. Each set is compared with the previous one, so only the satellites that
+     * changed are updated and listed in {@link #getSatelliteChanges()} - call {@link #reset()} to
+     * start over with no satellites.
      *
      * @param gnssStatuses a new set of GNSS status objects (signals)
      * @param sbasStatuses a new set of SBAS status objects (signals)
      */
     public void setStatuses(List<SatelliteStatus> gnssStatuses, List<SatelliteStatus> sbasStatuses) {
-        ConstellationFamily gnssSatellites = getSatellitesFromStatuses(gnssStatuses);
-        ConstellationFamily sbasSatellites = getSatellitesFromStatuses(sbasStatuses);
-
-        mGnssSatellites.setValue(gnssSatellites.getSatellites());
-        mSbasSatellites.setValue(sbasSatellites.getSatellites());
-
-        int numSignalsUsed = gnssSatellites.getSatelliteMetadata().getNumSignalsUsed() + sbasSatellites.getSatelliteMetadata().getNumSignalsUsed();
-        int numSignalsInView = gnssSatellites.getSatelliteMetadata().getNumSignalsInView() + sbasSatellites.getSatelliteMetadata().getNumSignalsInView();
-        int numSignalsTotal = gnssSatellites.getSatelliteMetadata().getNumSignalsTotal() + sbasSatellites.getSatelliteMetadata().getNumSignalsTotal();
-
+        mChanges.clear();
+        mGnssTracker.update(gnssStatuses, mChanges);
+        mSbasTracker.update(sbasStatuses, mChanges);
+
+        // The maps are updated in place, but are set again so observers see the new epoch
+        mGnssSatellites.setValue(mGnssTracker.getSatellites());
+        mSbasSatellites.setValue(mSbasTracker.getSatellites());
+        mSatelliteChanges.setValue(mChanges);
+
+        mDuplicateCarrierStatuses.clear();
+        mUnknownCarrierStatuses.clear();
+        putAll(mGnssTracker.getDuplicateCarrierStatuses(), mDuplicateCarrierStatuses);
+        putAll(mSbasTracker.getDuplicateCarrierStatuses(), mDuplicateCarrierStatuses);
+        putAll(mGnssTracker.getUnknownCarrierStatuses(), mUnknownCarrierStatuses);
+        putAll(mSbasTracker.getUnknownCarrierStatuses(), mUnknownCarrierStatuses);
+
+        for (GnssType type : GNSS_TYPES) {
+            updateSupported(supportedGnss, type, mGnssTracker.getSignalCount(type) + mSbasTracker.getSignalCount(type));
+        }
+        for (SbasType type : SBAS_TYPES) {
+            updateSupported(supportedSbas, type, mGnssTracker.getSignalCount(type) + mSbasTracker.getSignalCount(type));
+        }
+        for (CarrierBand band : CARRIER_BANDS) {
+            updateSupported(supportedGnssCfs, band.getLabel(), mGnssTracker.getGnssSignalCount(band) + mSbasTracker.getGnssSignalCount(band));
+            updateSupported(supportedSbasCfs, band.getLabel(), mGnssTracker.getSbasSignalCount(band) + mSbasTracker.getSbasSignalCount(band));
+        }
 
-        int numSatsUsed = gnssSatellites.getSatelliteMetadata().getNumSatsUsed() + sbasSatellites.getSatelliteMetadata().getNumSatsUsed();
-        int numSatsInView = gnssSatellites.getSatelliteMetadata().getNumSatsInView() + sbasSatellites.getSatelliteMetadata().getNumSatsInView();
-        int numSatsTotal = gnssSatellites.getSatelliteMetadata().getNumSatsTotal() + sbasSatellites.getSatelliteMetadata().getNumSatsTotal();
-        mSatelliteMetadata.setValue(new SatelliteMetadata(numSignalsInView, numSignalsUsed, numSignalsTotal, numSatsInView, numSatsUsed, numSatsTotal));
+        mIsDualFrequencyPerSatInView = mGnssTracker.isDualFrequencyPerSatInView() || mSbasTracker.isDualFrequencyPerSatInView();
+        mIsDualFrequencyPerSatInUse = mGnssTracker.isDualFrequencyPerSatInUse() || mSbasTracker.isDualFrequencyPerSatInUse();
+        mIsNonPrimaryCarrierFreqInView = mGnssTracker.isNonPrimaryCarrierFreqInView() || mSbasTracker.isNonPrimaryCarrierFreqInView();
+        mIsNonPrimaryCarrierFreqInUse = mGnssTracker.isNonPrimaryCarrierFreqInUse() || mSbasTracker.isNonPrimaryCarrierFreqInUse();
+
+        int numSignalsUsed = mGnssTracker.getNumSignalsUsed() + mSbasTracker.getNumSignalsUsed();
+        int numSignalsInView = mGnssTracker.getNumSignalsInView() + mSbasTracker.getNumSignalsInView();
+        int numSignalsTotal = mGnssTracker.getNumSignalsTotal() + mSbasTracker.getNumSignalsTotal();
+
+        int numSatsUsed = mGnssTracker.getNumSatsUsed() + mSbasTracker.getNumSatsUsed();
+        int numSatsInView = mGnssTracker.getNumSatsInView() + mSbasTracker.getNumSatsInView();
+        int numSatsTotal = mGnssTracker.getNumSatsTotal() + mSbasTracker.getNumSatsTotal();
+        SatelliteMetadata metadata = new SatelliteMetadata(numSignalsInView, numSignalsUsed, numSignalsTotal, numSatsInView, numSatsUsed, numSatsTotal);
+        // Only notify observers of the metadata if the counts changed
+        if (!metadata.equals(mSatelliteMetadata.getValue())) {
+            mSatelliteMetadata.setValue(metadata);
+        }
     }
 
-    /**
-     * Returns a map with the provided status grouped into satellites
-     * @param allStatuses all statuses for either all GNSS or SBAS constellations
-     * @return a map with the provided status grouped into satellites. The key to the map is the combination of constellation and ID
-     * created using SatelliteUtils.createGnssSatelliteKey().
-     */
-    private ConstellationFamily getSatellitesFromStatuses(List<SatelliteStatus> allStatuses) {
-        Map<String, Satellite> satellites = new HashMap<>();
-        int numSignalsUsed = 0;
-        int numSignalsInView = 0;
-        int numSatsUsed = 0;
-        int numSatsInView = 0;
-
-        if (allStatuses == null) {
-            return new ConstellationFamily(satellites, new SatelliteMetadata(0, 0, 0, 0, 0, 0));
+    private static <T> void updateSupported(Set<T> supported, T value, int count) {
+        if (count > 0) {
+            supported.add(value);
+        } else {
+            supported.remove(value);
         }
+    }
 
-        for (SatelliteStatus s : allStatuses) {
-            if (s.getUsedInFix()) {
-                numSignalsUsed++;
-            }
-            if (s.getCn0DbHz() != NO_DATA) {
-                numSignalsInView++;
-            }
-
-            // Save the supported GNSS or SBAS type
-            String key = SatelliteUtils.createGnssSatelliteKey(s);
-            if (s.getGnssType() != GnssType.UNKNOWN) {
-                if (s.getGnssType() != GnssType.SBAS) {
-                    supportedGnss.add(s.getGnssType());
-                } else {
-                    if (s.getSbasType() != SbasType.UNKNOWN) {
-                        supportedSbas.add(s.getSbasType());
-                    }
-                }
-            }
-
-            // Get carrier label
-            String carrierLabel = CarrierFreqUtils.getCarrierFrequencyLabel(s);
-            if (carrierLabel.equals(CF_UNKNOWN)) {
-                mUnknownCarrierStatuses.put(SatelliteUtils.createGnssStatusKey(s), s);
-            }
-            if (!carrierLabel.equals(CF_UNKNOWN) && !carrierLabel.equals(CF_UNSUPPORTED)) {
-                // Save the supported GNSS or SBAS CF
-                if (s.getGnssType() != GnssType.UNKNOWN) {
-                    if (s.getGnssType() != GnssType.SBAS) {
-                        supportedGnssCfs.add(carrierLabel);
-                    } else {
-                        if (s.getSbasType() != SbasType.UNKNOWN) {
-                            supportedSbasCfs.add(carrierLabel);
-                        }
-                    }
-                }
-                // Check if this is a non-primary carrier frequency
-                if (!CarrierFreqUtils.isPrimaryCarrier(carrierLabel)) {
-                    mIsNonPrimaryCarrierFreqInView = true;
-                    if (s.getUsedInFix()) {
-                        mIsNonPrimaryCarrierFreqInUse = true;
-                    }
-                }
-            }
-
-            Map<String, SatelliteStatus> satStatuses;
-            if (!satellites.containsKey(key)) {
-                // Create new satellite and add signal
-                satStatuses = new HashMap<>();
-                satStatuses.put(carrierLabel, s);
-                Satellite sat = new Satellite(key, satStatuses);
-                satellites.put(key, sat);
-                if (s.getUsedInFix()) {
-                    numSatsUsed++;
-                }
-                if (s.getCn0DbHz() != NO_DATA) {
-                    numSatsInView++;
-                }
-            } else {
-                // Add signal to existing satellite
-                Satellite sat = satellites.get(key);
-                satStatuses = sat.getStatus();
-                if (!satStatuses.containsKey(carrierLabel)) {
-                    // We found another frequency for this satellite
-                    satStatuses.put(carrierLabel, s);
-                    int frequenciesInUse = 0;
-                    int frequenciesInView = 0;
-                    for (SatelliteStatus satelliteStatus : satStatuses.values()) {
-                        if (satelliteStatus.getUsedInFix()) {
-                            frequenciesInUse++;
-                        }
-                        if (satelliteStatus.getCn0DbHz() != NO_DATA) {
-                            frequenciesInView++;
-                        }
-                    }
-                    if (frequenciesInUse > 1) {
-                        mIsDualFrequencyPerSatInUse = true;
-                    }
-                    if (frequenciesInUse == 1 && s.getUsedInFix()) {
-                        // The new frequency we just added was the first in use for this satellite
-                        numSatsUsed++;
-                    }
-                    if (frequenciesInView > 1) {
-                        mIsDualFrequencyPerSatInView = true;
-                    }
-                    if (frequenciesInView == 1 && s.getCn0DbHz() != NO_DATA) {
-                        // The new frequency we just added was the first in view for this satellite
-                        numSatsInView++;
-                    }
-                } else {
-                    // This shouldn't happen - we found a satellite signal with the same constellation, sat ID, and carrier frequency (including multiple "unknown" or "unsupported" frequencies) as an existing one
-                    mDuplicateCarrierStatuses.put(SatelliteUtils.createGnssStatusKey(s), s);
-                }
-            }
+    private static void putAll(LongObjectMap<SatelliteStatus> from, LongObjectMap<SatelliteStatus> to) {
+        for (int i = 0; i < from.size(); i++) {
+            to.put(from.keyAt(i), from.valueAt(i));
         }
-        return new ConstellationFamily(satellites, new SatelliteMetadata(numSignalsInView, numSignalsUsed, allStatuses.size(), numSatsInView, numSatsUsed, satellites.size()));
     }
 
     public void reset() {
+        mGnssTracker.clear();
+        mSbasTracker.clear();
+        mChanges.clear();
         mGnssSatellites.setValue(null);
         mSbasSatellites.setValue(null);
+        mSatelliteChanges.setValue(null);
         mSatelliteMetadata.setValue(null);
-        mDuplicateCarrierStatuses = new HashMap<>();
-        mUnknownCarrierStatuses = new HashMap<>();
-        supportedGnss = new HashSet<>();
-        supportedSbas = new HashSet<>();
-        supportedGnssCfs = new HashSet<>();
-        supportedSbasCfs = new HashSet<>();
+        mDuplicateCarrierStatuses.clear();
+        mUnknownCarrierStatuses.clear();
+        supportedGnss.clear();
+        supportedSbas.clear();
+        supportedGnssCfs.clear();
+        supportedSbasCfs.clear();
         mIsDualFrequencyPerSatInView = false;
         mIsDualFrequencyPerSatInUse = false;
         mIsNonPrimaryCarrierFreqInView = false;
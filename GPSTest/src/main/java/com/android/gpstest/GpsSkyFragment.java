@@ -21,7 +21,6 @@ import android.graphics.Color;
 import android.graphics.drawable.GradientDrawable;
 import android.graphics.drawable.LayerDrawable;
 import android.location.GnssMeasurementsEvent;
-import android.location.GnssStatus;
 import android.location.GpsStatus;
 import android.location.Location;
 import android.os.Build;
@@ -40,6 +39,8 @@ import androidx.core.content.ContextCompat;
 import androidx.fragment.app.Fragment;
 import androidx.interpolator.view.animation.FastOutSlowInInterpolator;
 
+import com.android.gpstest.model.SatelliteSnapshot;
+import com.android.gpstest.nmea.NmeaEpoch;
 import com.android.gpstest.util.MathUtils;
 import com.android.gpstest.util.UIUtils;
 import com.android.gpstest.view.GpsSkyView;
@@ -146,10 +147,9 @@ public class GpsSkyFragment extends Fragment implements GpsTestListener {
         showLostFix();
     }
 
-    @RequiresApi(api = Build.VERSION_CODES.N)
     @Override
-    public void onSatelliteStatusChanged(GnssStatus status) {
-        mSkyView.setGnssStatus(status);
+    public void onSatelliteStatusChanged(SatelliteSnapshot snapshot) {
+        mSkyView.setSnapshot(snapshot);
         mUseLegacyGnssApi = false;
         updateSnrCn0AvgMeterText();
         updateSnrCn0Avgs();
@@ -207,7 +207,7 @@ public class GpsSkyFragment extends Fragment implements GpsTestListener {
     }
 
     @Override
-    public void onNmeaMessage(String message, long timestamp) {
+    public void onNmeaEpoch(NmeaEpoch epoch) {
     }
 
     /**
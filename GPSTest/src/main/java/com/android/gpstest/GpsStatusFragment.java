@@ -26,7 +26,6 @@ import android.content.res.Resources;
 import android.graphics.Typeface;
 import android.graphics.drawable.Drawable;
 import android.location.GnssMeasurementsEvent;
-import android.location.GnssStatus;
 import android.location.GpsSatellite;
 import android.location.GpsStatus;
 import android.location.Location;
@@ -59,19 +58,20 @@ import androidx.lifecycle.ViewModelProviders;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
+import com.android.gpstest.model.CarrierBand;
 import com.android.gpstest.model.ConstellationType;
-import com.android.gpstest.model.DilutionOfPrecision;
 import com.android.gpstest.model.GnssType;
 import com.android.gpstest.model.SatelliteMetadata;
+import com.android.gpstest.model.SatelliteSnapshot;
 import com.android.gpstest.model.SatelliteStatus;
-import com.android.gpstest.util.CarrierFreqUtils;
+import com.android.gpstest.model.SbasType;
+import com.android.gpstest.nmea.NmeaEpoch;
 import com.android.gpstest.util.DateTimeUtils;
 import com.android.gpstest.util.IOUtils;
 import com.android.gpstest.util.MathUtils;
-import com.android.gpstest.util.NmeaUtils;
 import com.android.gpstest.util.PreferenceUtils;
+import com.android.gpstest.util.SatelliteSorter;
 import com.android.gpstest.util.SatelliteUtils;
-import com.android.gpstest.util.SortUtil;
 import com.android.gpstest.util.UIUtils;
 
 import java.text.SimpleDateFormat;
@@ -86,7 +86,6 @@ import static android.util.TypedValue.COMPLEX_UNIT_PX;
 import static com.android.gpstest.model.ConstellationType.GNSS;
 import static com.android.gpstest.model.ConstellationType.SBAS;
 import static com.android.gpstest.model.SatelliteStatus.NO_DATA;
-import static com.android.gpstest.util.CarrierFreqUtils.CF_UNKNOWN;
 
 public class GpsStatusFragment extends Fragment implements GpsTestListener {
 
@@ -132,6 +131,15 @@ public class GpsStatusFragment extends Fragment implements GpsTestListener {
 
     private List<SatelliteStatus> mSbasStatus = new ArrayList<>();
 
+    // Statuses that are re-used for the signals of each epoch, so tracking satellites doesn't
+    // allocate a status per signal
+    private final List<SatelliteStatus> mStatusPool = new ArrayList<>();
+
+    private final SatelliteSorter mSorter = new SatelliteSorter();
+
+    // Index in R.array.sort_sats, read from preferences in onResume() rather than for each epoch
+    private int mSortBy;
+
     private int svCount;
 
     private int svVisibleCount;
@@ -417,6 +425,7 @@ public class GpsStatusFragment extends Fragment implements GpsTestListener {
         setStarted(gta.mStarted);
 
         setupUnitPreferences();
+        mSortBy = PreferenceUtils.getSatSortOrderFromPreferences();
     }
 
     @Override
@@ -587,10 +596,9 @@ public class GpsStatusFragment extends Fragment implements GpsTestListener {
         showLostFix();
     }
 
-    @RequiresApi(api = Build.VERSION_CODES.N)
     @Override
-    public void onSatelliteStatusChanged(GnssStatus status) {
-        updateGnssStatus(status);
+    public void onSatelliteStatusChanged(SatelliteSnapshot snapshot) {
+        updateGnssStatus(snapshot);
     }
 
     @Override
@@ -614,30 +622,26 @@ public class GpsStatusFragment extends Fragment implements GpsTestListener {
     }
 
     @Override
-    public void onNmeaMessage(String message, long timestamp) {
-        if (!isAdded()) {
-            // Do nothing if the Fragment isn't added
+    public void onNmeaEpoch(NmeaEpoch epoch) {
+        // Views are updated once per epoch rather than for each NMEA sentence
+        if (!isAdded() || !mNavigating) {
             return;
         }
-        if (message.startsWith("$GPGGA") || message.startsWith("$GNGNS") || message.startsWith("$GNGGA")) {
-            Double altitudeMsl = NmeaUtils.getAltitudeMeanSeaLevel(message);
-            if (altitudeMsl != null && mNavigating) {
-                if (mPrefDistanceUnits.equalsIgnoreCase(METERS)) {
-                    mAltitudeMslView.setText(mRes.getString(R.string.gps_altitude_msl_value_meters, altitudeMsl));
-                } else {
-                    mAltitudeMslView.setText(mRes.getString(R.string.gps_altitude_msl_value_feet, UIUtils.toFeet(altitudeMsl)));
-                }
+        double altitudeMsl = epoch.getAltitudeMsl();
+        if (!Double.isNaN(altitudeMsl)) {
+            if (mPrefDistanceUnits.equalsIgnoreCase(METERS)) {
+                mAltitudeMslView.setText(mRes.getString(R.string.gps_altitude_msl_value_meters, altitudeMsl));
+            } else {
+                mAltitudeMslView.setText(mRes.getString(R.string.gps_altitude_msl_value_feet, UIUtils.toFeet(altitudeMsl)));
             }
         }
-        if (message.startsWith("$GNGSA") || message.startsWith("$GPGSA")) {
-            DilutionOfPrecision dop = NmeaUtils.getDop(message);
-            if (dop != null && mNavigating) {
-                showDopViews();
-                mPdopView.setText(mRes.getString(R.string.pdop_value, dop.getPositionDop()));
-                mHvdopView.setText(
-                        mRes.getString(R.string.hvdop_value, dop.getHorizontalDop(),
-                                dop.getVerticalDop()));
-            }
+        if (!Double.isNaN(epoch.getPdop()) && !Double.isNaN(epoch.getHdop())
+                && !Double.isNaN(epoch.getVdop())) {
+            showDopViews();
+            mPdopView.setText(mRes.getString(R.string.pdop_value, epoch.getPdop()));
+            mHvdopView.setText(
+                    mRes.getString(R.string.hvdop_value, epoch.getHdop(),
+                            epoch.getVdop()));
         }
     }
 
@@ -648,8 +652,7 @@ public class GpsStatusFragment extends Fragment implements GpsTestListener {
         mHvdopView.setVisibility(View.VISIBLE);
     }
 
-    @RequiresApi(api = Build.VERSION_CODES.N)
-    private void updateGnssStatus(GnssStatus status) {
+    private void updateGnssStatus(SatelliteSnapshot snapshot) {
         mUseLegacyGnssApi = false;
         setStarted(true);
         updateFixTime();
@@ -661,29 +664,16 @@ public class GpsStatusFragment extends Fragment implements GpsTestListener {
 
         mSnrCn0Title = mRes.getString(R.string.gps_cn0_column_label);
 
-        final int length = status.getSatelliteCount();
+        final int length = snapshot.getCount();
         svCount = 0;
         svVisibleCount = 0;
         mGnssStatus.clear();
         mSbasStatus.clear();
-        mViewModel.reset();
         Set<GnssType> filter = PreferenceUtils.getGnssFilter();
         while (svCount < length) {
-            SatelliteStatus satStatus = new SatelliteStatus(status.getSvid(svCount), SatelliteUtils.getGnssConstellationType(status.getConstellationType(svCount)),
-                    status.getCn0DbHz(svCount),
-                    status.hasAlmanacData(svCount),
-                    status.hasEphemerisData(svCount),
-                    status.usedInFix(svCount),
-                    status.getElevationDegrees(svCount),
-                    status.getAzimuthDegrees(svCount));
-            if (SatelliteUtils.isGnssCarrierFrequenciesSupported()) {
-                if (status.hasCarrierFrequencyHz(svCount)) {
-                    satStatus.setHasCarrierFrequency(true);
-                    satStatus.setCarrierFrequencyHz(status.getCarrierFrequencyHz(svCount));
-                }
-            }
-
-            if (filter.isEmpty() || filter.contains(satStatus.getGnssType())) {
+            if (filter.isEmpty() || filter.contains(snapshot.getGnssType(svCount))) {
+                SatelliteStatus satStatus = obtainStatus(svVisibleCount);
+                snapshot.copyTo(svCount, satStatus);
                 svVisibleCount++;
                 if (satStatus.getGnssType() == GnssType.SBAS) {
                     satStatus.setSbasType(SatelliteUtils.getSbasConstellationType(satStatus.getSvid()));
@@ -718,20 +708,24 @@ public class GpsStatusFragment extends Fragment implements GpsTestListener {
         svVisibleCount = 0;
         mGnssStatus.clear();
         mSbasStatus.clear();
-        mViewModel.reset();
         Set<GnssType> filter = PreferenceUtils.getGnssFilter();
         while (satellites.hasNext()) {
             GpsSatellite satellite = satellites.next();
-
-            SatelliteStatus satStatus = new SatelliteStatus(satellite.getPrn(), SatelliteUtils.getGnssType(satellite.getPrn()),
-                    satellite.getSnr(),
-                    satellite.hasAlmanac(),
-                    satellite.hasEphemeris(),
-                    satellite.usedInFix(),
-                    satellite.getElevation(),
-                    satellite.getAzimuth());
-
-            if (filter.isEmpty() || filter.contains(satStatus.getGnssType())) {
+            GnssType gnssType = SatelliteUtils.getGnssType(satellite.getPrn());
+
+            if (filter.isEmpty() || filter.contains(gnssType)) {
+                SatelliteStatus satStatus = obtainStatus(svVisibleCount);
+                satStatus.setSvid(satellite.getPrn());
+                satStatus.setGnssType(gnssType);
+                satStatus.setCn0DbHz(satellite.getSnr());
+                satStatus.setHasAlmanac(satellite.hasAlmanac());
+                satStatus.setHasEphemeris(satellite.hasEphemeris());
+                satStatus.setUsedInFix(satellite.usedInFix());
+                satStatus.setElevationDegrees(satellite.getElevation());
+                satStatus.setAzimuthDegrees(satellite.getAzimuth());
+                satStatus.setSbasType(SbasType.UNKNOWN);
+                satStatus.setHasCarrierFrequency(false);
+                satStatus.setCarrierFrequencyHz(SatelliteStatus.NO_DATA);
                 svVisibleCount++;
                 if (satStatus.getGnssType() == GnssType.SBAS) {
                     satStatus.setSbasType(SatelliteUtils.getSbasConstellationTypeLegacy(satStatus.getSvid()));
@@ -748,6 +742,18 @@ public class GpsStatusFragment extends Fragment implements GpsTestListener {
         refreshViews();
     }
 
+    /**
+     * Returns the pooled status at the index, creating it if the pool is too small. The status
+     * still has the values of a previous epoch, which should all be replaced.
+     */
+    private SatelliteStatus obtainStatus(int index) {
+        if (index == mStatusPool.size()) {
+            mStatusPool.add(new SatelliteStatus(0, GnssType.UNKNOWN, SatelliteStatus.NO_DATA,
+                    false, false, false, SatelliteStatus.NO_DATA, SatelliteStatus.NO_DATA));
+        }
+        return mStatusPool.get(index);
+    }
+
     private void refreshViews() {
         sortLists();
         updateFilterView();
@@ -758,45 +764,9 @@ public class GpsStatusFragment extends Fragment implements GpsTestListener {
     }
 
     private void sortLists() {
-        final int sortBy = PreferenceUtils.getSatSortOrderFromPreferences();
-        // Below switch statement order must match arrays.xml sort_sats order
-        switch (sortBy) {
-            case 0:
-                // Sort by Constellation
-                mGnssStatus = SortUtil.Companion.sortByGnssThenId(mGnssStatus);
-                mSbasStatus = SortUtil.Companion.sortBySbasThenId(mSbasStatus);
-                break;
-            case 1:
-                // Sort by Carrier Frequency
-                mGnssStatus = SortUtil.Companion.sortByCarrierFrequencyThenId(mGnssStatus);
-                mSbasStatus = SortUtil.Companion.sortByCarrierFrequencyThenId(mSbasStatus);
-                break;
-            case 2:
-                // Sort by Signal Strength
-                mGnssStatus = SortUtil.Companion.sortByCn0(mGnssStatus);
-                mSbasStatus = SortUtil.Companion.sortByCn0(mSbasStatus);
-                break;
-            case 3:
-                // Sort by Used in Fix
-                mGnssStatus = SortUtil.Companion.sortByUsedThenId(mGnssStatus);
-                mSbasStatus = SortUtil.Companion.sortByUsedThenId(mSbasStatus);
-                break;
-            case 4:
-                // Sort by Constellation, Carrier Frequency
-                mGnssStatus = SortUtil.Companion.sortByGnssThenCarrierFrequencyThenId(mGnssStatus);
-                mSbasStatus = SortUtil.Companion.sortBySbasThenCarrierFrequencyThenId(mSbasStatus);
-                break;
-            case 5:
-                // Sort by Constellation, Signal Strength
-                mGnssStatus = SortUtil.Companion.sortByGnssThenCn0ThenId(mGnssStatus);
-                mSbasStatus = SortUtil.Companion.sortBySbasThenCn0ThenId(mSbasStatus);
-                break;
-            case 6:
-                // Sort by Constellation, Used in Fix
-                mGnssStatus = SortUtil.Companion.sortByGnssThenUsedThenId(mGnssStatus);
-                mSbasStatus = SortUtil.Companion.sortBySbasThenUsedThenId(mSbasStatus);
-                break;
-        }
+        // The lists are sorted in place, as they hold the pooled statuses of this epoch
+        mSorter.sort(mGnssStatus, mSortBy, false);
+        mSorter.sort(mSbasStatus, mSortBy, true);
     }
 
     private void updateFilterView() {
@@ -852,9 +822,7 @@ public class GpsStatusFragment extends Fragment implements GpsTestListener {
         AlertDialog.Builder builder = new AlertDialog.Builder(getActivity());
         builder.setTitle(R.string.menu_option_sort_by);
 
-        final int currentSatOrder = PreferenceUtils.getSatSortOrderFromPreferences();
-
-        builder.setSingleChoiceItems(R.array.sort_sats, currentSatOrder,
+        builder.setSingleChoiceItems(R.array.sort_sats, mSortBy,
                 (dialog, index) -> {
                     setSortByClause(index);
                     dialog.dismiss();
@@ -890,6 +858,7 @@ public class GpsStatusFragment extends Fragment implements GpsTestListener {
      * @param index the index of R.array.sort_sats that should be set
      */
     private void setSortByClause(int index) {
+        mSortBy = index;
         final String[] sortOptions = getResources().getStringArray(R.array.sort_sats);
         PreferenceUtils.saveString(getResources()
                         .getString(R.string.pref_key_default_sat_sort),
@@ -1147,13 +1116,13 @@ public class GpsStatusFragment extends Fragment implements GpsTestListener {
                 }
                 if (SatelliteUtils.isGnssCarrierFrequenciesSupported()) {
                     if (sats.get(dataRow).getHasCarrierFrequency()) {
-                        String carrierLabel = CarrierFreqUtils.getCarrierFrequencyLabel(sats.get(dataRow));
-                        if (!carrierLabel.equals(CF_UNKNOWN)) {
+                        CarrierBand band = sats.get(dataRow).getCarrierBand();
+                        if (band != CarrierBand.UNKNOWN) {
                             // Make sure it's the normal text size (in case it's previously been
                             // resized to show raw number).  Use another TextView for default text size.
                             v.getCarrierFrequency().setTextSize(COMPLEX_UNIT_PX, v.getSvId().getTextSize());
                             // Show label such as "L1"
-                            v.getCarrierFrequency().setText(carrierLabel);
+                            v.getCarrierFrequency().setText(band.getLabel());
                         } else {
                             // Shrink the size so we can show raw number
                             v.getCarrierFrequency().setTextSize(COMPLEX_UNIT_DIP, 10);
@@ -49,6 +49,7 @@ import android.net.Uri;
 import android.os.Build;
 import android.os.Bundle;
 import android.os.Handler;
+import android.os.HandlerThread;
 import android.os.Looper;
 import android.os.SystemClock;
 import android.preference.PreferenceManager;
@@ -75,11 +76,27 @@ import androidx.core.graphics.drawable.DrawableCompat;
 import androidx.core.view.GravityCompat;
 import androidx.core.view.MenuItemCompat;
 import androidx.drawerlayout.widget.DrawerLayout;
+import androidx.fragment.app.Fragment;
 import androidx.fragment.app.FragmentManager;
-
+import androidx.lifecycle.LifecycleOwner;
+
+import com.android.gpstest.event.DeliveryPolicy;
+import com.android.gpstest.event.EventBus;
+import com.android.gpstest.event.SubscriptionGroup;
+import com.android.gpstest.event.Topic;
+import com.android.gpstest.io.BaseFileLogger;
+import com.android.gpstest.io.BinaryFileLogger;
 import com.android.gpstest.io.CsvFileLogger;
+import com.android.gpstest.io.DurabilityPolicy;
 import com.android.gpstest.io.JsonFileLogger;
 import com.android.gpstest.map.MapConstants;
+import com.android.gpstest.model.Orientation;
+import com.android.gpstest.model.SatelliteSnapshotBuffer;
+import com.android.gpstest.nmea.NmeaChecksum;
+import com.android.gpstest.nmea.NmeaEpoch;
+import com.android.gpstest.nmea.NmeaEpochAssembler;
+import com.android.gpstest.nmea.NmeaRouter;
+import com.android.gpstest.nmea.NmeaSentenceCounters;
 import com.android.gpstest.util.IOUtils;
 import com.android.gpstest.util.LocationUtils;
 import com.android.gpstest.util.MathUtils;
@@ -92,8 +109,11 @@ import com.google.zxing.integration.android.IntentResult;
 
 import java.io.File;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
 
 import static com.android.gpstest.NavigationDrawerFragment.NAVDRAWER_ITEM_ACCURACY;
@@ -129,6 +149,10 @@ public class GpsTestActivity extends AppCompatActivity
     private static final String GPS_RESUME = "gps_resume";
     private static final String EXISTING_CSV_LOG_FILE = "existing_csv_log_file";
     private static final String EXISTING_JSON_LOG_FILE = "existing_json_log_file";
+    private static final String EXISTING_BINARY_LOG_FILE = "existing_binary_log_file";
+
+    // Maximum time onDestroy() waits for the GNSS thread to close the log files
+    private static final long GNSS_THREAD_STOP_TIMEOUT_MS = 2000;
 
     private static final int LOCATION_PERMISSION_REQUEST = 1;
 
@@ -178,30 +202,40 @@ public class GpsTestActivity extends AppCompatActivity
 
     private static boolean mTruncateVector = false;
 
+    // Set for each sensor event and published on Topic.ORIENTATION, instead of a new Orientation
+    private final Orientation mOrientation = new Orientation();
+
+    // Values of mOrientation copied for the listeners on the main thread
+    private final Orientation mListenerOrientation = new Orientation();
+
     boolean mStarted;
 
     boolean gpsResume = false;
 
     boolean mFaceTrueNorth;
 
-    boolean mWriteNmeaToAndroidMonitor;
+    volatile boolean mWriteNmeaToAndroidMonitor;
 
-    boolean mWriteNmeaTimestampToAndroidMonitor;
+    volatile boolean mWriteNmeaTimestampToAndroidMonitor;
 
-    boolean mWriteNavMessageToAndroidMonitor;
+    volatile boolean mWriteNavMessageToAndroidMonitor;
 
-    boolean mWriteRawMeasurementToAndroidMonitor;
+    volatile boolean mWriteRawMeasurementToAndroidMonitor;
 
-    boolean mWriteNmeaToFile;
+    volatile boolean mWriteNmeaToFile;
 
-    boolean mWriteNavMessageToFile;
+    volatile boolean mWriteNavMessageToFile;
 
-    boolean mWriteRawMeasurementsToFile;
+    volatile boolean mWriteRawMeasurementsToFile;
 
     boolean mWriteLocationToFile;
 
     boolean mWriteAntennaInfoToFile;
 
+    boolean mWriteBinaryFile;
+
+    boolean mWriteJsonFile;
+
     private Switch mSwitch;  // GPS on/off switch
 
     private LocationManager mLocationManager;
@@ -220,7 +254,8 @@ public class GpsTestActivity extends AppCompatActivity
     /**
      * Android N (7.0) and above status and listeners
      */
-    private GnssStatus mGnssStatus;
+    // Passes the satellites of each GnssStatus from the GNSS thread to the main thread
+    private final SatelliteSnapshotBuffer mSatelliteBuffer = new SatelliteSnapshotBuffer();
 
     private GnssStatus.Callback mGnssStatusListener;
 
@@ -228,6 +263,35 @@ public class GpsTestActivity extends AppCompatActivity
 
     private OnNmeaMessageListener mOnNmeaMessageListener;
 
+    // Checksum results for each NMEA talker and sentence type, written to logcat when NMEA stops
+    private final NmeaSentenceCounters mNmeaCounters = new NmeaSentenceCounters();
+
+    // Parses NMEA sentences into epochs on the GNSS thread, which are passed to the listeners
+    private final NmeaRouter mNmeaRouter = new NmeaRouter();
+
+    private final NmeaEpochAssembler mNmeaEpochAssembler = new NmeaEpochAssembler(this::onNmeaEpoch);
+
+    /**
+     * GNSS callbacks (Android N and above), file logging, and NMEA parsing run on this thread so
+     * they don't block the UI. Only the results are published to mEventBus for the listeners.
+     */
+    private HandlerThread mGnssThread;
+
+    private Handler mGnssHandler;
+
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+
+    private final Executor mMainExecutor = mMainHandler::post;
+
+    /**
+     * Frequent events (status, measurements, NMEA, location, and orientation) are passed to the
+     * listeners through this bus, so each listener only gets the events it can keep up with, and
+     * none while it's hidden. Less frequent events are passed to mGpsTestListeners directly.
+     */
+    private final EventBus mEventBus = new EventBus();
+
+    private final Map<GpsTestListener, SubscriptionGroup> mListenerSubscriptions = new HashMap<>();
+
     private GnssNavigationMessage.Callback mGnssNavMessageListener;
 
     private GnssAntennaInfo.Listener gnssAntennaInfoListener;
@@ -257,6 +321,8 @@ public class GpsTestActivity extends AppCompatActivity
 
     private JsonFileLogger jsonFileLogger;
 
+    private BinaryFileLogger binaryFileLogger;
+
     private boolean shareDialogOpen = false;
 
     private ProgressBar progressBar = null;
@@ -291,7 +357,7 @@ public class GpsTestActivity extends AppCompatActivity
 //        }
 
         mBenchmarkController = new BenchmarkControllerImpl(this, findViewById(R.id.mainlayout));
-        mGpsTestListeners.add(mBenchmarkController);
+        addListener(mBenchmarkController);
 
         // Set initial Benchmark view visibility here - we can't do it before setContentView() b/c views aren't inflated yet
         if (mAccuracyFragment != null && mCurrentNavDrawerPosition == NAVDRAWER_ITEM_ACCURACY) {
@@ -308,8 +374,19 @@ public class GpsTestActivity extends AppCompatActivity
 
         csvFileLogger = new CsvFileLogger(getApplicationContext());
         jsonFileLogger = new JsonFileLogger(getApplicationContext());
+        binaryFileLogger = new BinaryFileLogger(getApplicationContext());
+
+        mNmeaEpochAssembler.subscribeTo(mNmeaRouter);
+
+        mEventBus.subscribe(Topic.SATELLITES, buffer -> checkHaveFix(),
+                DeliveryPolicy.LATEST, mMainExecutor);
+
+        mGnssThread = new HandlerThread("GnssCallbacks");
+        mGnssThread.start();
+        mGnssHandler = new Handler(mGnssThread.getLooper());
     }
 
+
     @Override
     protected void onNewIntent(Intent intent) {
         super.onNewIntent(intent);
@@ -353,6 +430,9 @@ public class GpsTestActivity extends AppCompatActivity
          if (jsonFileLogger.isStarted() && !shareDialogOpen) {
              outState.putSerializable(EXISTING_JSON_LOG_FILE, jsonFileLogger.getFile());
          }
+         if (binaryFileLogger.isStarted() && !shareDialogOpen) {
+             outState.putSerializable(EXISTING_BINARY_LOG_FILE, binaryFileLogger.getFile());
+         }
         super.onSaveInstanceState(outState);
     }
 
@@ -389,8 +469,8 @@ public class GpsTestActivity extends AppCompatActivity
                 Log.i(TAG, "Uri: " + uri.toString());
                 final Location location = mLastLocation;
                 shareDialogOpen = true;
-                UIUtils.showShareFragmentDialog(this, location, isFileLoggingEnabled(),
-                        csvFileLogger, jsonFileLogger, uri);
+                UIUtils.showShareFragmentDialog(this, location, isFileLoggingEnabled(), uri,
+                        csvFileLogger, jsonFileLogger, binaryFileLogger);
             }
         } else {
             // See if this result was a scanned QR Code with a ground truth location
@@ -510,9 +590,20 @@ public class GpsTestActivity extends AppCompatActivity
 
         checkLocationOutput(settings);
 
+        checkBinaryFileOutput(settings);
+
+        checkFileWriterBackend(settings);
+
+        checkFileRotation(settings);
+
+        checkFileCompression(settings);
+
+        checkFileDurability(settings);
+
         Date date = new Date();
         boolean isNewCSVFile = false;
         boolean isNewJsonFile = false;
+        boolean isNewBinaryFile = false;
         if (PermissionUtils.hasGrantedFileWritePermission(this)
                 && !csvFileLogger.isStarted() && isCsvLoggingEnabled()) {
             // User has granted permissions and has chosen to log at least one data type
@@ -537,6 +628,21 @@ public class GpsTestActivity extends AppCompatActivity
             isNewJsonFile = jsonFileLogger.startLog(existingJsonFile, date);
         }
 
+        if (PermissionUtils.hasGrantedFileWritePermission(this)
+                && !binaryFileLogger.isStarted() && isBinaryLoggingEnabled()) {
+            // User has granted permissions and has chosen binary logging for at least one data type
+            File existingBinaryFile = null;
+            if (mLastSavedInstanceState != null) {
+                // See if this was an orientation change and we should continue logging to
+                // an existing file
+                existingBinaryFile = (File) mLastSavedInstanceState.getSerializable(EXISTING_BINARY_LOG_FILE);
+            }
+            isNewBinaryFile = binaryFileLogger.startLog(existingBinaryFile, date);
+            if (isNewBinaryFile) {
+                Toast.makeText(getApplicationContext(), Application.get().getString(R.string.logging_to_new_file, binaryFileLogger.getFile().getAbsolutePath()), Toast.LENGTH_LONG).show();
+            }
+        }
+
         if (csvFileLogger.isStarted() && !jsonFileLogger.isStarted()) {
             if (isNewCSVFile) {
                 // CSV logging only
@@ -555,13 +661,16 @@ public class GpsTestActivity extends AppCompatActivity
             }
         }
 
-        if (PermissionUtils.hasGrantedFileWritePermission(this) && (csvFileLogger.isStarted()|| jsonFileLogger.isStarted())) {
-            // Base directories should be the same, so we only need one of the two (whichever is logging) to clear old files
+        if (PermissionUtils.hasGrantedFileWritePermission(this) && (csvFileLogger.isStarted() || jsonFileLogger.isStarted() || binaryFileLogger.isStarted())) {
+            // Base directories should be the same, so we only need one (whichever is logging) to clear old files
             File baseDirectory = csvFileLogger.getBaseDirectory();
             if (baseDirectory == null) {
                 baseDirectory = jsonFileLogger.getBaseDirectory();
             }
-            IOUtils.deleteOldFiles(baseDirectory, csvFileLogger.getFile(), jsonFileLogger.getFile());
+            if (baseDirectory == null) {
+                baseDirectory = binaryFileLogger.getBaseDirectory();
+            }
+            IOUtils.deleteOldFiles(baseDirectory, csvFileLogger.getFile(), jsonFileLogger.getFile(), binaryFileLogger.getFile());
         }
 
         autoShowWhatsNew();
@@ -573,6 +682,9 @@ public class GpsTestActivity extends AppCompatActivity
             mSensorManager.unregisterListener(this);
         }
 
+        // Write capabilities that changed while in the foreground
+        Application.getCapabilities().flush();
+
         // Remove status and location listeners
         removeStatusListener();
         removeNmeaListener();
@@ -599,11 +711,19 @@ public class GpsTestActivity extends AppCompatActivity
     }
 
     private boolean isCsvLoggingEnabled() {
-        return mWriteNmeaToFile || mWriteRawMeasurementsToFile || mWriteNavMessageToFile || mWriteLocationToFile;
+        return !mWriteBinaryFile && !mWriteJsonFile && (mWriteNmeaToFile || mWriteRawMeasurementsToFile || mWriteNavMessageToFile || mWriteLocationToFile);
     }
 
+    private boolean isBinaryLoggingEnabled() {
+        return mWriteBinaryFile && (mWriteNmeaToFile || mWriteRawMeasurementsToFile || mWriteNavMessageToFile || mWriteLocationToFile);
+    }
+
+    /**
+     * The JSON file is also started to log only antenna info, so measurements, navigation messages,
+     * NMEA and fixes are only passed to the JSON logger if mWriteJsonFile is true
+     */
     private boolean isJsonLoggingEnabled() {
-        return mWriteAntennaInfoToFile;
+        return mWriteAntennaInfoToFile || (mWriteJsonFile && (mWriteNmeaToFile || mWriteRawMeasurementsToFile || mWriteNavMessageToFile || mWriteLocationToFile));
     }
 
     private void setupStartState(Bundle savedInstanceState) {
@@ -740,6 +860,7 @@ public class GpsTestActivity extends AppCompatActivity
         }
 
         getSupportFragmentManager().beginTransaction().show(mStatusFragment).commit();
+        setListenerHidden(mStatusFragment, false);
         setTitle(getResources().getString(R.string.gps_status_title));
     }
 
@@ -749,6 +870,9 @@ public class GpsTestActivity extends AppCompatActivity
         if (mStatusFragment != null && !mStatusFragment.isHidden()) {
             fm.beginTransaction().hide(mStatusFragment).commit();
         }
+        if (mStatusFragment != null) {
+            setListenerHidden(mStatusFragment, true);
+        }
     }
 
     private void showMapFragment() {
@@ -783,6 +907,7 @@ public class GpsTestActivity extends AppCompatActivity
         }
 
         getSupportFragmentManager().beginTransaction().show(mMapFragment).commit();
+        setListenerHidden(mMapFragment, false);
         setTitle(getResources().getString(R.string.gps_map_title));
     }
 
@@ -792,6 +917,9 @@ public class GpsTestActivity extends AppCompatActivity
         if (mMapFragment != null && !mMapFragment.isHidden()) {
             fm.beginTransaction().hide(mMapFragment).commit();
         }
+        if (mMapFragment != null) {
+            setListenerHidden(mMapFragment, true);
+        }
     }
 
     private void showSkyFragment() {
@@ -824,6 +952,7 @@ public class GpsTestActivity extends AppCompatActivity
         }
 
         getSupportFragmentManager().beginTransaction().show(mSkyFragment).commit();
+        setListenerHidden(mSkyFragment, false);
         setTitle(getResources().getString(R.string.gps_sky_title));
     }
 
@@ -833,6 +962,9 @@ public class GpsTestActivity extends AppCompatActivity
         if (mSkyFragment != null && !mSkyFragment.isHidden()) {
             fm.beginTransaction().hide(mSkyFragment).commit();
         }
+        if (mSkyFragment != null) {
+            setListenerHidden(mSkyFragment, true);
+        }
     }
 
     private void showAccuracyFragment() {
@@ -864,6 +996,7 @@ public class GpsTestActivity extends AppCompatActivity
         }
 
         getSupportFragmentManager().beginTransaction().show(mAccuracyFragment).commit();
+        setListenerHidden(mAccuracyFragment, false);
         setTitle(getResources().getString(R.string.gps_accuracy_title));
 
         if (mBenchmarkController != null) {
@@ -877,6 +1010,9 @@ public class GpsTestActivity extends AppCompatActivity
         if (mAccuracyFragment != null && !mAccuracyFragment.isHidden()) {
             fm.beginTransaction().hide(mAccuracyFragment).commit();
         }
+        if (mAccuracyFragment != null) {
+            setListenerHidden(mAccuracyFragment, true);
+        }
     }
 
     private void forcePsdsInjection() {
@@ -884,11 +1020,11 @@ public class GpsTestActivity extends AppCompatActivity
         if (success) {
             Toast.makeText(this, getString(R.string.force_psds_injection_success),
                     Toast.LENGTH_SHORT).show();
-            PreferenceUtils.saveInt(Application.get().getString(R.string.capability_key_inject_psds), PreferenceUtils.CAPABILITY_SUPPORTED);
+            Application.getCapabilities().set(Capability.INJECT_PSDS, PreferenceUtils.CAPABILITY_SUPPORTED);
         } else {
             Toast.makeText(this, getString(R.string.force_psds_injection_failure),
                     Toast.LENGTH_SHORT).show();
-            PreferenceUtils.saveInt(Application.get().getString(R.string.capability_key_inject_psds), PreferenceUtils.CAPABILITY_NOT_SUPPORTED);
+            Application.getCapabilities().set(Capability.INJECT_PSDS, PreferenceUtils.CAPABILITY_NOT_SUPPORTED);
         }
     }
 
@@ -897,11 +1033,11 @@ public class GpsTestActivity extends AppCompatActivity
         if (success) {
             Toast.makeText(this, getString(R.string.force_time_injection_success),
                     Toast.LENGTH_SHORT).show();
-            PreferenceUtils.saveInt(Application.get().getString(R.string.capability_key_inject_time), PreferenceUtils.CAPABILITY_SUPPORTED);
+            Application.getCapabilities().set(Capability.INJECT_TIME, PreferenceUtils.CAPABILITY_SUPPORTED);
         } else {
             Toast.makeText(this, getString(R.string.force_time_injection_failure),
                     Toast.LENGTH_SHORT).show();
-            PreferenceUtils.saveInt(Application.get().getString(R.string.capability_key_inject_time), PreferenceUtils.CAPABILITY_NOT_SUPPORTED);
+            Application.getCapabilities().set(Capability.INJECT_TIME, PreferenceUtils.CAPABILITY_NOT_SUPPORTED);
         }
     }
 
@@ -915,11 +1051,11 @@ public class GpsTestActivity extends AppCompatActivity
         if (success) {
             Toast.makeText(this, getString(R.string.delete_aiding_data_success),
                     Toast.LENGTH_SHORT).show();
-            PreferenceUtils.saveInt(Application.get().getString(R.string.capability_key_delete_assist), PreferenceUtils.CAPABILITY_SUPPORTED);
+            Application.getCapabilities().set(Capability.DELETE_ASSIST, PreferenceUtils.CAPABILITY_SUPPORTED);
         } else {
             Toast.makeText(this, getString(R.string.delete_aiding_data_failure),
                     Toast.LENGTH_SHORT).show();
-            PreferenceUtils.saveInt(Application.get().getString(R.string.capability_key_delete_assist), PreferenceUtils.CAPABILITY_NOT_SUPPORTED);
+            Application.getCapabilities().set(Capability.DELETE_ASSIST, PreferenceUtils.CAPABILITY_NOT_SUPPORTED);
         }
 
         if (lastStartState) {
@@ -955,7 +1091,47 @@ public class GpsTestActivity extends AppCompatActivity
     }
 
     void addListener(GpsTestListener listener) {
+        if (mListenerSubscriptions.containsKey(listener)) {
+            // Already added when a previous view was created
+            return;
+        }
         mGpsTestListeners.add(listener);
+
+        SubscriptionGroup group = new SubscriptionGroup(mEventBus);
+        group.add(mEventBus.subscribe(Topic.SATELLITES,
+                buffer -> listener.onSatelliteStatusChanged(buffer.getFront()),
+                DeliveryPolicy.LATEST, mMainExecutor));
+        group.add(mEventBus.subscribe(Topic.GNSS_MEASUREMENTS,
+                listener::onGnssMeasurementsReceived, DeliveryPolicy.LATEST, mMainExecutor));
+        group.add(mEventBus.subscribe(Topic.NMEA_EPOCH,
+                listener::onNmeaEpoch, DeliveryPolicy.LATEST, mMainExecutor));
+        // Each location is drawn on the map or added to the Accuracy stats, so they are queued
+        group.add(mEventBus.subscribe(Topic.LOCATION,
+                listener::onLocationChanged, DeliveryPolicy.QUEUE, mMainExecutor));
+        group.add(mEventBus.subscribe(Topic.ORIENTATION, orientation -> {
+                    // Read both values from the same sensor event
+                    mListenerOrientation.set(orientation);
+                    listener.onOrientationChanged(mListenerOrientation.getOrientation(),
+                            mListenerOrientation.getTilt());
+                }, DeliveryPolicy.LATEST, mMainExecutor));
+        mListenerSubscriptions.put(listener, group);
+
+        if (listener instanceof Fragment) {
+            group.setHidden(((Fragment) listener).isHidden());
+        }
+        if (listener instanceof LifecycleOwner) {
+            ((LifecycleOwner) listener).getLifecycle().addObserver(group);
+        }
+    }
+
+    /**
+     * Pauses or resumes the events from the bus to a listener that has been hidden or shown
+     */
+    private void setListenerHidden(GpsTestListener listener, boolean hidden) {
+        SubscriptionGroup group = mListenerSubscriptions.get(listener);
+        if (group != null) {
+            group.setHidden(hidden);
+        }
     }
 
     @SuppressLint("MissingPermission")
@@ -1063,39 +1239,43 @@ public class GpsTestActivity extends AppCompatActivity
         mGnssStatusListener = new GnssStatus.Callback() {
             @Override
             public void onStarted() {
-                for (GpsTestListener listener : mGpsTestListeners) {
-                    listener.onGnssStarted();
-                }
+                mMainHandler.post(() -> {
+                    for (GpsTestListener listener : mGpsTestListeners) {
+                        listener.onGnssStarted();
+                    }
+                });
             }
 
             @Override
             public void onStopped() {
-                for (GpsTestListener listener : mGpsTestListeners) {
-                    listener.onGnssStopped();
-                }
+                mMainHandler.post(() -> {
+                    for (GpsTestListener listener : mGpsTestListeners) {
+                        listener.onGnssStopped();
+                    }
+                });
             }
 
             @Override
             public void onFirstFix(int ttffMillis) {
-                hideProgressBar();
-                for (GpsTestListener listener : mGpsTestListeners) {
-                    listener.onGnssFirstFix(ttffMillis);
-                    listener.onGnssFixAcquired();
-                }
+                mMainHandler.post(() -> {
+                    hideProgressBar();
+                    for (GpsTestListener listener : mGpsTestListeners) {
+                        listener.onGnssFirstFix(ttffMillis);
+                        listener.onGnssFixAcquired();
+                    }
+                });
             }
 
             @Override
             public void onSatelliteStatusChanged(GnssStatus status) {
-                mGnssStatus = status;
-
-                checkHaveFix();
-
-                for (GpsTestListener listener : mGpsTestListeners) {
-                    listener.onSatelliteStatusChanged(mGnssStatus);
-                }
+                // Decode the satellites once here, off the main thread, into a re-used snapshot
+                // that all listeners share
+                mSatelliteBuffer.getBack().setFrom(status);
+                mSatelliteBuffer.publish();
+                mEventBus.publish(Topic.SATELLITES, mSatelliteBuffer);
             }
         };
-        mLocationManager.registerGnssStatusCallback(mGnssStatusListener);
+        mLocationManager.registerGnssStatusCallback(mGnssStatusListener, mGnssHandler);
     }
 
     private void checkHaveFix() {
@@ -1136,9 +1316,9 @@ public class GpsTestActivity extends AppCompatActivity
         }
         if (!SatelliteUtils.isGnssStatusListenerSupported()) {
             // Record capabilities that aren't supported related to raw measurements
-            PreferenceUtils.saveInt(Application.get().getString(R.string.capability_key_raw_measurements), PreferenceUtils.CAPABILITY_NOT_SUPPORTED);
-            PreferenceUtils.saveInt(Application.get().getString(R.string.capability_key_measurement_automatic_gain_control), PreferenceUtils.CAPABILITY_NOT_SUPPORTED);
-            PreferenceUtils.saveInt(Application.get().getString(R.string.capability_key_measurement_delta_range), PreferenceUtils.CAPABILITY_NOT_SUPPORTED);
+            Application.getCapabilities().set(Capability.RAW_MEASUREMENTS, PreferenceUtils.CAPABILITY_NOT_SUPPORTED);
+            Application.getCapabilities().set(Capability.MEASUREMENT_AUTOMATIC_GAIN_CONTROL, PreferenceUtils.CAPABILITY_NOT_SUPPORTED);
+            Application.getCapabilities().set(Capability.MEASUREMENT_DELTA_RANGE, PreferenceUtils.CAPABILITY_NOT_SUPPORTED);
             return;
         }
         if (mGnssMeasurementsListener != null) {
@@ -1148,9 +1328,7 @@ public class GpsTestActivity extends AppCompatActivity
         mGnssMeasurementsListener = new GnssMeasurementsEvent.Callback() {
             @Override
             public void onGnssMeasurementsReceived(GnssMeasurementsEvent event) {
-                for (GpsTestListener listener : mGpsTestListeners) {
-                    listener.onGnssMeasurementsReceived(event);
-                }
+                mEventBus.publish(Topic.GNSS_MEASUREMENTS, event);
 
                 int agcSupport = PreferenceUtils.CAPABILITY_UNKNOWN;
                 int carrierPhaseSupport = PreferenceUtils.CAPABILITY_UNKNOWN;
@@ -1167,8 +1345,8 @@ public class GpsTestActivity extends AppCompatActivity
                     }
                     break;
                 }
-                PreferenceUtils.saveInt(Application.get().getString(R.string.capability_key_measurement_automatic_gain_control), agcSupport);
-                PreferenceUtils.saveInt(Application.get().getString(R.string.capability_key_measurement_delta_range), carrierPhaseSupport);
+                Application.getCapabilities().set(Capability.MEASUREMENT_AUTOMATIC_GAIN_CONTROL, agcSupport);
+                Application.getCapabilities().set(Capability.MEASUREMENT_DELTA_RANGE, carrierPhaseSupport);
 
                 if (mWriteRawMeasurementToAndroidMonitor) {
                     for (GnssMeasurement m : event.getMeasurements()) {
@@ -1178,6 +1356,10 @@ public class GpsTestActivity extends AppCompatActivity
                 if (mWriteRawMeasurementsToFile &&
                         PermissionUtils.hasGrantedFileWritePermission(GpsTestActivity.this)) {
                     csvFileLogger.onGnssMeasurementsReceived(event);
+                    binaryFileLogger.onGnssMeasurementsReceived(event);
+                    if (mWriteJsonFile) {
+                        jsonFileLogger.onGnssMeasurementsReceived(event);
+                    }
                 }
             }
 
@@ -1187,32 +1369,30 @@ public class GpsTestActivity extends AppCompatActivity
                 switch (status) {
                     case STATUS_LOCATION_DISABLED:
                         statusMessage = getString(R.string.gnss_measurement_status_loc_disabled);
-                        PreferenceUtils.saveInt(Application.get().getString(R.string.capability_key_raw_measurements), PreferenceUtils.CAPABILITY_LOCATION_DISABLED);
+                        Application.getCapabilities().set(Capability.RAW_MEASUREMENTS, PreferenceUtils.CAPABILITY_LOCATION_DISABLED);
                         break;
                     case STATUS_NOT_SUPPORTED:
                         statusMessage = getString(R.string.gnss_measurement_status_not_supported);
-                        PreferenceUtils.saveInt(Application.get().getString(R.string.capability_key_raw_measurements), PreferenceUtils.CAPABILITY_NOT_SUPPORTED);
+                        Application.getCapabilities().set(Capability.RAW_MEASUREMENTS, PreferenceUtils.CAPABILITY_NOT_SUPPORTED);
                         break;
                     case STATUS_READY:
                         statusMessage = getString(R.string.gnss_measurement_status_ready);
-                        PreferenceUtils.saveInt(Application.get().getString(R.string.capability_key_raw_measurements), PreferenceUtils.CAPABILITY_SUPPORTED);
+                        Application.getCapabilities().set(Capability.RAW_MEASUREMENTS, PreferenceUtils.CAPABILITY_SUPPORTED);
                         break;
                     default:
                         statusMessage = getString(R.string.gnss_status_unknown);
-                        PreferenceUtils.saveInt(Application.get().getString(R.string.capability_key_raw_measurements), PreferenceUtils.CAPABILITY_UNKNOWN);
+                        Application.getCapabilities().set(Capability.RAW_MEASUREMENTS, PreferenceUtils.CAPABILITY_UNKNOWN);
                 }
                 Log.d(TAG, "GnssMeasurementsEvent.Callback.onStatusChanged() - " + statusMessage);
                 // Only show toast if the user has enabled logging
                 if (UIUtils.canManageDialog(GpsTestActivity.this) &&
                         (mWriteRawMeasurementToAndroidMonitor || mWriteRawMeasurementsToFile)) {
-                    new Handler(Looper.getMainLooper()).postDelayed(
-                            () -> runOnUiThread(() -> {
-                                Toast.makeText(GpsTestActivity.this, statusMessage, Toast.LENGTH_SHORT).show();
-                            }), 3000);
+                    mMainHandler.postDelayed(() ->
+                            Toast.makeText(GpsTestActivity.this, statusMessage, Toast.LENGTH_SHORT).show(), 3000);
                 }
             }
         };
-        mLocationManager.registerGnssMeasurementsCallback(mGnssMeasurementsListener);
+        mLocationManager.registerGnssMeasurementsCallback(mGnssMeasurementsListener, mGnssHandler);
     }
 
     @SuppressLint("MissingPermission")
@@ -1290,45 +1470,59 @@ public class GpsTestActivity extends AppCompatActivity
     @RequiresApi(api = Build.VERSION_CODES.N)
     private void addNmeaListenerAndroidN() {
         if (mOnNmeaMessageListener == null) {
-            mOnNmeaMessageListener = (message, timestamp) -> {
-                for (GpsTestListener listener : mGpsTestListeners) {
-                    listener.onNmeaMessage(message, timestamp);
-                }
-                if (mWriteNmeaToAndroidMonitor) {
-                    writeNmeaToAndroidStudio(message,
-                            mWriteNmeaTimestampToAndroidMonitor ? timestamp : Long.MIN_VALUE);
-                }
-                if (mWriteNmeaToFile &&
-                        PermissionUtils.hasGrantedFileWritePermission(GpsTestActivity.this)) {
-                    csvFileLogger.onNmeaReceived(timestamp, message);
-                }
-                PreferenceUtils.saveInt(Application.get().getString(R.string.capability_key_nmea), PreferenceUtils.CAPABILITY_SUPPORTED);
-            };
+            mOnNmeaMessageListener = (message, timestamp) -> onNmeaReceived(message, timestamp);
         }
-        mLocationManager.addNmeaListener(mOnNmeaMessageListener);
+        mLocationManager.addNmeaListener(mOnNmeaMessageListener, mGnssHandler);
     }
 
     @SuppressLint("MissingPermission")
     private void addLegacyNmeaListener() {
         if (mLegacyNmeaListener == null) {
-            mLegacyNmeaListener = (timestamp, nmea) -> {
-                for (GpsTestListener listener : mGpsTestListeners) {
-                    listener.onNmeaMessage(nmea, timestamp);
-                }
-                if (mWriteNmeaToAndroidMonitor) {
-                    writeNmeaToAndroidStudio(nmea, mWriteNmeaTimestampToAndroidMonitor ? timestamp : Long.MIN_VALUE);
-                }
-                if (mWriteNmeaToFile &&
-                        PermissionUtils.hasGrantedFileWritePermission(GpsTestActivity.this)) {
-                    csvFileLogger.onNmeaReceived(timestamp, nmea);
-                }
-                PreferenceUtils.saveInt(Application.get().getString(R.string.capability_key_nmea), PreferenceUtils.CAPABILITY_SUPPORTED);
-            };
+            // The legacy listener is always called on the main thread, so hand the work off
+            mLegacyNmeaListener = (timestamp, nmea) ->
+                    mGnssHandler.post(() -> onNmeaReceived(nmea, timestamp));
         }
         mLocationManager.addNmeaListener(mLegacyNmeaListener);
     }
 
+    /**
+     * Logs and parses an NMEA sentence - called on the GNSS thread
+     */
+    private void onNmeaReceived(String message, long timestamp) {
+        // Corrupt sentences are still logged to files, but aren't parsed
+        if (mNmeaCounters.check(message) == NmeaChecksum.VALID) {
+            mNmeaRouter.route(message, timestamp);
+        }
+        if (mWriteNmeaToAndroidMonitor) {
+            writeNmeaToAndroidStudio(message,
+                    mWriteNmeaTimestampToAndroidMonitor ? timestamp : Long.MIN_VALUE);
+        }
+        if (mWriteNmeaToFile &&
+                PermissionUtils.hasGrantedFileWritePermission(GpsTestActivity.this)) {
+            csvFileLogger.onNmeaReceived(timestamp, message);
+            binaryFileLogger.onNmeaReceived(timestamp, message);
+            if (mWriteJsonFile) {
+                jsonFileLogger.onNmeaReceived(timestamp, message);
+            }
+        }
+        Application.getCapabilities().set(Capability.NMEA, PreferenceUtils.CAPABILITY_SUPPORTED);
+    }
+
+    /**
+     * Passes an assembled NMEA epoch to the listeners - called on the GNSS thread
+     */
+    private void onNmeaEpoch(NmeaEpoch epoch) {
+        mEventBus.publish(Topic.NMEA_EPOCH, epoch);
+    }
+
     private void removeNmeaListener() {
+        // Counters and the last epoch are only touched on the GNSS thread
+        mGnssHandler.post(() -> {
+            mNmeaEpochAssembler.flush();
+            if (mNmeaCounters.getAddressCount() > 0) {
+                Log.d(TAG, "NMEA sentences valid/invalid/truncated - " + mNmeaCounters);
+            }
+        });
         if (SatelliteUtils.isGnssStatusListenerSupported()) {
             if (mLocationManager != null && mOnNmeaMessageListener != null) {
                 mLocationManager.removeNmeaListener(mOnNmeaMessageListener);
@@ -1347,7 +1541,7 @@ public class GpsTestActivity extends AppCompatActivity
         }
         if (!SatelliteUtils.isGnssStatusListenerSupported()) {
             // Record capabilities that aren't supported related to nav messages
-            PreferenceUtils.saveInt(Application.get().getString(R.string.capability_key_nav_messages), PreferenceUtils.CAPABILITY_NOT_SUPPORTED);
+            Application.getCapabilities().set(Capability.NAV_MESSAGES, PreferenceUtils.CAPABILITY_NOT_SUPPORTED);
             return;
         }
         if (mGnssNavMessageListener != null) {
@@ -1363,6 +1557,10 @@ public class GpsTestActivity extends AppCompatActivity
                 if (mWriteNavMessageToFile &&
                         PermissionUtils.hasGrantedFileWritePermission(GpsTestActivity.this)) {
                     csvFileLogger.onGnssNavigationMessageReceived(event);
+                    binaryFileLogger.onGnssNavigationMessageReceived(event);
+                    if (mWriteJsonFile) {
+                        jsonFileLogger.onGnssNavigationMessageReceived(event);
+                    }
                 }
             }
 
@@ -1372,15 +1570,15 @@ public class GpsTestActivity extends AppCompatActivity
                 switch (status) {
                     case STATUS_LOCATION_DISABLED:
                         statusMessage = getString(R.string.gnss_nav_msg_status_loc_disabled);
-                        PreferenceUtils.saveInt(Application.get().getString(R.string.capability_key_nav_messages), PreferenceUtils.CAPABILITY_LOCATION_DISABLED);
+                        Application.getCapabilities().set(Capability.NAV_MESSAGES, PreferenceUtils.CAPABILITY_LOCATION_DISABLED);
                         break;
                     case STATUS_NOT_SUPPORTED:
                         statusMessage = getString(R.string.gnss_nav_msg_status_not_supported);
-                        PreferenceUtils.saveInt(Application.get().getString(R.string.capability_key_nav_messages), PreferenceUtils.CAPABILITY_NOT_SUPPORTED);
+                        Application.getCapabilities().set(Capability.NAV_MESSAGES, PreferenceUtils.CAPABILITY_NOT_SUPPORTED);
                         break;
                     case STATUS_READY:
                         statusMessage = getString(R.string.gnss_nav_msg_status_ready);
-                        PreferenceUtils.saveInt(Application.get().getString(R.string.capability_key_nav_messages), PreferenceUtils.CAPABILITY_SUPPORTED);
+                        Application.getCapabilities().set(Capability.NAV_MESSAGES, PreferenceUtils.CAPABILITY_SUPPORTED);
                         break;
                     default:
                         statusMessage = getString(R.string.gnss_status_unknown);
@@ -1390,13 +1588,12 @@ public class GpsTestActivity extends AppCompatActivity
                 if (UIUtils.canManageDialog(GpsTestActivity.this) &&
                         (mWriteNavMessageToAndroidMonitor || mWriteNavMessageToFile)) {
                     // Delay this toast so it's not overwritten by other toasts
-                    new Handler(Looper.getMainLooper()).postDelayed(
-                            () -> runOnUiThread(() ->
-                                    Toast.makeText(GpsTestActivity.this, statusMessage, Toast.LENGTH_SHORT).show()), 2000);
+                    mMainHandler.postDelayed(() ->
+                            Toast.makeText(GpsTestActivity.this, statusMessage, Toast.LENGTH_SHORT).show(), 2000);
                 }
             }
         };
-        mLocationManager.registerGnssNavigationMessageCallback(mGnssNavMessageListener);
+        mLocationManager.registerGnssNavigationMessageCallback(mGnssNavMessageListener, mGnssHandler);
     }
 
     @RequiresApi(api = Build.VERSION_CODES.N)
@@ -1506,10 +1703,82 @@ public class GpsTestActivity extends AppCompatActivity
                 .getBoolean(getString(R.string.pref_key_file_location_output), false);
     }
 
+    private void checkBinaryFileOutput(SharedPreferences settings) {
+        mWriteBinaryFile = settings
+                .getBoolean(getString(R.string.pref_key_file_binary_format), false);
+        mWriteJsonFile = settings
+                .getBoolean(getString(R.string.pref_key_file_json_format), false);
+    }
+
+    private void checkFileWriterBackend(SharedPreferences settings) {
+        BaseFileLogger.WriterBackend backend = settings
+                .getBoolean(getString(R.string.pref_key_file_mapped_writer), false)
+                ? BaseFileLogger.WriterBackend.MAPPED_SEGMENTS : BaseFileLogger.WriterBackend.STREAM;
+        csvFileLogger.setWriterBackend(backend);
+        jsonFileLogger.setWriterBackend(backend);
+        binaryFileLogger.setWriterBackend(backend);
+    }
+
+    private void checkFileRotation(SharedPreferences settings) {
+        long maxBytes = Long.parseLong(settings.getString(getString(R.string.pref_key_file_max_size), "0")) * 1024 * 1024;
+        long maxDurationMillis = TimeUnit.MINUTES.toMillis(Long.parseLong(settings.getString(getString(R.string.pref_key_file_max_duration), "0")));
+        csvFileLogger.setRotation(maxBytes, maxDurationMillis);
+        jsonFileLogger.setRotation(maxBytes, maxDurationMillis);
+        binaryFileLogger.setRotation(maxBytes, maxDurationMillis);
+    }
+
+    private void checkFileCompression(SharedPreferences settings) {
+        boolean compress = settings.getBoolean(getString(R.string.pref_key_file_compress), false);
+        csvFileLogger.setCompressionEnabled(compress);
+        jsonFileLogger.setCompressionEnabled(compress);
+        binaryFileLogger.setCompressionEnabled(compress);
+    }
+
+    private void checkFileDurability(SharedPreferences settings) {
+        DurabilityPolicy policy;
+        switch (settings.getString(getString(R.string.pref_key_file_flush_policy), "buffer_full")) {
+            case "epoch":
+                policy = DurabilityPolicy.everyEpoch();
+                break;
+            case "records_100":
+                policy = DurabilityPolicy.everyRecords(100);
+                break;
+            case "interval_1s":
+                policy = DurabilityPolicy.everyMillis(TimeUnit.SECONDS.toMillis(1));
+                break;
+            case "interval_10s":
+                policy = DurabilityPolicy.everyMillis(TimeUnit.SECONDS.toMillis(10));
+                break;
+            default:
+                policy = DurabilityPolicy.DEFAULT;
+                break;
+        }
+        policy = policy.withSync(settings.getBoolean(getString(R.string.pref_key_file_sync), false));
+        csvFileLogger.setDurabilityPolicy(policy);
+        jsonFileLogger.setDurabilityPolicy(policy);
+        binaryFileLogger.setDurabilityPolicy(policy);
+    }
+
     @Override
     protected void onDestroy() {
-        csvFileLogger.close();
-        jsonFileLogger.close();
+        // Listeners were removed in onPause(), so close the files after any pending GNSS callbacks
+        // have been logged, and then stop the GNSS thread
+        mGnssHandler.post(() -> {
+            csvFileLogger.close();
+            jsonFileLogger.close();
+            binaryFileLogger.close();
+        });
+        mGnssThread.quitSafely();
+        // Wait for the files to be closed, as a recreated activity (e.g., after a rotation) continues
+        // logging to the same files with new loggers
+        try {
+            mGnssThread.join(GNSS_THREAD_STOP_TIMEOUT_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (mGnssThread.isAlive()) {
+            Log.w(TAG, "Timed out waiting for log files to be closed");
+        }
         super.onDestroy();
     }
 
@@ -1588,12 +1857,14 @@ public class GpsTestActivity extends AppCompatActivity
         // Reset the options menu to trigger updates to action bar menu items
         invalidateOptionsMenu();
 
-        for (GpsTestListener listener : mGpsTestListeners) {
-            listener.onLocationChanged(location);
-        }
+        mEventBus.publish(Topic.LOCATION, location);
         if (mWriteLocationToFile &&
                 PermissionUtils.hasGrantedFileWritePermission(GpsTestActivity.this)) {
             csvFileLogger.onLocationChanged(location);
+            binaryFileLogger.onLocationChanged(location);
+            if (mWriteJsonFile) {
+                jsonFileLogger.onLocationChanged(location);
+            }
         }
     }
 
@@ -1693,9 +1964,8 @@ public class GpsTestActivity extends AppCompatActivity
             orientation = MathUtils.mod((float) orientation, 360.0f);
         }
 
-        for (GpsTestListener listener : mGpsTestListeners) {
-            listener.onOrientationChanged(orientation, tilt);
-        }
+        mOrientation.set(orientation, tilt);
+        mEventBus.publish(Topic.ORIENTATION, mOrientation);
     }
 
     @TargetApi(Build.VERSION_CODES.GINGERBREAD)
@@ -1717,8 +1987,8 @@ public class GpsTestActivity extends AppCompatActivity
     private void share() {
         final Location location = mLastLocation;
         shareDialogOpen = true;
-        UIUtils.showShareFragmentDialog(this, location, isFileLoggingEnabled(),
-                csvFileLogger, jsonFileLogger, null);
+        UIUtils.showShareFragmentDialog(this, location, isFileLoggingEnabled(), null,
+                csvFileLogger, jsonFileLogger, binaryFileLogger);
     }
 
     /**
@@ -1,10 +1,12 @@
 package com.android.gpstest;
 
 import android.location.GnssMeasurementsEvent;
-import android.location.GnssStatus;
 import android.location.GpsStatus;
 import android.location.LocationListener;
 
+import com.android.gpstest.model.SatelliteSnapshot;
+import com.android.gpstest.nmea.NmeaEpoch;
+
 /**
  * Interface used by GpsTestActivity to communicate with Gps*Fragments
  */
@@ -19,7 +21,14 @@ public interface GpsTestListener extends LocationListener {
 
     void onGnssFirstFix(int ttffMillis);
 
-    void onSatelliteStatusChanged(GnssStatus status);
+    /**
+     * Called with the satellites of each GnssStatus, which are shared by all listeners
+     *
+     * @param snapshot satellites decoded from the GnssStatus, which must not be modified. The
+     *                 snapshot is re-used for later callbacks, so it shouldn't be kept after this
+     *                 call returns - copy it with SatelliteSnapshot.copyFrom() if needed.
+     */
+    void onSatelliteStatusChanged(SatelliteSnapshot snapshot);
 
     void onGnssStarted();
 
@@ -29,7 +38,12 @@ public interface GpsTestListener extends LocationListener {
 
     void onOrientationChanged(double orientation, double tilt);
 
-    void onNmeaMessage(String message, long timestamp);
+    /**
+     * Called with the values parsed from the NMEA sentences of each GNSS epoch (one fix)
+     *
+     * @param epoch values parsed from the NMEA sentences of the epoch
+     */
+    void onNmeaEpoch(NmeaEpoch epoch);
 
     /**
      * Called when a GNSS fix is acquired, including on first fix
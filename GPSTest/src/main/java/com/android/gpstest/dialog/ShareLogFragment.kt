@@ -96,9 +96,10 @@ class ShareLogFragment : Fragment() {
         logShare.setOnClickListener { v: View? ->
             // Send the log file
             if (alternateFileUri == null && files != null) {
-                // Send the log file currently being logged to by the FileLogger
-                IOUtils.sendLogFile(activity, *files.toTypedArray())
+                // Send the log file currently being logged to by the FileLogger. Close the file
+                // first so that it's complete when it's read (e.g., compressed files are finished).
                 listener.onLogFileSent()
+                IOUtils.sendLogFile(activity, *files.toTypedArray())
             } else {
                 // Send the log file selected by the user using the File Browse button
                 IOUtils.sendLogFile(activity, ArrayList(Collections.singleton(alternateFileUri)))
@@ -22,6 +22,7 @@ import androidx.lifecycle.ViewModelProviders
 import androidx.lifecycle.coroutineScope
 import com.android.gpstest.Application
 import com.android.gpstest.BuildConfig
+import com.android.gpstest.Capability
 import com.android.gpstest.DeviceInfoViewModel
 import com.android.gpstest.R
 import com.android.gpstest.io.DevicePropertiesUploader
@@ -50,6 +51,7 @@ class UploadDeviceInfoFragment : Fragment() {
 
         val location = arguments?.getParcelable<Location>(ShareDialogFragment.KEY_LOCATION)
         val deviceInfoViewModel = ViewModelProviders.of(activity!!).get(DeviceInfoViewModel::class.java)
+        val capabilities = deviceInfoViewModel.capabilities
         var userCountry = ""
 
         // TODO - DeviceInfoViewModel is still largely updated in GnssStatusFragment, so we need
@@ -97,7 +99,7 @@ class UploadDeviceInfoFragment : Fragment() {
             val locationManager = Application.get().getSystemService(Context.LOCATION_SERVICE) as LocationManager
 
             // Inject PSDS capability
-            val capabilityInjectPsdsInt = Application.getPrefs().getInt(Application.get().getString(R.string.capability_key_inject_psds), PreferenceUtils.CAPABILITY_UNKNOWN)
+            val capabilityInjectPsdsInt = capabilities.get(Capability.INJECT_PSDS)
             val psdsSuccessBoolean: Boolean
             val psdsSuccessString: String
             if (capabilityInjectPsdsInt == PreferenceUtils.CAPABILITY_UNKNOWN) {
@@ -108,7 +110,7 @@ class UploadDeviceInfoFragment : Fragment() {
             }
 
             // Inject time
-            val capabilityInjectTimeInt = Application.getPrefs().getInt(Application.get().getString(R.string.capability_key_inject_time), PreferenceUtils.CAPABILITY_UNKNOWN)
+            val capabilityInjectTimeInt = capabilities.get(Capability.INJECT_TIME)
             val timeSuccessBoolean: Boolean
             val timeSuccessString: String
             if (capabilityInjectTimeInt == PreferenceUtils.CAPABILITY_UNKNOWN) {
@@ -119,7 +121,7 @@ class UploadDeviceInfoFragment : Fragment() {
             }
 
             // Delete assist capability
-            val capabilityDeleteAssistInt = Application.getPrefs().getInt(Application.get().getString(R.string.capability_key_delete_assist), PreferenceUtils.CAPABILITY_UNKNOWN)
+            val capabilityDeleteAssistInt = capabilities.get(Capability.DELETE_ASSIST)
             val deleteAssistSuccessString: String
             if (capabilityDeleteAssistInt != PreferenceUtils.CAPABILITY_UNKNOWN) {
                 // Deleting assist data can be destructive, so don't force it - just use existing info
@@ -129,7 +131,7 @@ class UploadDeviceInfoFragment : Fragment() {
             }
 
             // GNSS measurements
-            val capabilityMeasurementsInt = Application.getPrefs().getInt(Application.get().getString(R.string.capability_key_raw_measurements), PreferenceUtils.CAPABILITY_UNKNOWN)
+            val capabilityMeasurementsInt = capabilities.get(Capability.RAW_MEASUREMENTS)
             val capabilityMeasurementsString: String
             if (capabilityMeasurementsInt != PreferenceUtils.CAPABILITY_UNKNOWN) {
                 capabilityMeasurementsString = PreferenceUtils.getCapabilityDescription(capabilityMeasurementsInt)
@@ -138,7 +140,7 @@ class UploadDeviceInfoFragment : Fragment() {
             }
 
             // GNSS navigation message
-            val capabilityNavMessagesInt = Application.getPrefs().getInt(Application.get().getString(R.string.capability_key_nav_messages), PreferenceUtils.CAPABILITY_UNKNOWN)
+            val capabilityNavMessagesInt = capabilities.get(Capability.NAV_MESSAGES)
             val capabilityNavMessagesString: String
             if (capabilityNavMessagesInt != PreferenceUtils.CAPABILITY_UNKNOWN) {
                 capabilityNavMessagesString = PreferenceUtils.getCapabilityDescription(capabilityNavMessagesInt)
@@ -161,15 +163,15 @@ class UploadDeviceInfoFragment : Fragment() {
                     DevicePropertiesUploader.SBAS_CFS to trimEnds(deviceInfoViewModel.supportedSbasCfs.sorted().toString()),
                     DevicePropertiesUploader.RAW_MEASUREMENTS to capabilityMeasurementsString,
                     DevicePropertiesUploader.NAVIGATION_MESSAGES to capabilityNavMessagesString,
-                    DevicePropertiesUploader.NMEA to PreferenceUtils.getCapabilityDescription(Application.getPrefs().getInt(Application.get().getString(R.string.capability_key_nmea), PreferenceUtils.CAPABILITY_UNKNOWN)),
+                    DevicePropertiesUploader.NMEA to PreferenceUtils.getCapabilityDescription(capabilities.get(Capability.NMEA)),
                     DevicePropertiesUploader.INJECT_PSDS to psdsSuccessString,
                     DevicePropertiesUploader.INJECT_TIME to timeSuccessString,
                     DevicePropertiesUploader.DELETE_ASSIST to deleteAssistSuccessString,
-                    DevicePropertiesUploader.ACCUMULATED_DELTA_RANGE to PreferenceUtils.getCapabilityDescription(Application.getPrefs().getInt(Application.get().getString(R.string.capability_key_measurement_delta_range), PreferenceUtils.CAPABILITY_UNKNOWN)),
+                    DevicePropertiesUploader.ACCUMULATED_DELTA_RANGE to PreferenceUtils.getCapabilityDescription(capabilities.get(Capability.MEASUREMENT_DELTA_RANGE)),
                     // TODO - Add below clock values? What should they be to generalize across all of the same model?
                     DevicePropertiesUploader.HARDWARE_CLOCK to "",
                     DevicePropertiesUploader.HARDWARE_CLOCK_DISCONTINUITY to "",
-                    DevicePropertiesUploader.AUTOMATIC_GAIN_CONTROL to PreferenceUtils.getCapabilityDescription(Application.getPrefs().getInt(Application.get().getString(R.string.capability_key_measurement_automatic_gain_control), PreferenceUtils.CAPABILITY_UNKNOWN)),
+                    DevicePropertiesUploader.AUTOMATIC_GAIN_CONTROL to PreferenceUtils.getCapabilityDescription(capabilities.get(Capability.MEASUREMENT_AUTOMATIC_GAIN_CONTROL)),
                     DevicePropertiesUploader.GNSS_ANTENNA_INFO to PreferenceUtils.getCapabilityDescription(SatelliteUtils.isGnssAntennaInfoSupported(locationManager)),
                     DevicePropertiesUploader.APP_BUILD_FLAVOR to BuildConfig.FLAVOR,
                     DevicePropertiesUploader.USER_COUNTRY to userCountry,
@@ -0,0 +1,43 @@
+/*
+ * Copyright (C) 2021 Sean J. Barbeau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.gpstest.event;
+
+/**
+ * What a {@link Subscription} does with events that are published faster than its subscriber
+ * handles them, or while it's paused
+ */
+public enum DeliveryPolicy {
+    /**
+     * Only the latest event is kept - an event that hasn't been delivered yet is replaced by a newer
+     * one. While paused the latest event is kept and delivered on resume. Use for state that is
+     * redrawn on each event, such as the satellite status.
+     */
+    LATEST,
+
+    /**
+     * Events are delivered in order from a queue of bounded capacity, and the oldest event is
+     * dropped when the queue is full. While paused events are still queued. Use when each event
+     * matters, such as locations that are added to a track.
+     */
+    QUEUE,
+
+    /**
+     * New events are dropped while an event is waiting to be delivered, and all events are dropped
+     * while paused
+     */
+    DROP
+}
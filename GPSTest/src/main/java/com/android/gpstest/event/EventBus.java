@@ -0,0 +1,104 @@
+/*
+ * Copyright (C) 2021 Sean J. Barbeau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.gpstest.event;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+
+/**
+ * Passes the events published on a {@link Topic} to its subscriptions. Publishing doesn't call the
+ * subscribers - each {@link Subscription} holds the event according to its {@link DeliveryPolicy}
+ * and delivers it on its own executor, so the publisher (e.g., the GNSS thread) isn't blocked by
+ * the subscribers, and a paused subscription costs at most one assignment per event.
+ *
+ * Thread-safe - subscribe, unsubscribe and publish can be called on any thread.
+ */
+public final class EventBus {
+
+    /**
+     * Capacity of the queue for {@link DeliveryPolicy#QUEUE} subscriptions if one isn't provided
+     */
+    public static final int DEFAULT_QUEUE_CAPACITY = 16;
+
+    private final ConcurrentHashMap<Topic<?>, List<Subscription<?>>> mSubscriptions =
+            new ConcurrentHashMap<>();
+
+    /**
+     * Subscribes to a topic
+     *
+     * @param topic      topic of the events to receive
+     * @param subscriber receives the events on the executor
+     * @param policy     what to do with events that aren't delivered yet
+     * @param capacity   maximum number of events held for {@link DeliveryPolicy#QUEUE}, otherwise ignored
+     * @param executor   executor to deliver the events on, such as the main thread
+     * @return the new subscription, which can be paused or passed to {@link #unsubscribe(Subscription)}
+     */
+    public <T> Subscription<T> subscribe(Topic<T> topic, Subscription.Subscriber<? super T> subscriber,
+                                         DeliveryPolicy policy, int capacity, Executor executor) {
+        Subscription<T> subscription = new Subscription<>(topic, subscriber, policy, capacity, executor);
+        List<Subscription<?>> subscriptions = mSubscriptions.get(topic);
+        if (subscriptions == null) {
+            mSubscriptions.putIfAbsent(topic, new CopyOnWriteArrayList<>());
+            subscriptions = mSubscriptions.get(topic);
+        }
+        subscriptions.add(subscription);
+        return subscription;
+    }
+
+    /**
+     * Subscribes to a topic with a queue capacity of {@link #DEFAULT_QUEUE_CAPACITY}
+     */
+    public <T> Subscription<T> subscribe(Topic<T> topic, Subscription.Subscriber<? super T> subscriber,
+                                         DeliveryPolicy policy, Executor executor) {
+        return subscribe(topic, subscriber, policy, DEFAULT_QUEUE_CAPACITY, executor);
+    }
+
+    /**
+     * Cancels the subscription and drops its undelivered events
+     */
+    public void unsubscribe(Subscription<?> subscription) {
+        subscription.cancel();
+        List<Subscription<?>> subscriptions = mSubscriptions.get(subscription.getTopic());
+        if (subscriptions != null) {
+            subscriptions.remove(subscription);
+        }
+    }
+
+    /**
+     * Publishes an event to all subscriptions of the topic
+     */
+    @SuppressWarnings("unchecked")
+    public <T> void publish(Topic<T> topic, T event) {
+        List<Subscription<?>> subscriptions = mSubscriptions.get(topic);
+        if (subscriptions == null) {
+            return;
+        }
+        for (Subscription<?> subscription : subscriptions) {
+            ((Subscription<T>) subscription).offer(event);
+        }
+    }
+
+    /**
+     * @return the number of subscriptions to the topic
+     */
+    public int getSubscriptionCount(Topic<?> topic) {
+        List<Subscription<?>> subscriptions = mSubscriptions.get(topic);
+        return subscriptions == null ? 0 : subscriptions.size();
+    }
+}
@@ -0,0 +1,202 @@
+/*
+ * Copyright (C) 2021 Sean J. Barbeau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.gpstest.event;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.Executor;
+
+/**
+ * A subscriber's registration for one {@link Topic} on an {@link EventBus}. Events can be published
+ * from any thread, and are held here according to the {@link DeliveryPolicy} until they are
+ * delivered on the subscription's executor (typically the main thread).
+ *
+ * Each delivery is a separate task that passes one event, so a subscriber that is slow or has a
+ * backlog doesn't hold up deliveries to other subscribers on the same executor.
+ *
+ * @param <T> type of the events
+ */
+public final class Subscription<T> {
+
+    /**
+     * Receives the events of a topic
+     */
+    public interface Subscriber<T> {
+        void onEvent(T event);
+    }
+
+    private final Topic<T> mTopic;
+
+    private final Subscriber<? super T> mSubscriber;
+
+    private final DeliveryPolicy mPolicy;
+
+    private final int mCapacity;
+
+    private final Executor mExecutor;
+
+    private final Runnable mDeliverTask = this::deliver;
+
+    // The following are guarded by this
+    private final ArrayDeque<T> mPending;
+
+    private boolean mScheduled;
+
+    private boolean mPaused;
+
+    private boolean mCancelled;
+
+    private long mDeliveredCount;
+
+    private long mDroppedCount;
+
+    Subscription(Topic<T> topic, Subscriber<? super T> subscriber, DeliveryPolicy policy,
+                 int capacity, Executor executor) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be at least 1 - " + capacity);
+        }
+        mTopic = topic;
+        mSubscriber = subscriber;
+        mPolicy = policy;
+        mCapacity = policy == DeliveryPolicy.QUEUE ? capacity : 1;
+        mExecutor = executor;
+        mPending = new ArrayDeque<>(mCapacity);
+    }
+
+    /**
+     * Holds the event for delivery according to the policy, and schedules a delivery if one isn't
+     * already scheduled. Called by {@link EventBus#publish(Topic, Object)} on any thread.
+     */
+    void offer(T event) {
+        synchronized (this) {
+            if (mCancelled) {
+                return;
+            }
+            switch (mPolicy) {
+                case LATEST:
+                    if (!mPending.isEmpty()) {
+                        mPending.clear();
+                        mDroppedCount++;
+                    }
+                    break;
+                case QUEUE:
+                    if (mPending.size() == mCapacity) {
+                        mPending.poll();
+                        mDroppedCount++;
+                    }
+                    break;
+                case DROP:
+                    if (mPaused || !mPending.isEmpty()) {
+                        mDroppedCount++;
+                        return;
+                    }
+                    break;
+            }
+            mPending.add(event);
+            if (mPaused || mScheduled) {
+                return;
+            }
+            mScheduled = true;
+        }
+        mExecutor.execute(mDeliverTask);
+    }
+
+    private void deliver() {
+        T event;
+        boolean more;
+        synchronized (this) {
+            if (mPaused || mCancelled) {
+                mScheduled = false;
+                return;
+            }
+            event = mPending.poll();
+            more = !mPending.isEmpty();
+            mScheduled = more;
+            if (event != null) {
+                mDeliveredCount++;
+            }
+        }
+        if (event != null) {
+            mSubscriber.onEvent(event);
+        }
+        if (more) {
+            mExecutor.execute(mDeliverTask);
+        }
+    }
+
+    /**
+     * Stops or resumes deliveries, for example while the subscriber's view is hidden. Events are
+     * held or dropped while paused as defined by the {@link DeliveryPolicy}, and held events are
+     * delivered after resuming.
+     */
+    public void setPaused(boolean paused) {
+        synchronized (this) {
+            if (mPaused == paused) {
+                return;
+            }
+            mPaused = paused;
+            if (paused || mCancelled || mScheduled || mPending.isEmpty()) {
+                return;
+            }
+            mScheduled = true;
+        }
+        mExecutor.execute(mDeliverTask);
+    }
+
+    public synchronized boolean isPaused() {
+        return mPaused;
+    }
+
+    /**
+     * Stops all deliveries and drops held events. Called by {@link EventBus#unsubscribe(Subscription)}.
+     */
+    synchronized void cancel() {
+        mCancelled = true;
+        mPending.clear();
+    }
+
+    public synchronized boolean isCancelled() {
+        return mCancelled;
+    }
+
+    public Topic<T> getTopic() {
+        return mTopic;
+    }
+
+    public DeliveryPolicy getPolicy() {
+        return mPolicy;
+    }
+
+    /**
+     * @return the number of events passed to the subscriber
+     */
+    public synchronized long getDeliveredCount() {
+        return mDeliveredCount;
+    }
+
+    /**
+     * @return the number of events that were replaced or dropped without being delivered
+     */
+    public synchronized long getDroppedCount() {
+        return mDroppedCount;
+    }
+
+    @Override
+    public String toString() {
+        return mTopic + " " + mPolicy + " delivered " + getDeliveredCount() + ", dropped "
+                + getDroppedCount();
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright (C) 2021 Sean J. Barbeau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.gpstest.event;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleEventObserver;
+import androidx.lifecycle.LifecycleOwner;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The subscriptions of one subscriber, such as a Fragment, which are paused while it's hidden or
+ * not started, and cancelled when it's destroyed. Observe the subscriber's lifecycle with
+ * {@link Lifecycle#addObserver} and call {@link #setHidden(boolean)} when it's hidden or shown.
+ *
+ * Call from the main thread.
+ */
+public final class SubscriptionGroup implements LifecycleEventObserver {
+
+    private final EventBus mEventBus;
+
+    private final List<Subscription<?>> mSubscriptions = new ArrayList<>();
+
+    private boolean mHidden;
+
+    // Subscribers without a lifecycle are treated as started
+    private boolean mStarted = true;
+
+    public SubscriptionGroup(EventBus eventBus) {
+        mEventBus = eventBus;
+    }
+
+    /**
+     * Adds a subscription to the group, and pauses it if the group is paused
+     */
+    public <T> Subscription<T> add(Subscription<T> subscription) {
+        mSubscriptions.add(subscription);
+        subscription.setPaused(isPaused());
+        return subscription;
+    }
+
+    public void setHidden(boolean hidden) {
+        mHidden = hidden;
+        updatePaused();
+    }
+
+    public boolean isPaused() {
+        return mHidden || !mStarted;
+    }
+
+    /**
+     * Unsubscribes all subscriptions in the group
+     */
+    public void cancel() {
+        for (Subscription<?> subscription : mSubscriptions) {
+            mEventBus.unsubscribe(subscription);
+        }
+        mSubscriptions.clear();
+    }
+
+    @Override
+    public void onStateChanged(@NonNull LifecycleOwner source, @NonNull Lifecycle.Event event) {
+        switch (event) {
+            case ON_START:
+                mStarted = true;
+                updatePaused();
+                break;
+            case ON_STOP:
+                mStarted = false;
+                updatePaused();
+                break;
+            case ON_DESTROY:
+                cancel();
+                source.getLifecycle().removeObserver(this);
+                break;
+        }
+    }
+
+    private void updatePaused() {
+        boolean paused = isPaused();
+        for (Subscription<?> subscription : mSubscriptions) {
+            subscription.setPaused(paused);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright (C) 2021 Sean J. Barbeau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.gpstest.event;
+
+import android.location.GnssMeasurementsEvent;
+import android.location.Location;
+
+import com.android.gpstest.model.Orientation;
+import com.android.gpstest.model.SatelliteSnapshotBuffer;
+import com.android.gpstest.nmea.NmeaEpoch;
+
+/**
+ * A type of event published on an {@link EventBus}. Topics are compared by identity, so each topic
+ * is a single constant.
+ *
+ * @param <T> type of the events published on this topic
+ */
+public final class Topic<T> {
+
+    /**
+     * Published for each GnssStatus, with the buffer that holds the latest SatelliteSnapshot
+     */
+    public static final Topic<SatelliteSnapshotBuffer> SATELLITES = new Topic<>("Satellites");
+
+    public static final Topic<GnssMeasurementsEvent> GNSS_MEASUREMENTS = new Topic<>("GnssMeasurements");
+
+    public static final Topic<NmeaEpoch> NMEA_EPOCH = new Topic<>("NmeaEpoch");
+
+    public static final Topic<Location> LOCATION = new Topic<>("Location");
+
+    /**
+     * Published for each sensor event, with the same Orientation instance set to the latest values
+     */
+    public static final Topic<Orientation> ORIENTATION = new Topic<>("Orientation");
+
+    private final String mName;
+
+    public Topic(String name) {
+        mName = name;
+    }
+
+    @Override
+    public String toString() {
+        return mName;
+    }
+}
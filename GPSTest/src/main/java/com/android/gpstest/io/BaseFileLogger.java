@@ -1,39 +1,236 @@
 package com.android.gpstest.io;
 
 import android.content.Context;
+import android.content.pm.PackageInfo;
+import android.content.pm.PackageManager;
+import android.os.Build;
 import android.os.Environment;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
 import android.util.Log;
 import android.widget.Toast;
 
+import androidx.annotation.RequiresApi;
+
 import com.android.gpstest.Application;
+import com.android.gpstest.BuildConfig;
 import com.android.gpstest.R;
+import com.android.gpstest.util.IOUtils;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.apache.commons.io.output.CountingOutputStream;
 
 import java.io.BufferedWriter;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
 import java.io.File;
-import java.io.FileWriter;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.Charset;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.regex.Matcher;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * A base implementation of a GNSS logger to store information to a file. Originally from https://github.com/google/gps-measurement-tools/tree/master/GNSSLogger,
  * modified for GPSTest.
+ *
+ * Events received from the GNSS callbacks are placed in a bounded queue via
+ * {@link #enqueue(int, Object, long)} and are written to the file in batches on a dedicated
+ * writer thread via {@link #writeEvent(LogEvent)}, so the callback thread never blocks on file I/O.
+ *
+ * If rotation is enabled via {@link #setRotation(long, long)}, a logging session is split into
+ * multiple segment files ("gnss_log_[date].txt", "gnss_log_[date]_002.txt", ...), and the segments
+ * are listed in a {@link LogSessionManifest} stored next to them.
+ *
+ * When buffered records are flushed to the file, and whether the file is synced to the storage
+ * device, is defined by the {@link DurabilityPolicy} set via
+ * {@link #setDurabilityPolicy(DurabilityPolicy)}.
+ *
+ * Unless the file is compressed, a {@link LogTimeIndex} is written next to each file with the
+ * offset and time of every {@link #setIndexInterval(int)} records, so readers can jump to a time.
  */
 public abstract class BaseFileLogger implements FileLogger {
 
+    /**
+     * Defines what happens when an event is received and the queue of events waiting to be
+     * written to the file is full
+     */
+    public enum OverflowPolicy {
+        /**
+         * Discard the new event and increment the dropped record count
+         */
+        DROP_NEWEST,
+        /**
+         * Wait a short time for the writer thread to make space in the queue, and discard the
+         * new event only if space doesn't become available
+         */
+        BLOCK
+    }
+
+    /**
+     * Defines how bytes are written to the log file
+     */
+    public enum WriterBackend {
+        /**
+         * Buffered writes to a FileOutputStream
+         */
+        STREAM,
+        /**
+         * Copies bytes into preallocated, memory-mapped segments of the file (see
+         * {@link MappedSegmentOutputStream}), which avoids a write() system call for each buffer
+         * of data. Intended for high-rate logging sessions.
+         */
+        MAPPED_SEGMENTS
+    }
+
     protected final String TAG = this.getClass().getName();
     protected static final String FILE_PREFIX = "gnss_log";
 
+    /**
+     * Default number of events that can wait in the queue to be written to the file
+     */
+    public static final int DEFAULT_QUEUE_CAPACITY = 4096;
+
+    /**
+     * Default number of records between entries in the {@link LogTimeIndex} for each file
+     */
+    public static final int DEFAULT_INDEX_INTERVAL = 1000;
+
+    /**
+     * Maximum number of events written while holding the file lock
+     */
+    private static final int WRITE_BATCH_SIZE = 64;
+
+    /**
+     * Maximum time a producer waits for space in the queue when using {@link OverflowPolicy#BLOCK}
+     */
+    private static final long BLOCK_TIMEOUT_NANOS = TimeUnit.MILLISECONDS.toNanos(250);
+
+    private static final long BLOCK_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    /**
+     * Extension added to the file name when output is compressed
+     */
+    private static final String COMPRESSED_FILE_EXTENSION = "gz";
+
+    /**
+     * How often compressed output is sync-flushed to the file. Data written since the last flush
+     * can't be decompressed if the app is killed, so this bounds how much data can be lost.
+     */
+    private static final long COMPRESSED_FLUSH_INTERVAL_MILLIS = 1000;
+
+    private static final int COMPRESSION_BUFFER_SIZE = 8192;
+
     protected final Context context;
 
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
     protected final Object fileLock = new Object();
+    /**
+     * Byte stream for the current file, for implementations that write binary data
+     */
+    protected OutputStream fileOutputStream;
+    /**
+     * Character stream for the current file, for implementations that write text. This writes to
+     * fileOutputStream.
+     */
     protected BufferedWriter fileWriter;
     protected File file;
-    protected boolean isStarted = false;
+    protected volatile boolean isStarted = false;
     protected File baseDirectory;
 
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    private final LogEventRingBuffer queue;
+    private volatile OverflowPolicy overflowPolicy = OverflowPolicy.DROP_NEWEST;
+    private volatile WriterBackend writerBackend = WriterBackend.STREAM;
+    private volatile boolean compressionEnabled = false;
+    private volatile DurabilityPolicy durabilityPolicy = DurabilityPolicy.DEFAULT;
+    private volatile int indexInterval = DEFAULT_INDEX_INTERVAL;
+    private final FlushMetrics flushMetrics = new FlushMetrics();
+    private LogWriterThread writerThread;
+    private final AtomicLong droppedRecordCount = new AtomicLong();
+    private volatile long writtenRecordCount = 0;
+
+    // Rotation and flushing - only accessed while holding fileLock
+    private long maxFileBytes = 0;
+    private long maxFileDurationMillis = 0;
+    /**
+     * The stream that writes to the file descriptor or mapped file, used to sync the file
+     */
+    private OutputStream rawFileStream;
+    private CountingOutputStream fileByteCounter;
+    private boolean isFileCompressed;
+    private long lastFlushElapsedRealtime;
+    private int recordsSinceFlush;
+    private long bytesAtLastFlush;
+    private DataOutputStream indexStream;
+    private int fileIndexInterval;
+    private int recordsUntilIndexEntry;
+    private long initialFileBytes;
+    private String sessionName;
+    private int segmentNumber;
+    private ObjectMapper manifestMapper;
+    private LogSessionManifest manifest;
+    private LogSessionManifest.Segment currentSegment;
+    private boolean rotationFailed;
+
+    private final LogEventRingBuffer.Handler eventWriter = new LogEventRingBuffer.Handler() {
+        @Override
+        public void onEvent(LogEvent event) {
+            if (indexStream != null && recordsUntilIndexEntry-- == 0) {
+                writeIndexEntry(event);
+            }
+            try {
+                writeEvent(event);
+                writtenRecordCount++;
+            } catch (IOException e) {
+                logException(Application.get().getString(R.string.error_writing_file), e);
+                return;
+            }
+            recordsSinceFlush++;
+            if (durabilityPolicy.isFlushDue(recordsSinceFlush,
+                    SystemClock.elapsedRealtime() - lastFlushElapsedRealtime, isEpochEnd(event))) {
+                flushFile();
+            }
+            if (manifest != null) {
+                currentSegment.addRecord(event.timeMillis);
+                if (!rotationFailed && isSegmentFull()) {
+                    rotateFile();
+                }
+            }
+        }
+    };
+
+    private final LogEventRingBuffer.Handler eventDiscarder = new LogEventRingBuffer.Handler() {
+        @Override
+        public void onEvent(LogEvent event) {
+            droppedRecordCount.incrementAndGet();
+        }
+    };
+
     public BaseFileLogger(Context context) {
+        this(context, DEFAULT_QUEUE_CAPACITY);
+    }
+
+    /**
+     * @param context       Context used to show errors to the user
+     * @param queueCapacity number of events that can wait in the queue to be written to the file
+     */
+    public BaseFileLogger(Context context, int queueCapacity) {
         this.context = context;
+        this.queue = new LogEventRingBuffer(queueCapacity);
     }
 
     public File getFile() {
@@ -52,6 +249,13 @@ public abstract class BaseFileLogger implements FileLogger {
      */
     abstract String getFileExtension();
 
+    /**
+     * @return true if the file is text, which never ends with a zero byte, or false if it is binary
+     */
+    boolean isTextFormat() {
+        return true;
+    }
+
     /**
      * Initialize file by adding a header, if desired for the given implementation
      *
@@ -69,6 +273,38 @@ public abstract class BaseFileLogger implements FileLogger {
      */
     abstract boolean postFileInit(BufferedWriter fileWriter, boolean isNewFile);
 
+    /**
+     * Writes an event that was previously queued via {@link #enqueue(int, Object, long)} to the
+     * file. This is called on the writer thread while holding the file lock, and fileWriter is
+     * guaranteed to be non-null.
+     *
+     * @param event the event to write, which must not be retained after this method returns
+     * @throws IOException if the event couldn't be written
+     */
+    abstract void writeEvent(LogEvent event) throws IOException;
+
+    /**
+     * Called before the current file is closed, either because logging stopped or because the
+     * file is being rotated, if the implementation needs to write a footer. This is called while
+     * holding the file lock after all queued events have been written.
+     *
+     * @throws IOException if the footer couldn't be written
+     */
+    void preFileClose() throws IOException {
+        // No-op by default
+    }
+
+    /**
+     * Called before an entry is added to the {@link LogTimeIndex}, if the implementation needs
+     * to write data so that reading can start at the next record (e.g., to reset delta
+     * encoding). This is called on the writer thread while holding the file lock.
+     *
+     * @throws IOException if the data couldn't be written
+     */
+    void preIndexEntry() throws IOException {
+        // No-op by default
+    }
+
     /**
      * Start a file logging process
      *
@@ -78,7 +314,7 @@ public abstract class BaseFileLogger implements FileLogger {
      * @return true if a new file was created, false if an existing file was used
      */
     public boolean startLog(File existingFile, Date date) {
-        boolean isNewFile = false;
+        boolean isNewFile;
         synchronized (fileLock) {
             String state = Environment.getExternalStorageState();
             if (Environment.MEDIA_MOUNTED.equals(state)) {
@@ -92,59 +328,708 @@ public abstract class BaseFileLogger implements FileLogger {
                 return false;
             }
 
-            String currentFilePath;
-
+            File currentFile;
             if (existingFile != null) {
                 // Use existing file
-                currentFilePath = existingFile.getAbsolutePath();
-                BufferedWriter writer;
-                try {
-                    writer = new BufferedWriter(new FileWriter(existingFile, true));
-                } catch (IOException e) {
-                    logException("Could not open file: " + currentFilePath, e);
-                    return false;
-                }
-                if (!closeOldFileWriter()) {
-                    return false;
+                setSession(existingFile);
+                if ((maxFileBytes > 0 && existingFile.length() >= maxFileBytes)
+                        || !prepareForAppend(existingFile)) {
+                    // Start the next segment rather than appending to a full file, or to a file
+                    // that may end with preallocated space
+                    segmentNumber++;
+                    currentFile = getSegmentFile(segmentNumber);
+                    isNewFile = true;
+                } else {
+                    currentFile = existingFile;
+                    isNewFile = false;
                 }
-                file = existingFile;
-                fileWriter = writer;
-                isNewFile = false;
             } else {
                 // Create new logging file
                 SimpleDateFormat formatter = new SimpleDateFormat("yyy_MM_dd_HH_mm_ss");
-                String fileName = String.format("%s_%s." + getFileExtension(), FILE_PREFIX, formatter.format(date));
-                File currentFile = new File(baseDirectory, fileName);
-                currentFilePath = currentFile.getAbsolutePath();
-                BufferedWriter writer;
-                try {
-                    writer = new BufferedWriter(new FileWriter(currentFile, true));
-                } catch (IOException e) {
-                    logException("Could not open file: " + currentFilePath, e);
-                    return false;
-                }
+                sessionName = FILE_PREFIX + "_" + formatter.format(date);
+                segmentNumber = 1;
+                currentFile = getSegmentFile(segmentNumber);
+                isNewFile = true;
+            }
+
+            if (!openFile(currentFile, isNewFile)) {
+                return false;
+            }
+            if (isNewFile) {
+                Log.d(TAG, Application.get().getString(R.string.logging_to_new_file, currentFile.getAbsolutePath()));
+            }
+            startManifest();
+
+            isStarted = true;
+            startWriterThread();
+        }
+        return isNewFile;
+    }
+
+    /**
+     * Removes zero-filled space that a {@link MappedSegmentOutputStream} preallocated at the end of
+     * an existing file if it wasn't closed (e.g., the app was killed), so records are appended
+     * after the data rather than after the zeros. Must be called while holding the file lock.
+     *
+     * @return true if records can be appended to the file, or false if a new file should be
+     * started because the end of the data can't be found
+     */
+    private boolean prepareForAppend(File existingFile) {
+        try {
+            if (!MappedSegmentOutputStream.mayHavePreallocatedSpace(existingFile)) {
+                return true;
+            }
+            if (!isTextFormat() || isCompressedFile(existingFile)) {
+                // The data itself can end with zero bytes
+                return false;
+            }
+            long length = MappedSegmentOutputStream.truncatePreallocatedSpace(existingFile);
+            Log.w(TAG, "Removed preallocated space from " + existingFile.getAbsolutePath()
+                    + ", " + length + " bytes of data");
+            return true;
+        } catch (IOException e) {
+            Log.w(TAG, "Unable to check the end of " + existingFile.getAbsolutePath(), e);
+            return false;
+        }
+    }
+
+    /**
+     * Opens the provided file and makes it the current file, closing the previous file. Must be
+     * called while holding the file lock.
+     *
+     * @param newFile   the file to open
+     * @param isNewFile true if the file should be initialized with a header, or false if it already
+     *                  contains data and should be appended to
+     * @return true if the file was opened, false if it was not
+     */
+    private boolean openFile(File newFile, boolean isNewFile) {
+        OutputStream rawStream;
+        try {
+            rawStream = openOutputStream(newFile);
+        } catch (IOException e) {
+            logException("Could not open file: " + newFile.getAbsolutePath(), e);
+            return false;
+        }
+        return openFile(newFile, isNewFile, rawStream);
+    }
+
+    /**
+     * Makes the provided file the current file, writing to a stream that has already been opened
+     * with {@link #openOutputStream(File)}, and closes the previous file. Must be called while
+     * holding the file lock.
+     *
+     * @return true if the file was opened, false if it was not
+     */
+    private boolean openFile(File newFile, boolean isNewFile, OutputStream rawStream) {
+        String filePath = newFile.getAbsolutePath();
+        long existingBytes = isNewFile ? 0 : newFile.length();
+        boolean compressed = false;
+        CountingOutputStream counter;
+        OutputStream stream;
+        try {
+            // Count the bytes that reach the file, after compression. Mapped segments are written
+            // by copying memory, so only file descriptor writes need a buffer.
+            counter = new CountingOutputStream(rawStream instanceof FileOutputStream
+                    ? new BufferedOutputStream(rawStream) : rawStream);
+            stream = counter;
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT && isCompressedFile(newFile)) {
+                stream = openCompressedStream(counter);
+                compressed = true;
+            }
+        } catch (IOException e) {
+            try {
+                rawStream.close();
+            } catch (IOException closeException) {
+                Log.w(TAG, "Unable to close " + filePath, closeException);
+            }
+            logException("Could not open file: " + filePath, e);
+            return false;
+        }
+        BufferedWriter writer = createWriter(stream);
+        if (isNewFile) {
+            writeFileHeader(writer, filePath);
+        }
+        if (!closeOldFileWriter()) {
+            return false;
+        }
+        closeIndex();
+        file = newFile;
+        fileOutputStream = stream;
+        fileWriter = writer;
+        rawFileStream = rawStream;
+        fileByteCounter = counter;
+        isFileCompressed = compressed;
+        lastFlushElapsedRealtime = SystemClock.elapsedRealtime();
+        recordsSinceFlush = 0;
+        bytesAtLastFlush = 0;
+        initialFileBytes = existingBytes;
+        if (!compressed && indexInterval > 0) {
+            openIndex(newFile);
+        }
+        return postFileInit(fileWriter, isNewFile);
+    }
+
+    /**
+     * Sets the session name and segment number from the name of an existing segment file
+     */
+    private void setSession(File existingFile) {
+        String name = existingFile.getName();
+        // Session names don't contain a '.', and compressed files have two extensions
+        int extensionStart = name.indexOf('.');
+        if (extensionStart > 0) {
+            name = name.substring(0, extensionStart);
+        }
+        Matcher matcher = LogSessionManifest.SEGMENT_NAME_PATTERN.matcher(name);
+        if (matcher.matches()) {
+            sessionName = matcher.group(1);
+            segmentNumber = matcher.group(2) != null ? Integer.parseInt(matcher.group(2)) : 1;
+        } else {
+            sessionName = name;
+            segmentNumber = 1;
+        }
+    }
+
+    private File getSegmentFile(int number) {
+        String name = number == 1 ? sessionName
+                : String.format(Locale.US, "%s_%03d", sessionName, number);
+        return new File(baseDirectory, name + "." + getFileNameExtension());
+    }
+
+    /**
+     * @return the extension used for new files, which is {@link #getFileExtension()} followed by
+     * ".gz" if compression is enabled
+     */
+    private String getFileNameExtension() {
+        if (compressionEnabled) {
+            return getFileExtension() + "." + COMPRESSED_FILE_EXTENSION;
+        }
+        return getFileExtension();
+    }
+
+    private static boolean isCompressedFile(File file) {
+        return file.getName().endsWith("." + COMPRESSED_FILE_EXTENSION);
+    }
+
+    /**
+     * Wraps the provided stream with GZIP compression. Appending to an existing compressed file
+     * starts a new GZIP member, and readers treat the concatenated members as a single stream.
+     */
+    @RequiresApi(api = Build.VERSION_CODES.KITKAT)
+    private static OutputStream openCompressedStream(OutputStream stream) throws IOException {
+        // Sync flush so that all data written before each flush() can be decompressed
+        return new GZIPOutputStream(stream, COMPRESSION_BUFFER_SIZE, true);
+    }
+
+    /**
+     * Raw measurements for an epoch are delivered in a single event, and the location fix for the
+     * epoch follows them, so either one ends an epoch
+     */
+    private static boolean isEpochEnd(LogEvent event) {
+        return event.type == LogEvent.TYPE_MEASUREMENTS || event.type == LogEvent.TYPE_LOCATION;
+    }
+
+    /**
+     * Flushes records written since the previous flush if the durability policy interval has
+     * passed, or if the file is compressed and hasn't been flushed recently. Called after each
+     * batch, so records are flushed even if no more records are received. Must be called while
+     * holding the file lock.
+     */
+    private void flushIfIdleTimeElapsed() {
+        if (recordsSinceFlush == 0) {
+            return;
+        }
+        long millisSinceFlush = SystemClock.elapsedRealtime() - lastFlushElapsedRealtime;
+        if (durabilityPolicy.isFlushDue(recordsSinceFlush, millisSinceFlush, false)
+                || (isFileCompressed && millisSinceFlush >= COMPRESSED_FLUSH_INTERVAL_MILLIS)) {
+            flushFile();
+        }
+    }
+
+    /**
+     * Writes buffered data to the file (sync-flushing compressed output), syncs the file to the
+     * storage device if required by the durability policy, and updates the flush metrics. Must be
+     * called while holding the file lock.
+     */
+    private void flushFile() {
+        long startNanos = System.nanoTime();
+        try {
+            fileWriter.flush();
+            if (durabilityPolicy.isSync()) {
+                syncFile();
+            }
+            if (indexStream != null) {
+                indexStream.flush();
+            }
+        } catch (IOException e) {
+            logException(Application.get().getString(R.string.error_writing_file), e);
+        }
+        long bytes = fileByteCounter.getByteCount();
+        flushMetrics.add(System.nanoTime() - startNanos, bytes - bytesAtLastFlush);
+        bytesAtLastFlush = bytes;
+        recordsSinceFlush = 0;
+        lastFlushElapsedRealtime = SystemClock.elapsedRealtime();
+    }
+
+    /**
+     * Waits until data written to the current file is stored on the storage device
+     */
+    private void syncFile() throws IOException {
+        if (rawFileStream instanceof MappedSegmentOutputStream) {
+            ((MappedSegmentOutputStream) rawFileStream).force();
+        } else if (rawFileStream instanceof FileOutputStream) {
+            ((FileOutputStream) rawFileStream).getFD().sync();
+        }
+    }
+
+    /**
+     * Opens the index for the provided file, adding entries to the existing index if the file is
+     * being appended to. If the index can't be opened, logging continues without an index. Must
+     * be called while holding the file lock.
+     */
+    private void openIndex(File logFile) {
+        fileIndexInterval = indexInterval;
+        recordsUntilIndexEntry = 0;
+        try {
+            indexStream = LogTimeIndex.openForAppend(LogTimeIndex.getFile(logFile), fileIndexInterval);
+        } catch (IOException e) {
+            Log.w(TAG, "Unable to open index for " + logFile.getAbsolutePath(), e);
+        }
+    }
+
+    /**
+     * Adds an index entry pointing at the start of the provided event, which hasn't been written
+     * yet. Buffered records are written to the file first so its size is the offset of the event.
+     * Must be called while holding the file lock.
+     */
+    private void writeIndexEntry(LogEvent event) {
+        recordsUntilIndexEntry = fileIndexInterval - 1;
+        try {
+            preIndexEntry();
+            fileWriter.flush();
+            LogTimeIndex.writeEntry(indexStream, getFileBytes(), event.elapsedRealtimeMillis, event.timeMillis);
+        } catch (IOException e) {
+            Log.w(TAG, "Unable to write index entry, continuing without an index", e);
+            closeIndex();
+        }
+    }
+
+    private void closeIndex() {
+        if (indexStream == null) {
+            return;
+        }
+        try {
+            indexStream.close();
+        } catch (IOException e) {
+            Log.w(TAG, "Unable to close index", e);
+        }
+        indexStream = null;
+    }
+
+    /**
+     * Reads the manifest of the current session, or creates a new one, if rotation is enabled.
+     * Must be called while holding the file lock.
+     */
+    private void startManifest() {
+        manifest = null;
+        currentSegment = null;
+        rotationFailed = false;
+        if (!isRotationEnabled()) {
+            return;
+        }
+        if (manifestMapper == null) {
+            manifestMapper = new ObjectMapper();
+        }
+        File manifestFile = LogSessionManifest.getFile(baseDirectory, sessionName, getFileExtension());
+        if (manifestFile.exists()) {
+            try {
+                manifest = LogSessionManifest.read(manifestMapper, manifestFile);
+            } catch (IOException e) {
+                Log.w(TAG, "Unable to read " + manifestFile.getAbsolutePath() + ", starting a new manifest", e);
+            }
+        }
+        if (manifest == null) {
+            manifest = new LogSessionManifest(sessionName);
+        }
+        currentSegment = manifest.getOrAddSegment(file.getName());
+        writeManifest();
+    }
+
+    /**
+     * Updates the size of the current segment and writes the manifest. Must be called while
+     * holding the file lock.
+     */
+    private void writeManifest() {
+        try {
+            fileWriter.flush();
+            currentSegment.setSizeBytes(getFileBytes());
+            manifest.write(manifestMapper, LogSessionManifest.getFile(baseDirectory, sessionName, getFileExtension()));
+        } catch (IOException e) {
+            logException(Application.get().getString(R.string.error_writing_file), e);
+        }
+    }
+
+    private boolean isRotationEnabled() {
+        return maxFileBytes > 0 || maxFileDurationMillis > 0;
+    }
+
+    /**
+     * @return the number of bytes written to the current file, not including data that is still
+     * buffered in fileWriter
+     */
+    private long getFileBytes() {
+        return initialFileBytes + fileByteCounter.getByteCount();
+    }
+
+    private boolean isSegmentFull() {
+        if (maxFileBytes > 0 && getFileBytes() >= maxFileBytes) {
+            return true;
+        }
+        return maxFileDurationMillis > 0 && currentSegment.getLastRecordTimeMillis()
+                - currentSegment.getFirstRecordTimeMillis() >= maxFileDurationMillis;
+    }
+
+    /**
+     * Closes the current file and continues logging in the next segment of the session. If the
+     * next segment can't be opened, the current file is kept and no more segments are started
+     * until logging is restarted. Called on the writer thread while holding the file lock.
+     */
+    private void rotateFile() {
+        // Open the next file before finishing the current one, so logging can continue in the
+        // current file if the next one can't be opened
+        File nextFile = getSegmentFile(segmentNumber + 1);
+        OutputStream nextStream;
+        try {
+            nextStream = openOutputStream(nextFile);
+        } catch (IOException e) {
+            // Don't try again for each record and show an error each time
+            rotationFailed = true;
+            logException("Could not open file: " + nextFile.getAbsolutePath()
+                    + ", continuing in " + file.getName(), e);
+            return;
+        }
+        try {
+            preFileClose();
+        } catch (IOException e) {
+            logException(Application.get().getString(R.string.error_writing_file), e);
+        }
+        flushFile();
+        currentSegment.setSizeBytes(getFileBytes());
+        if (!openFile(nextFile, true, nextStream)) {
+            rotationFailed = true;
+            return;
+        }
+        segmentNumber++;
+        Log.d(TAG, Application.get().getString(R.string.logging_to_new_file, nextFile.getAbsolutePath()));
+        currentSegment = manifest.getOrAddSegment(nextFile.getName());
+        writeManifest();
+    }
 
-                writeFileHeader(writer, currentFilePath);
+    private void startWriterThread() {
+        if (writerThread == null) {
+            writerThread = new LogWriterThread(this, "LogWriter-" + getFileExtension());
+            writerThread.start();
+        }
+    }
 
-                if (!closeOldFileWriter()) {
-                    return false;
+    /**
+     * Stops the writer thread after writing all events in the queue to the file. This is called by
+     * close() before {@link #preFileClose()}, so queued events aren't written after a footer.
+     */
+    protected void stopWriterThread() {
+        LogWriterThread thread;
+        synchronized (fileLock) {
+            thread = writerThread;
+            writerThread = null;
+        }
+        if (thread != null) {
+            thread.shutdown();
+        }
+    }
+
+    /**
+     * Adds an event to the queue to be written to the file on the writer thread. This method never
+     * performs file I/O, and can be called from any thread.
+     *
+     * @param type       one of the LogEvent.TYPE_* constants
+     * @param payload    the object received in the callback, which must be immutable
+     * @param timeMillis time in milliseconds associated with the event
+     * @return true if the event was queued, or false if logging isn't started or the event was
+     * dropped because the queue was full
+     */
+    protected boolean enqueue(int type, Object payload, long timeMillis) {
+        if (!isStarted) {
+            return false;
+        }
+        long elapsedRealtime = SystemClock.elapsedRealtime();
+        if (offer(type, payload, timeMillis, elapsedRealtime)) {
+            return true;
+        }
+        if (overflowPolicy == OverflowPolicy.BLOCK) {
+            long deadline = System.nanoTime() + BLOCK_TIMEOUT_NANOS;
+            while (isStarted && System.nanoTime() < deadline) {
+                LockSupport.parkNanos(BLOCK_PARK_NANOS);
+                if (offer(type, payload, timeMillis, elapsedRealtime)) {
+                    return true;
                 }
+            }
+        }
+        droppedRecordCount.incrementAndGet();
+        return false;
+    }
 
-                file = currentFile;
-                fileWriter = writer;
+    private boolean offer(int type, Object payload, long timeMillis, long elapsedRealtime) {
+        boolean added = queue.offer(type, payload, timeMillis, elapsedRealtime);
+        LogWriterThread thread = writerThread;
+        if (thread != null && (!added || queue.size() >= WRITE_BATCH_SIZE)) {
+            // Don't wait for the writer to wake up on its own if a full batch is ready
+            thread.wakeUp();
+        }
+        return added;
+    }
 
-                Log.d(TAG, Application.get().getString(R.string.logging_to_new_file, currentFilePath));
-                isNewFile = true;
+    /**
+     * Writes a batch of queued events to the file. Called from the writer thread.
+     *
+     * @return the number of events removed from the queue
+     */
+    int drainQueue() {
+        synchronized (fileLock) {
+            if (fileWriter == null) {
+                // The file was closed - nothing can be written
+                return queue.drain(eventDiscarder, WRITE_BATCH_SIZE);
             }
+            int count = queue.drain(eventWriter, WRITE_BATCH_SIZE);
+            flushIfIdleTimeElapsed();
+            return count;
+        }
+    }
 
-            boolean postInit = postFileInit(fileWriter, isNewFile);
-            if (!postInit) {
-                return false;
+    /**
+     * Sets the policy used when an event is received and the queue of events waiting to be
+     * written is full. Defaults to {@link OverflowPolicy#DROP_NEWEST}.
+     *
+     * @param policy the policy to use when the queue is full
+     */
+    public void setOverflowPolicy(OverflowPolicy policy) {
+        overflowPolicy = policy;
+    }
+
+    public OverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    /**
+     * Sets how bytes are written to the log file. Defaults to {@link WriterBackend#STREAM}. Takes
+     * effect the next time a file is opened in {@link #startLog(File, Date)}.
+     *
+     * @param backend the backend to use when writing to the file
+     */
+    public void setWriterBackend(WriterBackend backend) {
+        writerBackend = backend;
+    }
+
+    public WriterBackend getWriterBackend() {
+        return writerBackend;
+    }
+
+    /**
+     * Sets whether log files are GZIP compressed, which adds ".gz" to the file name. Compressed
+     * output is sync-flushed to the file every {@link #COMPRESSED_FLUSH_INTERVAL_MILLIS}
+     * milliseconds. Takes effect the next time a new file is created. Defaults to false. Only
+     * supported on Android 4.4 and higher - on older versions files are always uncompressed.
+     *
+     * @param enabled true to compress new log files, false to write them uncompressed
+     */
+    public void setCompressionEnabled(boolean enabled) {
+        compressionEnabled = enabled && Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT;
+    }
+
+    public boolean isCompressionEnabled() {
+        return compressionEnabled;
+    }
+
+    /**
+     * Sets when buffered records are flushed to the file, and whether the file is synced to the
+     * storage device after each flush. Takes effect immediately. Defaults to
+     * {@link DurabilityPolicy#DEFAULT}. Compressed files are also flushed every
+     * {@link #COMPRESSED_FLUSH_INTERVAL_MILLIS} milliseconds regardless of the policy.
+     *
+     * @param policy the policy to use when writing records
+     */
+    public void setDurabilityPolicy(DurabilityPolicy policy) {
+        durabilityPolicy = policy;
+    }
+
+    public DurabilityPolicy getDurabilityPolicy() {
+        return durabilityPolicy;
+    }
+
+    /**
+     * Sets the number of records between entries in the {@link LogTimeIndex} written next to each
+     * log file. Takes effect the next time a file is opened. Defaults to
+     * {@link #DEFAULT_INDEX_INTERVAL}. Compressed files are never indexed, as offsets in the
+     * compressed data can't be used to seek.
+     *
+     * @param records number of records between index entries, or 0 to not write an index
+     */
+    public void setIndexInterval(int records) {
+        indexInterval = records;
+    }
+
+    public int getIndexInterval() {
+        return indexInterval;
+    }
+
+    /**
+     * @return latency and size statistics for the flushes performed since this logger was created
+     */
+    public FlushMetrics getFlushMetrics() {
+        return flushMetrics;
+    }
+
+    /**
+     * Sets the limits at which the current file is closed and logging continues in a new segment
+     * file of the same session. The size limit is approximate, as a segment may exceed it by the
+     * size of one record plus data that is buffered but not yet written. Takes effect the next
+     * time logging is started via {@link #startLog(File, Date)}.
+     *
+     * @param maxFileBytes          maximum size of a segment file in bytes, or 0 for no size limit
+     * @param maxFileDurationMillis maximum time between the first and last record in a segment, or
+     *                              0 for no time limit
+     */
+    public void setRotation(long maxFileBytes, long maxFileDurationMillis) {
+        synchronized (fileLock) {
+            this.maxFileBytes = maxFileBytes;
+            this.maxFileDurationMillis = maxFileDurationMillis;
+        }
+    }
+
+    /**
+     * @return the manifest file for the current session, or null if rotation isn't enabled or
+     * logging hasn't been started
+     */
+    public File getManifestFile() {
+        synchronized (fileLock) {
+            if (manifest == null) {
+                return null;
             }
+            return LogSessionManifest.getFile(baseDirectory, sessionName, getFileExtension());
+        }
+    }
 
-            isStarted = true;
+    /**
+     * @return all files of the current session in the order they were written - the segments
+     * listed in the manifest followed by the manifest itself, or only the current file if rotation
+     * isn't enabled. Empty if logging hasn't been started.
+     */
+    public List<File> getSessionFiles() {
+        synchronized (fileLock) {
+            List<File> files = new ArrayList<>();
+            if (manifest == null) {
+                if (file != null) {
+                    files.add(file);
+                }
+                return files;
+            }
+            for (LogSessionManifest.Segment segment : manifest.getSegments()) {
+                File segmentFile = new File(baseDirectory, segment.getFileName());
+                if (segmentFile.exists()) {
+                    files.add(segmentFile);
+                }
+            }
+            files.add(LogSessionManifest.getFile(baseDirectory, sessionName, getFileExtension()));
+            return files;
         }
-        return isNewFile;
+    }
+
+    /**
+     * @return the number of events currently waiting to be written to the file
+     */
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    /**
+     * @return the highest number of events that have been waiting to be written at the same time
+     */
+    public int getPeakQueueDepth() {
+        return queue.peakSize();
+    }
+
+    /**
+     * @return the maximum number of events that can wait to be written to the file
+     */
+    public int getQueueCapacity() {
+        return queue.capacity();
+    }
+
+    /**
+     * @return the number of events that were discarded because the queue was full or logging had
+     * been stopped
+     */
+    public long getDroppedRecordCount() {
+        return droppedRecordCount.get();
+    }
+
+    /**
+     * @return the number of events that have been written to the file
+     */
+    public long getWrittenRecordCount() {
+        return writtenRecordCount;
+    }
+
+    /**
+     * Opens an unbuffered byte stream that appends to the provided file
+     *
+     * @param file the file to write to
+     * @return a {@link FileOutputStream} or {@link MappedSegmentOutputStream}, depending on the
+     * writer backend, that appends to the provided file
+     * @throws IOException if the file can't be opened
+     */
+    private OutputStream openOutputStream(File file) throws IOException {
+        if (writerBackend == WriterBackend.MAPPED_SEGMENTS) {
+            return new MappedSegmentOutputStream(file, MappedSegmentOutputStream.DEFAULT_SEGMENT_SIZE);
+        }
+        return new FileOutputStream(file, true);
+    }
+
+    private BufferedWriter createWriter(OutputStream stream) {
+        return new BufferedWriter(new OutputStreamWriter(stream, UTF_8));
+    }
+
+    /**
+     * Returns a description of the app version and device, for use in file headers - for example,
+     * "v3.9.5 (18082-google), Manufacturer: Google, Model: Pixel 5, GNSS HW Year: 2020, Platform: 11, API Level: 30 "
+     *
+     * @return a description of the app version and device, for use in file headers
+     */
+    protected String getVersionDescription() {
+        String versionString = "";
+        int versionCode = 0;
+        try {
+            PackageInfo info = context.getPackageManager().getPackageInfo(context.getPackageName(), 0);
+            versionString = info.versionName;
+            versionCode = info.versionCode;
+        } catch (PackageManager.NameNotFoundException e) {
+            e.printStackTrace();
+        }
+
+        StringBuilder version = new StringBuilder();
+        // Version info
+        version.append("v")
+                .append(versionString)
+                .append(" (")
+                .append(versionCode)
+                .append("-" + BuildConfig.FLAVOR + "), ");
+
+        version.append("Manufacturer: " + Build.MANUFACTURER + ", ");
+        version.append("Model: " + Build.MODEL + ", ");
+
+        version.append("GNSS HW Year: " + IOUtils.getGnssHardwareYear() + ", ");
+
+        version.append("Platform: " + Build.VERSION.RELEASE + ", ");
+        version.append("API Level: " + Build.VERSION.SDK_INT + " ");
+        return version.toString();
     }
 
     private boolean closeOldFileWriter() {
@@ -169,26 +1054,52 @@ public abstract class BaseFileLogger implements FileLogger {
     }
 
     public void close() {
-        if (fileWriter != null) {
-            try {
-                fileWriter.flush();
-                fileWriter.close();
-                fileWriter = null;
-                isStarted = false;
-            } catch (IOException e) {
-                logException("Unable to close all file streams.", e);
-                return;
+        isStarted = false;
+        stopWriterThread();
+        synchronized (fileLock) {
+            if (fileWriter != null) {
+                Log.d(TAG, "Closing log - " + getWrittenRecordCount() + " records written, "
+                        + getDroppedRecordCount() + " dropped, peak queue depth "
+                        + getPeakQueueDepth() + " of " + getQueueCapacity()
+                        + ", " + durabilityPolicy + ": " + flushMetrics);
+                try {
+                    preFileClose();
+                } catch (IOException e) {
+                    logException(Application.get().getString(R.string.error_writing_file), e);
+                }
+                flushFile();
+                try {
+                    if (manifest != null) {
+                        writeManifest();
+                        manifest = null;
+                        currentSegment = null;
+                    }
+                    fileWriter.close();
+                    closeIndex();
+                    fileWriter = null;
+                    fileOutputStream = null;
+                    rawFileStream = null;
+                    fileByteCounter = null;
+                } catch (IOException e) {
+                    logException("Unable to close all file streams.", e);
+                    return;
+                }
             }
         }
     }
 
     protected void logException(String errorMessage, Exception e) {
         Log.e(TAG, errorMessage, e);
-        Toast.makeText(context, errorMessage, Toast.LENGTH_LONG).show();
+        showToast(errorMessage);
     }
 
     protected void logError(String errorMessage) {
         Log.e(TAG, errorMessage);
-        Toast.makeText(context, errorMessage, Toast.LENGTH_LONG).show();
+        showToast(errorMessage);
+    }
+
+    private void showToast(final String message) {
+        // Errors can be logged from the writer thread, and toasts must be shown on the main thread
+        mainHandler.post(() -> Toast.makeText(context, message, Toast.LENGTH_LONG).show());
     }
 }
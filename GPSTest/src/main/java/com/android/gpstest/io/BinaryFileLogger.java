@@ -0,0 +1,162 @@
+/*
+ * Copyright (C) 2021 Sean J. Barbeau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.gpstest.io;
+
+import android.annotation.SuppressLint;
+import android.content.Context;
+import android.location.GnssMeasurement;
+import android.location.GnssMeasurementsEvent;
+import android.location.GnssNavigationMessage;
+import android.location.Location;
+import android.location.LocationManager;
+import android.os.Build;
+
+import androidx.annotation.RequiresApi;
+
+import com.android.gpstest.Application;
+import com.android.gpstest.R;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.util.Collection;
+
+/**
+ * A GNSS logger to store the same information as {@link CsvFileLogger} in a compact binary file
+ * (see {@link BinaryLogFormat}). Files can be converted to the CSV format using
+ * {@link BinaryLogConverter}.
+ */
+public class BinaryFileLogger extends BaseFileLogger implements FileLogger {
+
+    // Only used on the writer thread
+    private final BinaryRecordEncoder encoder = new BinaryRecordEncoder();
+    private final BinaryLogFormat.DeltaState deltaState = new BinaryLogFormat.DeltaState();
+    private final RawMeasurementRecord rawRecord = new RawMeasurementRecord();
+    private final FixRecord fixRecord = new FixRecord();
+    private final NavMessageRecord navRecord = new NavMessageRecord();
+    private String lastProvider;
+    private byte[] lastProviderBytes;
+
+    public BinaryFileLogger(Context context) {
+        super(context);
+    }
+
+    @Override
+    String getFileExtension() {
+        return "bin";
+    }
+
+    @Override
+    boolean isTextFormat() {
+        return false;
+    }
+
+    @Override
+    void writeFileHeader(BufferedWriter writer, String filePath) {
+        // No-op - the binary header is written to the byte stream in postFileInit()
+    }
+
+    @Override
+    boolean postFileInit(BufferedWriter fileWriter, boolean isNewFile) {
+        deltaState.reset();
+        try {
+            if (isNewFile) {
+                BinaryLogFormat.writeHeader(encoder, fileOutputStream, getVersionDescription());
+            } else {
+                // Readers reset their delta state here, as logging resumes in an existing file
+                encoder.begin(BinaryLogFormat.RECORD_SYNC).writeTo(fileOutputStream);
+            }
+            fileOutputStream.flush();
+        } catch (IOException e) {
+            logException(Application.get().getString(R.string.could_not_initialize_file, file.getAbsolutePath()), e);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Writes a sync record so that reading can start at the indexed record without the preceding
+     * records that delta-encoded values depend on
+     */
+    @Override
+    void preIndexEntry() throws IOException {
+        deltaState.reset();
+        encoder.begin(BinaryLogFormat.RECORD_SYNC).writeTo(fileOutputStream);
+    }
+
+    public void onLocationChanged(Location location) {
+        if (location.getProvider().equals(LocationManager.GPS_PROVIDER)) {
+            enqueue(LogEvent.TYPE_LOCATION, location, location.getTime());
+        }
+    }
+
+    @RequiresApi(api = Build.VERSION_CODES.N)
+    public void onGnssMeasurementsReceived(GnssMeasurementsEvent event) {
+        enqueue(LogEvent.TYPE_MEASUREMENTS, event, System.currentTimeMillis());
+    }
+
+    @RequiresApi(api = Build.VERSION_CODES.N)
+    public void onGnssNavigationMessageReceived(GnssNavigationMessage navigationMessage) {
+        enqueue(LogEvent.TYPE_NAV_MESSAGE, navigationMessage, System.currentTimeMillis());
+    }
+
+    public void onNmeaReceived(long timestamp, String s) {
+        enqueue(LogEvent.TYPE_NMEA, s, timestamp);
+    }
+
+    @SuppressLint("NewApi")
+    @Override
+    void writeEvent(LogEvent event) throws IOException {
+        switch (event.type) {
+            case LogEvent.TYPE_LOCATION:
+                fixRecord.set((Location) event.payload);
+                BinaryLogFormat.encodeFix(encoder, fixRecord, getProviderBytes(fixRecord.provider));
+                break;
+            case LogEvent.TYPE_MEASUREMENTS:
+                GnssMeasurementsEvent measurementsEvent = (GnssMeasurementsEvent) event.payload;
+                Collection<GnssMeasurement> measurements = measurementsEvent.getMeasurements();
+                rawRecord.setClock(event.elapsedRealtimeMillis, measurementsEvent.getClock());
+                BinaryLogFormat.encodeEpochHeader(encoder, rawRecord, measurements.size(), deltaState);
+                for (GnssMeasurement measurement : measurements) {
+                    rawRecord.setMeasurement(measurement);
+                    BinaryLogFormat.encodeMeasurement(encoder, rawRecord);
+                }
+                break;
+            case LogEvent.TYPE_NAV_MESSAGE:
+                navRecord.set((GnssNavigationMessage) event.payload);
+                BinaryLogFormat.encodeNav(encoder, navRecord);
+                break;
+            case LogEvent.TYPE_NMEA:
+                BinaryLogFormat.encodeNmea(encoder, (String) event.payload, event.timeMillis, deltaState);
+                break;
+            default:
+                return;
+        }
+        encoder.writeTo(fileOutputStream);
+    }
+
+    /**
+     * Returns the UTF-8 bytes for the provided location provider name, re-using the bytes from the
+     * previous fix if the provider hasn't changed
+     */
+    private byte[] getProviderBytes(String provider) {
+        if (!provider.equals(lastProvider)) {
+            lastProvider = provider;
+            lastProviderBytes = provider.getBytes(BinaryLogFormat.UTF_8);
+        }
+        return lastProviderBytes;
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright (C) 2021 Sean J. Barbeau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.gpstest.io;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedWriter;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Converts binary log files written by {@link BinaryFileLogger} to the CSV format written by
+ * {@link CsvFileLogger}, so they can be used with existing CSV tools (e.g., the GPS Measurement
+ * Tools from Google)
+ */
+public final class BinaryLogConverter {
+
+    private BinaryLogConverter() {
+    }
+
+    /**
+     * Converts the provided binary log file to a CSV log file
+     *
+     * @param binaryFile the binary log file to read, which is decompressed if its name ends in
+     *                   ".gz"
+     * @param csvFile    the CSV file to write, which is replaced if it already exists
+     * @return the number of records written to the CSV file
+     * @throws IOException if the binary file is invalid or the files can't be read or written
+     */
+    public static long convertToCsv(File binaryFile, File csvFile) throws IOException {
+        try (InputStream in = openInputStream(binaryFile);
+             BufferedWriter out = new BufferedWriter(new OutputStreamWriter(
+                     new FileOutputStream(csvFile), BinaryLogFormat.UTF_8))) {
+            return convertToCsv(in, out);
+        }
+    }
+
+    /**
+     * Converts a binary log to CSV. Streams are not closed.
+     *
+     * @param in  the binary log, starting at the file header
+     * @param out the writer to output the CSV header and records to
+     * @return the number of records written to the CSV output
+     * @throws IOException if the binary log is invalid or the streams can't be read or written
+     */
+    public static long convertToCsv(InputStream in, BufferedWriter out) throws IOException {
+        BinaryLogReader reader = new BinaryLogReader(in);
+        CsvLogFormat.writeHeader(out, reader.readHeader());
+        CsvWriter writer = new CsvWriter(reader, out);
+        long count = reader.read(writer);
+        if (writer.error != null) {
+            throw writer.error;
+        }
+        out.flush();
+        return count;
+    }
+
+    /**
+     * Opens a buffered stream to read a log file, which is decompressed if its name ends in ".gz"
+     */
+    static InputStream openInputStream(File file) throws IOException {
+        InputStream in = new FileInputStream(file);
+        if (file.getName().endsWith(".gz")) {
+            // Reads all members of files that were appended to after logging was resumed
+            return new BufferedInputStream(new TruncatedGzipInputStream(in));
+        }
+        return new BufferedInputStream(in);
+    }
+
+    /**
+     * A GZIPInputStream that ends at the last data of a file that was sync flushed but not
+     * closed (e.g., because the app was killed while logging), instead of throwing an
+     * EOFException for the missing GZIP trailer. BufferedInputStream discards bytes it has
+     * already read when the underlying stream throws, so this can't be handled by the readers.
+     */
+    private static final class TruncatedGzipInputStream extends GZIPInputStream {
+
+        private boolean truncated = false;
+
+        TruncatedGzipInputStream(InputStream in) throws IOException {
+            super(in);
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (truncated) {
+                return -1;
+            }
+            try {
+                return super.read(b, off, len);
+            } catch (EOFException e) {
+                truncated = true;
+                return -1;
+            }
+        }
+
+        @Override
+        public int available() throws IOException {
+            return truncated ? 0 : super.available();
+        }
+    }
+
+    /**
+     * Writes each record read from a binary log as a CSV record, stopping the reader at the first
+     * error
+     */
+    private static final class CsvWriter implements CsvLogReader.Handler {
+        private final BinaryLogReader reader;
+        private final BufferedWriter out;
+        private final CsvRecordEncoder encoder = new CsvRecordEncoder();
+        IOException error;
+
+        CsvWriter(BinaryLogReader reader, BufferedWriter out) {
+            this.reader = reader;
+            this.out = out;
+        }
+
+        @Override
+        public void onRaw(RawMeasurementRecord record) {
+            CsvLogFormat.encodeRaw(encoder, record);
+            writeRecord();
+        }
+
+        @Override
+        public void onFix(FixRecord record) {
+            CsvLogFormat.encodeFix(encoder, record);
+            writeRecord();
+        }
+
+        @Override
+        public void onNav(NavMessageRecord record) {
+            CsvLogFormat.encodeNav(encoder, record);
+            writeRecord();
+        }
+
+        @Override
+        public void onNmea(CharSequence sentence, long timestamp) {
+            CsvLogFormat.encodeNmea(encoder, sentence, timestamp);
+            writeRecord();
+        }
+
+        private void writeRecord() {
+            if (error != null) {
+                return;
+            }
+            try {
+                encoder.writeTo(out);
+                out.newLine();
+            } catch (IOException e) {
+                error = e;
+                reader.stop();
+            }
+        }
+    }
+}
@@ -0,0 +1,384 @@
+/*
+ * Copyright (C) 2021 Sean J. Barbeau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.gpstest.io;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+/**
+ * Defines the compact binary log format written by {@link BinaryFileLogger}. It holds the same
+ * information as the CSV format and can be converted back to CSV using {@link BinaryLogConverter}.
+ *
+ * A file starts with a header:
+ * <ul>
+ * <li>4 bytes - the magic value "GTBL"</li>
+ * <li>2 bytes - the format version ({@link #VERSION})</li>
+ * <li>varint length + UTF-8 bytes - app and device version information</li>
+ * </ul>
+ *
+ * The header is followed by records, each made up of a 1 byte record type, a varint payload
+ * length, and the payload. Readers skip record types they don't recognize. Fixed-width values are
+ * big-endian, and signed varints are zig-zag encoded.
+ *
+ * A GnssMeasurementsEvent is written as a single {@link #RECORD_EPOCH} record - the clock fields
+ * are written once per epoch, with ElapsedRealtimeMillis, TimeNanos and FullBiasNanos written as
+ * the difference from the previous epoch. Each measurement in the epoch is then written with a
+ * fixed-width layout, followed by the optional fields that the measurement has values for.
+ * NMEA timestamps are written as the difference from the previous NMEA timestamp. The previous
+ * values start at zero at the beginning of the file and after each {@link #RECORD_SYNC} record.
+ */
+final class BinaryLogFormat {
+
+    static final byte[] MAGIC = {'G', 'T', 'B', 'L'};
+
+    static final int VERSION = 1;
+
+    static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final int MAX_DESCRIPTION_LENGTH = 64 * 1024;
+
+    /**
+     * Resets the values used for delta encoding - written when logging resumes in an existing file
+     */
+    static final int RECORD_SYNC = 0;
+    static final int RECORD_EPOCH = 1;
+    static final int RECORD_FIX = 2;
+    static final int RECORD_NAV = 3;
+    static final int RECORD_NMEA = 4;
+
+    // Clock flags in RECORD_EPOCH
+    private static final int CLOCK_HAS_LEAP_SECOND = 1;
+    private static final int CLOCK_HAS_TIME_UNCERTAINTY = 1 << 1;
+    private static final int CLOCK_HAS_BIAS = 1 << 2;
+    private static final int CLOCK_HAS_BIAS_UNCERTAINTY = 1 << 3;
+    private static final int CLOCK_HAS_DRIFT = 1 << 4;
+    private static final int CLOCK_HAS_DRIFT_UNCERTAINTY = 1 << 5;
+
+    // Measurement flags in RECORD_EPOCH
+    private static final int MEASUREMENT_HAS_CARRIER_FREQUENCY = 1;
+    private static final int MEASUREMENT_HAS_CARRIER_CYCLES = 1 << 1;
+    private static final int MEASUREMENT_HAS_CARRIER_PHASE = 1 << 2;
+    private static final int MEASUREMENT_HAS_CARRIER_PHASE_UNCERTAINTY = 1 << 3;
+    private static final int MEASUREMENT_HAS_SNR = 1 << 4;
+    private static final int MEASUREMENT_HAS_AGC = 1 << 5;
+
+    /**
+     * Values from the previous records that the next records are delta-encoded against
+     */
+    static final class DeltaState {
+        long elapsedRealtimeMillis;
+        long timeNanos;
+        long fullBiasNanos;
+        long nmeaTimestamp;
+
+        void reset() {
+            elapsedRealtimeMillis = 0;
+            timeNanos = 0;
+            fullBiasNanos = 0;
+            nmeaTimestamp = 0;
+        }
+    }
+
+    private BinaryLogFormat() {
+    }
+
+    /**
+     * Writes the file header to the start of a binary log file
+     *
+     * @param encoder            encoder to use to build the header
+     * @param stream             stream to write the header to
+     * @param versionDescription app and device version information, from
+     *                           {@link BaseFileLogger#getVersionDescription()}
+     * @throws IOException if the header can't be written
+     */
+    static void writeHeader(BinaryRecordEncoder encoder, OutputStream stream,
+                            String versionDescription) throws IOException {
+        byte[] description = versionDescription.getBytes(UTF_8);
+        encoder.begin(RECORD_SYNC)
+                .putBytes(MAGIC, 0, MAGIC.length)
+                .putShort(VERSION)
+                .putLengthPrefixedBytes(description, 0, description.length)
+                .writePayloadTo(stream);
+    }
+
+    /**
+     * Reads and validates the file header from the start of a binary log file
+     *
+     * @return the app and device version information from the header
+     * @throws IOException if the stream isn't a binary log file or has an unsupported version
+     */
+    static String readHeader(BinaryRecordDecoder decoder) throws IOException {
+        byte[] magic = new byte[MAGIC.length];
+        decoder.readHeaderBytes(magic, magic.length);
+        if (!Arrays.equals(magic, MAGIC)) {
+            throw new IOException("Not a GPSTest binary log file");
+        }
+        byte[] version = new byte[2];
+        decoder.readHeaderBytes(version, version.length);
+        int fileVersion = ((version[0] & 0xFF) << 8) | (version[1] & 0xFF);
+        if (fileVersion != VERSION) {
+            throw new IOException("Unsupported binary log version " + fileVersion);
+        }
+        long descriptionLength = decoder.readHeaderVarLong();
+        if (descriptionLength > MAX_DESCRIPTION_LENGTH) {
+            throw new IOException("Invalid file header");
+        }
+        byte[] description = new byte[(int) descriptionLength];
+        decoder.readHeaderBytes(description, description.length);
+        return new String(description, UTF_8);
+    }
+
+    /**
+     * Starts a {@link #RECORD_EPOCH} record by encoding the clock fields of the provided record
+     * and the number of measurements that will follow
+     */
+    static void encodeEpochHeader(BinaryRecordEncoder encoder, RawMeasurementRecord r,
+                                  int measurementCount, DeltaState state) {
+        int flags = 0;
+        if (r.hasLeapSecond) {
+            flags |= CLOCK_HAS_LEAP_SECOND;
+        }
+        if (r.hasTimeUncertaintyNanos) {
+            flags |= CLOCK_HAS_TIME_UNCERTAINTY;
+        }
+        if (r.hasBiasNanos) {
+            flags |= CLOCK_HAS_BIAS;
+        }
+        if (r.hasBiasUncertaintyNanos) {
+            flags |= CLOCK_HAS_BIAS_UNCERTAINTY;
+        }
+        if (r.hasDriftNanosPerSecond) {
+            flags |= CLOCK_HAS_DRIFT;
+        }
+        if (r.hasDriftUncertaintyNanosPerSecond) {
+            flags |= CLOCK_HAS_DRIFT_UNCERTAINTY;
+        }
+        encoder.begin(RECORD_EPOCH)
+                .putSignedVarLong(r.elapsedRealtimeMillis - state.elapsedRealtimeMillis)
+                .putSignedVarLong(r.timeNanos - state.timeNanos)
+                .putSignedVarLong(r.fullBiasNanos - state.fullBiasNanos)
+                .putByte(flags);
+        if (r.hasLeapSecond) {
+            encoder.putSignedVarLong(r.leapSecond);
+        }
+        if (r.hasTimeUncertaintyNanos) {
+            encoder.putDouble(r.timeUncertaintyNanos);
+        }
+        if (r.hasBiasNanos) {
+            encoder.putDouble(r.biasNanos);
+        }
+        if (r.hasBiasUncertaintyNanos) {
+            encoder.putDouble(r.biasUncertaintyNanos);
+        }
+        if (r.hasDriftNanosPerSecond) {
+            encoder.putDouble(r.driftNanosPerSecond);
+        }
+        if (r.hasDriftUncertaintyNanosPerSecond) {
+            encoder.putDouble(r.driftUncertaintyNanosPerSecond);
+        }
+        encoder.putVarLong(r.hardwareClockDiscontinuityCount & 0xFFFFFFFFL)
+                .putVarLong(measurementCount);
+
+        state.elapsedRealtimeMillis = r.elapsedRealtimeMillis;
+        state.timeNanos = r.timeNanos;
+        state.fullBiasNanos = r.fullBiasNanos;
+    }
+
+    /**
+     * Decodes the clock fields of a {@link #RECORD_EPOCH} record into the provided record
+     *
+     * @return the number of measurements in the epoch
+     */
+    static int decodeEpochHeader(BinaryRecordDecoder decoder, RawMeasurementRecord r,
+                                 DeltaState state) throws IOException {
+        r.elapsedRealtimeMillis = state.elapsedRealtimeMillis + decoder.getSignedVarLong();
+        r.timeNanos = state.timeNanos + decoder.getSignedVarLong();
+        r.fullBiasNanos = state.fullBiasNanos + decoder.getSignedVarLong();
+        int flags = decoder.getByte();
+        r.hasLeapSecond = (flags & CLOCK_HAS_LEAP_SECOND) != 0;
+        r.leapSecond = r.hasLeapSecond ? (int) decoder.getSignedVarLong() : 0;
+        r.hasTimeUncertaintyNanos = (flags & CLOCK_HAS_TIME_UNCERTAINTY) != 0;
+        r.timeUncertaintyNanos = r.hasTimeUncertaintyNanos ? decoder.getDouble() : 0;
+        r.hasBiasNanos = (flags & CLOCK_HAS_BIAS) != 0;
+        r.biasNanos = r.hasBiasNanos ? decoder.getDouble() : 0;
+        r.hasBiasUncertaintyNanos = (flags & CLOCK_HAS_BIAS_UNCERTAINTY) != 0;
+        r.biasUncertaintyNanos = r.hasBiasUncertaintyNanos ? decoder.getDouble() : 0;
+        r.hasDriftNanosPerSecond = (flags & CLOCK_HAS_DRIFT) != 0;
+        r.driftNanosPerSecond = r.hasDriftNanosPerSecond ? decoder.getDouble() : 0;
+        r.hasDriftUncertaintyNanosPerSecond = (flags & CLOCK_HAS_DRIFT_UNCERTAINTY) != 0;
+        r.driftUncertaintyNanosPerSecond = r.hasDriftUncertaintyNanosPerSecond ? decoder.getDouble() : 0;
+        r.hardwareClockDiscontinuityCount = (int) decoder.getVarLong();
+
+        state.elapsedRealtimeMillis = r.elapsedRealtimeMillis;
+        state.timeNanos = r.timeNanos;
+        state.fullBiasNanos = r.fullBiasNanos;
+        return (int) decoder.getVarLong();
+    }
+
+    /**
+     * Encodes the measurement fields of the provided record as part of a {@link #RECORD_EPOCH}
+     * record
+     */
+    static void encodeMeasurement(BinaryRecordEncoder encoder, RawMeasurementRecord r) {
+        int flags = 0;
+        if (r.hasCarrierFrequencyHz) {
+            flags |= MEASUREMENT_HAS_CARRIER_FREQUENCY;
+        }
+        if (r.hasCarrierCycles) {
+            flags |= MEASUREMENT_HAS_CARRIER_CYCLES;
+        }
+        if (r.hasCarrierPhase) {
+            flags |= MEASUREMENT_HAS_CARRIER_PHASE;
+        }
+        if (r.hasCarrierPhaseUncertainty) {
+            flags |= MEASUREMENT_HAS_CARRIER_PHASE_UNCERTAINTY;
+        }
+        if (r.hasSnrInDb) {
+            flags |= MEASUREMENT_HAS_SNR;
+        }
+        if (r.hasAutomaticGainControlLevelDb) {
+            flags |= MEASUREMENT_HAS_AGC;
+        }
+        encoder.putByte(r.constellationType)
+                .putShort(r.svid)
+                .putByte(flags)
+                .putByte(r.multipathIndicator)
+                .putInt(r.state)
+                .putInt(r.accumulatedDeltaRangeState)
+                .putDouble(r.timeOffsetNanos)
+                .putLong(r.receivedSvTimeNanos)
+                .putLong(r.receivedSvTimeUncertaintyNanos)
+                .putDouble(r.cn0DbHz)
+                .putDouble(r.pseudorangeRateMetersPerSecond)
+                .putDouble(r.pseudorangeRateUncertaintyMetersPerSecond)
+                .putDouble(r.accumulatedDeltaRangeMeters)
+                .putDouble(r.accumulatedDeltaRangeUncertaintyMeters);
+        if (r.hasCarrierFrequencyHz) {
+            encoder.putFloat(r.carrierFrequencyHz);
+        }
+        if (r.hasCarrierCycles) {
+            encoder.putLong(r.carrierCycles);
+        }
+        if (r.hasCarrierPhase) {
+            encoder.putDouble(r.carrierPhase);
+        }
+        if (r.hasCarrierPhaseUncertainty) {
+            encoder.putDouble(r.carrierPhaseUncertainty);
+        }
+        if (r.hasSnrInDb) {
+            encoder.putDouble(r.snrInDb);
+        }
+        if (r.hasAutomaticGainControlLevelDb) {
+            encoder.putDouble(r.automaticGainControlLevelDb);
+        }
+    }
+
+    /**
+     * Decodes the measurement fields of a {@link #RECORD_EPOCH} record into the provided record
+     */
+    static void decodeMeasurement(BinaryRecordDecoder decoder, RawMeasurementRecord r) throws IOException {
+        r.constellationType = decoder.getByte();
+        r.svid = decoder.getShort();
+        int flags = decoder.getByte();
+        r.multipathIndicator = decoder.getByte();
+        r.state = decoder.getInt();
+        r.accumulatedDeltaRangeState = decoder.getInt();
+        r.timeOffsetNanos = decoder.getDouble();
+        r.receivedSvTimeNanos = decoder.getLong();
+        r.receivedSvTimeUncertaintyNanos = decoder.getLong();
+        r.cn0DbHz = decoder.getDouble();
+        r.pseudorangeRateMetersPerSecond = decoder.getDouble();
+        r.pseudorangeRateUncertaintyMetersPerSecond = decoder.getDouble();
+        r.accumulatedDeltaRangeMeters = decoder.getDouble();
+        r.accumulatedDeltaRangeUncertaintyMeters = decoder.getDouble();
+        r.hasCarrierFrequencyHz = (flags & MEASUREMENT_HAS_CARRIER_FREQUENCY) != 0;
+        r.carrierFrequencyHz = r.hasCarrierFrequencyHz ? decoder.getFloat() : 0;
+        r.hasCarrierCycles = (flags & MEASUREMENT_HAS_CARRIER_CYCLES) != 0;
+        r.carrierCycles = r.hasCarrierCycles ? decoder.getLong() : 0;
+        r.hasCarrierPhase = (flags & MEASUREMENT_HAS_CARRIER_PHASE) != 0;
+        r.carrierPhase = r.hasCarrierPhase ? decoder.getDouble() : 0;
+        r.hasCarrierPhaseUncertainty = (flags & MEASUREMENT_HAS_CARRIER_PHASE_UNCERTAINTY) != 0;
+        r.carrierPhaseUncertainty = r.hasCarrierPhaseUncertainty ? decoder.getDouble() : 0;
+        r.hasSnrInDb = (flags & MEASUREMENT_HAS_SNR) != 0;
+        r.snrInDb = r.hasSnrInDb ? decoder.getDouble() : 0;
+        r.hasAutomaticGainControlLevelDb = (flags & MEASUREMENT_HAS_AGC) != 0;
+        r.automaticGainControlLevelDb = r.hasAutomaticGainControlLevelDb ? decoder.getDouble() : 0;
+    }
+
+    static void encodeFix(BinaryRecordEncoder encoder, FixRecord r, byte[] provider) {
+        encoder.begin(RECORD_FIX)
+                .putLengthPrefixedBytes(provider, 0, provider.length)
+                .putDouble(r.latitude)
+                .putDouble(r.longitude)
+                .putDouble(r.altitude)
+                .putFloat(r.speed)
+                .putFloat(r.accuracy)
+                .putLong(r.timeMillis);
+    }
+
+    static void decodeFix(BinaryRecordDecoder decoder, FixRecord r) throws IOException {
+        r.provider = decoder.getUtf8String();
+        r.latitude = decoder.getDouble();
+        r.longitude = decoder.getDouble();
+        r.altitude = decoder.getDouble();
+        r.speed = decoder.getFloat();
+        r.accuracy = decoder.getFloat();
+        r.timeMillis = decoder.getLong();
+    }
+
+    static void encodeNav(BinaryRecordEncoder encoder, NavMessageRecord r) {
+        encoder.begin(RECORD_NAV)
+                .putSignedVarLong(r.svid)
+                .putSignedVarLong(r.type)
+                .putSignedVarLong(r.status)
+                .putSignedVarLong(r.messageId)
+                .putSignedVarLong(r.submessageId)
+                .putLengthPrefixedBytes(r.data, 0, r.dataLength);
+    }
+
+    static void decodeNav(BinaryRecordDecoder decoder, NavMessageRecord r) throws IOException {
+        r.svid = (int) decoder.getSignedVarLong();
+        r.type = (int) decoder.getSignedVarLong();
+        r.status = (int) decoder.getSignedVarLong();
+        r.messageId = (int) decoder.getSignedVarLong();
+        r.submessageId = (int) decoder.getSignedVarLong();
+        decoder.getLengthPrefixedBytes(r);
+    }
+
+    static void encodeNmea(BinaryRecordEncoder encoder, CharSequence sentence, long timestamp,
+                           DeltaState state) {
+        encoder.begin(RECORD_NMEA)
+                .putSignedVarLong(timestamp - state.nmeaTimestamp)
+                .putTrimmedAscii(sentence);
+        state.nmeaTimestamp = timestamp;
+    }
+
+    /**
+     * Decodes a {@link #RECORD_NMEA} record, placing the sentence in the provided builder
+     *
+     * @return the timestamp of the sentence
+     */
+    static long decodeNmea(BinaryRecordDecoder decoder, StringBuilder sentence,
+                           DeltaState state) throws IOException {
+        long timestamp = state.nmeaTimestamp + decoder.getSignedVarLong();
+        decoder.getAscii(sentence);
+        state.nmeaTimestamp = timestamp;
+        return timestamp;
+    }
+}
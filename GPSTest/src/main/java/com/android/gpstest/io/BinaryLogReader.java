@@ -0,0 +1,218 @@
+/*
+ * Copyright (C) 2021 Sean J. Barbeau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.gpstest.io;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Reads binary log files written by {@link BinaryFileLogger} and passes each record to a
+ * {@link CsvLogReader.Handler}, the same way {@link CsvLogReader} does for CSV logs. Each epoch
+ * is passed as one "Raw" record per measurement. The record holders and the NMEA sentence passed
+ * to the handler are re-used for the next record, so they must not be retained after the callback
+ * returns.
+ *
+ * Instances are not thread-safe.
+ */
+public final class BinaryLogReader {
+
+    private final BinaryRecordDecoder decoder;
+    private final BinaryLogFormat.DeltaState state = new BinaryLogFormat.DeltaState();
+
+    private final RawMeasurementRecord rawRecord = new RawMeasurementRecord();
+    private final FixRecord fixRecord = new FixRecord();
+    private final NavMessageRecord navRecord = new NavMessageRecord();
+    private final StringBuilder sentence = new StringBuilder();
+
+    private boolean headerRead;
+    private String description;
+    private long recordCount;
+    private boolean stopped;
+
+    /**
+     * @param in the binary log to read, starting at the file header, which is not closed by this
+     *           reader
+     */
+    public BinaryLogReader(InputStream in) {
+        decoder = new BinaryRecordDecoder(in);
+    }
+
+    /**
+     * Reads all records from the provided binary log file
+     *
+     * @param file    the binary log file, which is decompressed if its name ends in ".gz"
+     * @param handler receives the records in the file
+     * @return the number of records passed to the handler
+     * @throws IOException if the file is invalid or can't be read
+     */
+    public static long read(File file, CsvLogReader.Handler handler) throws IOException {
+        try (InputStream in = BinaryLogConverter.openInputStream(file)) {
+            return new BinaryLogReader(in).read(handler);
+        }
+    }
+
+    /**
+     * Reads the records of the provided binary log file between two UTC times. Reading starts at
+     * the sync record of the {@link LogTimeIndex} entry before fromUtcMillis, and stops at the
+     * first record after toUtcMillis. Files without an index, including compressed files, are read
+     * from the start. See {@link CsvLogReader#read(File, long, long, CsvLogReader.Handler)} for
+     * the time of each record.
+     *
+     * @param file          the binary log file, which is decompressed if its name ends in ".gz"
+     * @param fromUtcMillis UTC time in milliseconds of the first records to read
+     * @param toUtcMillis   UTC time in milliseconds of the last records to read
+     * @param handler       receives the records in the time range
+     * @return the number of records passed to the handler
+     * @throws IOException if the file is invalid or can't be read
+     */
+    public static long read(File file, long fromUtcMillis, long toUtcMillis,
+                            CsvLogReader.Handler handler) throws IOException {
+        File indexFile = LogTimeIndex.getFile(file);
+        if (file.getName().endsWith(".gz") || !indexFile.exists()) {
+            try (InputStream in = BinaryLogConverter.openInputStream(file)) {
+                return readRange(new BinaryLogReader(in), fromUtcMillis, toUtcMillis,
+                        LogTimeIndex.UNKNOWN_TIME, handler);
+            }
+        }
+        long offset = -1;
+        // With no entry at or before the start time, the records before the first UTC time are
+        // in the range
+        long utcTimeMillis = fromUtcMillis;
+        try (LogTimeIndex index = LogTimeIndex.open(indexFile)) {
+            long entry = index.findEntryByUtcTime(fromUtcMillis);
+            if (entry >= 0) {
+                offset = index.getOffset(entry);
+                utcTimeMillis = index.getUtcTimeMillis(entry);
+            }
+        }
+        try (FileInputStream fileStream = new FileInputStream(file)) {
+            // Check the header before jumping to the indexed record, where decoding starts
+            // without the delta-encoded values of the preceding records
+            String description = BinaryLogFormat.readHeader(new BinaryRecordDecoder(fileStream));
+            if (offset >= 0) {
+                fileStream.getChannel().position(offset);
+            }
+            BinaryLogReader reader = new BinaryLogReader(new BufferedInputStream(fileStream));
+            reader.headerRead = true;
+            reader.description = description;
+            return readRange(reader, fromUtcMillis, toUtcMillis, utcTimeMillis, handler);
+        }
+    }
+
+    private static long readRange(BinaryLogReader reader, long fromUtcMillis, long toUtcMillis,
+                                  long utcTimeMillis, CsvLogReader.Handler handler) throws IOException {
+        CsvLogReader.TimeRangeHandler range = new CsvLogReader.TimeRangeHandler(fromUtcMillis,
+                toUtcMillis, utcTimeMillis, handler, null);
+        while (!range.isPastEnd() && reader.readRecord(range)) {
+            // Records are passed to the range handler
+        }
+        return range.getCount();
+    }
+
+    /**
+     * Reads the file header, if it hasn't been read yet
+     *
+     * @return the description of the device and app that wrote the file
+     * @throws IOException if the header is invalid or can't be read
+     */
+    public String readHeader() throws IOException {
+        if (!headerRead) {
+            description = BinaryLogFormat.readHeader(decoder);
+            headerRead = true;
+        }
+        return description;
+    }
+
+    /**
+     * Reads records until the end of the stream, or until {@link #stop()} is called. The file
+     * header is read first if it hasn't been read yet.
+     *
+     * @param handler receives the records in the stream
+     * @return the number of records passed to the handler by this call
+     * @throws IOException if the stream is invalid or can't be read
+     */
+    public long read(CsvLogReader.Handler handler) throws IOException {
+        long startCount = recordCount;
+        stopped = false;
+        while (!stopped && readRecord(handler)) {
+            // Records are passed to the handler
+        }
+        return recordCount - startCount;
+    }
+
+    /**
+     * Makes {@link #read(CsvLogReader.Handler)} return after the current record, for handlers that
+     * have found the records they need
+     */
+    public void stop() {
+        stopped = true;
+    }
+
+    /**
+     * @return the number of records passed to handlers, counting each measurement of an epoch
+     */
+    public long getRecordCount() {
+        return recordCount;
+    }
+
+    /**
+     * Reads the next record from the stream and passes it to the handler
+     *
+     * @return false if the end of the stream was reached
+     */
+    private boolean readRecord(CsvLogReader.Handler handler) throws IOException {
+        readHeader();
+        int type = decoder.next();
+        switch (type) {
+            case BinaryRecordDecoder.END_OF_STREAM:
+                return false;
+            case BinaryLogFormat.RECORD_SYNC:
+                state.reset();
+                break;
+            case BinaryLogFormat.RECORD_EPOCH:
+                int measurementCount = BinaryLogFormat.decodeEpochHeader(decoder, rawRecord, state);
+                for (int i = 0; i < measurementCount; i++) {
+                    BinaryLogFormat.decodeMeasurement(decoder, rawRecord);
+                    recordCount++;
+                    handler.onRaw(rawRecord);
+                }
+                break;
+            case BinaryLogFormat.RECORD_FIX:
+                BinaryLogFormat.decodeFix(decoder, fixRecord);
+                recordCount++;
+                handler.onFix(fixRecord);
+                break;
+            case BinaryLogFormat.RECORD_NAV:
+                BinaryLogFormat.decodeNav(decoder, navRecord);
+                recordCount++;
+                handler.onNav(navRecord);
+                break;
+            case BinaryLogFormat.RECORD_NMEA:
+                long timestamp = BinaryLogFormat.decodeNmea(decoder, sentence, state);
+                recordCount++;
+                handler.onNmea(sentence, timestamp);
+                break;
+            default:
+                // Record types added in later versions are skipped
+                break;
+        }
+        return true;
+    }
+}
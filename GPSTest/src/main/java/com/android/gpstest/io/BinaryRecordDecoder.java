@@ -0,0 +1,237 @@
+/*
+ * Copyright (C) 2021 Sean J. Barbeau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.gpstest.io;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Reads records written by {@link BinaryRecordEncoder} from a stream. Each call to
+ * {@link #next()} reads one whole record payload into a re-usable buffer, which is then decoded
+ * using the get methods.
+ *
+ * Instances are not thread-safe.
+ */
+final class BinaryRecordDecoder {
+
+    /**
+     * Returned from {@link #next()} when there are no more complete records in the stream
+     */
+    static final int END_OF_STREAM = -1;
+
+    private final InputStream stream;
+
+    private byte[] buffer = new byte[4096];
+
+    private int length = 0;
+
+    private int position = 0;
+
+    BinaryRecordDecoder(InputStream stream) {
+        this.stream = stream;
+    }
+
+    /**
+     * Reads the next record from the stream. A record that was only partially written (e.g.,
+     * because the app was killed while logging) is treated as the end of the stream, as is a
+     * compressed stream that ends without its GZIP trailer.
+     *
+     * @return the type of the record, or {@link #END_OF_STREAM} if there are no more records
+     * @throws IOException if the stream can't be read
+     */
+    int next() throws IOException {
+        try {
+            return readRecord();
+        } catch (EOFException e) {
+            // GZIPInputStream throws this instead of returning -1 after the last data of a file
+            // that was sync flushed but not closed
+            return END_OF_STREAM;
+        }
+    }
+
+    private int readRecord() throws IOException {
+        int type = stream.read();
+        if (type < 0) {
+            return END_OF_STREAM;
+        }
+        long payloadLength = readVarLongFromStream();
+        if (payloadLength > Integer.MAX_VALUE) {
+            throw new IOException("Invalid record length " + payloadLength);
+        }
+        int count = (int) payloadLength;
+        if (buffer.length < count) {
+            buffer = new byte[Math.max(count, buffer.length * 2)];
+        }
+        if (!readFully(buffer, count)) {
+            return END_OF_STREAM;
+        }
+        length = count;
+        position = 0;
+        return type;
+    }
+
+    /**
+     * @return the number of payload bytes in the current record that haven't been read yet
+     */
+    int remaining() {
+        return length - position;
+    }
+
+    /**
+     * Reads exactly count bytes from the underlying stream, outside of any record. Used for the
+     * file header.
+     */
+    void readHeaderBytes(byte[] target, int count) throws IOException {
+        if (!readFully(target, count)) {
+            throw new EOFException("File header is truncated");
+        }
+    }
+
+    /**
+     * Reads an unsigned varint from the underlying stream, outside of any record. Used for the
+     * file header.
+     */
+    long readHeaderVarLong() throws IOException {
+        return readVarLongFromStream();
+    }
+
+    int getByte() throws IOException {
+        require(1);
+        return buffer[position++] & 0xFF;
+    }
+
+    int getShort() throws IOException {
+        require(2);
+        int value = ((buffer[position] & 0xFF) << 8) | (buffer[position + 1] & 0xFF);
+        position += 2;
+        return value;
+    }
+
+    int getInt() throws IOException {
+        require(4);
+        int value = ((buffer[position] & 0xFF) << 24)
+                | ((buffer[position + 1] & 0xFF) << 16)
+                | ((buffer[position + 2] & 0xFF) << 8)
+                | (buffer[position + 3] & 0xFF);
+        position += 4;
+        return value;
+    }
+
+    long getLong() throws IOException {
+        require(8);
+        long value = 0;
+        for (int i = 0; i < 8; i++) {
+            value = (value << 8) | (buffer[position++] & 0xFF);
+        }
+        return value;
+    }
+
+    float getFloat() throws IOException {
+        return Float.intBitsToFloat(getInt());
+    }
+
+    double getDouble() throws IOException {
+        return Double.longBitsToDouble(getLong());
+    }
+
+    long getVarLong() throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = getByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint");
+    }
+
+    long getSignedVarLong() throws IOException {
+        long value = getVarLong();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * Reads a varint length followed by that many bytes into the provided record, growing its
+     * buffer if needed
+     */
+    void getLengthPrefixedBytes(NavMessageRecord record) throws IOException {
+        int count = (int) getVarLong();
+        require(count);
+        record.ensureDataCapacity(count);
+        System.arraycopy(buffer, position, record.data, 0, count);
+        record.dataLength = count;
+        position += count;
+    }
+
+    /**
+     * Reads a varint length followed by that many ASCII characters into the provided builder
+     */
+    void getAscii(StringBuilder target) throws IOException {
+        int count = (int) getVarLong();
+        require(count);
+        target.setLength(0);
+        for (int i = 0; i < count; i++) {
+            target.append((char) (buffer[position++] & 0xFF));
+        }
+    }
+
+    /**
+     * Reads a varint length followed by that many UTF-8 bytes as a String
+     */
+    String getUtf8String() throws IOException {
+        int count = (int) getVarLong();
+        require(count);
+        String value = new String(buffer, position, count, "UTF-8");
+        position += count;
+        return value;
+    }
+
+    private void require(int count) throws IOException {
+        if (count < 0 || position + count > length) {
+            throw new IOException("Record is shorter than expected");
+        }
+    }
+
+    private long readVarLongFromStream() throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = stream.read();
+            if (b < 0) {
+                throw new EOFException();
+            }
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint");
+    }
+
+    private boolean readFully(byte[] target, int count) throws IOException {
+        int read = 0;
+        while (read < count) {
+            int n = stream.read(target, read, count - read);
+            if (n < 0) {
+                return false;
+            }
+            read += n;
+        }
+        return true;
+    }
+}
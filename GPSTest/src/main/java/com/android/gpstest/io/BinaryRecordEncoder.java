@@ -0,0 +1,198 @@
+/*
+ * Copyright (C) 2021 Sean J. Barbeau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.gpstest.io;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Encodes a single binary log record into a re-usable byte buffer. Fixed-width values are written
+ * big-endian, and variable-length integers use the unsigned LEB128 ("varint") encoding, with
+ * signed values zig-zag encoded first so small negative values stay small.
+ *
+ * Call {@link #begin(int)} before encoding each record and {@link #writeTo(OutputStream)} to
+ * output it. Instances are not thread-safe.
+ */
+final class BinaryRecordEncoder {
+
+    private static final int INITIAL_CAPACITY = 4096;
+
+    /**
+     * Maximum number of bytes in the record header - one type byte and a 5 byte varint length
+     */
+    private static final int MAX_HEADER_LENGTH = 6;
+
+    private final byte[] header = new byte[MAX_HEADER_LENGTH];
+
+    private byte[] buffer = new byte[INITIAL_CAPACITY];
+
+    private int length = 0;
+
+    private int type;
+
+    /**
+     * Starts encoding a new record
+     *
+     * @param type the record type, one of the BinaryLogFormat.RECORD_* constants
+     * @return this encoder
+     */
+    BinaryRecordEncoder begin(int type) {
+        this.type = type;
+        length = 0;
+        return this;
+    }
+
+    /**
+     * @return the number of bytes in the payload of the current record
+     */
+    int length() {
+        return length;
+    }
+
+    BinaryRecordEncoder putByte(int value) {
+        ensureCapacity(1);
+        buffer[length++] = (byte) value;
+        return this;
+    }
+
+    BinaryRecordEncoder putShort(int value) {
+        ensureCapacity(2);
+        buffer[length++] = (byte) (value >>> 8);
+        buffer[length++] = (byte) value;
+        return this;
+    }
+
+    BinaryRecordEncoder putInt(int value) {
+        ensureCapacity(4);
+        buffer[length++] = (byte) (value >>> 24);
+        buffer[length++] = (byte) (value >>> 16);
+        buffer[length++] = (byte) (value >>> 8);
+        buffer[length++] = (byte) value;
+        return this;
+    }
+
+    BinaryRecordEncoder putLong(long value) {
+        ensureCapacity(8);
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            buffer[length++] = (byte) (value >>> shift);
+        }
+        return this;
+    }
+
+    BinaryRecordEncoder putFloat(float value) {
+        return putInt(Float.floatToRawIntBits(value));
+    }
+
+    BinaryRecordEncoder putDouble(double value) {
+        return putLong(Double.doubleToRawLongBits(value));
+    }
+
+    /**
+     * Writes a non-negative value using the unsigned varint encoding (7 bits per byte, with the
+     * high bit set on all bytes except the last)
+     */
+    BinaryRecordEncoder putVarLong(long value) {
+        ensureCapacity(10);
+        length = writeVarLong(buffer, length, value);
+        return this;
+    }
+
+    /**
+     * Writes a signed value using zig-zag and varint encoding
+     */
+    BinaryRecordEncoder putSignedVarLong(long value) {
+        return putVarLong((value << 1) ^ (value >> 63));
+    }
+
+    BinaryRecordEncoder putBytes(byte[] bytes, int offset, int count) {
+        ensureCapacity(count);
+        System.arraycopy(bytes, offset, buffer, length, count);
+        length += count;
+        return this;
+    }
+
+    /**
+     * Writes the length of the provided bytes as a varint, followed by the bytes
+     */
+    BinaryRecordEncoder putLengthPrefixedBytes(byte[] bytes, int offset, int count) {
+        return putVarLong(count).putBytes(bytes, offset, count);
+    }
+
+    /**
+     * Writes an ASCII string, with leading and trailing whitespace removed, as a varint length
+     * followed by one byte per character. Characters outside the ASCII range are written as '?'.
+     */
+    BinaryRecordEncoder putTrimmedAscii(CharSequence s) {
+        int start = 0;
+        int end = s.length();
+        while (start < end && s.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && s.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        putVarLong(end - start);
+        ensureCapacity(end - start);
+        for (int i = start; i < end; i++) {
+            char c = s.charAt(i);
+            buffer[length++] = (byte) (c < 0x80 ? c : '?');
+        }
+        return this;
+    }
+
+    /**
+     * Writes the current record - the type, the payload length as a varint, and the payload
+     *
+     * @param stream the stream to write the record to
+     * @throws IOException if the record can't be written
+     */
+    void writeTo(OutputStream stream) throws IOException {
+        header[0] = (byte) type;
+        int headerLength = writeVarLong(header, 1, length);
+        stream.write(header, 0, headerLength);
+        stream.write(buffer, 0, length);
+    }
+
+    /**
+     * Writes only the payload of the current record, without the type and length. Used for the
+     * file header, which isn't a record.
+     *
+     * @param stream the stream to write the payload to
+     * @throws IOException if the payload can't be written
+     */
+    void writePayloadTo(OutputStream stream) throws IOException {
+        stream.write(buffer, 0, length);
+    }
+
+    private static int writeVarLong(byte[] target, int position, long value) {
+        while ((value & ~0x7FL) != 0) {
+            target[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        target[position++] = (byte) value;
+        return position;
+    }
+
+    private void ensureCapacity(int additional) {
+        int required = length + additional;
+        if (required > buffer.length) {
+            byte[] newBuffer = new byte[Math.max(required, buffer.length * 2)];
+            System.arraycopy(buffer, 0, newBuffer, 0, length);
+            buffer = newBuffer;
+        }
+    }
+}
@@ -16,28 +16,22 @@
 
 package com.android.gpstest.io;
 
+import android.annotation.SuppressLint;
 import android.content.Context;
-import android.content.pm.PackageInfo;
-import android.content.pm.PackageManager;
-import android.location.GnssClock;
 import android.location.GnssMeasurement;
 import android.location.GnssMeasurementsEvent;
 import android.location.GnssNavigationMessage;
 import android.location.Location;
 import android.location.LocationManager;
 import android.os.Build;
-import android.os.SystemClock;
 
 import androidx.annotation.RequiresApi;
 
 import com.android.gpstest.Application;
-import com.android.gpstest.BuildConfig;
 import com.android.gpstest.R;
-import com.android.gpstest.util.IOUtils;
 
 import java.io.BufferedWriter;
 import java.io.IOException;
-import java.util.Locale;
 
 /**
  * A GNSS logger to store information to a CSV file. Originally from https://github.com/google/gps-measurement-tools/tree/master/GNSSLogger,
@@ -45,9 +39,11 @@ import java.util.Locale;
  */
 public class CsvFileLogger extends BaseFileLogger implements FileLogger {
 
-    private static final String COMMENT_START = "# ";
-    private static final char RECORD_DELIMITER = ',';
-    private static final String VERSION_TAG = "Version: ";
+    // Only used on the writer thread
+    private final CsvRecordEncoder encoder = new CsvRecordEncoder();
+    private final RawMeasurementRecord rawRecord = new RawMeasurementRecord();
+    private final FixRecord fixRecord = new FixRecord();
+    private final NavMessageRecord navRecord = new NavMessageRecord();
 
     public CsvFileLogger(Context context) {
         super(context);
@@ -73,92 +69,7 @@ public class CsvFileLogger extends BaseFileLogger implements FileLogger {
     @Override
     void writeFileHeader(BufferedWriter writer, String filePath) {
         try {
-            writer.write(COMMENT_START);
-            writer.newLine();
-            writer.write(COMMENT_START);
-            writer.write("Header Description:");
-            writer.newLine();
-            writer.write(COMMENT_START);
-            writer.newLine();
-            writer.write(COMMENT_START);
-            writer.write(VERSION_TAG);
-            String manufacturer = Build.MANUFACTURER;
-            String model = Build.MODEL;
-
-            String versionString = "";
-            int versionCode = 0;
-            try {
-                PackageInfo info = context.getPackageManager().getPackageInfo(context.getPackageName(), 0);
-                versionString = info.versionName;
-                versionCode = info.versionCode;
-            } catch (PackageManager.NameNotFoundException e) {
-                e.printStackTrace();
-            }
-
-            StringBuilder version = new StringBuilder();
-            // Version info
-            version.append("v")
-                    .append(versionString)
-                    .append(" (")
-                    .append(versionCode)
-                    .append("-" + BuildConfig.FLAVOR + "), ");
-
-            version.append("Manufacturer: " + manufacturer + ", ");
-            version.append("Model: " + model + ", ");
-
-            version.append("GNSS HW Year: " + IOUtils.getGnssHardwareYear() + ", ");
-
-            String versionRelease = Build.VERSION.RELEASE;
-            version.append("Platform: " + versionRelease + ", ");
-            int apiLevel = Build.VERSION.SDK_INT;
-            version.append("API Level: " + apiLevel + " ");
-
-            writer.write(version.toString());
-            writer.newLine();
-            writer.write(COMMENT_START);
-            writer.newLine();
-            writer.write(COMMENT_START);
-            writer.write("Raw GNSS measurements format:");
-            writer.newLine();
-            writer.write(COMMENT_START);
-            writer.write(
-                    "  Raw,ElapsedRealtimeMillis,TimeNanos,LeapSecond,TimeUncertaintyNanos,FullBiasNanos,"
-                            + "BiasNanos,BiasUncertaintyNanos,DriftNanosPerSecond,DriftUncertaintyNanosPerSecond,"
-                            + "HardwareClockDiscontinuityCount,Svid,TimeOffsetNanos,State,ReceivedSvTimeNanos,"
-                            + "ReceivedSvTimeUncertaintyNanos,Cn0DbHz,PseudorangeRateMetersPerSecond,"
-                            + "PseudorangeRateUncertaintyMetersPerSecond,"
-                            + "AccumulatedDeltaRangeState,AccumulatedDeltaRangeMeters,"
-                            + "AccumulatedDeltaRangeUncertaintyMeters,CarrierFrequencyHz,CarrierCycles,"
-                            + "CarrierPhase,CarrierPhaseUncertainty,MultipathIndicator,SnrInDb,"
-                            + "ConstellationType,AgcDb,CarrierFrequencyHz");
-            writer.newLine();
-            writer.write(COMMENT_START);
-            writer.newLine();
-            writer.write(COMMENT_START);
-            writer.write("Location fix format:");
-            writer.newLine();
-            writer.write(COMMENT_START);
-            writer.write(
-                    "  Fix,Provider,Latitude,Longitude,Altitude,Speed,Accuracy,(UTC)TimeInMs");
-            writer.newLine();
-            writer.write(COMMENT_START);
-            writer.newLine();
-            writer.write(COMMENT_START);
-            writer.write("Navigation message format:");
-            writer.newLine();
-            writer.write(COMMENT_START);
-            writer.write("  Nav,Svid,Type,Status,MessageId,Sub-messageId,Data(Bytes)");
-            writer.newLine();
-            writer.write(COMMENT_START);
-            writer.newLine();
-            writer.write(COMMENT_START);
-            writer.write("NMEA format (for [NMEA sentence] format see https://www.gpsinformation.org/dale/nmea.htm):");
-            writer.newLine();
-            writer.write(COMMENT_START);
-            writer.write("  NMEA,[NMEA sentence],(UTC)TimeInMs");
-            writer.newLine();
-            writer.write(COMMENT_START);
-            writer.newLine();
+            CsvLogFormat.writeHeader(writer, getVersionDescription());
         } catch (IOException e) {
             logException(Application.get().getString(R.string.could_not_initialize_file, filePath), e);
             return;
@@ -167,145 +78,61 @@ public class CsvFileLogger extends BaseFileLogger implements FileLogger {
 
     public void onLocationChanged(Location location) {
         if (location.getProvider().equals(LocationManager.GPS_PROVIDER)) {
-            synchronized (fileLock) {
-                if (fileWriter == null) {
-                    return;
-                }
-                String locationStream =
-                        String.format(
-                                Locale.US,
-                                "Fix,%s,%f,%f,%f,%f,%f,%d",
-                                location.getProvider(),
-                                location.getLatitude(),
-                                location.getLongitude(),
-                                location.getAltitude(),
-                                location.getSpeed(),
-                                location.getAccuracy(),
-                                location.getTime());
-                try {
-                    fileWriter.write(locationStream);
-                    fileWriter.newLine();
-                } catch (IOException e) {
-                    logException(Application.get().getString(R.string.error_writing_file), e);
-                }
-            }
+            enqueue(LogEvent.TYPE_LOCATION, location, location.getTime());
         }
     }
 
     @RequiresApi(api = Build.VERSION_CODES.N)
     public void onGnssMeasurementsReceived(GnssMeasurementsEvent event) {
-        synchronized (fileLock) {
-            if (fileWriter == null) {
-                return;
-            }
-            GnssClock gnssClock = event.getClock();
-            for (GnssMeasurement measurement : event.getMeasurements()) {
-                try {
-                    writeGnssMeasurementToFile(gnssClock, measurement);
-                } catch (IOException e) {
-                    logException(Application.get().getString(R.string.error_writing_file), e);
-                }
-            }
-        }
+        enqueue(LogEvent.TYPE_MEASUREMENTS, event, System.currentTimeMillis());
     }
 
     @RequiresApi(api = Build.VERSION_CODES.N)
     public void onGnssNavigationMessageReceived(GnssNavigationMessage navigationMessage) {
-        synchronized (fileLock) {
-            if (fileWriter == null) {
-                return;
-            }
-            StringBuilder builder = new StringBuilder("Nav");
-            builder.append(RECORD_DELIMITER);
-            builder.append(navigationMessage.getSvid());
-            builder.append(RECORD_DELIMITER);
-            builder.append(navigationMessage.getType());
-            builder.append(RECORD_DELIMITER);
-
-            int status = navigationMessage.getStatus();
-            builder.append(status);
-            builder.append(RECORD_DELIMITER);
-            builder.append(navigationMessage.getMessageId());
-            builder.append(RECORD_DELIMITER);
-            builder.append(navigationMessage.getSubmessageId());
-            byte[] data = navigationMessage.getData();
-            for (byte word : data) {
-                builder.append(RECORD_DELIMITER);
-                builder.append(word);
-            }
-            try {
-                fileWriter.write(builder.toString());
-                fileWriter.newLine();
-            } catch (IOException e) {
-                logException(Application.get().getString(R.string.error_writing_file), e);
-            }
-        }
+        enqueue(LogEvent.TYPE_NAV_MESSAGE, navigationMessage, System.currentTimeMillis());
     }
 
     public void onNmeaReceived(long timestamp, String s) {
-        synchronized (fileLock) {
-            if (fileWriter == null) {
-                return;
-            }
-            String nmeaStream = "NMEA," + s.trim() + "," + timestamp;
-            try {
-                fileWriter.write(nmeaStream);
-                fileWriter.newLine();
-            } catch (IOException e) {
-                logException(Application.get().getString(R.string.error_writing_file), e);
-            }
-        }
+        enqueue(LogEvent.TYPE_NMEA, s, timestamp);
     }
 
-    @RequiresApi(api = Build.VERSION_CODES.N)
-    private void writeGnssMeasurementToFile(GnssClock clock, GnssMeasurement measurement)
-            throws IOException {
-        String clockStream =
-                String.format(
-                        "Raw,%s,%s,%s,%s,%s,%s,%s,%s,%s,%s",
-                        SystemClock.elapsedRealtime(),
-                        clock.getTimeNanos(),
-                        clock.hasLeapSecond() ? clock.getLeapSecond() : "",
-                        clock.hasTimeUncertaintyNanos() ? clock.getTimeUncertaintyNanos() : "",
-                        clock.getFullBiasNanos(),
-                        clock.hasBiasNanos() ? clock.getBiasNanos() : "",
-                        clock.hasBiasUncertaintyNanos() ? clock.getBiasUncertaintyNanos() : "",
-                        clock.hasDriftNanosPerSecond() ? clock.getDriftNanosPerSecond() : "",
-                        clock.hasDriftUncertaintyNanosPerSecond()
-                                ? clock.getDriftUncertaintyNanosPerSecond()
-                                : "",
-                        clock.getHardwareClockDiscontinuityCount() + ",");
-        fileWriter.write(clockStream);
+    @SuppressLint("NewApi")
+    @Override
+    void writeEvent(LogEvent event) throws IOException {
+        switch (event.type) {
+            case LogEvent.TYPE_LOCATION:
+                fixRecord.set((Location) event.payload);
+                CsvLogFormat.encodeFix(encoder, fixRecord);
+                writeRecord();
+                break;
+            case LogEvent.TYPE_MEASUREMENTS:
+                GnssMeasurementsEvent measurementsEvent = (GnssMeasurementsEvent) event.payload;
+                rawRecord.setClock(event.elapsedRealtimeMillis, measurementsEvent.getClock());
+                for (GnssMeasurement measurement : measurementsEvent.getMeasurements()) {
+                    rawRecord.setMeasurement(measurement);
+                    CsvLogFormat.encodeRaw(encoder, rawRecord);
+                    writeRecord();
+                }
+                break;
+            case LogEvent.TYPE_NAV_MESSAGE:
+                navRecord.set((GnssNavigationMessage) event.payload);
+                CsvLogFormat.encodeNav(encoder, navRecord);
+                writeRecord();
+                break;
+            case LogEvent.TYPE_NMEA:
+                CsvLogFormat.encodeNmea(encoder, (String) event.payload, event.timeMillis);
+                writeRecord();
+                break;
+            default:
+                break;
+        }
+    }
 
-        String measurementStream =
-                String.format(
-                        "%s,%s,%s,%s,%s,%s,%s,%s,%s,%s,%s,%s,%s,%s,%s,%s,%s,%s,%s,%s",
-                        measurement.getSvid(),
-                        measurement.getTimeOffsetNanos(),
-                        measurement.getState(),
-                        measurement.getReceivedSvTimeNanos(),
-                        measurement.getReceivedSvTimeUncertaintyNanos(),
-                        measurement.getCn0DbHz(),
-                        measurement.getPseudorangeRateMetersPerSecond(),
-                        measurement.getPseudorangeRateUncertaintyMetersPerSecond(),
-                        measurement.getAccumulatedDeltaRangeState(),
-                        measurement.getAccumulatedDeltaRangeMeters(),
-                        measurement.getAccumulatedDeltaRangeUncertaintyMeters(),
-                        measurement.hasCarrierFrequencyHz() ? measurement.getCarrierFrequencyHz() : "",
-                        measurement.hasCarrierCycles() ? measurement.getCarrierCycles() : "",
-                        measurement.hasCarrierPhase() ? measurement.getCarrierPhase() : "",
-                        measurement.hasCarrierPhaseUncertainty()
-                                ? measurement.getCarrierPhaseUncertainty()
-                                : "",
-                        measurement.getMultipathIndicator(),
-                        measurement.hasSnrInDb() ? measurement.getSnrInDb() : "",
-                        measurement.getConstellationType(),
-                        Build.VERSION.SDK_INT >= Build.VERSION_CODES.O
-                                && measurement.hasAutomaticGainControlLevelDb()
-                                ? measurement.getAutomaticGainControlLevelDb()
-                                : "",
-                        measurement.hasCarrierFrequencyHz() ? measurement.getCarrierFrequencyHz() : "");
-        fileWriter.write(measurementStream);
+    /**
+     * Writes the record currently held in the encoder to the file, followed by a line separator
+     */
+    private void writeRecord() throws IOException {
+        encoder.writeTo(fileWriter);
         fileWriter.newLine();
     }
 }
@@ -0,0 +1,235 @@
+/*
+ * Copyright (C) 2017-2021 The Android Open Source Project, Sean J. Barbeau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.gpstest.io;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+
+/**
+ * Defines the CSV log format written by {@link CsvFileLogger}, which is the same format as the
+ * Google GNSS Logger app (https://github.com/google/gps-measurement-tools/tree/master/GNSSLogger).
+ * The header and record layouts are kept here so that other loggers and converters produce
+ * identical output.
+ */
+final class CsvLogFormat {
+
+    static final String COMMENT_START = "# ";
+    static final String VERSION_TAG = "Version: ";
+
+    static final String RECORD_RAW = "Raw";
+    static final String RECORD_FIX = "Fix";
+    static final String RECORD_NAV = "Nav";
+    static final String RECORD_NMEA = "NMEA";
+
+    /**
+     * Number of digits after the decimal point for floating point values in "Fix" records
+     */
+    static final int FIX_FRACTION_DIGITS = 6;
+
+    /**
+     * Maximum number of digits after the decimal point for floating point values in "Raw" records
+     */
+    static final int RAW_FRACTION_DIGITS = 9;
+
+    private CsvLogFormat() {
+    }
+
+    /**
+     * Writes the comment header that describes the record formats to the start of a CSV file
+     *
+     * @param writer             writer to use when writing the file
+     * @param versionDescription app and device version information, from
+     *                           {@link BaseFileLogger#getVersionDescription()}
+     * @throws IOException if the header can't be written
+     */
+    static void writeHeader(BufferedWriter writer, String versionDescription) throws IOException {
+        writer.write(COMMENT_START);
+        writer.newLine();
+        writer.write(COMMENT_START);
+        writer.write("Header Description:");
+        writer.newLine();
+        writer.write(COMMENT_START);
+        writer.newLine();
+        writer.write(COMMENT_START);
+        writer.write(VERSION_TAG);
+        writer.write(versionDescription);
+        writer.newLine();
+        writer.write(COMMENT_START);
+        writer.newLine();
+        writer.write(COMMENT_START);
+        writer.write("Raw GNSS measurements format:");
+        writer.newLine();
+        writer.write(COMMENT_START);
+        writer.write(
+                "  Raw,ElapsedRealtimeMillis,TimeNanos,LeapSecond,TimeUncertaintyNanos,FullBiasNanos,"
+                        + "BiasNanos,BiasUncertaintyNanos,DriftNanosPerSecond,DriftUncertaintyNanosPerSecond,"
+                        + "HardwareClockDiscontinuityCount,Svid,TimeOffsetNanos,State,ReceivedSvTimeNanos,"
+                        + "ReceivedSvTimeUncertaintyNanos,Cn0DbHz,PseudorangeRateMetersPerSecond,"
+                        + "PseudorangeRateUncertaintyMetersPerSecond,"
+                        + "AccumulatedDeltaRangeState,AccumulatedDeltaRangeMeters,"
+                        + "AccumulatedDeltaRangeUncertaintyMeters,CarrierFrequencyHz,CarrierCycles,"
+                        + "CarrierPhase,CarrierPhaseUncertainty,MultipathIndicator,SnrInDb,"
+                        + "ConstellationType,AgcDb,CarrierFrequencyHz");
+        writer.newLine();
+        writer.write(COMMENT_START);
+        writer.newLine();
+        writer.write(COMMENT_START);
+        writer.write("Location fix format:");
+        writer.newLine();
+        writer.write(COMMENT_START);
+        writer.write(
+                "  Fix,Provider,Latitude,Longitude,Altitude,Speed,Accuracy,(UTC)TimeInMs");
+        writer.newLine();
+        writer.write(COMMENT_START);
+        writer.newLine();
+        writer.write(COMMENT_START);
+        writer.write("Navigation message format:");
+        writer.newLine();
+        writer.write(COMMENT_START);
+        writer.write("  Nav,Svid,Type,Status,MessageId,Sub-messageId,Data(Bytes)");
+        writer.newLine();
+        writer.write(COMMENT_START);
+        writer.newLine();
+        writer.write(COMMENT_START);
+        writer.write("NMEA format (for [NMEA sentence] format see https://www.gpsinformation.org/dale/nmea.htm):");
+        writer.newLine();
+        writer.write(COMMENT_START);
+        writer.write("  NMEA,[NMEA sentence],(UTC)TimeInMs");
+        writer.newLine();
+        writer.write(COMMENT_START);
+        writer.newLine();
+    }
+
+    /**
+     * Encodes a "Raw" record. Fields that the clock or measurement doesn't have a value for are
+     * left empty.
+     */
+    static void encodeRaw(CsvRecordEncoder encoder, RawMeasurementRecord r) {
+        encoder.reset()
+                .append(RECORD_RAW).delimiter()
+                .append(r.elapsedRealtimeMillis).delimiter()
+                .append(r.timeNanos).delimiter();
+        if (r.hasLeapSecond) {
+            encoder.append(r.leapSecond);
+        }
+        encoder.delimiter();
+        if (r.hasTimeUncertaintyNanos) {
+            encoder.appendDouble(r.timeUncertaintyNanos, RAW_FRACTION_DIGITS);
+        }
+        encoder.delimiter()
+                .append(r.fullBiasNanos).delimiter();
+        if (r.hasBiasNanos) {
+            encoder.appendDouble(r.biasNanos, RAW_FRACTION_DIGITS);
+        }
+        encoder.delimiter();
+        if (r.hasBiasUncertaintyNanos) {
+            encoder.appendDouble(r.biasUncertaintyNanos, RAW_FRACTION_DIGITS);
+        }
+        encoder.delimiter();
+        if (r.hasDriftNanosPerSecond) {
+            encoder.appendDouble(r.driftNanosPerSecond, RAW_FRACTION_DIGITS);
+        }
+        encoder.delimiter();
+        if (r.hasDriftUncertaintyNanosPerSecond) {
+            encoder.appendDouble(r.driftUncertaintyNanosPerSecond, RAW_FRACTION_DIGITS);
+        }
+        encoder.delimiter()
+                .append(r.hardwareClockDiscontinuityCount).delimiter()
+                .append(r.svid).delimiter()
+                .appendDouble(r.timeOffsetNanos, RAW_FRACTION_DIGITS).delimiter()
+                .append(r.state).delimiter()
+                .append(r.receivedSvTimeNanos).delimiter()
+                .append(r.receivedSvTimeUncertaintyNanos).delimiter()
+                .appendDouble(r.cn0DbHz, RAW_FRACTION_DIGITS).delimiter()
+                .appendDouble(r.pseudorangeRateMetersPerSecond, RAW_FRACTION_DIGITS).delimiter()
+                .appendDouble(r.pseudorangeRateUncertaintyMetersPerSecond, RAW_FRACTION_DIGITS).delimiter()
+                .append(r.accumulatedDeltaRangeState).delimiter()
+                .appendDouble(r.accumulatedDeltaRangeMeters, RAW_FRACTION_DIGITS).delimiter()
+                .appendDouble(r.accumulatedDeltaRangeUncertaintyMeters, RAW_FRACTION_DIGITS).delimiter();
+        if (r.hasCarrierFrequencyHz) {
+            encoder.appendDouble(r.carrierFrequencyHz, RAW_FRACTION_DIGITS);
+        }
+        encoder.delimiter();
+        if (r.hasCarrierCycles) {
+            encoder.append(r.carrierCycles);
+        }
+        encoder.delimiter();
+        if (r.hasCarrierPhase) {
+            encoder.appendDouble(r.carrierPhase, RAW_FRACTION_DIGITS);
+        }
+        encoder.delimiter();
+        if (r.hasCarrierPhaseUncertainty) {
+            encoder.appendDouble(r.carrierPhaseUncertainty, RAW_FRACTION_DIGITS);
+        }
+        encoder.delimiter()
+                .append(r.multipathIndicator).delimiter();
+        if (r.hasSnrInDb) {
+            encoder.appendDouble(r.snrInDb, RAW_FRACTION_DIGITS);
+        }
+        encoder.delimiter()
+                .append(r.constellationType).delimiter();
+        if (r.hasAutomaticGainControlLevelDb) {
+            encoder.appendDouble(r.automaticGainControlLevelDb, RAW_FRACTION_DIGITS);
+        }
+        encoder.delimiter();
+        if (r.hasCarrierFrequencyHz) {
+            encoder.appendDouble(r.carrierFrequencyHz, RAW_FRACTION_DIGITS);
+        }
+    }
+
+    /**
+     * Encodes a "Fix" record, with the same output as
+     * String.format(Locale.US, "Fix,%s,%f,%f,%f,%f,%f,%d", ...)
+     */
+    static void encodeFix(CsvRecordEncoder encoder, FixRecord r) {
+        encoder.reset()
+                .append(RECORD_FIX).delimiter()
+                .append(r.provider).delimiter()
+                .appendFixed(r.latitude, FIX_FRACTION_DIGITS).delimiter()
+                .appendFixed(r.longitude, FIX_FRACTION_DIGITS).delimiter()
+                .appendFixed(r.altitude, FIX_FRACTION_DIGITS).delimiter()
+                .appendFixed(r.speed, FIX_FRACTION_DIGITS).delimiter()
+                .appendFixed(r.accuracy, FIX_FRACTION_DIGITS).delimiter()
+                .append(r.timeMillis);
+    }
+
+    /**
+     * Encodes a "Nav" record, with each data byte as a separate signed value
+     */
+    static void encodeNav(CsvRecordEncoder encoder, NavMessageRecord r) {
+        encoder.reset()
+                .append(RECORD_NAV).delimiter()
+                .append(r.svid).delimiter()
+                .append(r.type).delimiter()
+                .append(r.status).delimiter()
+                .append(r.messageId).delimiter()
+                .append(r.submessageId);
+        for (int i = 0; i < r.dataLength; i++) {
+            encoder.delimiter().append(r.data[i]);
+        }
+    }
+
+    /**
+     * Encodes an "NMEA" record, with leading and trailing whitespace removed from the sentence
+     */
+    static void encodeNmea(CsvRecordEncoder encoder, CharSequence sentence, long timestamp) {
+        encoder.reset()
+                .append(RECORD_NMEA).delimiter()
+                .appendTrimmed(sentence).delimiter()
+                .append(timestamp);
+    }
+}
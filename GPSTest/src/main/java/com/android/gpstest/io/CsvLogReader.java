@@ -0,0 +1,734 @@
+/*
+ * Copyright (C) 2021 Sean J. Barbeau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.gpstest.io;
+
+import java.io.BufferedInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Reads CSV log files written by {@link CsvFileLogger} (or the Google GNSS Logger app) and passes
+ * each "Raw", "Fix", "Nav" and "NMEA" record to a {@link Handler}.
+ *
+ * The file is scanned in a byte buffer and numeric fields are parsed in place, so no String is
+ * created per line or per field, and memory use doesn't depend on the size of the file. The record
+ * holders and the NMEA sentence passed to the handler are re-used for the next record, so they
+ * must not be retained after the callback returns.
+ *
+ * Comment lines starting with "#", blank lines and unknown record types are skipped. Lines that
+ * can't be parsed (e.g., a final line that was only partially written before the app was killed)
+ * are skipped and counted in {@link #getSkippedLineCount()}.
+ *
+ * Instances are not thread-safe.
+ */
+public final class CsvLogReader {
+
+    /**
+     * Receives the records read from a CSV log, in file order
+     */
+    public interface Handler {
+        void onRaw(RawMeasurementRecord record);
+
+        void onFix(FixRecord record);
+
+        void onNav(NavMessageRecord record);
+
+        /**
+         * @param sentence  the NMEA sentence, which is only valid until this method returns
+         * @param timestamp timestamp provided with the sentence, in milliseconds since the epoch
+         */
+        void onNmea(CharSequence sentence, long timestamp);
+    }
+
+    /**
+     * A {@link Handler} that ignores all records, for handlers that only need some record types
+     */
+    public abstract static class HandlerAdapter implements Handler {
+        @Override
+        public void onRaw(RawMeasurementRecord record) {
+        }
+
+        @Override
+        public void onFix(FixRecord record) {
+        }
+
+        @Override
+        public void onNav(NavMessageRecord record) {
+        }
+
+        @Override
+        public void onNmea(CharSequence sentence, long timestamp) {
+        }
+    }
+
+    static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Number of fields in a "Raw" record up to ConstellationType. Older logs don't have the
+     * fields after it.
+     */
+    private static final int RAW_MIN_FIELDS = 29;
+    private static final int FIX_FIELDS = 8;
+    private static final int NAV_MIN_FIELDS = 6;
+    private static final int NMEA_MIN_FIELDS = 3;
+
+    /**
+     * Largest number of significant digits that are parsed exactly by
+     * {@link #parseDouble(int)} - below 2^53 so the digits are exactly representable as a double
+     */
+    private static final int MAX_FAST_DOUBLE_DIGITS = 15;
+
+    /**
+     * Number of digits that always fit into a long in {@link #parseLong(int)}
+     */
+    private static final int MAX_FAST_LONG_DIGITS = 18;
+
+    private static final double[] POWERS_OF_TEN = new double[23];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    private static final byte[] RECORD_RAW = ascii(CsvLogFormat.RECORD_RAW);
+    private static final byte[] RECORD_FIX = ascii(CsvLogFormat.RECORD_FIX);
+    private static final byte[] RECORD_NAV = ascii(CsvLogFormat.RECORD_NAV);
+    private static final byte[] RECORD_NMEA = ascii(CsvLogFormat.RECORD_NMEA);
+    private static final String GPS_PROVIDER = "gps";
+    private static final byte[] GPS_PROVIDER_BYTES = ascii(GPS_PROVIDER);
+
+    private final InputStream in;
+    private byte[] buffer;
+    private int position;
+    private int limit;
+    /**
+     * Offset in the stream of the first byte in the buffer
+     */
+    private long bufferOffset;
+    private long lineOffset;
+
+    private int[] fieldStarts = new int[64];
+    private int[] fieldEnds = new int[64];
+    private int fieldCount;
+
+    private final RawMeasurementRecord rawRecord = new RawMeasurementRecord();
+    private final FixRecord fixRecord = new FixRecord();
+    private final NavMessageRecord navRecord = new NavMessageRecord();
+    private final AsciiSequence sentence = new AsciiSequence();
+
+    private long lineCount;
+    private long recordCount;
+    private long skippedLineCount;
+    private boolean stopped;
+
+    /**
+     * @param in the CSV log to read, which is not closed by this reader
+     */
+    public CsvLogReader(InputStream in) {
+        this(in, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * @param in         the CSV log to read, which is not closed by this reader
+     * @param bufferSize initial size of the read buffer in bytes. The buffer grows if a line is
+     *                   longer than the buffer.
+     */
+    CsvLogReader(InputStream in, int bufferSize) {
+        this.in = in;
+        this.buffer = new byte[bufferSize];
+    }
+
+    /**
+     * Reads all records from the provided CSV log file
+     *
+     * @param file    the CSV log file, which is decompressed if its name ends in ".gz"
+     * @param handler receives the records in the file
+     * @return the number of records passed to the handler
+     * @throws IOException if the file can't be read
+     */
+    public static long read(File file, Handler handler) throws IOException {
+        try (InputStream in = BinaryLogConverter.openInputStream(file)) {
+            return new CsvLogReader(in).read(handler);
+        }
+    }
+
+    /**
+     * Reads the records of the provided CSV log file between two UTC times. Reading starts at the
+     * {@link LogTimeIndex} entry before fromUtcMillis, rebuilding the index if the file doesn't
+     * have one, and stops at the first record after toUtcMillis. Compressed files can't be indexed,
+     * so they are read from the start.
+     *
+     * The time of a record is the UTC time of the most recent "Fix" or "NMEA" record at or before
+     * it, the same as in rebuilt indexes. Records at the start of the file before the first UTC
+     * time are only passed to the handler if the index shows that they are after fromUtcMillis.
+     *
+     * @param file          the CSV log file, which is decompressed if its name ends in ".gz"
+     * @param fromUtcMillis UTC time in milliseconds of the first records to read
+     * @param toUtcMillis   UTC time in milliseconds of the last records to read
+     * @param handler       receives the records in the time range
+     * @return the number of records passed to the handler
+     * @throws IOException if the file can't be read
+     */
+    public static long read(File file, long fromUtcMillis, long toUtcMillis, Handler handler)
+            throws IOException {
+        if (file.getName().endsWith(".gz")) {
+            try (InputStream in = BinaryLogConverter.openInputStream(file)) {
+                CsvLogReader reader = new CsvLogReader(in);
+                TimeRangeHandler range = new TimeRangeHandler(fromUtcMillis, toUtcMillis,
+                        LogTimeIndex.UNKNOWN_TIME, handler, reader);
+                reader.read(range);
+                return range.getCount();
+            }
+        }
+        File indexFile = LogTimeIndex.getFile(file);
+        if (!indexFile.exists()) {
+            LogTimeIndex.rebuild(file, BaseFileLogger.DEFAULT_INDEX_INTERVAL);
+        }
+        long offset = 0;
+        // With no entry at or before the start time, the records before the first UTC time are
+        // in the range
+        long utcTimeMillis = fromUtcMillis;
+        try (LogTimeIndex index = LogTimeIndex.open(indexFile)) {
+            long entry = index.findEntryByUtcTime(fromUtcMillis);
+            if (entry >= 0) {
+                offset = index.getOffset(entry);
+                utcTimeMillis = index.getUtcTimeMillis(entry);
+            }
+        }
+        try (FileInputStream fileStream = new FileInputStream(file)) {
+            fileStream.getChannel().position(offset);
+            CsvLogReader reader = new CsvLogReader(new BufferedInputStream(fileStream));
+            reader.bufferOffset = offset;
+            TimeRangeHandler range = new TimeRangeHandler(fromUtcMillis, toUtcMillis,
+                    utcTimeMillis, handler, reader);
+            reader.read(range);
+            return range.getCount();
+        }
+    }
+
+    /**
+     * Reads records until the end of the stream, or until {@link #stop()} is called
+     *
+     * @param handler receives the records in the stream
+     * @return the number of records passed to the handler by this call
+     * @throws IOException if the stream can't be read
+     */
+    public long read(Handler handler) throws IOException {
+        long startCount = recordCount;
+        int scanned = position;
+        stopped = false;
+        while (!stopped) {
+            int newline = indexOf('\n', scanned, limit);
+            if (newline >= 0) {
+                parseLine(position, newline, handler);
+                position = newline + 1;
+                scanned = position;
+                continue;
+            }
+            // fill() moves the unread bytes to the start of the buffer, so scanning continues
+            // after the bytes that were already searched for a line break
+            scanned = limit - position;
+            if (!fill()) {
+                if (position < limit) {
+                    // Last line without a line break
+                    parseLine(position, limit, handler);
+                    position = limit;
+                }
+                break;
+            }
+        }
+        return recordCount - startCount;
+    }
+
+    /**
+     * Makes {@link #read(Handler)} return after the current record, for handlers that have found
+     * the records they need. Reading can be continued by calling read() again.
+     */
+    public void stop() {
+        stopped = true;
+    }
+
+    /**
+     * @return the number of lines read, including comments and skipped lines
+     */
+    public long getLineCount() {
+        return lineCount;
+    }
+
+    /**
+     * @return the number of records passed to handlers
+     */
+    public long getRecordCount() {
+        return recordCount;
+    }
+
+    /**
+     * @return the offset in the stream of the first byte of the line being parsed, which is the
+     * record passed to the handler when called from a handler method
+     */
+    public long getRecordOffset() {
+        return lineOffset;
+    }
+
+    /**
+     * @return the number of lines with a known record type that couldn't be parsed
+     */
+    public long getSkippedLineCount() {
+        return skippedLineCount;
+    }
+
+    /**
+     * Moves the unread bytes to the start of the buffer, growing it if it's full, and reads more
+     * bytes from the stream
+     *
+     * @return false if the end of the stream was reached, including the end of the data of a
+     * compressed file that is missing its GZIP trailer
+     */
+    private boolean fill() throws IOException {
+        int remaining = limit - position;
+        if (position > 0) {
+            System.arraycopy(buffer, position, buffer, 0, remaining);
+            bufferOffset += position;
+        } else if (remaining == buffer.length) {
+            byte[] larger = new byte[buffer.length * 2];
+            System.arraycopy(buffer, 0, larger, 0, remaining);
+            buffer = larger;
+        }
+        position = 0;
+        limit = remaining;
+        int read;
+        try {
+            read = in.read(buffer, limit, buffer.length - limit);
+        } catch (EOFException e) {
+            // GZIPInputStream throws this instead of returning -1 after the last data of a file
+            // that was sync flushed but not closed (e.g., because the app was killed)
+            return false;
+        }
+        if (read < 0) {
+            return false;
+        }
+        limit += read;
+        return true;
+    }
+
+    private int indexOf(int b, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (buffer[i] == b) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void parseLine(int start, int end, Handler handler) {
+        lineCount++;
+        lineOffset = bufferOffset + start;
+        if (end > start && buffer[end - 1] == '\r') {
+            end--;
+        }
+        if (start == end || buffer[start] == '#') {
+            return;
+        }
+        splitFields(start, end);
+        try {
+            if (fieldEquals(0, RECORD_RAW)) {
+                parseRaw();
+                handler.onRaw(rawRecord);
+            } else if (fieldEquals(0, RECORD_FIX)) {
+                parseFix();
+                handler.onFix(fixRecord);
+            } else if (fieldEquals(0, RECORD_NAV)) {
+                parseNav();
+                handler.onNav(navRecord);
+            } else if (fieldEquals(0, RECORD_NMEA)) {
+                if (fieldCount < NMEA_MIN_FIELDS) {
+                    throw new NumberFormatException("Missing NMEA fields");
+                }
+                // The sentence contains commas, so it runs from the second field to the last one
+                long timestamp = parseLong(fieldCount - 1);
+                sentence.set(buffer, fieldStarts[1], fieldEnds[fieldCount - 2]);
+                handler.onNmea(sentence, timestamp);
+            } else {
+                return;
+            }
+            recordCount++;
+        } catch (NumberFormatException e) {
+            skippedLineCount++;
+        }
+    }
+
+    private void splitFields(int start, int end) {
+        fieldCount = 0;
+        int fieldStart = start;
+        for (int i = start; i <= end; i++) {
+            if (i == end || buffer[i] == CsvRecordEncoder.DELIMITER) {
+                if (fieldCount == fieldStarts.length) {
+                    growFields();
+                }
+                fieldStarts[fieldCount] = fieldStart;
+                fieldEnds[fieldCount] = i;
+                fieldCount++;
+                fieldStart = i + 1;
+            }
+        }
+    }
+
+    private void growFields() {
+        int[] starts = new int[fieldStarts.length * 2];
+        int[] ends = new int[fieldEnds.length * 2];
+        System.arraycopy(fieldStarts, 0, starts, 0, fieldCount);
+        System.arraycopy(fieldEnds, 0, ends, 0, fieldCount);
+        fieldStarts = starts;
+        fieldEnds = ends;
+    }
+
+    private void parseRaw() {
+        if (fieldCount < RAW_MIN_FIELDS) {
+            throw new NumberFormatException("Missing Raw fields");
+        }
+        RawMeasurementRecord r = rawRecord;
+        r.elapsedRealtimeMillis = parseLong(1);
+        r.timeNanos = parseLong(2);
+        r.hasLeapSecond = hasValue(3);
+        r.leapSecond = r.hasLeapSecond ? (int) parseLong(3) : 0;
+        r.hasTimeUncertaintyNanos = hasValue(4);
+        r.timeUncertaintyNanos = r.hasTimeUncertaintyNanos ? parseDouble(4) : 0;
+        r.fullBiasNanos = parseLong(5);
+        r.hasBiasNanos = hasValue(6);
+        r.biasNanos = r.hasBiasNanos ? parseDouble(6) : 0;
+        r.hasBiasUncertaintyNanos = hasValue(7);
+        r.biasUncertaintyNanos = r.hasBiasUncertaintyNanos ? parseDouble(7) : 0;
+        r.hasDriftNanosPerSecond = hasValue(8);
+        r.driftNanosPerSecond = r.hasDriftNanosPerSecond ? parseDouble(8) : 0;
+        r.hasDriftUncertaintyNanosPerSecond = hasValue(9);
+        r.driftUncertaintyNanosPerSecond = r.hasDriftUncertaintyNanosPerSecond ? parseDouble(9) : 0;
+        r.hardwareClockDiscontinuityCount = (int) parseLong(10);
+        r.svid = (int) parseLong(11);
+        r.timeOffsetNanos = parseDouble(12);
+        r.state = (int) parseLong(13);
+        r.receivedSvTimeNanos = parseLong(14);
+        r.receivedSvTimeUncertaintyNanos = parseLong(15);
+        r.cn0DbHz = parseDouble(16);
+        r.pseudorangeRateMetersPerSecond = parseDouble(17);
+        r.pseudorangeRateUncertaintyMetersPerSecond = parseDouble(18);
+        r.accumulatedDeltaRangeState = (int) parseLong(19);
+        r.accumulatedDeltaRangeMeters = parseDouble(20);
+        r.accumulatedDeltaRangeUncertaintyMeters = parseDouble(21);
+        r.hasCarrierFrequencyHz = hasValue(22);
+        r.carrierFrequencyHz = r.hasCarrierFrequencyHz ? (float) parseDouble(22) : 0;
+        r.hasCarrierCycles = hasValue(23);
+        r.carrierCycles = r.hasCarrierCycles ? parseLong(23) : 0;
+        r.hasCarrierPhase = hasValue(24);
+        r.carrierPhase = r.hasCarrierPhase ? parseDouble(24) : 0;
+        r.hasCarrierPhaseUncertainty = hasValue(25);
+        r.carrierPhaseUncertainty = r.hasCarrierPhaseUncertainty ? parseDouble(25) : 0;
+        r.multipathIndicator = (int) parseLong(26);
+        r.hasSnrInDb = hasValue(27);
+        r.snrInDb = r.hasSnrInDb ? parseDouble(27) : 0;
+        r.constellationType = (int) parseLong(28);
+        r.hasAutomaticGainControlLevelDb = hasValue(29);
+        r.automaticGainControlLevelDb = r.hasAutomaticGainControlLevelDb ? parseDouble(29) : 0;
+    }
+
+    private void parseFix() {
+        if (fieldCount < FIX_FIELDS) {
+            throw new NumberFormatException("Missing Fix fields");
+        }
+        FixRecord r = fixRecord;
+        r.provider = fieldEquals(1, GPS_PROVIDER_BYTES) ? GPS_PROVIDER : fieldString(1);
+        r.latitude = parseDouble(2);
+        r.longitude = parseDouble(3);
+        r.altitude = parseDouble(4);
+        r.speed = (float) parseDouble(5);
+        r.accuracy = (float) parseDouble(6);
+        r.timeMillis = parseLong(7);
+    }
+
+    private void parseNav() {
+        if (fieldCount < NAV_MIN_FIELDS) {
+            throw new NumberFormatException("Missing Nav fields");
+        }
+        NavMessageRecord r = navRecord;
+        r.svid = (int) parseLong(1);
+        r.type = (int) parseLong(2);
+        r.status = (int) parseLong(3);
+        r.messageId = (int) parseLong(4);
+        r.submessageId = (int) parseLong(5);
+        int length = fieldCount - NAV_MIN_FIELDS;
+        r.ensureDataCapacity(length);
+        for (int i = 0; i < length; i++) {
+            r.data[i] = (byte) parseLong(NAV_MIN_FIELDS + i);
+        }
+        r.dataLength = length;
+    }
+
+    private boolean hasValue(int field) {
+        return field < fieldCount && fieldEnds[field] > fieldStarts[field];
+    }
+
+    private boolean fieldEquals(int field, byte[] expected) {
+        int start = fieldStarts[field];
+        if (fieldEnds[field] - start != expected.length) {
+            return false;
+        }
+        for (int i = 0; i < expected.length; i++) {
+            if (buffer[start + i] != expected[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private String fieldString(int field) {
+        StringBuilder builder = new StringBuilder(fieldEnds[field] - fieldStarts[field]);
+        for (int i = fieldStarts[field]; i < fieldEnds[field]; i++) {
+            builder.append((char) (buffer[i] & 0xFF));
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Parses an integer field in place
+     *
+     * @throws NumberFormatException if the field is missing, empty or isn't an integer
+     */
+    private long parseLong(int field) {
+        if (!hasValue(field)) {
+            throw new NumberFormatException("Missing field " + field + " on line " + lineCount);
+        }
+        int i = fieldStarts[field];
+        int end = fieldEnds[field];
+        boolean negative = buffer[i] == '-';
+        if (negative || buffer[i] == '+') {
+            i++;
+        }
+        if (i == end || end - i > MAX_FAST_LONG_DIGITS) {
+            // Handles values near Long.MIN_VALUE and MAX_VALUE, and reports invalid values
+            return Long.parseLong(fieldString(field));
+        }
+        long value = 0;
+        for (; i < end; i++) {
+            int digit = buffer[i] - '0';
+            if (digit < 0 || digit > 9) {
+                throw new NumberFormatException("Invalid integer in field " + field + " on line " + lineCount);
+            }
+            value = value * 10 + digit;
+        }
+        return negative ? -value : value;
+    }
+
+    /**
+     * Parses a decimal field in place. Values with up to 15 significant digits and 22 fraction
+     * digits (which includes all values written by {@link CsvRecordEncoder}) are parsed with a
+     * single correctly rounded division. Other values, such as exponents, NaN and infinity, are
+     * parsed by {@link Double#parseDouble(String)}.
+     *
+     * @throws NumberFormatException if the field is missing, empty or isn't a number
+     */
+    private double parseDouble(int field) {
+        if (!hasValue(field)) {
+            throw new NumberFormatException("Missing field " + field + " on line " + lineCount);
+        }
+        int i = fieldStarts[field];
+        int end = fieldEnds[field];
+        boolean negative = buffer[i] == '-';
+        if (negative || buffer[i] == '+') {
+            i++;
+        }
+        long mantissa = 0;
+        int significantDigits = 0;
+        int fractionDigits = 0;
+        boolean hasDigits = false;
+        boolean hasPoint = false;
+        for (; i < end; i++) {
+            byte b = buffer[i];
+            if (b >= '0' && b <= '9') {
+                hasDigits = true;
+                if (mantissa != 0 || b != '0') {
+                    significantDigits++;
+                }
+                mantissa = mantissa * 10 + (b - '0');
+                if (hasPoint) {
+                    fractionDigits++;
+                }
+                if (significantDigits > MAX_FAST_DOUBLE_DIGITS) {
+                    return Double.parseDouble(fieldString(field));
+                }
+            } else if (b == '.' && !hasPoint) {
+                hasPoint = true;
+            } else {
+                return Double.parseDouble(fieldString(field));
+            }
+        }
+        if (!hasDigits || fractionDigits >= POWERS_OF_TEN.length) {
+            return Double.parseDouble(fieldString(field));
+        }
+        double value = mantissa / POWERS_OF_TEN[fractionDigits];
+        return negative ? -value : value;
+    }
+
+    private static byte[] ascii(String s) {
+        byte[] bytes = new byte[s.length()];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) s.charAt(i);
+        }
+        return bytes;
+    }
+
+    /**
+     * Passes the records between two UTC times to another handler, and stops reading at the
+     * first record after the end time. The time of a record is the UTC time of the most recent
+     * "Fix" or "NMEA" record at or before it.
+     */
+    static final class TimeRangeHandler implements Handler {
+        private final long fromUtcMillis;
+        private final long toUtcMillis;
+        private final Handler handler;
+        private final CsvLogReader reader;
+        private long utcTimeMillis;
+        private long count;
+        private boolean pastEnd;
+
+        /**
+         * @param utcTimeMillis UTC time of the records before the first "Fix" or "NMEA" record, or
+         *                      {@link LogTimeIndex#UNKNOWN_TIME} to skip them
+         * @param reader        the reader to stop at the end of the range, or null if the caller
+         *                      checks {@link #isPastEnd()}
+         */
+        TimeRangeHandler(long fromUtcMillis, long toUtcMillis, long utcTimeMillis,
+                         Handler handler, CsvLogReader reader) {
+            this.fromUtcMillis = fromUtcMillis;
+            this.toUtcMillis = toUtcMillis;
+            this.utcTimeMillis = utcTimeMillis;
+            this.handler = handler;
+            this.reader = reader;
+        }
+
+        @Override
+        public void onRaw(RawMeasurementRecord record) {
+            if (isInRange()) {
+                handler.onRaw(record);
+            }
+        }
+
+        @Override
+        public void onFix(FixRecord record) {
+            if (setTime(record.timeMillis)) {
+                handler.onFix(record);
+            }
+        }
+
+        @Override
+        public void onNav(NavMessageRecord record) {
+            if (isInRange()) {
+                handler.onNav(record);
+            }
+        }
+
+        @Override
+        public void onNmea(CharSequence sentence, long timestamp) {
+            if (setTime(timestamp)) {
+                handler.onNmea(sentence, timestamp);
+            }
+        }
+
+        /**
+         * @return true if the time is in the range, false if it isn't
+         */
+        private boolean setTime(long timeMillis) {
+            utcTimeMillis = timeMillis;
+            if (utcTimeMillis > toUtcMillis) {
+                pastEnd = true;
+                if (reader != null) {
+                    reader.stop();
+                }
+            }
+            return isInRange();
+        }
+
+        private boolean isInRange() {
+            if (pastEnd || utcTimeMillis == LogTimeIndex.UNKNOWN_TIME
+                    || utcTimeMillis < fromUtcMillis) {
+                return false;
+            }
+            count++;
+            return true;
+        }
+
+        /**
+         * @return true if a record after the end time has been read
+         */
+        boolean isPastEnd() {
+            return pastEnd;
+        }
+
+        /**
+         * @return the number of records passed to the handler
+         */
+        long getCount() {
+            return count;
+        }
+    }
+
+    /**
+     * A CharSequence view of ASCII bytes in the read buffer, used to pass NMEA sentences to the
+     * handler without copying them
+     */
+    private static final class AsciiSequence implements CharSequence {
+        private byte[] bytes;
+        private int start;
+        private int end;
+
+        void set(byte[] bytes, int start, int end) {
+            this.bytes = bytes;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        public int length() {
+            return end - start;
+        }
+
+        @Override
+        public char charAt(int index) {
+            if (index < 0 || index >= end - start) {
+                throw new IndexOutOfBoundsException("index " + index + ", length " + length());
+            }
+            return (char) (bytes[start + index] & 0xFF);
+        }
+
+        @Override
+        public CharSequence subSequence(int from, int to) {
+            return toString().substring(from, to);
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder builder = new StringBuilder(end - start);
+            for (int i = start; i < end; i++) {
+                builder.append((char) (bytes[i] & 0xFF));
+            }
+            return builder.toString();
+        }
+    }
+}
@@ -0,0 +1,283 @@
+/*
+ * Copyright (C) 2021 Sean J. Barbeau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.gpstest.io;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Encodes a single CSV record into a re-usable char buffer, appending primitive values directly
+ * without boxing them or creating intermediate Strings. Call {@link #reset()} before encoding each
+ * record and {@link #writeTo(Writer)} to output it.
+ *
+ * Instances are not thread-safe.
+ */
+final class CsvRecordEncoder {
+
+    static final char DELIMITER = ',';
+
+    private static final int INITIAL_CAPACITY = 512;
+
+    /**
+     * Largest number of fraction digits supported by {@link #appendDouble(double, int)} and
+     * {@link #appendFixed(double, int)}
+     */
+    static final int MAX_FRACTION_DIGITS = 9;
+
+    private static final long[] POWERS_OF_TEN = new long[MAX_FRACTION_DIGITS + 1];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    /**
+     * Largest scaled value that is rounded using double arithmetic in
+     * {@link #appendFixed(double, int)}. Above this the rounding error of the multiplication could
+     * change the result.
+     */
+    private static final double MAX_FAST_FIXED_SCALED_VALUE = 1e12;
+
+    /**
+     * Largest scaled value that fits into a long in {@link #appendDouble(double, int)}
+     */
+    private static final double MAX_SCALED_VALUE = 9e18;
+
+    /**
+     * Smallest non-zero magnitude written with fixed fraction digits in
+     * {@link #appendDouble(double, int)}. Below this rounding would drop significant digits, so the
+     * value is written by {@link Double#toString(double)} instead.
+     */
+    private static final double MIN_FAST_DOUBLE_MAGNITUDE = 1e-3;
+
+    private char[] buffer = new char[INITIAL_CAPACITY];
+
+    private int length = 0;
+
+    /**
+     * Clears the buffer so a new record can be encoded
+     *
+     * @return this encoder
+     */
+    CsvRecordEncoder reset() {
+        length = 0;
+        return this;
+    }
+
+    /**
+     * @return the number of characters in the current record
+     */
+    int length() {
+        return length;
+    }
+
+    CsvRecordEncoder delimiter() {
+        return append(DELIMITER);
+    }
+
+    CsvRecordEncoder append(char c) {
+        ensureCapacity(1);
+        buffer[length++] = c;
+        return this;
+    }
+
+    CsvRecordEncoder append(CharSequence s) {
+        return append(s, 0, s.length());
+    }
+
+    /**
+     * Appends the provided characters with leading and trailing whitespace removed, equivalent to
+     * append(s.trim()) without creating a substring
+     *
+     * @param s characters to append
+     * @return this encoder
+     */
+    CsvRecordEncoder appendTrimmed(CharSequence s) {
+        int start = 0;
+        int end = s.length();
+        while (start < end && s.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && s.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        return append(s, start, end);
+    }
+
+    private CsvRecordEncoder append(CharSequence s, int start, int end) {
+        ensureCapacity(end - start);
+        if (s instanceof String) {
+            ((String) s).getChars(start, end, buffer, length);
+            length += end - start;
+        } else {
+            for (int i = start; i < end; i++) {
+                buffer[length++] = s.charAt(i);
+            }
+        }
+        return this;
+    }
+
+    CsvRecordEncoder append(int value) {
+        return append((long) value);
+    }
+
+    CsvRecordEncoder append(long value) {
+        if (value == Long.MIN_VALUE) {
+            return append("-9223372036854775808");
+        }
+        if (value < 0) {
+            append('-');
+            value = -value;
+        }
+        appendDigits(value, digitCount(value));
+        return this;
+    }
+
+    /**
+     * Appends the provided value rounded to fractionDigits digits after the decimal point, with
+     * trailing zeros removed but keeping at least one fraction digit (e.g., "3.0", "0.25", "-1.5").
+     * NaN, infinite, very large and very small non-zero values are written the same way as
+     * {@link Double#toString(double)} so no precision is lost.
+     *
+     * @param value          the value to append
+     * @param fractionDigits maximum number of digits to output after the decimal point, between 1
+     *                       and {@link #MAX_FRACTION_DIGITS}
+     * @return this encoder
+     */
+    CsvRecordEncoder appendDouble(double value, int fractionDigits) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            return append(Double.toString(value));
+        }
+        double magnitude = Math.abs(value);
+        if (magnitude != 0 && magnitude < MIN_FAST_DOUBLE_MAGNITUDE) {
+            // Too small to keep all significant digits - rare enough that allocating is acceptable
+            return append(Double.toString(value));
+        }
+        double scaled = magnitude * POWERS_OF_TEN[fractionDigits];
+        if (scaled >= MAX_SCALED_VALUE) {
+            // Too large to scale into a long - rare enough that allocating is acceptable
+            return append(Double.toString(value));
+        }
+        appendScaled(isNegative(value), Math.round(scaled), fractionDigits, true);
+        return this;
+    }
+
+    /**
+     * Appends the provided value with exactly fractionDigits digits after the decimal point. The
+     * output is identical to String.format(Locale.US, "%.Nf", value), where N is fractionDigits.
+     *
+     * @param value          the value to append
+     * @param fractionDigits number of digits to output after the decimal point, between 1 and
+     *                       {@link #MAX_FRACTION_DIGITS}
+     * @return this encoder
+     */
+    CsvRecordEncoder appendFixed(double value, int fractionDigits) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            return append(Double.toString(value));
+        }
+        double scaled = Math.abs(value) * POWERS_OF_TEN[fractionDigits];
+        double remainder = scaled - Math.floor(scaled);
+        if (scaled >= MAX_FAST_FIXED_SCALED_VALUE || Math.abs(remainder - 0.5) < 1e-3) {
+            // The formatter rounds the shortest decimal representation of the value half-up. Close
+            // to a half-way point the multiplication above could round the other way, so use the
+            // exact (allocating) decimal arithmetic instead.
+            long exact = BigDecimal.valueOf(Math.abs(value))
+                    .setScale(fractionDigits, RoundingMode.HALF_UP)
+                    .unscaledValue()
+                    .longValue();
+            appendScaled(isNegative(value), exact, fractionDigits, false);
+            return this;
+        }
+        appendScaled(isNegative(value), Math.round(scaled), fractionDigits, false);
+        return this;
+    }
+
+    /**
+     * Writes the current record to the provided writer (without a line separator)
+     *
+     * @param writer the writer to output the record to
+     * @throws IOException if the record can't be written
+     */
+    void writeTo(Writer writer) throws IOException {
+        writer.write(buffer, 0, length);
+    }
+
+    @Override
+    public String toString() {
+        return new String(buffer, 0, length);
+    }
+
+    private void appendScaled(boolean negative, long scaled, int fractionDigits, boolean trimZeros) {
+        if (negative) {
+            append('-');
+        }
+        long power = POWERS_OF_TEN[fractionDigits];
+        long integerPart = scaled / power;
+        long fractionPart = scaled % power;
+        appendDigits(integerPart, digitCount(integerPart));
+        int digits = fractionDigits;
+        if (trimZeros) {
+            while (digits > 1 && fractionPart % 10 == 0) {
+                fractionPart /= 10;
+                digits--;
+            }
+        }
+        append('.');
+        // Fraction digits are zero-padded on the left
+        appendDigits(fractionPart, digits);
+    }
+
+    /**
+     * Appends the digits of a non-negative value, zero-padded on the left to the given width
+     */
+    private void appendDigits(long value, int width) {
+        ensureCapacity(width);
+        int position = length + width;
+        for (int i = 0; i < width; i++) {
+            buffer[--position] = (char) ('0' + (value % 10));
+            value /= 10;
+        }
+        length += width;
+    }
+
+    private static int digitCount(long value) {
+        int count = 1;
+        while (value >= 10) {
+            value /= 10;
+            count++;
+        }
+        return count;
+    }
+
+    private static boolean isNegative(double value) {
+        // Checks the sign bit so negative zero is output as "-0.0", matching the formatter
+        return Double.doubleToRawLongBits(value) < 0;
+    }
+
+    private void ensureCapacity(int additional) {
+        int required = length + additional;
+        if (required > buffer.length) {
+            char[] newBuffer = new char[Math.max(required, buffer.length * 2)];
+            System.arraycopy(buffer, 0, newBuffer, 0, length);
+            buffer = newBuffer;
+        }
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright (C) 2021 Sean J. Barbeau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.gpstest.io;
+
+/**
+ * Defines when a {@link BaseFileLogger} flushes buffered records to the log file, and whether
+ * flushed data is also synced to the storage device. Flushing more often reduces how much data can
+ * be lost if the app or device crashes, at the cost of more write() (and fsync()) system calls.
+ * Instances are immutable.
+ */
+public final class DurabilityPolicy {
+
+    public enum Mode {
+        /**
+         * Data is written to the file only when the write buffer is full and when the file is
+         * closed
+         */
+        BUFFER_FULL,
+        /**
+         * Flush after every N records
+         */
+        RECORDS,
+        /**
+         * Flush when at least T milliseconds have passed since the previous flush
+         */
+        INTERVAL,
+        /**
+         * Flush at the end of each GNSS epoch - after raw measurements or a location fix are
+         * written
+         */
+        EPOCH
+    }
+
+    /**
+     * Flushes only when the write buffer is full, without syncing
+     */
+    public static final DurabilityPolicy DEFAULT = new DurabilityPolicy(Mode.BUFFER_FULL, 0, false);
+
+    private final Mode mode;
+    private final long threshold;
+    private final boolean sync;
+
+    private DurabilityPolicy(Mode mode, long threshold, boolean sync) {
+        this.mode = mode;
+        this.threshold = threshold;
+        this.sync = sync;
+    }
+
+    /**
+     * @param recordCount number of records written between flushes, which must be at least 1
+     * @return a policy that flushes after every recordCount records
+     */
+    public static DurabilityPolicy everyRecords(int recordCount) {
+        if (recordCount < 1) {
+            throw new IllegalArgumentException("recordCount must be at least 1: " + recordCount);
+        }
+        return new DurabilityPolicy(Mode.RECORDS, recordCount, false);
+    }
+
+    /**
+     * @param intervalMillis minimum time between flushes in milliseconds, which must be positive.
+     *                       Flushes happen when records are written, so if no records are
+     *                       received the time between flushes can be longer.
+     * @return a policy that flushes at most every intervalMillis milliseconds
+     */
+    public static DurabilityPolicy everyMillis(long intervalMillis) {
+        if (intervalMillis <= 0) {
+            throw new IllegalArgumentException("intervalMillis must be positive: " + intervalMillis);
+        }
+        return new DurabilityPolicy(Mode.INTERVAL, intervalMillis, false);
+    }
+
+    /**
+     * @return a policy that flushes at the end of every GNSS epoch
+     */
+    public static DurabilityPolicy everyEpoch() {
+        return new DurabilityPolicy(Mode.EPOCH, 0, false);
+    }
+
+    /**
+     * Returns a copy of this policy that also syncs the file to the storage device (fsync) after
+     * each flush, so flushed data survives a power loss or kernel crash and not only an app crash
+     *
+     * @param sync true to sync after each flush, false to leave syncing to the OS
+     */
+    public DurabilityPolicy withSync(boolean sync) {
+        return new DurabilityPolicy(mode, threshold, sync);
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * @return the number of records for {@link Mode#RECORDS}, the interval in milliseconds for
+     * {@link Mode#INTERVAL}, or 0 for other modes
+     */
+    public long getThreshold() {
+        return threshold;
+    }
+
+    /**
+     * @return true if the file is synced to the storage device after each flush
+     */
+    public boolean isSync() {
+        return sync;
+    }
+
+    /**
+     * Returns true if buffered records should be flushed to the file after writing a record
+     *
+     * @param recordsSinceFlush number of records written since the previous flush, including the
+     *                          record that was just written
+     * @param millisSinceFlush  milliseconds since the previous flush
+     * @param isEpochEnd        true if the record that was just written ends a GNSS epoch
+     */
+    boolean isFlushDue(int recordsSinceFlush, long millisSinceFlush, boolean isEpochEnd) {
+        switch (mode) {
+            case RECORDS:
+                return recordsSinceFlush >= threshold;
+            case INTERVAL:
+                return millisSinceFlush >= threshold;
+            case EPOCH:
+                return isEpochEnd;
+            default:
+                return false;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return mode + (threshold > 0 ? " " + threshold : "") + (sync ? " with sync" : "");
+    }
+}
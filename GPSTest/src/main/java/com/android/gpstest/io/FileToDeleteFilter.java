@@ -35,6 +35,14 @@ public class FileToDeleteFilter implements FileFilter {
         if (mRetainedFiles.contains(pathname)) {
             return false;
         }
+        if (LogSessionManifest.isManifestFile(pathname)) {
+            // Manifests are small, but still describe the segments of a session
+            return false;
+        }
+        if (LogTimeIndex.isIndexFile(pathname)) {
+            // Indexes are small, so they are kept as long as their log file exists
+            return !LogTimeIndex.getLogFile(pathname).exists();
+        }
         return pathname.length() < MINIMUM_USABLE_FILE_SIZE_BYTES;
     }
 }
\ No newline at end of file
@@ -0,0 +1,82 @@
+/*
+ * Copyright (C) 2021 Sean J. Barbeau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.gpstest.io;
+
+import android.location.Location;
+
+/**
+ * A mutable holder for the fields of a single "Fix" log record. Instances are re-used between
+ * records to avoid allocating objects for each location.
+ *
+ * The fields are in the same order as the "Fix" row in CSV logs.
+ */
+public final class FixRecord {
+
+    String provider;
+    double latitude;
+    double longitude;
+    double altitude;
+    float speed;
+    float accuracy;
+    long timeMillis;
+
+    /**
+     * Copies the fields from the provided location
+     *
+     * @param location the location to copy fields from
+     */
+    void set(Location location) {
+        provider = location.getProvider();
+        latitude = location.getLatitude();
+        longitude = location.getLongitude();
+        altitude = location.getAltitude();
+        speed = location.getSpeed();
+        accuracy = location.getAccuracy();
+        timeMillis = location.getTime();
+    }
+
+    public String getProvider() {
+        return provider;
+    }
+
+    public double getLatitude() {
+        return latitude;
+    }
+
+    public double getLongitude() {
+        return longitude;
+    }
+
+    public double getAltitude() {
+        return altitude;
+    }
+
+    public float getSpeed() {
+        return speed;
+    }
+
+    public float getAccuracy() {
+        return accuracy;
+    }
+
+    /**
+     * @return the UTC time of the fix in milliseconds since January 1, 1970
+     */
+    public long getTimeMillis() {
+        return timeMillis;
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright (C) 2021 Sean J. Barbeau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.gpstest.io;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency and size statistics for the flushes performed by a {@link BaseFileLogger} under its
+ * {@link DurabilityPolicy}. Updated only by the writer thread, and can be read from any thread.
+ */
+public final class FlushMetrics {
+
+    private volatile long flushCount;
+    private volatile long totalLatencyNanos;
+    private volatile long maxLatencyNanos;
+    private volatile long lastLatencyNanos;
+    private volatile long totalBytes;
+    private volatile long maxBytes;
+    private volatile long lastBytes;
+
+    /**
+     * Adds a flush to the statistics. Called only from the writer thread.
+     *
+     * @param latencyNanos time taken by the flush (and sync, if enabled) in nanoseconds
+     * @param bytes        number of bytes that reached the file since the previous flush
+     */
+    void add(long latencyNanos, long bytes) {
+        flushCount++;
+        totalLatencyNanos += latencyNanos;
+        maxLatencyNanos = Math.max(maxLatencyNanos, latencyNanos);
+        lastLatencyNanos = latencyNanos;
+        totalBytes += bytes;
+        maxBytes = Math.max(maxBytes, bytes);
+        lastBytes = bytes;
+    }
+
+    public long getFlushCount() {
+        return flushCount;
+    }
+
+    public long getMaxLatencyNanos() {
+        return maxLatencyNanos;
+    }
+
+    public long getLastLatencyNanos() {
+        return lastLatencyNanos;
+    }
+
+    /**
+     * @return the average flush latency in nanoseconds, or 0 if there haven't been any flushes
+     */
+    public long getAverageLatencyNanos() {
+        long count = flushCount;
+        return count == 0 ? 0 : totalLatencyNanos / count;
+    }
+
+    /**
+     * @return the total number of bytes written to the file by all flushes
+     */
+    public long getTotalBytes() {
+        return totalBytes;
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    public long getLastBytes() {
+        return lastBytes;
+    }
+
+    /**
+     * @return the average number of bytes written to the file per flush, or 0 if there haven't
+     * been any flushes
+     */
+    public long getAverageBytes() {
+        long count = flushCount;
+        return count == 0 ? 0 : totalBytes / count;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.US, "%d flushes, latency avg %.2f ms max %.2f ms, bytes avg %d max %d",
+                getFlushCount(),
+                getAverageLatencyNanos() / (double) TimeUnit.MILLISECONDS.toNanos(1),
+                getMaxLatencyNanos() / (double) TimeUnit.MILLISECONDS.toNanos(1),
+                getAverageBytes(), getMaxBytes());
+    }
+}
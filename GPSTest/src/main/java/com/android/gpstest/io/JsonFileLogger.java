@@ -16,8 +16,14 @@
 
 package com.android.gpstest.io;
 
+import android.annotation.SuppressLint;
 import android.content.Context;
 import android.location.GnssAntennaInfo;
+import android.location.GnssMeasurement;
+import android.location.GnssMeasurementsEvent;
+import android.location.GnssNavigationMessage;
+import android.location.Location;
+import android.location.LocationManager;
 import android.os.Build;
 
 import androidx.annotation.NonNull;
@@ -37,12 +43,22 @@ import java.util.List;
 /**
  * A GNSS logger to store information to a JSON file. Originally from https://github.com/google/gps-measurement-tools/tree/master/GNSSLogger,
  * modified for GPSTest.
+ *
+ * The file contains a JSON array with one object per record. Raw measurements, fixes, navigation
+ * messages and NMEA sentences are written field-by-field as defined in {@link JsonLogFormat}, with
+ * all measurements from an epoch in a single object. Antenna info is serialized by Jackson.
  */
 public class JsonFileLogger extends BaseFileLogger implements FileLogger {
 
     ObjectMapper mapper;
     JsonGenerator jsonGenerator;
 
+    // Re-used for each record to avoid allocating objects on the writer thread
+    private final RawMeasurementRecord rawRecord = new RawMeasurementRecord();
+    private final FixRecord fixRecord = new FixRecord();
+    private final NavMessageRecord navRecord = new NavMessageRecord();
+    private char[] nmeaChars = new char[128];
+
     public JsonFileLogger(Context context) {
         super(context);
     }
@@ -85,40 +101,123 @@ public class JsonFileLogger extends BaseFileLogger implements FileLogger {
     public boolean startLog(File existingFile, Date date) {
         if (mapper == null) {
             mapper = new ObjectMapper();
-            // We manage closing the underlying file streams in super.close()
+            // We manage closing the underlying file streams in super.close(), and flushing them
+            // according to the durability policy
             mapper.getFactory().disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            mapper.getFactory().disable(JsonGenerator.Feature.FLUSH_PASSED_TO_STREAM);
         }
         return super.startLog(existingFile, date);
     }
 
+    /**
+     * Closes the JSON array - a new array is started by postFileInit() if logging continues in a
+     * new file
+     */
     @Override
-    public void close() {
-        if (fileWriter != null) {
-            try {
-                if (jsonGenerator != null) {
-                    jsonGenerator.writeEndArray();
-                    jsonGenerator.flush();
-                    jsonGenerator.close();
-                }
-                mapper = null;
-                jsonGenerator = null;
-            } catch (IOException e) {
-                logException("Unable to close jsonGenerator and mapper file streams.", e);
-            }
+    void preFileClose() throws IOException {
+        if (jsonGenerator != null) {
+            jsonGenerator.writeEndArray();
+            jsonGenerator.flush();
+            jsonGenerator.close();
+            jsonGenerator = null;
         }
+    }
+
+    @Override
+    public void close() {
+        // Queued events are written and the array is closed in preFileClose()
         super.close();
+        synchronized (fileLock) {
+            mapper = null;
+            jsonGenerator = null;
+        }
+    }
+
+    public void onLocationChanged(Location location) {
+        if (location.getProvider().equals(LocationManager.GPS_PROVIDER)) {
+            enqueue(LogEvent.TYPE_LOCATION, location, location.getTime());
+        }
+    }
+
+    @RequiresApi(api = Build.VERSION_CODES.N)
+    public void onGnssMeasurementsReceived(GnssMeasurementsEvent event) {
+        enqueue(LogEvent.TYPE_MEASUREMENTS, event, System.currentTimeMillis());
+    }
+
+    @RequiresApi(api = Build.VERSION_CODES.N)
+    public void onGnssNavigationMessageReceived(GnssNavigationMessage navigationMessage) {
+        enqueue(LogEvent.TYPE_NAV_MESSAGE, navigationMessage, System.currentTimeMillis());
+    }
+
+    public void onNmeaReceived(long timestamp, String s) {
+        enqueue(LogEvent.TYPE_NMEA, s, timestamp);
     }
 
     @RequiresApi(api = Build.VERSION_CODES.R)
     public void onGnssAntennaInfoReceived(@NonNull List<GnssAntennaInfo> list) {
-        try {
-            if (mapper != null && jsonGenerator != null) {
-                for (GnssAntennaInfo info : list) {
+        enqueue(LogEvent.TYPE_ANTENNA_INFO, list, System.currentTimeMillis());
+    }
+
+    @SuppressLint("NewApi")
+    @SuppressWarnings("unchecked")
+    @Override
+    void writeEvent(LogEvent event) throws IOException {
+        if (mapper == null || jsonGenerator == null) {
+            return;
+        }
+        switch (event.type) {
+            case LogEvent.TYPE_LOCATION:
+                fixRecord.set((Location) event.payload);
+                JsonLogFormat.writeFix(jsonGenerator, fixRecord);
+                break;
+            case LogEvent.TYPE_MEASUREMENTS:
+                GnssMeasurementsEvent measurementsEvent = (GnssMeasurementsEvent) event.payload;
+                rawRecord.setClock(event.elapsedRealtimeMillis, measurementsEvent.getClock());
+                JsonLogFormat.writeEpochStart(jsonGenerator, rawRecord);
+                for (GnssMeasurement measurement : measurementsEvent.getMeasurements()) {
+                    rawRecord.setMeasurement(measurement);
+                    JsonLogFormat.writeMeasurement(jsonGenerator, rawRecord);
+                }
+                JsonLogFormat.writeEpochEnd(jsonGenerator);
+                break;
+            case LogEvent.TYPE_NAV_MESSAGE:
+                navRecord.set((GnssNavigationMessage) event.payload);
+                JsonLogFormat.writeNav(jsonGenerator, navRecord);
+                break;
+            case LogEvent.TYPE_NMEA:
+                writeNmea((String) event.payload, event.timeMillis);
+                break;
+            case LogEvent.TYPE_ANTENNA_INFO:
+                for (GnssAntennaInfo info : (List<GnssAntennaInfo>) event.payload) {
                     mapper.writeValue(jsonGenerator, info);
                 }
-            }
-        } catch (IOException e) {
-            logException("Unable to write antenna info to JSON", e);
+                break;
+            default:
+                break;
+        }
+        // Move the generator's buffered output to fileWriter, so the bytes are counted for
+        // rotation and flushed by the durability policy. This doesn't flush fileWriter.
+        jsonGenerator.flush();
+    }
+
+    /**
+     * Writes an NMEA sentence without the trailing line break, copying it into a re-used
+     * buffer instead of allocating a trimmed String
+     */
+    private void writeNmea(String sentence, long timestamp) throws IOException {
+        int start = 0;
+        int end = sentence.length();
+        while (start < end && sentence.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && sentence.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        int length = end - start;
+        if (nmeaChars.length < length) {
+            nmeaChars = new char[length];
         }
+        sentence.getChars(start, end, nmeaChars, 0);
+        JsonLogFormat.writeNmea(jsonGenerator, nmeaChars, 0, length, timestamp);
     }
 }
@@ -0,0 +1,279 @@
+/*
+ * Copyright (C) 2021 Sean J. Barbeau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.gpstest.io;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+
+import java.io.IOException;
+
+/**
+ * Defines the JSON records written by {@link JsonFileLogger}. Each record is a JSON object with a
+ * "type" field that matches the record name used in CSV logs ("Raw", "Fix", "Nav" or "NMEA"). All
+ * raw measurements from a GnssMeasurementsEvent are written as a single "Raw" object per epoch,
+ * containing the clock and an array of measurements.
+ *
+ * Fields are written directly to a {@link JsonGenerator} from the re-used record holders, without
+ * reflection or intermediate objects. Field names are pre-encoded, and optional fields that the
+ * device doesn't provide a value for are omitted.
+ */
+final class JsonLogFormat {
+
+    private static final SerializableString TYPE = new SerializedString("type");
+
+    // "Raw" epoch
+    private static final SerializableString ELAPSED_REALTIME_MILLIS = new SerializedString("elapsedRealtimeMillis");
+    private static final SerializableString CLOCK = new SerializedString("clock");
+    private static final SerializableString TIME_NANOS = new SerializedString("timeNanos");
+    private static final SerializableString LEAP_SECOND = new SerializedString("leapSecond");
+    private static final SerializableString TIME_UNCERTAINTY_NANOS = new SerializedString("timeUncertaintyNanos");
+    private static final SerializableString FULL_BIAS_NANOS = new SerializedString("fullBiasNanos");
+    private static final SerializableString BIAS_NANOS = new SerializedString("biasNanos");
+    private static final SerializableString BIAS_UNCERTAINTY_NANOS = new SerializedString("biasUncertaintyNanos");
+    private static final SerializableString DRIFT_NANOS_PER_SECOND = new SerializedString("driftNanosPerSecond");
+    private static final SerializableString DRIFT_UNCERTAINTY_NANOS_PER_SECOND = new SerializedString("driftUncertaintyNanosPerSecond");
+    private static final SerializableString HARDWARE_CLOCK_DISCONTINUITY_COUNT = new SerializedString("hardwareClockDiscontinuityCount");
+    private static final SerializableString MEASUREMENTS = new SerializedString("measurements");
+    private static final SerializableString SVID = new SerializedString("svid");
+    private static final SerializableString TIME_OFFSET_NANOS = new SerializedString("timeOffsetNanos");
+    private static final SerializableString STATE = new SerializedString("state");
+    private static final SerializableString RECEIVED_SV_TIME_NANOS = new SerializedString("receivedSvTimeNanos");
+    private static final SerializableString RECEIVED_SV_TIME_UNCERTAINTY_NANOS = new SerializedString("receivedSvTimeUncertaintyNanos");
+    private static final SerializableString CN0_DB_HZ = new SerializedString("cn0DbHz");
+    private static final SerializableString PSEUDORANGE_RATE_METERS_PER_SECOND = new SerializedString("pseudorangeRateMetersPerSecond");
+    private static final SerializableString PSEUDORANGE_RATE_UNCERTAINTY_METERS_PER_SECOND = new SerializedString("pseudorangeRateUncertaintyMetersPerSecond");
+    private static final SerializableString ACCUMULATED_DELTA_RANGE_STATE = new SerializedString("accumulatedDeltaRangeState");
+    private static final SerializableString ACCUMULATED_DELTA_RANGE_METERS = new SerializedString("accumulatedDeltaRangeMeters");
+    private static final SerializableString ACCUMULATED_DELTA_RANGE_UNCERTAINTY_METERS = new SerializedString("accumulatedDeltaRangeUncertaintyMeters");
+    private static final SerializableString CARRIER_FREQUENCY_HZ = new SerializedString("carrierFrequencyHz");
+    private static final SerializableString CARRIER_CYCLES = new SerializedString("carrierCycles");
+    private static final SerializableString CARRIER_PHASE = new SerializedString("carrierPhase");
+    private static final SerializableString CARRIER_PHASE_UNCERTAINTY = new SerializedString("carrierPhaseUncertainty");
+    private static final SerializableString MULTIPATH_INDICATOR = new SerializedString("multipathIndicator");
+    private static final SerializableString SNR_IN_DB = new SerializedString("snrInDb");
+    private static final SerializableString CONSTELLATION_TYPE = new SerializedString("constellationType");
+    private static final SerializableString AGC_DB = new SerializedString("automaticGainControlLevelDb");
+
+    // "Fix"
+    private static final SerializableString PROVIDER = new SerializedString("provider");
+    private static final SerializableString LATITUDE = new SerializedString("latitude");
+    private static final SerializableString LONGITUDE = new SerializedString("longitude");
+    private static final SerializableString ALTITUDE = new SerializedString("altitude");
+    private static final SerializableString SPEED = new SerializedString("speed");
+    private static final SerializableString ACCURACY = new SerializedString("accuracy");
+    private static final SerializableString TIME_MILLIS = new SerializedString("timeMillis");
+
+    // "Nav"
+    private static final SerializableString NAV_TYPE = new SerializedString("navType");
+    private static final SerializableString STATUS = new SerializedString("status");
+    private static final SerializableString MESSAGE_ID = new SerializedString("messageId");
+    private static final SerializableString SUBMESSAGE_ID = new SerializedString("submessageId");
+    private static final SerializableString DATA = new SerializedString("data");
+
+    // "NMEA"
+    private static final SerializableString SENTENCE = new SerializedString("sentence");
+    private static final SerializableString TIMESTAMP = new SerializedString("timestamp");
+
+    private JsonLogFormat() {
+    }
+
+    /**
+     * Starts a "Raw" object for an epoch and writes the clock fields of the provided record. Must
+     * be followed by {@link #writeMeasurement(JsonGenerator, RawMeasurementRecord)} for each
+     * measurement in the epoch and then {@link #writeEpochEnd(JsonGenerator)}.
+     */
+    static void writeEpochStart(JsonGenerator g, RawMeasurementRecord r) throws IOException {
+        g.writeStartObject();
+        g.writeFieldName(TYPE);
+        g.writeString(CsvLogFormat.RECORD_RAW);
+        g.writeFieldName(ELAPSED_REALTIME_MILLIS);
+        g.writeNumber(r.elapsedRealtimeMillis);
+
+        g.writeFieldName(CLOCK);
+        g.writeStartObject();
+        g.writeFieldName(TIME_NANOS);
+        g.writeNumber(r.timeNanos);
+        if (r.hasLeapSecond) {
+            g.writeFieldName(LEAP_SECOND);
+            g.writeNumber(r.leapSecond);
+        }
+        if (r.hasTimeUncertaintyNanos) {
+            g.writeFieldName(TIME_UNCERTAINTY_NANOS);
+            g.writeNumber(r.timeUncertaintyNanos);
+        }
+        g.writeFieldName(FULL_BIAS_NANOS);
+        g.writeNumber(r.fullBiasNanos);
+        if (r.hasBiasNanos) {
+            g.writeFieldName(BIAS_NANOS);
+            g.writeNumber(r.biasNanos);
+        }
+        if (r.hasBiasUncertaintyNanos) {
+            g.writeFieldName(BIAS_UNCERTAINTY_NANOS);
+            g.writeNumber(r.biasUncertaintyNanos);
+        }
+        if (r.hasDriftNanosPerSecond) {
+            g.writeFieldName(DRIFT_NANOS_PER_SECOND);
+            g.writeNumber(r.driftNanosPerSecond);
+        }
+        if (r.hasDriftUncertaintyNanosPerSecond) {
+            g.writeFieldName(DRIFT_UNCERTAINTY_NANOS_PER_SECOND);
+            g.writeNumber(r.driftUncertaintyNanosPerSecond);
+        }
+        g.writeFieldName(HARDWARE_CLOCK_DISCONTINUITY_COUNT);
+        g.writeNumber(r.hardwareClockDiscontinuityCount);
+        g.writeEndObject();
+
+        g.writeFieldName(MEASUREMENTS);
+        g.writeStartArray();
+    }
+
+    /**
+     * Writes the measurement fields of the provided record as an element of the measurements
+     * array of the current epoch
+     */
+    static void writeMeasurement(JsonGenerator g, RawMeasurementRecord r) throws IOException {
+        g.writeStartObject();
+        g.writeFieldName(SVID);
+        g.writeNumber(r.svid);
+        g.writeFieldName(CONSTELLATION_TYPE);
+        g.writeNumber(r.constellationType);
+        g.writeFieldName(TIME_OFFSET_NANOS);
+        g.writeNumber(r.timeOffsetNanos);
+        g.writeFieldName(STATE);
+        g.writeNumber(r.state);
+        g.writeFieldName(RECEIVED_SV_TIME_NANOS);
+        g.writeNumber(r.receivedSvTimeNanos);
+        g.writeFieldName(RECEIVED_SV_TIME_UNCERTAINTY_NANOS);
+        g.writeNumber(r.receivedSvTimeUncertaintyNanos);
+        g.writeFieldName(CN0_DB_HZ);
+        g.writeNumber(r.cn0DbHz);
+        g.writeFieldName(PSEUDORANGE_RATE_METERS_PER_SECOND);
+        g.writeNumber(r.pseudorangeRateMetersPerSecond);
+        g.writeFieldName(PSEUDORANGE_RATE_UNCERTAINTY_METERS_PER_SECOND);
+        g.writeNumber(r.pseudorangeRateUncertaintyMetersPerSecond);
+        g.writeFieldName(ACCUMULATED_DELTA_RANGE_STATE);
+        g.writeNumber(r.accumulatedDeltaRangeState);
+        g.writeFieldName(ACCUMULATED_DELTA_RANGE_METERS);
+        g.writeNumber(r.accumulatedDeltaRangeMeters);
+        g.writeFieldName(ACCUMULATED_DELTA_RANGE_UNCERTAINTY_METERS);
+        g.writeNumber(r.accumulatedDeltaRangeUncertaintyMeters);
+        if (r.hasCarrierFrequencyHz) {
+            g.writeFieldName(CARRIER_FREQUENCY_HZ);
+            g.writeNumber(r.carrierFrequencyHz);
+        }
+        if (r.hasCarrierCycles) {
+            g.writeFieldName(CARRIER_CYCLES);
+            g.writeNumber(r.carrierCycles);
+        }
+        if (r.hasCarrierPhase) {
+            g.writeFieldName(CARRIER_PHASE);
+            g.writeNumber(r.carrierPhase);
+        }
+        if (r.hasCarrierPhaseUncertainty) {
+            g.writeFieldName(CARRIER_PHASE_UNCERTAINTY);
+            g.writeNumber(r.carrierPhaseUncertainty);
+        }
+        g.writeFieldName(MULTIPATH_INDICATOR);
+        g.writeNumber(r.multipathIndicator);
+        if (r.hasSnrInDb) {
+            g.writeFieldName(SNR_IN_DB);
+            g.writeNumber(r.snrInDb);
+        }
+        if (r.hasAutomaticGainControlLevelDb) {
+            g.writeFieldName(AGC_DB);
+            g.writeNumber(r.automaticGainControlLevelDb);
+        }
+        g.writeEndObject();
+    }
+
+    /**
+     * Ends the measurements array and the "Raw" object started by
+     * {@link #writeEpochStart(JsonGenerator, RawMeasurementRecord)}
+     */
+    static void writeEpochEnd(JsonGenerator g) throws IOException {
+        g.writeEndArray();
+        g.writeEndObject();
+    }
+
+    /**
+     * Writes a "Fix" object
+     */
+    static void writeFix(JsonGenerator g, FixRecord r) throws IOException {
+        g.writeStartObject();
+        g.writeFieldName(TYPE);
+        g.writeString(CsvLogFormat.RECORD_FIX);
+        g.writeFieldName(PROVIDER);
+        g.writeString(r.provider);
+        g.writeFieldName(LATITUDE);
+        g.writeNumber(r.latitude);
+        g.writeFieldName(LONGITUDE);
+        g.writeNumber(r.longitude);
+        g.writeFieldName(ALTITUDE);
+        g.writeNumber(r.altitude);
+        g.writeFieldName(SPEED);
+        g.writeNumber(r.speed);
+        g.writeFieldName(ACCURACY);
+        g.writeNumber(r.accuracy);
+        g.writeFieldName(TIME_MILLIS);
+        g.writeNumber(r.timeMillis);
+        g.writeEndObject();
+    }
+
+    /**
+     * Writes a "Nav" object, with the message data encoded as a Base64 string
+     */
+    static void writeNav(JsonGenerator g, NavMessageRecord r) throws IOException {
+        g.writeStartObject();
+        g.writeFieldName(TYPE);
+        g.writeString(CsvLogFormat.RECORD_NAV);
+        g.writeFieldName(SVID);
+        g.writeNumber(r.svid);
+        g.writeFieldName(NAV_TYPE);
+        g.writeNumber(r.type);
+        g.writeFieldName(STATUS);
+        g.writeNumber(r.status);
+        g.writeFieldName(MESSAGE_ID);
+        g.writeNumber(r.messageId);
+        g.writeFieldName(SUBMESSAGE_ID);
+        g.writeNumber(r.submessageId);
+        g.writeFieldName(DATA);
+        g.writeBinary(r.data, 0, r.dataLength);
+        g.writeEndObject();
+    }
+
+    /**
+     * Writes an "NMEA" object
+     *
+     * @param sentence   characters of the NMEA sentence, with leading and trailing whitespace
+     *                   already removed
+     * @param offset     index of the first character of the sentence in the array
+     * @param length     number of characters in the sentence
+     * @param timestamp  timestamp provided with the sentence, in milliseconds since the epoch
+     */
+    static void writeNmea(JsonGenerator g, char[] sentence, int offset, int length, long timestamp)
+            throws IOException {
+        g.writeStartObject();
+        g.writeFieldName(TYPE);
+        g.writeString(CsvLogFormat.RECORD_NMEA);
+        g.writeFieldName(SENTENCE);
+        g.writeString(sentence, offset, length);
+        g.writeFieldName(TIMESTAMP);
+        g.writeNumber(timestamp);
+        g.writeEndObject();
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright (C) 2021 Sean J. Barbeau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.gpstest.io;
+
+/**
+ * A mutable holder for a single event that is waiting to be written to a log file. Instances are
+ * pre-allocated by {@link LogEventRingBuffer} and re-used, so they must not be retained after
+ * {@link LogEventRingBuffer.Handler#onEvent(LogEvent)} returns.
+ */
+final class LogEvent {
+
+    static final int TYPE_NONE = 0;
+    static final int TYPE_LOCATION = 1;
+    static final int TYPE_MEASUREMENTS = 2;
+    static final int TYPE_NAV_MESSAGE = 3;
+    static final int TYPE_NMEA = 4;
+    static final int TYPE_ANTENNA_INFO = 5;
+
+    /**
+     * One of the TYPE_* constants defined in this class
+     */
+    int type = TYPE_NONE;
+
+    /**
+     * The Android object that was received in the callback (e.g., Location, GnssMeasurementsEvent, NMEA String)
+     */
+    Object payload;
+
+    /**
+     * Time in milliseconds associated with the event - the UTC time for locations and the
+     * timestamp provided to the listener for NMEA sentences
+     */
+    long timeMillis;
+
+    /**
+     * The value of SystemClock.elapsedRealtime() when the event was received
+     */
+    long elapsedRealtimeMillis;
+
+    void set(int type, Object payload, long timeMillis, long elapsedRealtimeMillis) {
+        this.type = type;
+        this.payload = payload;
+        this.timeMillis = timeMillis;
+        this.elapsedRealtimeMillis = elapsedRealtimeMillis;
+    }
+
+    void clear() {
+        type = TYPE_NONE;
+        payload = null;
+        timeMillis = 0;
+        elapsedRealtimeMillis = 0;
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright (C) 2021 Sean J. Barbeau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.gpstest.io;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A bounded, lock-free queue of {@link LogEvent}s that supports multiple producers (the GNSS and
+ * location callbacks) and a single consumer (the log writer thread). Slots are pre-allocated and
+ * re-used, so steady-state logging doesn't allocate.
+ *
+ * Each slot has a sequence number that tells producers and the consumer whether the slot is free
+ * to be written or ready to be read (see http://www.1024cores.net/home/lock-free-algorithms/queues/bounded-mpmc-queue).
+ */
+final class LogEventRingBuffer {
+
+    /**
+     * Callback used by the consumer to process events drained from the buffer
+     */
+    interface Handler {
+        /**
+         * Called for each event removed from the buffer. The event is re-used after this method
+         * returns, so implementations must not hold a reference to it.
+         *
+         * @param event the event removed from the buffer
+         */
+        void onEvent(LogEvent event);
+    }
+
+    private final LogEvent[] slots;
+
+    private final AtomicLongArray sequences;
+
+    private final int mask;
+
+    // Next position to be claimed by a producer
+    private final AtomicLong tail = new AtomicLong();
+
+    // Next position to be read by the consumer
+    private final AtomicLong head = new AtomicLong();
+
+    // Highest number of events observed in the buffer
+    private final AtomicLong peakSize = new AtomicLong();
+
+    /**
+     * @param capacity the minimum number of events that can be held in the buffer - this will be
+     *                 rounded up to the next power of two
+     */
+    LogEventRingBuffer(int capacity) {
+        if (capacity < 2) {
+            throw new IllegalArgumentException("Capacity must be at least 2");
+        }
+        int size = Integer.highestOneBit(capacity - 1) << 1;
+        slots = new LogEvent[size];
+        sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            slots[i] = new LogEvent();
+            sequences.set(i, i);
+        }
+        mask = size - 1;
+    }
+
+    /**
+     * Adds an event to the buffer. This method may be called from any thread.
+     *
+     * @return true if the event was added, or false if the buffer is full
+     */
+    boolean offer(int type, Object payload, long timeMillis, long elapsedRealtimeMillis) {
+        long position = tail.get();
+        int index;
+        while (true) {
+            index = (int) (position & mask);
+            long difference = sequences.get(index) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    break;
+                }
+                position = tail.get();
+            } else if (difference < 0) {
+                // The consumer hasn't released this slot yet - the buffer is full
+                return false;
+            } else {
+                // Another producer claimed this position
+                position = tail.get();
+            }
+        }
+        slots[index].set(type, payload, timeMillis, elapsedRealtimeMillis);
+        // Publish the event to the consumer
+        sequences.lazySet(index, position + 1);
+        updatePeakSize(position + 1 - head.get());
+        return true;
+    }
+
+    /**
+     * Removes up to maxEvents events from the buffer and passes them to the provided handler. This
+     * method must only be called from a single consumer thread.
+     *
+     * @return the number of events passed to the handler
+     */
+    int drain(Handler handler, int maxEvents) {
+        long position = head.get();
+        int count = 0;
+        while (count < maxEvents) {
+            int index = (int) (position & mask);
+            if (sequences.get(index) != position + 1) {
+                // Nothing published at this position yet
+                break;
+            }
+            LogEvent event = slots[index];
+            try {
+                handler.onEvent(event);
+            } finally {
+                event.clear();
+                // Release the slot for producers on the next lap around the buffer
+                sequences.lazySet(index, position + mask + 1);
+                position++;
+                head.lazySet(position);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return the approximate number of events currently waiting in the buffer
+     */
+    int size() {
+        long size = tail.get() - head.get();
+        if (size < 0) {
+            return 0;
+        }
+        return (int) Math.min(size, capacity());
+    }
+
+    /**
+     * @return the highest number of events that have been waiting in the buffer at the same time
+     */
+    int peakSize() {
+        return (int) peakSize.get();
+    }
+
+    /**
+     * @return the maximum number of events that can be held in the buffer
+     */
+    int capacity() {
+        return slots.length;
+    }
+
+    private void updatePeakSize(long size) {
+        long peak = peakSize.get();
+        while (size > peak) {
+            if (peakSize.compareAndSet(peak, size)) {
+                return;
+            }
+            peak = peakSize.get();
+        }
+    }
+}
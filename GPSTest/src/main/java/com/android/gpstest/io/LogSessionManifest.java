@@ -0,0 +1,240 @@
+/*
+ * Copyright (C) 2021 Sean J. Barbeau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.gpstest.io;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Lists the segment files of a logging session that is split into multiple files by
+ * {@link BaseFileLogger} rotation, along with the time range, number of records, and size of each
+ * segment. Stored as JSON in a file next to the segments named
+ * {@code <session name>.<extension>.manifest.json} - for example,
+ * {@code gnss_log_2021_01_19_10_15_30.txt.manifest.json}.
+ */
+public final class LogSessionManifest {
+
+    static final String FILE_SUFFIX = ".manifest.json";
+
+    /**
+     * Matches a file name (without extension) of a session segment - group 1 is the session name
+     * and group 2 is the segment number, which is absent for the first segment
+     */
+    static final Pattern SEGMENT_NAME_PATTERN = Pattern.compile(
+            "(" + BaseFileLogger.FILE_PREFIX + "_\\d+_\\d{2}_\\d{2}_\\d{2}_\\d{2}_\\d{2})(?:_(\\d+))?");
+
+    /**
+     * A single file of a logging session
+     */
+    public static final class Segment {
+        private String fileName;
+        private long firstRecordTimeMillis;
+        private long lastRecordTimeMillis;
+        private long recordCount;
+        private long sizeBytes;
+
+        public Segment() {
+        }
+
+        Segment(String fileName) {
+            this.fileName = fileName;
+        }
+
+        /**
+         * Updates the time range and record count with a record that was written to the segment
+         *
+         * @param timeMillis time of the record, in milliseconds since the epoch
+         */
+        void addRecord(long timeMillis) {
+            if (recordCount == 0) {
+                firstRecordTimeMillis = timeMillis;
+                lastRecordTimeMillis = timeMillis;
+            } else {
+                firstRecordTimeMillis = Math.min(firstRecordTimeMillis, timeMillis);
+                lastRecordTimeMillis = Math.max(lastRecordTimeMillis, timeMillis);
+            }
+            recordCount++;
+        }
+
+        public String getFileName() {
+            return fileName;
+        }
+
+        public void setFileName(String fileName) {
+            this.fileName = fileName;
+        }
+
+        /**
+         * @return the earliest record time in the segment, in milliseconds since the epoch, or 0
+         * if the segment has no records
+         */
+        public long getFirstRecordTimeMillis() {
+            return firstRecordTimeMillis;
+        }
+
+        public void setFirstRecordTimeMillis(long firstRecordTimeMillis) {
+            this.firstRecordTimeMillis = firstRecordTimeMillis;
+        }
+
+        /**
+         * @return the latest record time in the segment, in milliseconds since the epoch, or 0
+         * if the segment has no records
+         */
+        public long getLastRecordTimeMillis() {
+            return lastRecordTimeMillis;
+        }
+
+        public void setLastRecordTimeMillis(long lastRecordTimeMillis) {
+            this.lastRecordTimeMillis = lastRecordTimeMillis;
+        }
+
+        public long getRecordCount() {
+            return recordCount;
+        }
+
+        public void setRecordCount(long recordCount) {
+            this.recordCount = recordCount;
+        }
+
+        public long getSizeBytes() {
+            return sizeBytes;
+        }
+
+        public void setSizeBytes(long sizeBytes) {
+            this.sizeBytes = sizeBytes;
+        }
+    }
+
+    private String sessionName;
+    private List<Segment> segments = new ArrayList<>();
+
+    public LogSessionManifest() {
+    }
+
+    LogSessionManifest(String sessionName) {
+        this.sessionName = sessionName;
+    }
+
+    /**
+     * @return the name shared by all segments of the session, e.g. "gnss_log_2021_01_19_10_15_30"
+     */
+    public String getSessionName() {
+        return sessionName;
+    }
+
+    public void setSessionName(String sessionName) {
+        this.sessionName = sessionName;
+    }
+
+    /**
+     * @return the segments of the session, in the order they were written
+     */
+    public List<Segment> getSegments() {
+        return segments;
+    }
+
+    public void setSegments(List<Segment> segments) {
+        this.segments = segments;
+    }
+
+    /**
+     * Returns the segment for the provided file name, adding a new segment to the end of the list
+     * if the session doesn't have a segment with that name yet
+     */
+    Segment getOrAddSegment(String fileName) {
+        for (Segment segment : segments) {
+            if (segment.fileName.equals(fileName)) {
+                return segment;
+            }
+        }
+        Segment segment = new Segment(fileName);
+        segments.add(segment);
+        return segment;
+    }
+
+    /**
+     * Returns the manifest file for a session
+     *
+     * @param directory   directory containing the session files
+     * @param sessionName name shared by all segments of the session
+     * @param extension   file extension of the segments, without the "."
+     */
+    static File getFile(File directory, String sessionName, String extension) {
+        return new File(directory, sessionName + "." + extension + FILE_SUFFIX);
+    }
+
+    /**
+     * @return true if the provided file is a session manifest, false if it is not
+     */
+    public static boolean isManifestFile(File file) {
+        return file.getName().endsWith(FILE_SUFFIX);
+    }
+
+    /**
+     * Returns the name of the log that a file in the log directory belongs to, which is the same
+     * for all segments of a session and their manifest and indexes - for example,
+     * "gnss_log_2021_01_19_10_15_30.txt" for "gnss_log_2021_01_19_10_15_30_002.txt.idx". A file
+     * that isn't part of a session is a log of its own.
+     */
+    public static String getLogName(File file) {
+        String name = file.getName();
+        if (isManifestFile(file)) {
+            name = name.substring(0, name.length() - FILE_SUFFIX.length());
+        } else if (LogTimeIndex.isIndexFile(file)) {
+            name = name.substring(0, name.length() - LogTimeIndex.FILE_SUFFIX.length());
+        }
+        // Session names don't contain a '.', and compressed files have a second extension
+        int extensionStart = name.indexOf('.');
+        if (extensionStart <= 0) {
+            return name;
+        }
+        int extensionEnd = name.indexOf('.', extensionStart + 1);
+        String extension = name.substring(extensionStart,
+                extensionEnd > 0 ? extensionEnd : name.length());
+        String baseName = name.substring(0, extensionStart);
+        Matcher matcher = SEGMENT_NAME_PATTERN.matcher(baseName);
+        if (matcher.matches()) {
+            baseName = matcher.group(1);
+        }
+        return baseName + extension;
+    }
+
+    /**
+     * Reads a manifest previously written by {@link #write(ObjectMapper, File)}
+     *
+     * @throws IOException if the manifest can't be read or parsed
+     */
+    static LogSessionManifest read(ObjectMapper mapper, File file) throws IOException {
+        return mapper.readValue(file, LogSessionManifest.class);
+    }
+
+    /**
+     * Writes this manifest to the provided file, replacing the previous contents
+     *
+     * @throws IOException if the manifest can't be written
+     */
+    void write(ObjectMapper mapper, File file) throws IOException {
+        mapper.writer(SerializationFeature.INDENT_OUTPUT).writeValue(file, this);
+    }
+}
@@ -0,0 +1,351 @@
+/*
+ * Copyright (C) 2021 Sean J. Barbeau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.gpstest.io;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+
+/**
+ * A sidecar index for a log file that allows jumping to a point in time without reading the log
+ * from the start. Stored next to the log file as {@code <log file name>.idx} - for example,
+ * {@code gnss_log_2021_01_19_10_15_30.txt.idx}.
+ *
+ * The index is written by {@link BaseFileLogger} every {@link BaseFileLogger#setIndexInterval(int)}
+ * records, and can be rebuilt for existing CSV logs via {@link #rebuild(File, int)}. Each entry is
+ * the byte offset of the start of a record in the log file, and the elapsedRealtime and UTC time
+ * in milliseconds of that record. Times that aren't known (e.g., the UTC time when an index is
+ * rebuilt from a log that starts with raw measurements) are {@link #UNKNOWN_TIME}.
+ *
+ * File layout, big-endian:
+ * <pre>
+ * header: "GTIX" magic (4 bytes), u16 version, u32 interval (records per entry)
+ * entries: (i64 offset, i64 elapsedRealtimeMillis, i64 utcTimeMillis) ...
+ * </pre>
+ * Entries have a fixed size, so the entry for a time can be found with a binary search of the
+ * file in O(log n) reads, without loading the index.
+ */
+public final class LogTimeIndex implements Closeable {
+
+    static final String FILE_SUFFIX = ".idx";
+
+    /**
+     * Value used in an entry for a time that isn't known
+     */
+    public static final long UNKNOWN_TIME = -1;
+
+    private static final byte[] MAGIC = {'G', 'T', 'I', 'X'};
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = MAGIC.length + 2 + 4;
+    static final int ENTRY_SIZE = 3 * 8;
+
+    private static final int FIELD_ELAPSED_REALTIME = 1;
+    private static final int FIELD_UTC = 2;
+
+    private final RandomAccessFile file;
+    private final int interval;
+    private final long entryCount;
+
+    private LogTimeIndex(RandomAccessFile file, int interval, long entryCount) {
+        this.file = file;
+        this.interval = interval;
+        this.entryCount = entryCount;
+    }
+
+    /**
+     * Opens an index for reading. A partially written entry at the end of the file is ignored.
+     *
+     * @param indexFile the index file, from {@link #getFile(File)}
+     * @throws IOException if the file can't be read or isn't an index
+     */
+    public static LogTimeIndex open(File indexFile) throws IOException {
+        RandomAccessFile file = new RandomAccessFile(indexFile, "r");
+        try {
+            byte[] magic = new byte[MAGIC.length];
+            file.readFully(magic);
+            for (int i = 0; i < MAGIC.length; i++) {
+                if (magic[i] != MAGIC[i]) {
+                    throw new IOException("Not a log index: " + indexFile.getName());
+                }
+            }
+            int version = file.readUnsignedShort();
+            if (version > VERSION) {
+                throw new IOException("Unsupported log index version " + version);
+            }
+            int interval = file.readInt();
+            long entryCount = (file.length() - HEADER_SIZE) / ENTRY_SIZE;
+            return new LogTimeIndex(file, interval, entryCount);
+        } catch (IOException e) {
+            file.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the index file for a log file
+     */
+    public static File getFile(File logFile) {
+        return new File(logFile.getParentFile(), logFile.getName() + FILE_SUFFIX);
+    }
+
+    /**
+     * @return true if the provided file is a log index, false if it is not
+     */
+    public static boolean isIndexFile(File file) {
+        return file.getName().endsWith(FILE_SUFFIX);
+    }
+
+    /**
+     * Returns the log file for an index file
+     */
+    static File getLogFile(File indexFile) {
+        String name = indexFile.getName();
+        return new File(indexFile.getParentFile(), name.substring(0, name.length() - FILE_SUFFIX.length()));
+    }
+
+    /**
+     * @return the number of records between entries
+     */
+    public int getInterval() {
+        return interval;
+    }
+
+    public long getEntryCount() {
+        return entryCount;
+    }
+
+    public long getOffset(long entry) throws IOException {
+        return readField(entry, 0);
+    }
+
+    public long getElapsedRealtimeMillis(long entry) throws IOException {
+        return readField(entry, FIELD_ELAPSED_REALTIME);
+    }
+
+    public long getUtcTimeMillis(long entry) throws IOException {
+        return readField(entry, FIELD_UTC);
+    }
+
+    /**
+     * Returns the byte offset in the log file to start reading from to get all records at or after
+     * the provided UTC time - the offset of the last entry before or at that time, or 0 if there
+     * is no such entry. Records up to one index interval before the time may be read.
+     *
+     * @param utcTimeMillis UTC time in milliseconds since January 1, 1970
+     */
+    public long findOffsetByUtcTime(long utcTimeMillis) throws IOException {
+        return findOffset(FIELD_UTC, utcTimeMillis);
+    }
+
+    /**
+     * Returns the last entry at or before the provided UTC time, which can be used with
+     * {@link #getOffset(long)} and {@link #getUtcTimeMillis(long)}
+     *
+     * @param utcTimeMillis UTC time in milliseconds since January 1, 1970
+     * @return the entry, or -1 if there is no entry with a known UTC time at or before the time
+     */
+    public long findEntryByUtcTime(long utcTimeMillis) throws IOException {
+        return findEntry(FIELD_UTC, utcTimeMillis);
+    }
+
+    /**
+     * Returns the byte offset in the log file to start reading from to get all records received at
+     * or after the provided SystemClock.elapsedRealtime() value. See
+     * {@link #findOffsetByUtcTime(long)}.
+     */
+    public long findOffsetByElapsedRealtime(long elapsedRealtimeMillis) throws IOException {
+        return findOffset(FIELD_ELAPSED_REALTIME, elapsedRealtimeMillis);
+    }
+
+    private long findOffset(int field, long timeMillis) throws IOException {
+        long entry = findEntry(field, timeMillis);
+        return entry < 0 ? 0 : readField(entry, 0);
+    }
+
+    /**
+     * Binary search for the last entry at or before the provided time, or -1 if there isn't one.
+     * Times are only unknown at the start of a log, so entries with unknown times are skipped by
+     * first searching for the first entry with a known time.
+     */
+    private long findEntry(int field, long timeMillis) throws IOException {
+        long low = 0;
+        long high = entryCount - 1;
+        while (low <= high) {
+            long mid = (low + high) >>> 1;
+            if (readField(mid, field) == UNKNOWN_TIME) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        high = entryCount - 1;
+        long found = -1;
+        while (low <= high) {
+            long mid = (low + high) >>> 1;
+            if (readField(mid, field) <= timeMillis) {
+                found = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return found;
+    }
+
+    private long readField(long entry, int field) throws IOException {
+        if (entry < 0 || entry >= entryCount) {
+            throw new IndexOutOfBoundsException("entry " + entry + ", count " + entryCount);
+        }
+        file.seek(HEADER_SIZE + entry * ENTRY_SIZE + field * 8L);
+        return file.readLong();
+    }
+
+    @Override
+    public void close() throws IOException {
+        file.close();
+    }
+
+    /**
+     * Opens an index file to add entries to, writing the header if the file is new. A partially
+     * written entry at the end of an existing file is removed.
+     *
+     * @param indexFile the index file, from {@link #getFile(File)}
+     * @param interval  number of records between entries
+     */
+    static DataOutputStream openForAppend(File indexFile, int interval) throws IOException {
+        long length = indexFile.length();
+        if (length >= HEADER_SIZE) {
+            long entriesLength = (length - HEADER_SIZE) / ENTRY_SIZE * ENTRY_SIZE;
+            if (HEADER_SIZE + entriesLength != length) {
+                try (RandomAccessFile file = new RandomAccessFile(indexFile, "rw")) {
+                    file.setLength(HEADER_SIZE + entriesLength);
+                }
+            }
+            return new DataOutputStream(new BufferedOutputStream(new FileOutputStream(indexFile, true)));
+        }
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(indexFile, false)));
+        out.write(MAGIC);
+        out.writeShort(VERSION);
+        out.writeInt(interval);
+        return out;
+    }
+
+    static void writeEntry(DataOutputStream out, long offset, long elapsedRealtimeMillis,
+            long utcTimeMillis) throws IOException {
+        out.writeLong(offset);
+        out.writeLong(elapsedRealtimeMillis);
+        out.writeLong(utcTimeMillis);
+    }
+
+    /**
+     * Writes a new index for a CSV log file that was recorded without an index, replacing any
+     * existing index. Each entry uses the elapsedRealtime of the most recent "Raw" record and the
+     * UTC time of the most recent "Fix" or "NMEA" record at or before the entry.
+     *
+     * @param csvFile  the CSV log file, which must not be compressed
+     * @param interval number of records between entries
+     * @return the index file
+     * @throws IOException              if the log can't be read or the index can't be written
+     * @throws IllegalArgumentException if the log is compressed or the interval is less than 1
+     */
+    public static File rebuild(File csvFile, int interval) throws IOException {
+        if (interval < 1) {
+            throw new IllegalArgumentException("interval must be at least 1: " + interval);
+        }
+        if (csvFile.getName().endsWith(".gz")) {
+            throw new IllegalArgumentException("Compressed logs can't be indexed: " + csvFile.getName());
+        }
+        File indexFile = getFile(csvFile);
+        File tempFile = new File(indexFile.getParentFile(), indexFile.getName() + ".tmp");
+        tempFile.delete();
+        try (InputStream in = BinaryLogConverter.openInputStream(csvFile);
+             DataOutputStream out = openForAppend(tempFile, interval)) {
+            CsvLogReader reader = new CsvLogReader(in);
+            IndexBuilder builder = new IndexBuilder(reader, out, interval);
+            reader.read(builder);
+            if (builder.error != null) {
+                throw builder.error;
+            }
+        }
+        if (!tempFile.renameTo(indexFile)) {
+            indexFile.delete();
+            if (!tempFile.renameTo(indexFile)) {
+                throw new IOException("Unable to replace " + indexFile.getAbsolutePath());
+            }
+        }
+        return indexFile;
+    }
+
+    /**
+     * Writes an index entry for every interval records read from a CSV log
+     */
+    private static final class IndexBuilder implements CsvLogReader.Handler {
+        private final CsvLogReader reader;
+        private final DataOutputStream out;
+        private final int interval;
+        private long elapsedRealtimeMillis = UNKNOWN_TIME;
+        private long utcTimeMillis = UNKNOWN_TIME;
+        IOException error;
+
+        IndexBuilder(CsvLogReader reader, DataOutputStream out, int interval) {
+            this.reader = reader;
+            this.out = out;
+            this.interval = interval;
+        }
+
+        @Override
+        public void onRaw(RawMeasurementRecord record) {
+            elapsedRealtimeMillis = record.elapsedRealtimeMillis;
+            onRecord();
+        }
+
+        @Override
+        public void onFix(FixRecord record) {
+            utcTimeMillis = record.timeMillis;
+            onRecord();
+        }
+
+        @Override
+        public void onNav(NavMessageRecord record) {
+            onRecord();
+        }
+
+        @Override
+        public void onNmea(CharSequence sentence, long timestamp) {
+            utcTimeMillis = timestamp;
+            onRecord();
+        }
+
+        private void onRecord() {
+            // The record count doesn't include the current record yet, so the first record of the
+            // log gets an entry, the same as in indexes written while logging
+            if (error != null || reader.getRecordCount() % interval != 0) {
+                return;
+            }
+            try {
+                writeEntry(out, reader.getRecordOffset(), elapsedRealtimeMillis, utcTimeMillis);
+            } catch (IOException e) {
+                error = e;
+            }
+        }
+    }
+}
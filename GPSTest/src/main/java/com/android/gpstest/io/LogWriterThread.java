@@ -0,0 +1,91 @@
+/*
+ * Copyright (C) 2021 Sean J. Barbeau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.gpstest.io;
+
+import android.os.Process;
+import android.util.Log;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A background thread that drains the events queued by a {@link BaseFileLogger} and writes them
+ * to the log file in batches, so that formatting and file I/O don't happen on the thread
+ * that receives the GNSS callbacks.
+ */
+final class LogWriterThread extends Thread {
+
+    private static final String TAG = "LogWriterThread";
+
+    /**
+     * How long the writer waits for new events before checking the queue again, if it isn't
+     * woken up by a producer
+     */
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    /**
+     * How long close() waits for the writer thread to finish writing queued events
+     */
+    private static final long SHUTDOWN_TIMEOUT_MS = 2000;
+
+    private final BaseFileLogger logger;
+
+    private volatile boolean running = true;
+
+    LogWriterThread(BaseFileLogger logger, String name) {
+        super(name);
+        this.logger = logger;
+    }
+
+    @Override
+    public void run() {
+        Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+        while (running) {
+            if (logger.drainQueue() == 0) {
+                LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+            }
+        }
+        // Write anything that was queued before we were stopped
+        while (logger.drainQueue() > 0) {
+            // Keep draining
+        }
+    }
+
+    /**
+     * Wakes up the writer thread if it is waiting for events
+     */
+    void wakeUp() {
+        LockSupport.unpark(this);
+    }
+
+    /**
+     * Stops the writer thread after all queued events have been written, and waits for it to finish
+     */
+    void shutdown() {
+        running = false;
+        wakeUp();
+        if (Thread.currentThread() == this) {
+            return;
+        }
+        try {
+            join(SHUTDOWN_TIMEOUT_MS);
+        } catch (InterruptedException e) {
+            Log.e(TAG, "Interrupted while waiting for log writer to finish", e);
+            Thread.currentThread().interrupt();
+        }
+    }
+}
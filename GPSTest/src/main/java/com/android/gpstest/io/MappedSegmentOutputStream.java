@@ -0,0 +1,225 @@
+/*
+ * Copyright (C) 2021 Sean J. Barbeau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.gpstest.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * An OutputStream that appends to a file by copying bytes into memory-mapped segments of the
+ * file, rather than making a write() system call for each buffer of data. Each segment is
+ * preallocated in the file when it is mapped, and the file is truncated to the number of bytes
+ * actually written when the stream is closed.
+ *
+ * Data written to a mapped segment is visible to other readers of the file immediately, and is
+ * written to storage by the OS in the background. {@link #force()} explicitly writes the current
+ * segment to storage - it is called when each segment is full and when the stream is closed, and
+ * can be called by the owner as a checkpoint. If the process is killed before the stream is closed,
+ * the file keeps the zero-filled preallocated space at the end of the last segment - use
+ * {@link #mayHavePreallocatedSpace(File)} and {@link #truncatePreallocatedSpace(File)} before
+ * appending to an existing file, as a new stream appends after the end of the file.
+ *
+ * Instances are not thread-safe.
+ */
+final class MappedSegmentOutputStream extends OutputStream {
+
+    /**
+     * Default number of bytes preallocated and mapped at a time
+     */
+    static final int DEFAULT_SEGMENT_SIZE = 4 * 1024 * 1024;
+
+    private static final int SCAN_BUFFER_SIZE = 8 * 1024;
+
+    private final RandomAccessFile randomAccessFile;
+
+    private final FileChannel channel;
+
+    private final int segmentSize;
+
+    private MappedByteBuffer segment;
+
+    /**
+     * File position of the start of the current segment
+     */
+    private long segmentStart;
+
+    private boolean closed = false;
+
+    /**
+     * Opens a stream that appends to the provided file, creating it if it doesn't exist
+     *
+     * @param file        the file to write to
+     * @param segmentSize number of bytes to preallocate and map at a time
+     * @throws IOException if the file can't be opened or mapped
+     */
+    MappedSegmentOutputStream(File file, int segmentSize) throws IOException {
+        if (segmentSize <= 0) {
+            throw new IllegalArgumentException("segmentSize must be positive");
+        }
+        this.segmentSize = segmentSize;
+        randomAccessFile = new RandomAccessFile(file, "rw");
+        channel = randomAccessFile.getChannel();
+        try {
+            mapSegment(channel.size());
+        } catch (IOException e) {
+            randomAccessFile.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        ensureOpen();
+        if (!segment.hasRemaining()) {
+            nextSegment();
+        }
+        segment.put((byte) b);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        ensureOpen();
+        while (len > 0) {
+            if (!segment.hasRemaining()) {
+                nextSegment();
+            }
+            int count = Math.min(len, segment.remaining());
+            segment.put(b, off, count);
+            off += count;
+            len -= count;
+        }
+    }
+
+    /**
+     * Does nothing - bytes are visible in the file as soon as they are written to the mapped
+     * segment. Use {@link #force()} to write them to storage.
+     */
+    @Override
+    public void flush() {
+    }
+
+    /**
+     * Writes the contents of the current segment to storage, returning once they are durable
+     *
+     * @throws IOException if the stream is closed
+     */
+    void force() throws IOException {
+        ensureOpen();
+        segment.force();
+    }
+
+    /**
+     * @return the number of bytes in the file, excluding preallocated space that hasn't been
+     * written yet
+     */
+    long length() {
+        return segmentStart + segment.position();
+    }
+
+    /**
+     * Writes the current segment to storage, truncates the file to the number of bytes written,
+     * and closes the file
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            segment.force();
+            channel.truncate(length());
+        } finally {
+            segment = null;
+            randomAccessFile.close();
+        }
+    }
+
+    /**
+     * Returns true if the file ends with a zero byte, which may be preallocated space left by a
+     * stream that wasn't closed. A file written by a stream that was closed can also end with a
+     * zero byte if the data does.
+     *
+     * @throws IOException if the file can't be read
+     */
+    static boolean mayHavePreallocatedSpace(File file) throws IOException {
+        RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+        try {
+            long length = randomAccessFile.length();
+            if (length == 0) {
+                return false;
+            }
+            randomAccessFile.seek(length - 1);
+            return randomAccessFile.read() == 0;
+        } finally {
+            randomAccessFile.close();
+        }
+    }
+
+    /**
+     * Truncates the file after its last non-zero byte, removing preallocated space left by a
+     * stream that wasn't closed. Only use for data that never ends with a zero byte, such as text.
+     *
+     * @return the length of the file after truncating it
+     * @throws IOException if the file can't be read or truncated
+     */
+    static long truncatePreallocatedSpace(File file) throws IOException {
+        RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+        try {
+            byte[] buffer = new byte[SCAN_BUFFER_SIZE];
+            long end = randomAccessFile.length();
+            while (end > 0) {
+                int count = (int) Math.min(buffer.length, end);
+                randomAccessFile.seek(end - count);
+                randomAccessFile.readFully(buffer, 0, count);
+                int last = count - 1;
+                while (last >= 0 && buffer[last] == 0) {
+                    last--;
+                }
+                end -= count - 1 - last;
+                if (last >= 0) {
+                    break;
+                }
+            }
+            randomAccessFile.setLength(end);
+            return end;
+        } finally {
+            randomAccessFile.close();
+        }
+    }
+
+    private void nextSegment() throws IOException {
+        segment.force();
+        mapSegment(segmentStart + segment.position());
+    }
+
+    private void mapSegment(long position) throws IOException {
+        // Mapping past the end of the file extends (preallocates) the file
+        segment = channel.map(FileChannel.MapMode.READ_WRITE, position, segmentSize);
+        segmentStart = position;
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+    }
+}
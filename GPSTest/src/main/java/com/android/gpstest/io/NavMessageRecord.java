@@ -0,0 +1,102 @@
+/*
+ * Copyright (C) 2021 Sean J. Barbeau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.gpstest.io;
+
+import android.location.GnssNavigationMessage;
+import android.os.Build;
+
+import androidx.annotation.RequiresApi;
+
+/**
+ * A mutable holder for the fields of a single "Nav" log record. Instances are re-used between
+ * records, and the data buffer is only re-allocated if a larger message is received.
+ *
+ * The fields are in the same order as the "Nav" row in CSV logs.
+ */
+public final class NavMessageRecord {
+
+    int svid;
+    int type;
+    int status;
+    int messageId;
+    int submessageId;
+    byte[] data = new byte[64];
+    int dataLength;
+
+    /**
+     * Copies the fields from the provided navigation message
+     *
+     * @param message the navigation message to copy fields from
+     */
+    @RequiresApi(api = Build.VERSION_CODES.N)
+    void set(GnssNavigationMessage message) {
+        svid = message.getSvid();
+        type = message.getType();
+        status = message.getStatus();
+        messageId = message.getMessageId();
+        submessageId = message.getSubmessageId();
+        byte[] messageData = message.getData();
+        ensureDataCapacity(messageData.length);
+        System.arraycopy(messageData, 0, data, 0, messageData.length);
+        dataLength = messageData.length;
+    }
+
+    /**
+     * Makes sure the data buffer can hold at least the provided number of bytes, discarding the
+     * current contents if the buffer must grow
+     */
+    void ensureDataCapacity(int length) {
+        if (data.length < length) {
+            data = new byte[length];
+        }
+    }
+
+    public int getSvid() {
+        return svid;
+    }
+
+    public int getType() {
+        return type;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public int getMessageId() {
+        return messageId;
+    }
+
+    public int getSubmessageId() {
+        return submessageId;
+    }
+
+    /**
+     * @return the number of valid bytes in the array returned from {@link #getData()}
+     */
+    public int getDataLength() {
+        return dataLength;
+    }
+
+    /**
+     * @return the buffer holding the message data, of which only the first
+     * {@link #getDataLength()} bytes are valid. This buffer is re-used for the next record.
+     */
+    public byte[] getData() {
+        return data;
+    }
+}
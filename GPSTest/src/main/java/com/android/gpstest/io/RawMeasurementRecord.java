@@ -0,0 +1,303 @@
+/*
+ * Copyright (C) 2021 Sean J. Barbeau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.gpstest.io;
+
+import android.location.GnssClock;
+import android.location.GnssMeasurement;
+import android.os.Build;
+
+import androidx.annotation.RequiresApi;
+
+/**
+ * A mutable holder for the fields of a single "Raw" log record - a GnssClock and one of the
+ * GnssMeasurements from the same GnssMeasurementsEvent. Instances are re-used between records to
+ * avoid allocating objects for each measurement.
+ *
+ * The fields are in the same order as the "Raw" row in CSV logs.
+ */
+public final class RawMeasurementRecord {
+
+    // Clock fields
+    long elapsedRealtimeMillis;
+    long timeNanos;
+    boolean hasLeapSecond;
+    int leapSecond;
+    boolean hasTimeUncertaintyNanos;
+    double timeUncertaintyNanos;
+    long fullBiasNanos;
+    boolean hasBiasNanos;
+    double biasNanos;
+    boolean hasBiasUncertaintyNanos;
+    double biasUncertaintyNanos;
+    boolean hasDriftNanosPerSecond;
+    double driftNanosPerSecond;
+    boolean hasDriftUncertaintyNanosPerSecond;
+    double driftUncertaintyNanosPerSecond;
+    int hardwareClockDiscontinuityCount;
+
+    // Measurement fields
+    int svid;
+    double timeOffsetNanos;
+    int state;
+    long receivedSvTimeNanos;
+    long receivedSvTimeUncertaintyNanos;
+    double cn0DbHz;
+    double pseudorangeRateMetersPerSecond;
+    double pseudorangeRateUncertaintyMetersPerSecond;
+    int accumulatedDeltaRangeState;
+    double accumulatedDeltaRangeMeters;
+    double accumulatedDeltaRangeUncertaintyMeters;
+    boolean hasCarrierFrequencyHz;
+    float carrierFrequencyHz;
+    boolean hasCarrierCycles;
+    long carrierCycles;
+    boolean hasCarrierPhase;
+    double carrierPhase;
+    boolean hasCarrierPhaseUncertainty;
+    double carrierPhaseUncertainty;
+    int multipathIndicator;
+    boolean hasSnrInDb;
+    double snrInDb;
+    int constellationType;
+    boolean hasAutomaticGainControlLevelDb;
+    double automaticGainControlLevelDb;
+
+    /**
+     * Copies the clock fields from the provided GnssClock
+     *
+     * @param elapsedRealtimeMillis SystemClock.elapsedRealtime() when the measurements were received
+     * @param clock                 the clock from a GnssMeasurementsEvent
+     */
+    @RequiresApi(api = Build.VERSION_CODES.N)
+    void setClock(long elapsedRealtimeMillis, GnssClock clock) {
+        this.elapsedRealtimeMillis = elapsedRealtimeMillis;
+        timeNanos = clock.getTimeNanos();
+        hasLeapSecond = clock.hasLeapSecond();
+        leapSecond = hasLeapSecond ? clock.getLeapSecond() : 0;
+        hasTimeUncertaintyNanos = clock.hasTimeUncertaintyNanos();
+        timeUncertaintyNanos = hasTimeUncertaintyNanos ? clock.getTimeUncertaintyNanos() : 0;
+        fullBiasNanos = clock.getFullBiasNanos();
+        hasBiasNanos = clock.hasBiasNanos();
+        biasNanos = hasBiasNanos ? clock.getBiasNanos() : 0;
+        hasBiasUncertaintyNanos = clock.hasBiasUncertaintyNanos();
+        biasUncertaintyNanos = hasBiasUncertaintyNanos ? clock.getBiasUncertaintyNanos() : 0;
+        hasDriftNanosPerSecond = clock.hasDriftNanosPerSecond();
+        driftNanosPerSecond = hasDriftNanosPerSecond ? clock.getDriftNanosPerSecond() : 0;
+        hasDriftUncertaintyNanosPerSecond = clock.hasDriftUncertaintyNanosPerSecond();
+        driftUncertaintyNanosPerSecond = hasDriftUncertaintyNanosPerSecond ? clock.getDriftUncertaintyNanosPerSecond() : 0;
+        hardwareClockDiscontinuityCount = clock.getHardwareClockDiscontinuityCount();
+    }
+
+    /**
+     * Copies the measurement fields from the provided GnssMeasurement
+     *
+     * @param measurement a measurement from a GnssMeasurementsEvent
+     */
+    @RequiresApi(api = Build.VERSION_CODES.N)
+    void setMeasurement(GnssMeasurement measurement) {
+        svid = measurement.getSvid();
+        timeOffsetNanos = measurement.getTimeOffsetNanos();
+        state = measurement.getState();
+        receivedSvTimeNanos = measurement.getReceivedSvTimeNanos();
+        receivedSvTimeUncertaintyNanos = measurement.getReceivedSvTimeUncertaintyNanos();
+        cn0DbHz = measurement.getCn0DbHz();
+        pseudorangeRateMetersPerSecond = measurement.getPseudorangeRateMetersPerSecond();
+        pseudorangeRateUncertaintyMetersPerSecond = measurement.getPseudorangeRateUncertaintyMetersPerSecond();
+        accumulatedDeltaRangeState = measurement.getAccumulatedDeltaRangeState();
+        accumulatedDeltaRangeMeters = measurement.getAccumulatedDeltaRangeMeters();
+        accumulatedDeltaRangeUncertaintyMeters = measurement.getAccumulatedDeltaRangeUncertaintyMeters();
+        hasCarrierFrequencyHz = measurement.hasCarrierFrequencyHz();
+        carrierFrequencyHz = hasCarrierFrequencyHz ? measurement.getCarrierFrequencyHz() : 0;
+        hasCarrierCycles = measurement.hasCarrierCycles();
+        carrierCycles = hasCarrierCycles ? measurement.getCarrierCycles() : 0;
+        hasCarrierPhase = measurement.hasCarrierPhase();
+        carrierPhase = hasCarrierPhase ? measurement.getCarrierPhase() : 0;
+        hasCarrierPhaseUncertainty = measurement.hasCarrierPhaseUncertainty();
+        carrierPhaseUncertainty = hasCarrierPhaseUncertainty ? measurement.getCarrierPhaseUncertainty() : 0;
+        multipathIndicator = measurement.getMultipathIndicator();
+        hasSnrInDb = measurement.hasSnrInDb();
+        snrInDb = hasSnrInDb ? measurement.getSnrInDb() : 0;
+        constellationType = measurement.getConstellationType();
+        hasAutomaticGainControlLevelDb = Build.VERSION.SDK_INT >= Build.VERSION_CODES.O
+                && measurement.hasAutomaticGainControlLevelDb();
+        automaticGainControlLevelDb = hasAutomaticGainControlLevelDb ? measurement.getAutomaticGainControlLevelDb() : 0;
+    }
+
+    public long getElapsedRealtimeMillis() {
+        return elapsedRealtimeMillis;
+    }
+
+    public long getTimeNanos() {
+        return timeNanos;
+    }
+
+    public boolean hasLeapSecond() {
+        return hasLeapSecond;
+    }
+
+    public int getLeapSecond() {
+        return leapSecond;
+    }
+
+    public boolean hasTimeUncertaintyNanos() {
+        return hasTimeUncertaintyNanos;
+    }
+
+    public double getTimeUncertaintyNanos() {
+        return timeUncertaintyNanos;
+    }
+
+    public long getFullBiasNanos() {
+        return fullBiasNanos;
+    }
+
+    public boolean hasBiasNanos() {
+        return hasBiasNanos;
+    }
+
+    public double getBiasNanos() {
+        return biasNanos;
+    }
+
+    public boolean hasBiasUncertaintyNanos() {
+        return hasBiasUncertaintyNanos;
+    }
+
+    public double getBiasUncertaintyNanos() {
+        return biasUncertaintyNanos;
+    }
+
+    public boolean hasDriftNanosPerSecond() {
+        return hasDriftNanosPerSecond;
+    }
+
+    public double getDriftNanosPerSecond() {
+        return driftNanosPerSecond;
+    }
+
+    public boolean hasDriftUncertaintyNanosPerSecond() {
+        return hasDriftUncertaintyNanosPerSecond;
+    }
+
+    public double getDriftUncertaintyNanosPerSecond() {
+        return driftUncertaintyNanosPerSecond;
+    }
+
+    public int getHardwareClockDiscontinuityCount() {
+        return hardwareClockDiscontinuityCount;
+    }
+
+    public int getSvid() {
+        return svid;
+    }
+
+    public double getTimeOffsetNanos() {
+        return timeOffsetNanos;
+    }
+
+    public int getState() {
+        return state;
+    }
+
+    public long getReceivedSvTimeNanos() {
+        return receivedSvTimeNanos;
+    }
+
+    public long getReceivedSvTimeUncertaintyNanos() {
+        return receivedSvTimeUncertaintyNanos;
+    }
+
+    public double getCn0DbHz() {
+        return cn0DbHz;
+    }
+
+    public double getPseudorangeRateMetersPerSecond() {
+        return pseudorangeRateMetersPerSecond;
+    }
+
+    public double getPseudorangeRateUncertaintyMetersPerSecond() {
+        return pseudorangeRateUncertaintyMetersPerSecond;
+    }
+
+    public int getAccumulatedDeltaRangeState() {
+        return accumulatedDeltaRangeState;
+    }
+
+    public double getAccumulatedDeltaRangeMeters() {
+        return accumulatedDeltaRangeMeters;
+    }
+
+    public double getAccumulatedDeltaRangeUncertaintyMeters() {
+        return accumulatedDeltaRangeUncertaintyMeters;
+    }
+
+    public boolean hasCarrierFrequencyHz() {
+        return hasCarrierFrequencyHz;
+    }
+
+    public float getCarrierFrequencyHz() {
+        return carrierFrequencyHz;
+    }
+
+    public boolean hasCarrierCycles() {
+        return hasCarrierCycles;
+    }
+
+    public long getCarrierCycles() {
+        return carrierCycles;
+    }
+
+    public boolean hasCarrierPhase() {
+        return hasCarrierPhase;
+    }
+
+    public double getCarrierPhase() {
+        return carrierPhase;
+    }
+
+    public boolean hasCarrierPhaseUncertainty() {
+        return hasCarrierPhaseUncertainty;
+    }
+
+    public double getCarrierPhaseUncertainty() {
+        return carrierPhaseUncertainty;
+    }
+
+    public int getMultipathIndicator() {
+        return multipathIndicator;
+    }
+
+    public boolean hasSnrInDb() {
+        return hasSnrInDb;
+    }
+
+    public double getSnrInDb() {
+        return snrInDb;
+    }
+
+    public int getConstellationType() {
+        return constellationType;
+    }
+
+    public boolean hasAutomaticGainControlLevelDb() {
+        return hasAutomaticGainControlLevelDb;
+    }
+
+    public double getAutomaticGainControlLevelDb() {
+        return automaticGainControlLevelDb;
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright (C) 2021 Sean J. Barbeau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.gpstest.model;
+
+/**
+ * Carrier frequency bands of GNSS and SBAS signals, as classified by
+ * CarrierFreqUtils.getCarrierBand(). The same band can have different labels in different
+ * constellations (e.g., E5a and L5), so each label is a separate band.
+ */
+public enum CarrierBand {
+    /**
+     * Carrier frequencies aren't supported by the device for this signal
+     */
+    UNSUPPORTED("unsupported", false),
+    /**
+     * An unknown carrier frequency that doesn't match any known frequencies
+     */
+    UNKNOWN("unknown", false),
+    L1("L1", true),
+    L2("L2", false),
+    L3("L3", false),
+    L4("L4", false),
+    L5("L5", false),
+    L6("L6", false),
+    L1_C("L1-C", true),
+    B1("B1", true),
+    B1_2("B1-2", false),
+    B1C("B1C", false),
+    B2("B2", false),
+    B2A("B2a", false),
+    B3("B3", false),
+    E1("E1", true),
+    E5("E5", false),
+    E5A("E5a", false),
+    E5B("E5b", false),
+    E6("E6", false),
+    S("S", false);
+
+    private static final CarrierBand[] VALUES = values();
+
+    private final String label;
+    private final boolean primary;
+
+    CarrierBand(String label, boolean primary) {
+        this.label = label;
+        this.primary = primary;
+    }
+
+    /**
+     * @return the label that should be displayed for the band, e.g. "L1"
+     */
+    public String getLabel() {
+        return label;
+    }
+
+    /**
+     * @return true if this is a primary carrier frequency (e.g., "L1"), or false if it is a
+     * secondary frequency such as "L5"
+     */
+    public boolean isPrimary() {
+        return primary;
+    }
+
+    /**
+     * @return the band number used in SatelliteKey signal keys, which is never SatelliteKey.NO_BAND
+     */
+    public int getNumber() {
+        return ordinal() + 1;
+    }
+
+    /**
+     * @param number band number from getNumber() or SatelliteKey.getBand()
+     * @return the band with the number, or null for SatelliteKey.NO_BAND or an invalid number
+     */
+    public static CarrierBand fromNumber(int number) {
+        return number > 0 && number <= VALUES.length ? VALUES[number - 1] : null;
+    }
+}
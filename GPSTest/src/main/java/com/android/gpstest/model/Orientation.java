@@ -0,0 +1,55 @@
+/*
+ * Copyright (C) 2021 Sean J. Barbeau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.gpstest.model;
+
+/**
+ * Container class for the device orientation, in degrees. Instances are re-used for each sensor
+ * event instead of being allocated, so the values are set together and read together under the
+ * lock of the instance - copy them with {@link #set(Orientation)} to read both from the same event.
+ */
+public final class Orientation {
+
+    // Guarded by this
+    private double mOrientation;
+
+    private double mTilt;
+
+    public synchronized void set(double orientation, double tilt) {
+        mOrientation = orientation;
+        mTilt = tilt;
+    }
+
+    /**
+     * Copies the values of another orientation into this one
+     */
+    public void set(Orientation other) {
+        double orientation;
+        double tilt;
+        synchronized (other) {
+            orientation = other.mOrientation;
+            tilt = other.mTilt;
+        }
+        set(orientation, tilt);
+    }
+
+    public synchronized double getOrientation() {
+        return mOrientation;
+    }
+
+    public synchronized double getTilt() {
+        return mTilt;
+    }
+}
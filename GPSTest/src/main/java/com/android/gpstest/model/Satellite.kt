@@ -15,13 +15,15 @@
  */
 package com.android.gpstest.model
 
+import com.android.gpstest.util.LongObjectMap
+
 /**
  * A container class that represents a satellite sending GNSS or SBAS signals ([status]). The [id] of
  * each satellite is a composite key of the constellation (e.g., GPS) and satellite ID (e.g., 11)
- * using GPSTestUtil.createGnssSatelliteKey().
+ * created using SatelliteKey.satellite().
  */
 data class Satellite(
-        val id: String,
-        // Individual signals are stored in a map with the carrier frequency label as the key so we can
-        // see if there are duplicate frequencies.
-        val status: Map<String, SatelliteStatus>)
+        val id: Long,
+        // Individual signals are stored in a map with the signal key (which includes the carrier
+        // band) from SatelliteKey.signal() as the key so we can see if there are duplicate frequencies.
+        val status: LongObjectMap<SatelliteStatus>)
@@ -0,0 +1,92 @@
+/*
+ * Copyright (C) 2021 Sean J. Barbeau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.gpstest.model;
+
+import com.android.gpstest.util.LongObjectMap;
+
+/**
+ * The satellites that were added, changed or removed by one epoch of statuses, keyed by
+ * SatelliteKey.satellite(). A satellite is changed if any of its signals was added, removed or has
+ * different values than in the previous epoch.
+ *
+ * The same instance is re-used for each epoch, so it should only be read while handling the
+ * epoch it was emitted for.
+ */
+public final class SatelliteChanges {
+
+    private final LongObjectMap<Satellite> added = new LongObjectMap<>();
+    private final LongObjectMap<Satellite> changed = new LongObjectMap<>();
+    private final LongObjectMap<Satellite> removed = new LongObjectMap<>();
+
+    /**
+     * @return satellites that weren't in the previous epoch
+     */
+    public LongObjectMap<Satellite> getAdded() {
+        return added;
+    }
+
+    /**
+     * @return satellites that were in the previous epoch and have changed signals in this epoch
+     */
+    public LongObjectMap<Satellite> getChanged() {
+        return changed;
+    }
+
+    /**
+     * @return satellites that were in the previous epoch but not in this epoch, with the signals
+     * they had in the previous epoch
+     */
+    public LongObjectMap<Satellite> getRemoved() {
+        return removed;
+    }
+
+    /**
+     * @return true if no satellites were added, changed or removed
+     */
+    public boolean isEmpty() {
+        return added.isEmpty() && changed.isEmpty() && removed.isEmpty();
+    }
+
+    void onAdded(Satellite satellite) {
+        added.put(satellite.getId(), satellite);
+    }
+
+    void onChanged(Satellite satellite) {
+        if (!added.containsKey(satellite.getId())) {
+            changed.put(satellite.getId(), satellite);
+        }
+    }
+
+    void onRemoved(Satellite satellite) {
+        changed.remove(satellite.getId());
+        removed.put(satellite.getId(), satellite);
+    }
+
+    /**
+     * Removes all satellites, before the next epoch
+     */
+    public void clear() {
+        added.clear();
+        changed.clear();
+        removed.clear();
+    }
+
+    @Override
+    public String toString() {
+        return "added=" + added.size() + ", changed=" + changed.size() + ", removed=" + removed.size();
+    }
+}
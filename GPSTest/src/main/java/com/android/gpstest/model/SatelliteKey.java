@@ -0,0 +1,118 @@
+/*
+ * Copyright (C) 2021 Sean J. Barbeau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.gpstest.model;
+
+/**
+ * Packs the identity of a satellite - constellation, SBAS system and svid - and optionally the
+ * carrier band of one of its signals into a long, so satellites and signals can be grouped by
+ * key without building a String for each signal.
+ *
+ * The svid is stored in bits 0-15, the GnssType ordinal in bits 16-23, the SbasType ordinal in
+ * bits 24-31 and the band in bits 32-47. A satellite key has a band of {@link #NO_BAND}, and
+ * keys of different satellites or signals are always different.
+ */
+public final class SatelliteKey {
+
+    /**
+     * Band of a key that identifies a satellite rather than one of its signals
+     */
+    public static final int NO_BAND = 0;
+
+    private static final int GNSS_SHIFT = 16;
+    private static final int SBAS_SHIFT = 24;
+    private static final int BAND_SHIFT = 32;
+    private static final long SATELLITE_MASK = (1L << BAND_SHIFT) - 1;
+
+    private static final GnssType[] GNSS_TYPES = GnssType.values();
+    private static final SbasType[] SBAS_TYPES = SbasType.values();
+
+    private SatelliteKey() {
+    }
+
+    /**
+     * Creates a key for a satellite. The SBAS type is only used for SBAS satellites, as the svids
+     * of different SBAS systems can be reused.
+     *
+     * @return a key that identifies the satellite
+     */
+    public static long satellite(GnssType gnssType, SbasType sbasType, int svid) {
+        SbasType sbas = gnssType == GnssType.SBAS ? sbasType : SbasType.UNKNOWN;
+        return (svid & 0xFFFF)
+                | (long) gnssType.ordinal() << GNSS_SHIFT
+                | (long) sbas.ordinal() << SBAS_SHIFT;
+    }
+
+    /**
+     * @return a key that identifies the satellite that transmitted the signal
+     */
+    public static long satellite(SatelliteStatus status) {
+        return satellite(status.getGnssType(), status.getSbasType(), status.getSvid());
+    }
+
+    /**
+     * Creates a key for the signal of a satellite in the provided band
+     *
+     * @param satelliteKey key of the satellite, from {@link #satellite(SatelliteStatus)}
+     * @param band         number of the carrier band of the signal, from CarrierBand.getNumber()
+     * @return a key that identifies the signal
+     */
+    public static long signal(long satelliteKey, int band) {
+        return (satelliteKey & SATELLITE_MASK) | (long) (band & 0xFFFF) << BAND_SHIFT;
+    }
+
+    /**
+     * @return the key of the satellite of a signal key, or the same key for a satellite key
+     */
+    public static long toSatellite(long key) {
+        return key & SATELLITE_MASK;
+    }
+
+    public static int getSvid(long key) {
+        return (int) (key & 0xFFFF);
+    }
+
+    public static GnssType getGnssType(long key) {
+        return GNSS_TYPES[(int) (key >>> GNSS_SHIFT & 0xFF)];
+    }
+
+    public static SbasType getSbasType(long key) {
+        return SBAS_TYPES[(int) (key >>> SBAS_SHIFT & 0xFF)];
+    }
+
+    /**
+     * @return the carrier band of a signal key, or {@link #NO_BAND} for a satellite key
+     */
+    public static int getBand(long key) {
+        return (int) (key >>> BAND_SHIFT & 0xFFFF);
+    }
+
+    /**
+     * @return a readable version of the key for logging, e.g. "12 NAVSTAR" or "133 SBAS WAAS L5"
+     */
+    public static String toString(long key) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(getSvid(key)).append(' ').append(getGnssType(key));
+        if (getGnssType(key) == GnssType.SBAS) {
+            sb.append(' ').append(getSbasType(key));
+        }
+        CarrierBand band = CarrierBand.fromNumber(getBand(key));
+        if (band != null) {
+            sb.append(' ').append(band.getLabel());
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,310 @@
+/*
+ * Copyright (C) 2021 Sean J. Barbeau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.gpstest.model;
+
+import android.location.GnssStatus;
+import android.os.Build;
+
+import androidx.annotation.RequiresApi;
+
+import com.android.gpstest.util.SatelliteUtils;
+
+/**
+ * The satellites of one {@link GnssStatus}, held as one primitive array per field. A snapshot is a
+ * re-usable buffer - {@link #setFrom(GnssStatus)} decodes each callback into an existing snapshot,
+ * and the arrays only grow when a callback has more satellites than any before it, so tracking
+ * satellites doesn't allocate once the buffers are big enough. Views read the satellites by index,
+ * and snapshots are passed between threads by a {@link SatelliteSnapshotBuffer}. Not thread-safe.
+ */
+public final class SatelliteSnapshot {
+
+    public static final int FLAG_HAS_ALMANAC = 1;
+    public static final int FLAG_HAS_EPHEMERIS = 1 << 1;
+    public static final int FLAG_USED_IN_FIX = 1 << 2;
+    public static final int FLAG_HAS_CARRIER_FREQUENCY = 1 << 3;
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private int count;
+    private int[] svids;
+    private int[] constellationTypes;
+    private float[] cn0s;
+    private float[] elevations;
+    private float[] azimuths;
+    private int[] flags;
+    private float[] carrierFrequenciesHz;
+
+    private int inViewCount;
+    private int usedCount;
+    private float cn0InViewSum;
+    private float cn0UsedSum;
+
+    public SatelliteSnapshot() {
+        this(INITIAL_CAPACITY);
+    }
+
+    /**
+     * @param capacity expected number of satellites - the snapshot grows if more are added
+     */
+    public SatelliteSnapshot(int capacity) {
+        allocate(Math.max(capacity, 1));
+    }
+
+    /**
+     * Replaces the satellites in this snapshot with the satellites in the provided status
+     *
+     * @param status status from GnssStatus.Callback
+     */
+    @RequiresApi(api = Build.VERSION_CODES.N)
+    public void setFrom(GnssStatus status) {
+        clear();
+        final int length = status.getSatelliteCount();
+        final boolean carrierFrequencies = SatelliteUtils.isGnssCarrierFrequenciesSupported();
+        for (int i = 0; i < length; i++) {
+            int flags = 0;
+            if (status.hasAlmanacData(i)) {
+                flags |= FLAG_HAS_ALMANAC;
+            }
+            if (status.hasEphemerisData(i)) {
+                flags |= FLAG_HAS_EPHEMERIS;
+            }
+            if (status.usedInFix(i)) {
+                flags |= FLAG_USED_IN_FIX;
+            }
+            float carrierFrequencyHz = SatelliteStatus.NO_DATA;
+            if (carrierFrequencies && status.hasCarrierFrequencyHz(i)) {
+                flags |= FLAG_HAS_CARRIER_FREQUENCY;
+                carrierFrequencyHz = status.getCarrierFrequencyHz(i);
+            }
+            add(status.getSvid(i), status.getConstellationType(i), status.getCn0DbHz(i),
+                    status.getElevationDegrees(i), status.getAzimuthDegrees(i), flags,
+                    carrierFrequencyHz);
+        }
+    }
+
+    /**
+     * Replaces the satellites in this snapshot with the satellites in the provided snapshot
+     */
+    public void copyFrom(SatelliteSnapshot other) {
+        if (svids.length < other.count) {
+            count = 0;
+            allocate(other.count);
+        }
+        count = other.count;
+        System.arraycopy(other.svids, 0, svids, 0, count);
+        System.arraycopy(other.constellationTypes, 0, constellationTypes, 0, count);
+        System.arraycopy(other.cn0s, 0, cn0s, 0, count);
+        System.arraycopy(other.elevations, 0, elevations, 0, count);
+        System.arraycopy(other.azimuths, 0, azimuths, 0, count);
+        System.arraycopy(other.flags, 0, flags, 0, count);
+        System.arraycopy(other.carrierFrequenciesHz, 0, carrierFrequenciesHz, 0, count);
+        inViewCount = other.inViewCount;
+        usedCount = other.usedCount;
+        cn0InViewSum = other.cn0InViewSum;
+        cn0UsedSum = other.cn0UsedSum;
+    }
+
+    /**
+     * Adds a satellite to the end of the snapshot
+     *
+     * @param constellationType GnssStatus.CONSTELLATION_* value of the satellite
+     * @param flags             FLAG_* bits of the satellite
+     */
+    public void add(int svid, int constellationType, float cn0DbHz, float elevationDegrees,
+            float azimuthDegrees, int flags, float carrierFrequencyHz) {
+        if (count == svids.length) {
+            allocate(count * 2);
+        }
+        svids[count] = svid;
+        constellationTypes[count] = constellationType;
+        cn0s[count] = cn0DbHz;
+        elevations[count] = elevationDegrees;
+        azimuths[count] = azimuthDegrees;
+        this.flags[count] = flags;
+        carrierFrequenciesHz[count] = carrierFrequencyHz;
+        count++;
+
+        // If satellite is in view, add signal to calculate avg
+        if (cn0DbHz != 0.0f) {
+            inViewCount++;
+            cn0InViewSum += cn0DbHz;
+        }
+        if ((flags & FLAG_USED_IN_FIX) != 0) {
+            usedCount++;
+            cn0UsedSum += cn0DbHz;
+        }
+    }
+
+    /**
+     * Removes all satellites, keeping the capacity for re-use
+     */
+    public void clear() {
+        count = 0;
+        inViewCount = 0;
+        usedCount = 0;
+        cn0InViewSum = 0.0f;
+        cn0UsedSum = 0.0f;
+    }
+
+    /**
+     * @return the number of satellites in the snapshot
+     */
+    public int getCount() {
+        return count;
+    }
+
+    public int getSvid(int i) {
+        return svids[i];
+    }
+
+    /**
+     * @return the GnssStatus.CONSTELLATION_* value of satellite i
+     */
+    public int getConstellationType(int i) {
+        return constellationTypes[i];
+    }
+
+    public GnssType getGnssType(int i) {
+        return SatelliteUtils.getGnssConstellationType(constellationTypes[i]);
+    }
+
+    public float getCn0DbHz(int i) {
+        return cn0s[i];
+    }
+
+    public float getElevationDegrees(int i) {
+        return elevations[i];
+    }
+
+    public float getAzimuthDegrees(int i) {
+        return azimuths[i];
+    }
+
+    /**
+     * @return the FLAG_* bits of satellite i
+     */
+    public int getFlags(int i) {
+        return flags[i];
+    }
+
+    public boolean hasAlmanacData(int i) {
+        return (flags[i] & FLAG_HAS_ALMANAC) != 0;
+    }
+
+    public boolean hasEphemerisData(int i) {
+        return (flags[i] & FLAG_HAS_EPHEMERIS) != 0;
+    }
+
+    public boolean usedInFix(int i) {
+        return (flags[i] & FLAG_USED_IN_FIX) != 0;
+    }
+
+    public boolean hasCarrierFrequencyHz(int i) {
+        return (flags[i] & FLAG_HAS_CARRIER_FREQUENCY) != 0;
+    }
+
+    /**
+     * @return the carrier frequency of satellite i, or SatelliteStatus.NO_DATA if it isn't known
+     */
+    public float getCarrierFrequencyHz(int i) {
+        return carrierFrequenciesHz[i];
+    }
+
+    /**
+     * @return the number of satellites with a non-zero C/N0
+     */
+    public int getInViewCount() {
+        return inViewCount;
+    }
+
+    /**
+     * @return the number of satellites used in the fix
+     */
+    public int getUsedCount() {
+        return usedCount;
+    }
+
+    /**
+     * @return the average C/N0 of the satellites in view, or 0 if there aren't any
+     */
+    public float getCn0InViewAvg() {
+        return inViewCount > 0 ? cn0InViewSum / inViewCount : 0.0f;
+    }
+
+    /**
+     * @return the average C/N0 of the satellites used in the fix, or 0 if there aren't any
+     */
+    public float getCn0UsedAvg() {
+        return usedCount > 0 ? cn0UsedSum / usedCount : 0.0f;
+    }
+
+    /**
+     * Creates a new SatelliteStatus for satellite i
+     *
+     * @return a new SatelliteStatus with the values of satellite i
+     */
+    public SatelliteStatus toSatelliteStatus(int i) {
+        SatelliteStatus status = new SatelliteStatus(svids[i], getGnssType(i), cn0s[i],
+                hasAlmanacData(i), hasEphemerisData(i), usedInFix(i), elevations[i], azimuths[i]);
+        copyTo(i, status);
+        return status;
+    }
+
+    /**
+     * Copies the values of satellite i into an existing SatelliteStatus, so views that keep their
+     * own list of statuses can re-use them
+     */
+    public void copyTo(int i, SatelliteStatus status) {
+        status.setSvid(svids[i]);
+        status.setGnssType(getGnssType(i));
+        status.setCn0DbHz(cn0s[i]);
+        status.setHasAlmanac(hasAlmanacData(i));
+        status.setHasEphemeris(hasEphemerisData(i));
+        status.setUsedInFix(usedInFix(i));
+        status.setElevationDegrees(elevations[i]);
+        status.setAzimuthDegrees(azimuths[i]);
+        status.setSbasType(SbasType.UNKNOWN);
+        status.setHasCarrierFrequency(hasCarrierFrequencyHz(i));
+        status.setCarrierFrequencyHz(carrierFrequenciesHz[i]);
+    }
+
+    private void allocate(int capacity) {
+        svids = copyOf(svids, capacity);
+        constellationTypes = copyOf(constellationTypes, capacity);
+        cn0s = copyOf(cn0s, capacity);
+        elevations = copyOf(elevations, capacity);
+        azimuths = copyOf(azimuths, capacity);
+        flags = copyOf(flags, capacity);
+        carrierFrequenciesHz = copyOf(carrierFrequenciesHz, capacity);
+    }
+
+    private int[] copyOf(int[] array, int capacity) {
+        int[] copy = new int[capacity];
+        if (array != null) {
+            System.arraycopy(array, 0, copy, 0, count);
+        }
+        return copy;
+    }
+
+    private float[] copyOf(float[] array, int capacity) {
+        float[] copy = new float[capacity];
+        if (array != null) {
+            System.arraycopy(array, 0, copy, 0, count);
+        }
+        return copy;
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright (C) 2021 Sean J. Barbeau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.gpstest.model;
+
+/**
+ * Passes {@link SatelliteSnapshot}s from the thread that receives GnssStatus callbacks to the main
+ * thread without allocating or copying them. Three snapshots are rotated - the producer fills the
+ * back snapshot and publishes it as the latest, and the consumer swaps the latest in as its front
+ * snapshot - so neither thread ever writes a snapshot the other one is reading, and neither waits
+ * for the other.
+ */
+public final class SatelliteSnapshotBuffer {
+
+    // Only used by the producer
+    private SatelliteSnapshot mBack = new SatelliteSnapshot();
+
+    // Only used by the consumer
+    private SatelliteSnapshot mFront = new SatelliteSnapshot();
+
+    // The following are guarded by this
+    private SatelliteSnapshot mLatest = new SatelliteSnapshot();
+
+    private boolean mFresh;
+
+    /**
+     * Returns the snapshot the producer should fill before calling {@link #publish()}. Only call
+     * from the producer thread.
+     *
+     * @return the snapshot to fill, which has the satellites of an older epoch
+     */
+    public SatelliteSnapshot getBack() {
+        return mBack;
+    }
+
+    /**
+     * Makes the back snapshot the latest one, replacing a latest snapshot that the consumer hasn't
+     * taken yet. Only call from the producer thread.
+     */
+    public void publish() {
+        synchronized (this) {
+            SatelliteSnapshot latest = mLatest;
+            mLatest = mBack;
+            mBack = latest;
+            mFresh = true;
+        }
+    }
+
+    /**
+     * Returns the latest published snapshot. Only call from the consumer thread. The snapshot
+     * isn't changed until the next call to this method, which can return a different snapshot and
+     * hand this one back to the producer, so it shouldn't be kept after the current event has been
+     * handled - copy it with {@link SatelliteSnapshot#copyFrom(SatelliteSnapshot)} if needed.
+     *
+     * @return the latest published snapshot, or an empty one if none has been published yet
+     */
+    public SatelliteSnapshot getFront() {
+        synchronized (this) {
+            if (mFresh) {
+                SatelliteSnapshot latest = mLatest;
+                mLatest = mFront;
+                mFront = latest;
+                mFresh = false;
+            }
+        }
+        return mFront;
+    }
+}
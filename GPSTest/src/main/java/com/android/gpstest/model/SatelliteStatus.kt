@@ -15,23 +15,71 @@
  */
 package com.android.gpstest.model
 
+import com.android.gpstest.util.CarrierFreqUtils
+
 /**
  * Mirrors the GnssStatus class (https://developer.android.com/reference/android/location/GnssStatus),
- * but uses internal GnssType and SbasType values for GNSS and SBAS constellations
+ * but uses internal GnssType and SbasType values for GNSS and SBAS constellations. All values can
+ * be changed, so statuses can be re-used for the signals of later epochs.
  */
 data class SatelliteStatus (
-        val svid: Int,
-        val gnssType: GnssType,
+        var svid: Int,
+        var gnssType: GnssType,
         var cn0DbHz: Float,
-        val hasAlmanac: Boolean,
-        val hasEphemeris: Boolean,
-        val usedInFix: Boolean,
+        var hasAlmanac: Boolean,
+        var hasEphemeris: Boolean,
+        var usedInFix: Boolean,
         var elevationDegrees: Float,
         var azimuthDegrees: Float) {
     var sbasType: SbasType = SbasType.UNKNOWN
     var hasCarrierFrequency: Boolean = false
     var carrierFrequencyHz: Float = NO_DATA
 
+    // Classified on first use, as the band is needed several times for each signal, and again if
+    // a value it depends on has changed since
+    private var band: CarrierBand? = null
+    private var bandSvid = 0
+    private var bandGnssType = GnssType.UNKNOWN
+    private var bandSbasType = SbasType.UNKNOWN
+    private var bandCarrierFrequencyHz = NO_DATA
+    private var bandHasCarrierFrequency = false
+
+    /**
+     * The carrier band of this signal from CarrierFreqUtils.getCarrierBand()
+     */
+    val carrierBand: CarrierBand
+        get() {
+            val cached = band
+            if (cached != null && bandSvid == svid && bandGnssType == gnssType
+                    && bandSbasType == sbasType && bandCarrierFrequencyHz == carrierFrequencyHz
+                    && bandHasCarrierFrequency == hasCarrierFrequency) {
+                return cached
+            }
+            bandSvid = svid
+            bandGnssType = gnssType
+            bandSbasType = sbasType
+            bandCarrierFrequencyHz = carrierFrequencyHz
+            bandHasCarrierFrequency = hasCarrierFrequency
+            return CarrierFreqUtils.getCarrierBand(this).also { band = it }
+        }
+
+    /**
+     * Copies all values of [other] into this status
+     */
+    fun set(other: SatelliteStatus) {
+        svid = other.svid
+        gnssType = other.gnssType
+        cn0DbHz = other.cn0DbHz
+        hasAlmanac = other.hasAlmanac
+        hasEphemeris = other.hasEphemeris
+        usedInFix = other.usedInFix
+        elevationDegrees = other.elevationDegrees
+        azimuthDegrees = other.azimuthDegrees
+        sbasType = other.sbasType
+        hasCarrierFrequency = other.hasCarrierFrequency
+        carrierFrequencyHz = other.carrierFrequencyHz
+    }
+
     companion object {
         const val NO_DATA = 0.0f
     }
@@ -0,0 +1,397 @@
+/*
+ * Copyright (C) 2021 Sean J. Barbeau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.gpstest.model;
+
+import com.android.gpstest.util.LongObjectMap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static com.android.gpstest.model.SatelliteStatus.NO_DATA;
+
+/**
+ * Groups the signals of a constellation family (GNSS or SBAS) into satellites, one epoch at a
+ * time. Each epoch is compared with the previous one, so only the satellites and signals that were
+ * added, changed or removed are updated, and the satellite counters are adjusted by the changes
+ * instead of being counted again. Not thread-safe.
+ */
+public final class SatelliteTracker {
+
+    private final LongObjectMap<Satellite> satellites = new LongObjectMap<>();
+
+    // Signals of the current epoch, to find duplicates and the signals that are no longer reported
+    private final LongObjectMap<SatelliteStatus> epochSignals = new LongObjectMap<>();
+
+    private final LongObjectMap<SatelliteStatus> duplicateCarrierStatuses = new LongObjectMap<>();
+
+    private final LongObjectMap<SatelliteStatus> unknownCarrierStatuses = new LongObjectMap<>();
+
+    // Copies of the duplicate and unknown carrier statuses, re-used by each epoch
+    private final List<SatelliteStatus> epochCopies = new ArrayList<>();
+    private int numEpochCopies;
+
+    // Counted again for each epoch, as every signal of the epoch is visited anyway
+    private int numSignalsInView;
+    private int numSignalsUsed;
+    private int numSignalsTotal;
+    private int numNonPrimaryInView;
+    private int numNonPrimaryUsed;
+    private final int[] gnssTypeCounts = new int[GnssType.values().length];
+    private final int[] sbasTypeCounts = new int[SbasType.values().length];
+    private final int[] gnssBandCounts = new int[CarrierBand.values().length];
+    private final int[] sbasBandCounts = new int[CarrierBand.values().length];
+
+    // Adjusted when a satellite changes
+    private int numSatsInView;
+    private int numSatsUsed;
+    private int numSatsDualInView;
+    private int numSatsDualUsed;
+
+    /**
+     * Updates the satellites with the signals of a new epoch
+     *
+     * @param statuses all signals of the epoch, or null if there aren't any. The statuses are
+     *                 copied, so they can be re-used by the caller afterwards.
+     * @param changes  the satellites that are added, changed or removed by the epoch are added to
+     *                 this set
+     */
+    public void update(List<SatelliteStatus> statuses, SatelliteChanges changes) {
+        clearEpoch();
+
+        if (statuses != null) {
+            numSignalsTotal = statuses.size();
+            for (int i = 0; i < numSignalsTotal; i++) {
+                SatelliteStatus s = statuses.get(i);
+                CarrierBand band = s.getCarrierBand();
+                countSignal(s, band);
+
+                long key = SatelliteKey.satellite(s);
+                long signalKey = SatelliteKey.signal(key, band.getNumber());
+                SatelliteStatus epochCopy = null;
+                if (band == CarrierBand.UNKNOWN) {
+                    epochCopy = epochCopyOf(s);
+                    unknownCarrierStatuses.put(signalKey, epochCopy);
+                }
+                if (epochSignals.containsKey(signalKey)) {
+                    // This shouldn't happen - we found a satellite signal with the same constellation, sat ID, and carrier frequency (including multiple "unknown" or "unsupported" frequencies) as an existing one
+                    duplicateCarrierStatuses.put(signalKey, epochCopy != null ? epochCopy : epochCopyOf(s));
+                    continue;
+                }
+                epochSignals.put(signalKey, s);
+                updateSignal(key, signalKey, s, changes);
+            }
+        }
+        removeMissingSignals(changes);
+    }
+
+    private void countSignal(SatelliteStatus s, CarrierBand band) {
+        if (s.getUsedInFix()) {
+            numSignalsUsed++;
+        }
+        if (s.getCn0DbHz() != NO_DATA) {
+            numSignalsInView++;
+        }
+        boolean knownType = s.getGnssType() != GnssType.UNKNOWN
+                && (s.getGnssType() != GnssType.SBAS || s.getSbasType() != SbasType.UNKNOWN);
+        if (knownType) {
+            if (s.getGnssType() != GnssType.SBAS) {
+                gnssTypeCounts[s.getGnssType().ordinal()]++;
+            } else {
+                sbasTypeCounts[s.getSbasType().ordinal()]++;
+            }
+        }
+        if (band == CarrierBand.UNKNOWN || band == CarrierBand.UNSUPPORTED) {
+            return;
+        }
+        if (knownType) {
+            if (s.getGnssType() != GnssType.SBAS) {
+                gnssBandCounts[band.ordinal()]++;
+            } else {
+                sbasBandCounts[band.ordinal()]++;
+            }
+        }
+        if (!band.isPrimary()) {
+            numNonPrimaryInView++;
+            if (s.getUsedInFix()) {
+                numNonPrimaryUsed++;
+            }
+        }
+    }
+
+    private void updateSignal(long key, long signalKey, SatelliteStatus s, SatelliteChanges changes) {
+        Satellite sat = satellites.get(key);
+        if (sat == null) {
+            LongObjectMap<SatelliteStatus> signals = new LongObjectMap<>(2);
+            signals.put(signalKey, copyOf(s));
+            sat = new Satellite(key, signals);
+            satellites.put(key, sat);
+            countSatellite(sat, 1);
+            changes.onAdded(sat);
+            return;
+        }
+        LongObjectMap<SatelliteStatus> signals = sat.getStatus();
+        SatelliteStatus current = signals.get(signalKey);
+        if (current == null) {
+            countSatellite(sat, -1);
+            signals.put(signalKey, copyOf(s));
+            countSatellite(sat, 1);
+            changes.onChanged(sat);
+            return;
+        }
+        boolean changed = !current.equals(s);
+        if (changed) {
+            countSatellite(sat, -1);
+        }
+        // Always copy, as the carrier frequency can change slightly within the same band
+        current.set(s);
+        if (changed) {
+            countSatellite(sat, 1);
+            changes.onChanged(sat);
+        }
+    }
+
+    /**
+     * The statuses passed to update() can be re-used by the caller for the next epoch, so a
+     * satellite keeps copies of its signals, which are updated in place while they're tracked
+     */
+    private static SatelliteStatus copyOf(SatelliteStatus s) {
+        SatelliteStatus copy = new SatelliteStatus(s.getSvid(), s.getGnssType(), s.getCn0DbHz(),
+                s.getHasAlmanac(), s.getHasEphemeris(), s.getUsedInFix(),
+                s.getElevationDegrees(), s.getAzimuthDegrees());
+        copy.set(s);
+        return copy;
+    }
+
+    /**
+     * Returns a copy of the status that is kept until the next epoch, re-using the copies of the
+     * previous epoch
+     */
+    private SatelliteStatus epochCopyOf(SatelliteStatus s) {
+        if (numEpochCopies < epochCopies.size()) {
+            SatelliteStatus copy = epochCopies.get(numEpochCopies++);
+            copy.set(s);
+            return copy;
+        }
+        SatelliteStatus copy = copyOf(s);
+        epochCopies.add(copy);
+        numEpochCopies++;
+        return copy;
+    }
+
+    /**
+     * Removes the signals that were in the previous epoch but not in this epoch, and satellites
+     * without any remaining signals
+     */
+    private void removeMissingSignals(SatelliteChanges changes) {
+        for (int i = satellites.size() - 1; i >= 0; i--) {
+            Satellite sat = satellites.valueAt(i);
+            LongObjectMap<SatelliteStatus> signals = sat.getStatus();
+            int missing = 0;
+            for (int j = 0; j < signals.size(); j++) {
+                if (!epochSignals.containsKey(signals.keyAt(j))) {
+                    missing++;
+                }
+            }
+            if (missing == 0) {
+                continue;
+            }
+            countSatellite(sat, -1);
+            if (missing == signals.size()) {
+                // Keep the signals of the removed satellite for observers of the changes
+                satellites.remove(sat.getId());
+                changes.onRemoved(sat);
+                continue;
+            }
+            for (int j = signals.size() - 1; j >= 0; j--) {
+                if (!epochSignals.containsKey(signals.keyAt(j))) {
+                    signals.remove(signals.keyAt(j));
+                }
+            }
+            countSatellite(sat, 1);
+            changes.onChanged(sat);
+        }
+    }
+
+    /**
+     * Adds (sign 1) or subtracts (sign -1) the satellite from the satellite counters
+     */
+    private void countSatellite(Satellite sat, int sign) {
+        LongObjectMap<SatelliteStatus> signals = sat.getStatus();
+        int inView = 0;
+        int used = 0;
+        for (int i = 0; i < signals.size(); i++) {
+            SatelliteStatus s = signals.valueAt(i);
+            if (s.getUsedInFix()) {
+                used++;
+            }
+            if (s.getCn0DbHz() != NO_DATA) {
+                inView++;
+            }
+        }
+        if (inView > 0) {
+            numSatsInView += sign;
+        }
+        if (inView > 1) {
+            numSatsDualInView += sign;
+        }
+        if (used > 0) {
+            numSatsUsed += sign;
+        }
+        if (used > 1) {
+            numSatsDualUsed += sign;
+        }
+    }
+
+    /**
+     * @return the satellites of the last epoch, keyed by SatelliteKey.satellite(). The map and the
+     * satellites in it are updated in place by each epoch.
+     */
+    public LongObjectMap<Satellite> getSatellites() {
+        return satellites;
+    }
+
+    /**
+     * @return the signals of the last epoch that have the same signal key as an earlier signal of
+     * the epoch, keyed by SatelliteKey.signal(). These are copies of the statuses passed to
+     * update(), which are re-used by the next epoch.
+     */
+    public LongObjectMap<SatelliteStatus> getDuplicateCarrierStatuses() {
+        return duplicateCarrierStatuses;
+    }
+
+    /**
+     * @return the signals of the last epoch with an unknown carrier frequency, keyed by
+     * SatelliteKey.signal(). These are copies of the statuses passed to update(), which are
+     * re-used by the next epoch.
+     */
+    public LongObjectMap<SatelliteStatus> getUnknownCarrierStatuses() {
+        return unknownCarrierStatuses;
+    }
+
+    public int getNumSignalsInView() {
+        return numSignalsInView;
+    }
+
+    public int getNumSignalsUsed() {
+        return numSignalsUsed;
+    }
+
+    /**
+     * @return the number of signals in the last epoch, including duplicates
+     */
+    public int getNumSignalsTotal() {
+        return numSignalsTotal;
+    }
+
+    public int getNumSatsInView() {
+        return numSatsInView;
+    }
+
+    public int getNumSatsUsed() {
+        return numSatsUsed;
+    }
+
+    public int getNumSatsTotal() {
+        return satellites.size();
+    }
+
+    /**
+     * @return true if multiple signals from the same satellite are in view
+     */
+    public boolean isDualFrequencyPerSatInView() {
+        return numSatsDualInView > 0;
+    }
+
+    /**
+     * @return true if multiple signals from the same satellite are used in the fix
+     */
+    public boolean isDualFrequencyPerSatInUse() {
+        return numSatsDualUsed > 0;
+    }
+
+    /**
+     * @return true if a signal with a known non-primary carrier frequency is in the last epoch
+     */
+    public boolean isNonPrimaryCarrierFreqInView() {
+        return numNonPrimaryInView > 0;
+    }
+
+    /**
+     * @return true if a signal with a known non-primary carrier frequency is used in the fix
+     */
+    public boolean isNonPrimaryCarrierFreqInUse() {
+        return numNonPrimaryUsed > 0;
+    }
+
+    /**
+     * @return the number of signals of the GNSS type (other than SBAS) in the last epoch
+     */
+    public int getSignalCount(GnssType gnssType) {
+        return gnssTypeCounts[gnssType.ordinal()];
+    }
+
+    /**
+     * @return the number of signals of the SBAS type in the last epoch
+     */
+    public int getSignalCount(SbasType sbasType) {
+        return sbasTypeCounts[sbasType.ordinal()];
+    }
+
+    /**
+     * @return the number of GNSS signals (other than SBAS) with a known type in the band in the
+     * last epoch
+     */
+    public int getGnssSignalCount(CarrierBand band) {
+        return gnssBandCounts[band.ordinal()];
+    }
+
+    /**
+     * @return the number of SBAS signals with a known type in the band in the last epoch
+     */
+    public int getSbasSignalCount(CarrierBand band) {
+        return sbasBandCounts[band.ordinal()];
+    }
+
+    /**
+     * Removes all satellites, so the next epoch is compared with an empty one
+     */
+    public void clear() {
+        satellites.clear();
+        clearEpoch();
+        numSatsInView = 0;
+        numSatsUsed = 0;
+        numSatsDualInView = 0;
+        numSatsDualUsed = 0;
+    }
+
+    private void clearEpoch() {
+        epochSignals.clear();
+        duplicateCarrierStatuses.clear();
+        unknownCarrierStatuses.clear();
+        numEpochCopies = 0;
+        numSignalsInView = 0;
+        numSignalsUsed = 0;
+        numSignalsTotal = 0;
+        numNonPrimaryInView = 0;
+        numNonPrimaryUsed = 0;
+        Arrays.fill(gnssTypeCounts, 0);
+        Arrays.fill(sbasTypeCounts, 0);
+        Arrays.fill(gnssBandCounts, 0);
+        Arrays.fill(sbasBandCounts, 0);
+    }
+}
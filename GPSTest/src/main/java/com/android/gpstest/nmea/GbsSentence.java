@@ -0,0 +1,114 @@
+/*
+ * Copyright (C) 2021 Sean J. Barbeau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.gpstest.nmea;
+
+
+/**
+ * GNSS satellite fault detection (GBS) - expected position errors and the most likely failed
+ * satellite from receiver autonomous integrity monitoring (RAIM). For example,
+ * "$GPGBS,015509.00,-0.031,-0.186,0.219,19,0.000,-0.354,6.972,1,1*5B", where the last two fields are
+ * the NMEA 4.10 system ID and signal ID.
+ */
+public final class GbsSentence extends NmeaSentence {
+
+    int timeOfDayMillis;
+    double latitudeError;
+    double longitudeError;
+    double altitudeError;
+    int failedSvid;
+    double failureProbability;
+    double bias;
+    double biasStdDev;
+    int signalId;
+
+    @Override
+    void reset() {
+        super.reset();
+        timeOfDayMillis = UNKNOWN;
+        latitudeError = Double.NaN;
+        longitudeError = Double.NaN;
+        altitudeError = Double.NaN;
+        failedSvid = UNKNOWN;
+        failureProbability = Double.NaN;
+        bias = Double.NaN;
+        biasStdDev = Double.NaN;
+        signalId = UNKNOWN;
+    }
+
+    /**
+     * @return UTC time of the fix in milliseconds since midnight, or UNKNOWN
+     */
+    public int getTimeOfDayMillis() {
+        return timeOfDayMillis;
+    }
+
+    /**
+     * @return expected error in latitude, in meters
+     */
+    public double getLatitudeError() {
+        return latitudeError;
+    }
+
+    /**
+     * @return expected error in longitude, in meters
+     */
+    public double getLongitudeError() {
+        return longitudeError;
+    }
+
+    /**
+     * @return expected error in altitude, in meters
+     */
+    public double getAltitudeError() {
+        return altitudeError;
+    }
+
+    /**
+     * @return ID of the most likely failed satellite, or UNKNOWN if no satellite is suspected
+     */
+    public int getFailedSvid() {
+        return failedSvid;
+    }
+
+    /**
+     * @return probability of missed detection for the most likely failed satellite
+     */
+    public double getFailureProbability() {
+        return failureProbability;
+    }
+
+    /**
+     * @return estimate of the bias of the most likely failed satellite, in meters
+     */
+    public double getBias() {
+        return bias;
+    }
+
+    /**
+     * @return standard deviation of the bias estimate, in meters
+     */
+    public double getBiasStdDev() {
+        return biasStdDev;
+    }
+
+    /**
+     * @return the NMEA 4.10 signal ID, or UNKNOWN if the sentence doesn't have one
+     */
+    public int getSignalId() {
+        return signalId;
+    }
+}
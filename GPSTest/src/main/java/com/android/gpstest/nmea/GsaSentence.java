@@ -0,0 +1,93 @@
+/*
+ * Copyright (C) 2021 Sean J. Barbeau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.gpstest.nmea;
+
+
+/**
+ * GNSS DOP and active satellites (GSA) - the satellites used in the fix and the dilution of
+ * precision. For example, "$GNGSA,A,3,03,14,16,22,23,26,,,,,,,3.6,1.8,3.1,1*3B".
+ */
+public final class GsaSentence extends NmeaSentence {
+
+    /**
+     * Maximum number of satellites in a GSA sentence
+     */
+    public static final int MAX_SATELLITES = 12;
+
+    char selectionMode;
+    int fixType;
+    final int[] svids = new int[MAX_SATELLITES];
+    int satelliteCount;
+    double pdop;
+    double hdop;
+    double vdop;
+
+    @Override
+    void reset() {
+        super.reset();
+        selectionMode = 0;
+        fixType = UNKNOWN;
+        satelliteCount = 0;
+        pdop = Double.NaN;
+        hdop = Double.NaN;
+        vdop = Double.NaN;
+    }
+
+    /**
+     * @return 'M' for manual or 'A' for automatic 2D/3D mode selection, or 0 if unknown
+     */
+    public char getSelectionMode() {
+        return selectionMode;
+    }
+
+    /**
+     * @return 1 for no fix, 2 for a 2D fix or 3 for a 3D fix, or UNKNOWN
+     */
+    public int getFixType() {
+        return fixType;
+    }
+
+    /**
+     * @return the number of satellites used in the fix that are listed in this sentence
+     */
+    public int getSatelliteCount() {
+        return satelliteCount;
+    }
+
+    /**
+     * @param index 0 to getSatelliteCount() - 1
+     * @return the ID of a satellite used in the fix, as output by the receiver
+     */
+    public int getSvid(int index) {
+        if (index < 0 || index >= satelliteCount) {
+            throw new IndexOutOfBoundsException("index " + index + ", count " + satelliteCount);
+        }
+        return svids[index];
+    }
+
+    public double getPdop() {
+        return pdop;
+    }
+
+    public double getHdop() {
+        return hdop;
+    }
+
+    public double getVdop() {
+        return vdop;
+    }
+}
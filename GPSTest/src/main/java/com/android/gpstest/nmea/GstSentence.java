@@ -0,0 +1,103 @@
+/*
+ * Copyright (C) 2021 Sean J. Barbeau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.gpstest.nmea;
+
+
+/**
+ * GNSS pseudorange error statistics (GST) - the error ellipse and standard deviations of the
+ * position. For example, "$GPGST,172814.0,0.006,0.023,0.020,273.6,0.023,0.020,0.031*6A".
+ */
+public final class GstSentence extends NmeaSentence {
+
+    int timeOfDayMillis;
+    double rangeRms;
+    double semiMajorStdDev;
+    double semiMinorStdDev;
+    double orientation;
+    double latitudeStdDev;
+    double longitudeStdDev;
+    double altitudeStdDev;
+
+    @Override
+    void reset() {
+        super.reset();
+        timeOfDayMillis = UNKNOWN;
+        rangeRms = Double.NaN;
+        semiMajorStdDev = Double.NaN;
+        semiMinorStdDev = Double.NaN;
+        orientation = Double.NaN;
+        latitudeStdDev = Double.NaN;
+        longitudeStdDev = Double.NaN;
+        altitudeStdDev = Double.NaN;
+    }
+
+    /**
+     * @return UTC time of the fix in milliseconds since midnight, or UNKNOWN
+     */
+    public int getTimeOfDayMillis() {
+        return timeOfDayMillis;
+    }
+
+    /**
+     * @return RMS value of the standard deviation of the range inputs, in meters
+     */
+    public double getRangeRms() {
+        return rangeRms;
+    }
+
+    /**
+     * @return standard deviation of the semi-major axis of the error ellipse, in meters
+     */
+    public double getSemiMajorStdDev() {
+        return semiMajorStdDev;
+    }
+
+    /**
+     * @return standard deviation of the semi-minor axis of the error ellipse, in meters
+     */
+    public double getSemiMinorStdDev() {
+        return semiMinorStdDev;
+    }
+
+    /**
+     * @return orientation of the semi-major axis of the error ellipse, in degrees from true north
+     */
+    public double getOrientation() {
+        return orientation;
+    }
+
+    /**
+     * @return standard deviation of the latitude error, in meters
+     */
+    public double getLatitudeStdDev() {
+        return latitudeStdDev;
+    }
+
+    /**
+     * @return standard deviation of the longitude error, in meters
+     */
+    public double getLongitudeStdDev() {
+        return longitudeStdDev;
+    }
+
+    /**
+     * @return standard deviation of the altitude error, in meters
+     */
+    public double getAltitudeStdDev() {
+        return altitudeStdDev;
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright (C) 2021 Sean J. Barbeau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.gpstest.nmea;
+
+
+/**
+ * GNSS satellites in view (GSV) - the position and signal strength of up to 4 satellites. The
+ * satellites in view of a talker are split across getMessageCount() sentences. For example,
+ * "$GPGSV,3,1,12,01,05,060,18,02,17,259,43,04,56,287,28,09,08,277,28,1*6F", where the last field is
+ * the NMEA 4.10 signal ID.
+ */
+public final class GsvSentence extends NmeaSentence {
+
+    /**
+     * Maximum number of satellites in a GSV sentence
+     */
+    public static final int MAX_SATELLITES = 4;
+
+    int messageCount;
+    int messageNumber;
+    int satellitesInView;
+    int signalId;
+    int satelliteCount;
+    final int[] svids = new int[MAX_SATELLITES];
+    final int[] elevations = new int[MAX_SATELLITES];
+    final int[] azimuths = new int[MAX_SATELLITES];
+    final int[] cn0s = new int[MAX_SATELLITES];
+
+    @Override
+    void reset() {
+        super.reset();
+        messageCount = UNKNOWN;
+        messageNumber = UNKNOWN;
+        satellitesInView = UNKNOWN;
+        signalId = UNKNOWN;
+        satelliteCount = 0;
+    }
+
+    /**
+     * @return the number of GSV sentences for the talker (and signal) in this epoch
+     */
+    public int getMessageCount() {
+        return messageCount;
+    }
+
+    /**
+     * @return the number of this sentence, from 1 to getMessageCount()
+     */
+    public int getMessageNumber() {
+        return messageNumber;
+    }
+
+    /**
+     * @return the total number of satellites in view for the talker (and signal)
+     */
+    public int getSatellitesInView() {
+        return satellitesInView;
+    }
+
+    /**
+     * @return the NMEA 4.10 signal ID (e.g., 1 for GPS L1 C/A), or UNKNOWN if the sentence doesn't
+     * have one
+     */
+    public int getSignalId() {
+        return signalId;
+    }
+
+    /**
+     * @return the number of satellites in this sentence, from 0 to {@link #MAX_SATELLITES}
+     */
+    public int getSatelliteCount() {
+        return satelliteCount;
+    }
+
+    public int getSvid(int index) {
+        checkIndex(index);
+        return svids[index];
+    }
+
+    /**
+     * @return elevation in degrees, or UNKNOWN
+     */
+    public int getElevation(int index) {
+        checkIndex(index);
+        return elevations[index];
+    }
+
+    /**
+     * @return azimuth in degrees from true north, or UNKNOWN
+     */
+    public int getAzimuth(int index) {
+        checkIndex(index);
+        return azimuths[index];
+    }
+
+    /**
+     * @return carrier-to-noise density in dB-Hz, or UNKNOWN if the satellite isn't being tracked
+     */
+    public int getCn0(int index) {
+        checkIndex(index);
+        return cn0s[index];
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= satelliteCount) {
+            throw new IndexOutOfBoundsException("index " + index + ", count " + satelliteCount);
+        }
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright (C) 2021 Sean J. Barbeau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.gpstest.nmea;
+
+/**
+ * Packs the address of an NMEA sentence - the talker ID and sentence type after the "$" or "!",
+ * like "GPGGA" or proprietary addresses like "PUBX" - into an int, so sentences can be counted and
+ * dispatched by address without allocating a String.
+ *
+ * Each character from '!' (0x21) to '_' (0x5F), which includes upper case letters and digits, is
+ * stored in 6 bits, so addresses of up to 5 characters fit in 30 bits. Keys of different addresses
+ * are always different, and 0 is never a valid key.
+ */
+public final class NmeaAddress {
+
+    /**
+     * Key returned for a sentence without a valid address
+     */
+    public static final int NONE = 0;
+
+    /**
+     * Maximum number of characters in a packed address
+     */
+    public static final int MAX_LENGTH = 5;
+
+    private static final int BITS_PER_CHAR = 6;
+    private static final int CHAR_MASK = (1 << BITS_PER_CHAR) - 1;
+
+    private NmeaAddress() {
+    }
+
+    /**
+     * Packs the address at the start of a sentence, ignoring leading whitespace
+     *
+     * @return the key of the address, or {@link #NONE} if the sentence doesn't start with "$" or
+     * "!" followed by an address of 1 to 5 valid characters
+     */
+    public static int fromSentence(CharSequence sentence) {
+        int length = sentence.length();
+        int start = 0;
+        while (start < length && sentence.charAt(start) <= ' ') {
+            start++;
+        }
+        if (start == length || (sentence.charAt(start) != '$' && sentence.charAt(start) != '!')) {
+            return NONE;
+        }
+        start++;
+        int end = start;
+        while (end < length && end - start <= MAX_LENGTH) {
+            char c = sentence.charAt(end);
+            if (c == ',' || c == '*' || c <= ' ') {
+                break;
+            }
+            end++;
+        }
+        return pack(sentence, start, end);
+    }
+
+    /**
+     * Packs the address of the sentence held by the tokenizer
+     *
+     * @return the key of the address, or {@link #NONE} if the sentence doesn't have a valid address
+     */
+    public static int fromTokenizer(NmeaTokenizer tokenizer) {
+        if (tokenizer.getFieldLength(0) < 2) {
+            return NONE;
+        }
+        // Skip the start delimiter, which is part of field 0
+        return pack(tokenizer.getSentence(), tokenizer.getFieldStart(0) + 1, tokenizer.getFieldEnd(0));
+    }
+
+    /**
+     * Packs the characters from start (inclusive) to end (exclusive)
+     *
+     * @return the key of the address, or {@link #NONE} if the address is empty, longer than
+     * {@link #MAX_LENGTH} or has a character outside of '!' to '_'
+     */
+    public static int pack(CharSequence address, int start, int end) {
+        int length = end - start;
+        if (length < 1 || length > MAX_LENGTH) {
+            return NONE;
+        }
+        int key = 0;
+        for (int i = start; i < end; i++) {
+            int code = address.charAt(i) - 0x20;
+            if (code < 1 || code > CHAR_MASK) {
+                return NONE;
+            }
+            key = (key << BITS_PER_CHAR) | code;
+        }
+        return key;
+    }
+
+    /**
+     * Packs an address String - for example, {@code pack("GPGSV")}
+     */
+    public static int pack(String address) {
+        return pack(address, 0, address.length());
+    }
+
+    /**
+     * @return the key of the sentence type - the last three characters of the key of a talker
+     * address, like "GSV" for "GPGSV" - so sentences can be grouped across talkers
+     */
+    public static int getSentenceType(int key) {
+        return key & ((1 << (3 * BITS_PER_CHAR)) - 1);
+    }
+
+    /**
+     * @return the address of a key as a String, for display
+     */
+    public static String toString(int key) {
+        char[] chars = new char[MAX_LENGTH];
+        int count = 0;
+        for (int shift = (MAX_LENGTH - 1) * BITS_PER_CHAR; shift >= 0; shift -= BITS_PER_CHAR) {
+            int code = (key >>> shift) & CHAR_MASK;
+            if (code != 0) {
+                chars[count++] = (char) (code + 0x20);
+            }
+        }
+        return new String(chars, 0, count);
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright (C) 2021 Sean J. Barbeau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.gpstest.nmea;
+
+/**
+ * Validates the checksum of NMEA sentences without allocating. The checksum is the XOR of all
+ * characters between the "$" or "!" start delimiter and the "*", written as two hexadecimal digits
+ * after the "*" - for example, "$GPGSA,A,3,04,05,,09,12,,,24,,,,,2.5,1.3,2.1*39".
+ */
+public final class NmeaChecksum {
+
+    /**
+     * The sentence has a checksum that matches its contents
+     */
+    public static final int VALID = 0;
+
+    /**
+     * The sentence has a checksum that doesn't match its contents, so it was corrupted
+     */
+    public static final int INVALID = 1;
+
+    /**
+     * The sentence doesn't have a start delimiter or a complete checksum, so it was cut off
+     */
+    public static final int TRUNCATED = 2;
+
+    private NmeaChecksum() {
+    }
+
+    /**
+     * Checks the checksum of a sentence in a single pass. Leading and trailing whitespace (e.g.,
+     * the CR LF line ending) is ignored.
+     *
+     * @return {@link #VALID}, {@link #INVALID} or {@link #TRUNCATED}
+     */
+    public static int validate(CharSequence sentence) {
+        int length = sentence.length();
+        int i = 0;
+        while (i < length && sentence.charAt(i) <= ' ') {
+            i++;
+        }
+        if (i == length || (sentence.charAt(i) != '$' && sentence.charAt(i) != '!')) {
+            return TRUNCATED;
+        }
+        int checksum = 0;
+        for (i++; i < length; i++) {
+            char c = sentence.charAt(i);
+            if (c == '*') {
+                break;
+            }
+            checksum ^= c;
+        }
+        // Both checksum digits must follow the '*'
+        if (i + 2 >= length) {
+            return TRUNCATED;
+        }
+        int high = hexValue(sentence.charAt(i + 1));
+        int low = hexValue(sentence.charAt(i + 2));
+        if (high < 0 || low < 0) {
+            return TRUNCATED;
+        }
+        return ((high << 4) | low) == (checksum & 0xFF) ? VALID : INVALID;
+    }
+
+    /**
+     * @return the XOR of the characters of the sentence from start (inclusive) to end (exclusive)
+     */
+    public static int compute(CharSequence sentence, int start, int end) {
+        int checksum = 0;
+        for (int i = start; i < end; i++) {
+            checksum ^= sentence.charAt(i);
+        }
+        return checksum & 0xFF;
+    }
+
+    /**
+     * @return the value of an upper or lower case hexadecimal digit, or -1 if the character isn't
+     * a hexadecimal digit
+     */
+    public static int hexValue(char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        }
+        if (c >= 'A' && c <= 'F') {
+            return c - 'A' + 10;
+        }
+        if (c >= 'a' && c <= 'f') {
+            return c - 'a' + 10;
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,241 @@
+/*
+ * Copyright (C) 2021 Sean J. Barbeau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.gpstest.nmea;
+
+/**
+ * Decodes NMEA sentences that have been split into fields by an {@link NmeaTokenizer} into
+ * caller-owned {@link NmeaSentence} objects, without allocating. Sentences from any GNSS talker
+ * (GP, GL, GA, GB, BD, GQ, GI and GN) are decoded, along with the NMEA 4.10 system ID and signal ID
+ * fields when present.
+ *
+ * Each decode method returns false and leaves the sentence object cleared if the tokenizer doesn't
+ * hold a sentence of that type, or the sentence is missing required fields. Individual values that
+ * are empty or invalid are {@link NmeaSentence#UNKNOWN} or NaN.
+ */
+public final class NmeaDecoder {
+
+    private NmeaDecoder() {
+    }
+
+    /**
+     * Decodes a GSA sentence, e.g. "$GNGSA,A,3,03,14,16,22,23,26,,,,,,,3.6,1.8,3.1,1*3B"
+     */
+    public static boolean decodeGsa(NmeaTokenizer tokenizer, GsaSentence out) {
+        if (!start(tokenizer, "GSA", 18, out)) {
+            return false;
+        }
+        out.selectionMode = tokenizer.getChar(1, (char) 0);
+        out.fixType = tokenizer.getInt(2, NmeaSentence.UNKNOWN);
+        for (int field = 3; field < 3 + GsaSentence.MAX_SATELLITES; field++) {
+            int svid = tokenizer.getInt(field, NmeaSentence.UNKNOWN);
+            if (svid != NmeaSentence.UNKNOWN) {
+                out.svids[out.satelliteCount++] = svid;
+            }
+        }
+        out.pdop = tokenizer.getDouble(15);
+        out.hdop = tokenizer.getDouble(16);
+        out.vdop = tokenizer.getDouble(17);
+        out.systemId = tokenizer.getInt(18, NmeaSentence.UNKNOWN);
+        return true;
+    }
+
+    /**
+     * Decodes a GSV sentence, e.g. "$GPGSV,3,3,09,32,18,045,*4A". Sentences have 0 to 4 groups of
+     * 4 satellite fields, and an NMEA 4.10 signal ID field after the last group.
+     */
+    public static boolean decodeGsv(NmeaTokenizer tokenizer, GsvSentence out) {
+        if (!start(tokenizer, "GSV", 4, out)) {
+            return false;
+        }
+        out.messageCount = tokenizer.getInt(1, NmeaSentence.UNKNOWN);
+        out.messageNumber = tokenizer.getInt(2, NmeaSentence.UNKNOWN);
+        out.satellitesInView = tokenizer.getInt(3, NmeaSentence.UNKNOWN);
+        int satelliteFields = tokenizer.getFieldCount() - 4;
+        int groups = Math.min(satelliteFields / 4, GsvSentence.MAX_SATELLITES);
+        for (int i = 0; i < groups; i++) {
+            int field = 4 + i * 4;
+            int svid = tokenizer.getInt(field, NmeaSentence.UNKNOWN);
+            if (svid == NmeaSentence.UNKNOWN) {
+                // Some receivers pad the last sentence with empty groups
+                continue;
+            }
+            int index = out.satelliteCount++;
+            out.svids[index] = svid;
+            out.elevations[index] = tokenizer.getInt(field + 1, NmeaSentence.UNKNOWN);
+            out.azimuths[index] = tokenizer.getInt(field + 2, NmeaSentence.UNKNOWN);
+            out.cn0s[index] = tokenizer.getInt(field + 3, NmeaSentence.UNKNOWN);
+        }
+        if (satelliteFields % 4 == 1) {
+            out.signalId = tokenizer.getHex(tokenizer.getFieldCount() - 1, NmeaSentence.UNKNOWN);
+        }
+        return true;
+    }
+
+    /**
+     * Decodes an RMC sentence, e.g. "$GNRMC,001031.00,A,3747.6193,N,12226.1283,W,0.02,,181120,,,A,V*06"
+     */
+    public static boolean decodeRmc(NmeaTokenizer tokenizer, RmcSentence out) {
+        if (!start(tokenizer, "RMC", 10, out)) {
+            return false;
+        }
+        out.timeOfDayMillis = getTimeOfDayMillis(tokenizer, 1);
+        out.status = tokenizer.getChar(2, (char) 0);
+        out.latitude = getCoordinate(tokenizer, 3, 2);
+        out.longitude = getCoordinate(tokenizer, 5, 3);
+        out.speedKnots = tokenizer.getDouble(7);
+        out.course = tokenizer.getDouble(8);
+        if (tokenizer.getFieldLength(9) == 6) {
+            int date = tokenizer.getInt(9, NmeaSentence.UNKNOWN);
+            if (date != NmeaSentence.UNKNOWN) {
+                out.day = date / 10000;
+                out.month = date / 100 % 100;
+                int year = date % 100;
+                out.year = year < 80 ? 2000 + year : 1900 + year;
+            }
+        }
+        out.magneticVariation = tokenizer.getDouble(10);
+        if (tokenizer.getChar(11, 'E') == 'W') {
+            out.magneticVariation = -out.magneticVariation;
+        }
+        out.modeIndicator = tokenizer.getChar(12, (char) 0);
+        out.navigationalStatus = tokenizer.getChar(13, (char) 0);
+        return true;
+    }
+
+    /**
+     * Decodes a GST sentence, e.g. "$GPGST,172814.0,0.006,0.023,0.020,273.6,0.023,0.020,0.031*6A"
+     */
+    public static boolean decodeGst(NmeaTokenizer tokenizer, GstSentence out) {
+        if (!start(tokenizer, "GST", 9, out)) {
+            return false;
+        }
+        out.timeOfDayMillis = getTimeOfDayMillis(tokenizer, 1);
+        out.rangeRms = tokenizer.getDouble(2);
+        out.semiMajorStdDev = tokenizer.getDouble(3);
+        out.semiMinorStdDev = tokenizer.getDouble(4);
+        out.orientation = tokenizer.getDouble(5);
+        out.latitudeStdDev = tokenizer.getDouble(6);
+        out.longitudeStdDev = tokenizer.getDouble(7);
+        out.altitudeStdDev = tokenizer.getDouble(8);
+        return true;
+    }
+
+    /**
+     * Decodes a VTG sentence, e.g. "$GPVTG,054.7,T,034.4,M,005.5,N,010.2,K,A*2B"
+     */
+    public static boolean decodeVtg(NmeaTokenizer tokenizer, VtgSentence out) {
+        if (!start(tokenizer, "VTG", 9, out)) {
+            return false;
+        }
+        out.courseTrue = tokenizer.getDouble(1);
+        out.courseMagnetic = tokenizer.getDouble(3);
+        out.speedKnots = tokenizer.getDouble(5);
+        out.speedKmh = tokenizer.getDouble(7);
+        out.modeIndicator = tokenizer.getChar(9, (char) 0);
+        return true;
+    }
+
+    /**
+     * Decodes a ZDA sentence, e.g. "$GPZDA,201530.00,04,07,2002,00,00*60"
+     */
+    public static boolean decodeZda(NmeaTokenizer tokenizer, ZdaSentence out) {
+        if (!start(tokenizer, "ZDA", 5, out)) {
+            return false;
+        }
+        out.timeOfDayMillis = getTimeOfDayMillis(tokenizer, 1);
+        out.day = tokenizer.getInt(2, NmeaSentence.UNKNOWN);
+        out.month = tokenizer.getInt(3, NmeaSentence.UNKNOWN);
+        out.year = tokenizer.getInt(4, NmeaSentence.UNKNOWN);
+        out.localZoneHours = tokenizer.getInt(5, 0);
+        out.localZoneMinutes = tokenizer.getInt(6, 0);
+        if (out.localZoneHours < 0 && out.localZoneMinutes > 0) {
+            out.localZoneMinutes = -out.localZoneMinutes;
+        }
+        return true;
+    }
+
+    /**
+     * Decodes a GBS sentence, e.g. "$GPGBS,015509.00,-0.031,-0.186,0.219,19,0.000,-0.354,6.972,1,1*5B"
+     */
+    public static boolean decodeGbs(NmeaTokenizer tokenizer, GbsSentence out) {
+        if (!start(tokenizer, "GBS", 9, out)) {
+            return false;
+        }
+        out.timeOfDayMillis = getTimeOfDayMillis(tokenizer, 1);
+        out.latitudeError = tokenizer.getDouble(2);
+        out.longitudeError = tokenizer.getDouble(3);
+        out.altitudeError = tokenizer.getDouble(4);
+        out.failedSvid = tokenizer.getInt(5, NmeaSentence.UNKNOWN);
+        out.failureProbability = tokenizer.getDouble(6);
+        out.bias = tokenizer.getDouble(7);
+        out.biasStdDev = tokenizer.getDouble(8);
+        out.systemId = tokenizer.getInt(9, NmeaSentence.UNKNOWN);
+        out.signalId = tokenizer.getHex(10, NmeaSentence.UNKNOWN);
+        return true;
+    }
+
+    /**
+     * Clears the sentence object and sets the talker if the tokenizer holds a sentence of the
+     * provided type with at least the required number of fields
+     */
+    private static boolean start(NmeaTokenizer tokenizer, String type, int minFieldCount, NmeaSentence out) {
+        out.reset();
+        if (!tokenizer.isSentenceType(type) || tokenizer.getFieldCount() < minFieldCount) {
+            return false;
+        }
+        out.talker = NmeaTalker.fromAddress(tokenizer);
+        return true;
+    }
+
+    /**
+     * Parses a UTC time field in hhmmss.ss format
+     *
+     * @return milliseconds since midnight, or NmeaSentence.UNKNOWN if the field is empty or invalid
+     */
+    static int getTimeOfDayMillis(NmeaTokenizer tokenizer, int field) {
+        double time = tokenizer.getDouble(field);
+        if (Double.isNaN(time) || time < 0) {
+            return NmeaSentence.UNKNOWN;
+        }
+        long millis = Math.round(time * 1000);
+        long hours = millis / 10000000;
+        long minutes = millis / 100000 % 100;
+        long secondsMillis = millis % 100000;
+        if (hours > 23 || minutes > 59 || secondsMillis > 60999) {
+            return NmeaSentence.UNKNOWN;
+        }
+        return (int) (hours * 3600000 + minutes * 60000 + secondsMillis);
+    }
+
+    /**
+     * Parses a latitude (ddmm.mm) or longitude (dddmm.mm) field followed by a hemisphere field
+     *
+     * @param degreeDigits number of digits of the degrees - 2 for latitude or 3 for longitude
+     * @return the coordinate in decimal degrees, negative for south or west, or NaN if the field is
+     * empty or invalid
+     */
+    static double getCoordinate(NmeaTokenizer tokenizer, int field, int degreeDigits) {
+        double value = tokenizer.getDouble(field);
+        if (Double.isNaN(value) || value < 0 || tokenizer.getFieldLength(field) < degreeDigits) {
+            return Double.NaN;
+        }
+        double degrees = Math.floor(value / 100);
+        double coordinate = degrees + (value - degrees * 100) / 60;
+        char hemisphere = tokenizer.getChar(field + 1, (char) 0);
+        return hemisphere == 'S' || hemisphere == 'W' ? -coordinate : coordinate;
+    }
+}
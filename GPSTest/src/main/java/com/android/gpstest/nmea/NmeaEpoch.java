@@ -0,0 +1,282 @@
+/*
+ * Copyright (C) 2021 Sean J. Barbeau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.gpstest.nmea;
+
+import com.android.gpstest.model.GnssType;
+
+/**
+ * An immutable snapshot of the NMEA sentences output by a receiver for one epoch, assembled by
+ * {@link NmeaEpochAssembler}. Values that weren't in any sentence of the epoch are NaN, or
+ * {@link NmeaSentence#UNKNOWN} for integers.
+ */
+public final class NmeaEpoch {
+
+    private final long timestamp;
+    private final int timeOfDayMillis;
+    private final int sentenceCount;
+
+    private final double latitude;
+    private final double longitude;
+    private final double altitudeMsl;
+    private final int fixQuality;
+    private final int satellitesUsed;
+    private final double speedKnots;
+    private final double course;
+
+    private final double pdop;
+    private final double hdop;
+    private final double vdop;
+
+    private final double rangeRms;
+    private final double semiMajorStdDev;
+    private final double semiMinorStdDev;
+    private final double orientation;
+    private final double latitudeStdDev;
+    private final double longitudeStdDev;
+    private final double altitudeStdDev;
+
+    private final int satelliteCount;
+    private final GnssType[] gnssTypes;
+    private final int[] svids;
+    private final int[] signalIds;
+    private final int[] elevations;
+    private final int[] azimuths;
+    private final int[] cn0s;
+    private final boolean[] usedInFix;
+
+    /**
+     * Copies the values of the epoch from the assembler, which is re-used for the next epoch
+     */
+    NmeaEpoch(NmeaEpochAssembler a) {
+        timestamp = a.timestamp;
+        timeOfDayMillis = a.timeOfDayMillis;
+        sentenceCount = a.sentenceCount;
+        latitude = a.latitude;
+        longitude = a.longitude;
+        altitudeMsl = a.altitudeMsl;
+        fixQuality = a.fixQuality;
+        satellitesUsed = a.satellitesUsed;
+        speedKnots = a.speedKnots;
+        course = a.course;
+        pdop = a.pdop;
+        hdop = a.hdop;
+        vdop = a.vdop;
+        rangeRms = a.rangeRms;
+        semiMajorStdDev = a.semiMajorStdDev;
+        semiMinorStdDev = a.semiMinorStdDev;
+        orientation = a.orientation;
+        latitudeStdDev = a.latitudeStdDev;
+        longitudeStdDev = a.longitudeStdDev;
+        altitudeStdDev = a.altitudeStdDev;
+        satelliteCount = a.satelliteCount;
+        gnssTypes = new GnssType[satelliteCount];
+        svids = new int[satelliteCount];
+        signalIds = new int[satelliteCount];
+        elevations = new int[satelliteCount];
+        azimuths = new int[satelliteCount];
+        cn0s = new int[satelliteCount];
+        usedInFix = new boolean[satelliteCount];
+        System.arraycopy(a.gnssTypes, 0, gnssTypes, 0, satelliteCount);
+        System.arraycopy(a.svids, 0, svids, 0, satelliteCount);
+        System.arraycopy(a.signalIds, 0, signalIds, 0, satelliteCount);
+        System.arraycopy(a.elevations, 0, elevations, 0, satelliteCount);
+        System.arraycopy(a.azimuths, 0, azimuths, 0, satelliteCount);
+        System.arraycopy(a.cn0s, 0, cn0s, 0, satelliteCount);
+        System.arraycopy(a.usedInFix, 0, usedInFix, 0, satelliteCount);
+    }
+
+    /**
+     * @return timestamp of the first sentence of the epoch, as provided by the platform
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * @return UTC time of the epoch in milliseconds since midnight, or UNKNOWN
+     */
+    public int getTimeOfDayMillis() {
+        return timeOfDayMillis;
+    }
+
+    /**
+     * @return the number of sentences in the epoch
+     */
+    public int getSentenceCount() {
+        return sentenceCount;
+    }
+
+    /**
+     * @return latitude in decimal degrees from GGA, GNS or RMC, negative for south
+     */
+    public double getLatitude() {
+        return latitude;
+    }
+
+    /**
+     * @return longitude in decimal degrees from GGA, GNS or RMC, negative for west
+     */
+    public double getLongitude() {
+        return longitude;
+    }
+
+    /**
+     * @return altitude above mean sea level (geoid) in meters from GGA or GNS
+     */
+    public double getAltitudeMsl() {
+        return altitudeMsl;
+    }
+
+    /**
+     * @return GGA fix quality indicator (0 for no fix), or UNKNOWN
+     */
+    public int getFixQuality() {
+        return fixQuality;
+    }
+
+    /**
+     * @return number of satellites used in the fix from GGA or GNS, or UNKNOWN
+     */
+    public int getSatellitesUsed() {
+        return satellitesUsed;
+    }
+
+    public double getSpeedKnots() {
+        return speedKnots;
+    }
+
+    /**
+     * @return course over ground in degrees from true north
+     */
+    public double getCourse() {
+        return course;
+    }
+
+    public double getPdop() {
+        return pdop;
+    }
+
+    /**
+     * @return HDOP from GSA, or from GGA/GNS if the epoch doesn't have a GSA sentence
+     */
+    public double getHdop() {
+        return hdop;
+    }
+
+    public double getVdop() {
+        return vdop;
+    }
+
+    /**
+     * @return true if the epoch has a GST sentence with an error ellipse
+     */
+    public boolean hasErrorEllipse() {
+        return !Double.isNaN(semiMajorStdDev) && !Double.isNaN(semiMinorStdDev);
+    }
+
+    public double getRangeRms() {
+        return rangeRms;
+    }
+
+    /**
+     * @return standard deviation of the semi-major axis of the GST error ellipse, in meters
+     */
+    public double getSemiMajorStdDev() {
+        return semiMajorStdDev;
+    }
+
+    /**
+     * @return standard deviation of the semi-minor axis of the GST error ellipse, in meters
+     */
+    public double getSemiMinorStdDev() {
+        return semiMinorStdDev;
+    }
+
+    /**
+     * @return orientation of the semi-major axis of the GST error ellipse, in degrees from true
+     * north
+     */
+    public double getOrientation() {
+        return orientation;
+    }
+
+    public double getLatitudeStdDev() {
+        return latitudeStdDev;
+    }
+
+    public double getLongitudeStdDev() {
+        return longitudeStdDev;
+    }
+
+    public double getAltitudeStdDev() {
+        return altitudeStdDev;
+    }
+
+    /**
+     * @return the number of satellite signals from the GSV sentences of the epoch
+     */
+    public int getSatelliteCount() {
+        return satelliteCount;
+    }
+
+    public GnssType getGnssType(int index) {
+        checkIndex(index);
+        return gnssTypes[index];
+    }
+
+    public int getSvid(int index) {
+        checkIndex(index);
+        return svids[index];
+    }
+
+    /**
+     * @return the NMEA 4.10 signal ID, or UNKNOWN
+     */
+    public int getSignalId(int index) {
+        checkIndex(index);
+        return signalIds[index];
+    }
+
+    public int getElevation(int index) {
+        checkIndex(index);
+        return elevations[index];
+    }
+
+    public int getAzimuth(int index) {
+        checkIndex(index);
+        return azimuths[index];
+    }
+
+    public int getCn0(int index) {
+        checkIndex(index);
+        return cn0s[index];
+    }
+
+    /**
+     * @return true if the satellite is listed in a GSA sentence of the epoch
+     */
+    public boolean isUsedInFix(int index) {
+        checkIndex(index);
+        return usedInFix[index];
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= satelliteCount) {
+            throw new IndexOutOfBoundsException("index " + index + ", count " + satelliteCount);
+        }
+    }
+}
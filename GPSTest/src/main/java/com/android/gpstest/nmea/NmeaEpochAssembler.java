@@ -0,0 +1,319 @@
+/*
+ * Copyright (C) 2021 Sean J. Barbeau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.gpstest.nmea;
+
+import com.android.gpstest.model.GnssType;
+
+import java.util.Arrays;
+
+/**
+ * Groups the NMEA sentences output by a receiver for each epoch (typically 10 to 40 sentences per
+ * second), and passes one immutable {@link NmeaEpoch} snapshot per epoch to a listener, so the
+ * UI can be updated once per epoch instead of once per sentence.
+ *
+ * GGA, GNS, RMC, GSA, GSV and GST sentences from any talker are used - other sentences are
+ * ignored. A new epoch starts when a sentence has a UTC time that's different from the time of
+ * the current epoch, or when a sentence arrives more than {@link #getMaxGapMillis()} after the
+ * previous one. Sentences without a time (GSA and GSV) are added to the current epoch. An epoch is
+ * passed to the listener when the first sentence of the next epoch arrives, or when
+ * {@link #flush()} is called.
+ *
+ * Implements {@link NmeaRouter.Handler} so it can be subscribed to a router with
+ * {@link #subscribeTo(NmeaRouter)}. Decoding re-uses the same objects for each sentence, so only
+ * the snapshot is allocated for each epoch. Not thread-safe.
+ */
+public final class NmeaEpochAssembler implements NmeaRouter.Handler {
+
+    /**
+     * Receives an epoch after all of its sentences have been assembled
+     */
+    public interface Listener {
+        void onEpoch(NmeaEpoch epoch);
+    }
+
+    /**
+     * Default maximum time between the timestamps of sentences of the same epoch
+     */
+    public static final long DEFAULT_MAX_GAP_MILLIS = 250;
+
+    private static final int INITIAL_SATELLITE_CAPACITY = 64;
+
+    private static final String[] SENTENCE_TYPES = {"GGA", "GNS", "RMC", "GSA", "GSV", "GST"};
+
+    private final Listener listener;
+    private final long maxGapMillis;
+
+    private final NmeaTokenizer tokenizer = new NmeaTokenizer();
+    private final GsaSentence gsa = new GsaSentence();
+    private final GsvSentence gsv = new GsvSentence();
+    private final RmcSentence rmc = new RmcSentence();
+    private final GstSentence gst = new GstSentence();
+
+    // Values of the current epoch, read by NmeaEpoch when the epoch is complete
+    long timestamp;
+    private long lastTimestamp;
+    int timeOfDayMillis;
+    int sentenceCount;
+    double latitude;
+    double longitude;
+    double altitudeMsl;
+    int fixQuality;
+    int satellitesUsed;
+    double speedKnots;
+    double course;
+    double pdop;
+    double hdop;
+    double vdop;
+    double rangeRms;
+    double semiMajorStdDev;
+    double semiMinorStdDev;
+    double orientation;
+    double latitudeStdDev;
+    double longitudeStdDev;
+    double altitudeStdDev;
+
+    int satelliteCount;
+    GnssType[] gnssTypes = new GnssType[INITIAL_SATELLITE_CAPACITY];
+    int[] svids = new int[INITIAL_SATELLITE_CAPACITY];
+    int[] signalIds = new int[INITIAL_SATELLITE_CAPACITY];
+    int[] elevations = new int[INITIAL_SATELLITE_CAPACITY];
+    int[] azimuths = new int[INITIAL_SATELLITE_CAPACITY];
+    int[] cn0s = new int[INITIAL_SATELLITE_CAPACITY];
+    boolean[] usedInFix = new boolean[INITIAL_SATELLITE_CAPACITY];
+
+    // Satellites listed in GSA sentences, matched to the GSV satellites when the epoch is complete
+    private int usedCount;
+    private GnssType[] usedGnssTypes = new GnssType[INITIAL_SATELLITE_CAPACITY];
+    private int[] usedSvids = new int[INITIAL_SATELLITE_CAPACITY];
+
+    public NmeaEpochAssembler(Listener listener) {
+        this(listener, DEFAULT_MAX_GAP_MILLIS);
+    }
+
+    /**
+     * @param maxGapMillis maximum time between the timestamps of sentences of the same epoch
+     */
+    public NmeaEpochAssembler(Listener listener, long maxGapMillis) {
+        this.listener = listener;
+        this.maxGapMillis = maxGapMillis;
+        reset();
+    }
+
+    public long getMaxGapMillis() {
+        return maxGapMillis;
+    }
+
+    /**
+     * Subscribes this assembler to all of the sentence types it uses - GGA, GNS, RMC, GSA, GSV and
+     * GST from any talker
+     */
+    public void subscribeTo(NmeaRouter router) {
+        for (String type : SENTENCE_TYPES) {
+            router.subscribeType(type, this);
+        }
+    }
+
+    /**
+     * Splits the sentence into fields and adds it to the current epoch
+     */
+    public void add(CharSequence sentence, long timestamp) {
+        tokenizer.tokenize(sentence);
+        onSentence(tokenizer, timestamp);
+    }
+
+    /**
+     * Adds a sentence that has already been split into fields to the current epoch, first passing
+     * the current epoch to the listener if the sentence starts a new epoch
+     */
+    @Override
+    public void onSentence(NmeaTokenizer tokenizer, long timestamp) {
+        if (tokenizer.isSentenceType("GGA") || tokenizer.isSentenceType("GNS")) {
+            int time = NmeaDecoder.getTimeOfDayMillis(tokenizer, 1);
+            startSentence(time, timestamp);
+            addFix(tokenizer);
+        } else if (NmeaDecoder.decodeRmc(tokenizer, rmc)) {
+            startSentence(rmc.timeOfDayMillis, timestamp);
+            if (Double.isNaN(latitude)) {
+                latitude = rmc.latitude;
+                longitude = rmc.longitude;
+            }
+            speedKnots = rmc.speedKnots;
+            course = rmc.course;
+        } else if (NmeaDecoder.decodeGst(tokenizer, gst)) {
+            startSentence(gst.timeOfDayMillis, timestamp);
+            rangeRms = gst.rangeRms;
+            semiMajorStdDev = gst.semiMajorStdDev;
+            semiMinorStdDev = gst.semiMinorStdDev;
+            orientation = gst.orientation;
+            latitudeStdDev = gst.latitudeStdDev;
+            longitudeStdDev = gst.longitudeStdDev;
+            altitudeStdDev = gst.altitudeStdDev;
+        } else if (NmeaDecoder.decodeGsa(tokenizer, gsa)) {
+            startSentence(NmeaSentence.UNKNOWN, timestamp);
+            addGsa();
+        } else if (NmeaDecoder.decodeGsv(tokenizer, gsv)) {
+            startSentence(NmeaSentence.UNKNOWN, timestamp);
+            addGsv();
+        }
+    }
+
+    /**
+     * Passes the current epoch to the listener, if it has any sentences
+     */
+    public void flush() {
+        if (sentenceCount == 0) {
+            return;
+        }
+        for (int i = 0; i < satelliteCount; i++) {
+            usedInFix[i] = isUsed(gnssTypes[i], svids[i]);
+        }
+        NmeaEpoch epoch = new NmeaEpoch(this);
+        reset();
+        listener.onEpoch(epoch);
+    }
+
+    /**
+     * Starts a new epoch first if the sentence doesn't belong to the current one, and then counts
+     * the sentence in the current epoch
+     *
+     * @param time UTC time of the sentence in milliseconds since midnight, or UNKNOWN
+     */
+    private void startSentence(int time, long timestamp) {
+        if (sentenceCount > 0) {
+            boolean isNewTime = time != NmeaSentence.UNKNOWN && timeOfDayMillis != NmeaSentence.UNKNOWN
+                    && time != timeOfDayMillis;
+            if (isNewTime || timestamp - lastTimestamp > maxGapMillis) {
+                flush();
+            }
+        }
+        if (sentenceCount == 0) {
+            this.timestamp = timestamp;
+        }
+        if (timeOfDayMillis == NmeaSentence.UNKNOWN) {
+            timeOfDayMillis = time;
+        }
+        lastTimestamp = timestamp;
+        sentenceCount++;
+    }
+
+    /**
+     * Adds the values of a GGA or GNS sentence. Both have the time, position, number of
+     * satellites, HDOP and altitude in the same fields.
+     */
+    private void addFix(NmeaTokenizer tokenizer) {
+        double lat = NmeaDecoder.getCoordinate(tokenizer, 2, 2);
+        if (!Double.isNaN(lat)) {
+            latitude = lat;
+            longitude = NmeaDecoder.getCoordinate(tokenizer, 4, 3);
+        }
+        if (tokenizer.isSentenceType("GGA")) {
+            fixQuality = tokenizer.getInt(6, NmeaSentence.UNKNOWN);
+        }
+        satellitesUsed = tokenizer.getInt(7, satellitesUsed);
+        if (Double.isNaN(hdop)) {
+            hdop = tokenizer.getDouble(8);
+        }
+        double altitude = tokenizer.getDouble(9);
+        if (!Double.isNaN(altitude)) {
+            altitudeMsl = altitude;
+        }
+    }
+
+    private void addGsa() {
+        if (!Double.isNaN(gsa.pdop)) {
+            pdop = gsa.pdop;
+            hdop = gsa.hdop;
+            vdop = gsa.vdop;
+        }
+        GnssType gnssType = gsa.getGnssType();
+        for (int i = 0; i < gsa.satelliteCount; i++) {
+            if (usedCount == usedSvids.length) {
+                usedSvids = Arrays.copyOf(usedSvids, usedCount * 2);
+                usedGnssTypes = Arrays.copyOf(usedGnssTypes, usedCount * 2);
+            }
+            usedSvids[usedCount] = gsa.svids[i];
+            usedGnssTypes[usedCount] = gnssType;
+            usedCount++;
+        }
+    }
+
+    private void addGsv() {
+        GnssType gnssType = gsv.getGnssType();
+        for (int i = 0; i < gsv.satelliteCount; i++) {
+            if (satelliteCount == svids.length) {
+                growSatellites();
+            }
+            gnssTypes[satelliteCount] = gnssType;
+            svids[satelliteCount] = gsv.svids[i];
+            signalIds[satelliteCount] = gsv.signalId;
+            elevations[satelliteCount] = gsv.elevations[i];
+            azimuths[satelliteCount] = gsv.azimuths[i];
+            cn0s[satelliteCount] = gsv.cn0s[i];
+            satelliteCount++;
+        }
+    }
+
+    /**
+     * @return true if a GSA sentence of the epoch lists the satellite. GSA sentences from the GN
+     * talker without a system ID don't have a constellation, so only the ID is compared.
+     */
+    private boolean isUsed(GnssType gnssType, int svid) {
+        for (int i = 0; i < usedCount; i++) {
+            if (usedSvids[i] == svid
+                    && (usedGnssTypes[i] == gnssType || usedGnssTypes[i] == GnssType.UNKNOWN)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void growSatellites() {
+        int capacity = svids.length * 2;
+        gnssTypes = Arrays.copyOf(gnssTypes, capacity);
+        svids = Arrays.copyOf(svids, capacity);
+        signalIds = Arrays.copyOf(signalIds, capacity);
+        elevations = Arrays.copyOf(elevations, capacity);
+        azimuths = Arrays.copyOf(azimuths, capacity);
+        cn0s = Arrays.copyOf(cn0s, capacity);
+        usedInFix = Arrays.copyOf(usedInFix, capacity);
+    }
+
+    private void reset() {
+        timestamp = 0;
+        timeOfDayMillis = NmeaSentence.UNKNOWN;
+        sentenceCount = 0;
+        latitude = Double.NaN;
+        longitude = Double.NaN;
+        altitudeMsl = Double.NaN;
+        fixQuality = NmeaSentence.UNKNOWN;
+        satellitesUsed = NmeaSentence.UNKNOWN;
+        speedKnots = Double.NaN;
+        course = Double.NaN;
+        pdop = Double.NaN;
+        hdop = Double.NaN;
+        vdop = Double.NaN;
+        rangeRms = Double.NaN;
+        semiMajorStdDev = Double.NaN;
+        semiMinorStdDev = Double.NaN;
+        orientation = Double.NaN;
+        latitudeStdDev = Double.NaN;
+        longitudeStdDev = Double.NaN;
+        altitudeStdDev = Double.NaN;
+        satelliteCount = 0;
+        usedCount = 0;
+    }
+}
@@ -0,0 +1,195 @@
+/*
+ * Copyright (C) 2021 Sean J. Barbeau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.gpstest.nmea;
+
+/**
+ * Dispatches NMEA sentences to the handlers subscribed to their address. The address of each
+ * sentence is packed into an int by {@link NmeaAddress} and looked up in a hash table in constant
+ * time, so adding sentence types doesn't add a comparison for every sentence. Sentences without a
+ * subscribed handler are dropped before they are split into fields.
+ *
+ * Handlers can subscribe to a full address (e.g., "GNGGA") or to a sentence type from any talker
+ * (e.g., "GSA" for $GPGSA, $GLGSA, $GNGSA, etc.). Each sentence is tokenized once and passed to
+ * all of its handlers. Not thread-safe - subscribe and route on the same thread.
+ */
+public final class NmeaRouter {
+
+    /**
+     * Receives the sentences for the addresses it's subscribed to
+     */
+    public interface Handler {
+        /**
+         * @param tokenizer holds the sentence, which is valid only until this method returns
+         * @param timestamp timestamp of the sentence, as provided to {@link #route(CharSequence, long)}
+         */
+        void onSentence(NmeaTokenizer tokenizer, long timestamp);
+    }
+
+    private static final Handler[] NO_HANDLERS = new Handler[0];
+
+    private final NmeaTokenizer tokenizer = new NmeaTokenizer();
+    private final HandlerTable addressHandlers = new HandlerTable();
+    private final HandlerTable typeHandlers = new HandlerTable();
+
+    /**
+     * Subscribes a handler to sentences with the full address, like "GNGGA" or "PUBX"
+     *
+     * @throws IllegalArgumentException if the address isn't a valid NMEA address
+     */
+    public void subscribe(String address, Handler handler) {
+        addressHandlers.add(toKey(address), handler);
+    }
+
+    /**
+     * Subscribes a handler to a three-character sentence type, like "GSA", from any talker
+     *
+     * @throws IllegalArgumentException if the type isn't three valid characters
+     */
+    public void subscribeType(String type, Handler handler) {
+        if (type.length() != 3) {
+            throw new IllegalArgumentException("Sentence type must have 3 characters: " + type);
+        }
+        typeHandlers.add(toKey(type), handler);
+    }
+
+    /**
+     * Removes all subscriptions of the handler
+     */
+    public void unsubscribe(Handler handler) {
+        addressHandlers.remove(handler);
+        typeHandlers.remove(handler);
+    }
+
+    /**
+     * Passes the sentence to the handlers subscribed to its address or sentence type
+     *
+     * @return true if the sentence was passed to at least one handler, false if it was dropped
+     */
+    public boolean route(CharSequence sentence, long timestamp) {
+        int key = NmeaAddress.fromSentence(sentence);
+        if (key == NmeaAddress.NONE) {
+            return false;
+        }
+        Handler[] byAddress = addressHandlers.get(key);
+        Handler[] byType = typeHandlers.get(NmeaAddress.getSentenceType(key));
+        if (byAddress.length == 0 && byType.length == 0) {
+            return false;
+        }
+        tokenizer.tokenize(sentence);
+        for (Handler handler : byAddress) {
+            handler.onSentence(tokenizer, timestamp);
+        }
+        for (Handler handler : byType) {
+            handler.onSentence(tokenizer, timestamp);
+        }
+        return true;
+    }
+
+    private static int toKey(String address) {
+        int key = NmeaAddress.pack(address);
+        if (key == NmeaAddress.NONE) {
+            throw new IllegalArgumentException("Invalid NMEA address: " + address);
+        }
+        return key;
+    }
+
+    /**
+     * Open addressing hash table from address keys to the handlers for the key. Arrays of handlers
+     * are replaced rather than modified, so routing doesn't allocate.
+     */
+    private static final class HandlerTable {
+        private static final int INITIAL_CAPACITY = 16;
+
+        private int[] keys = new int[INITIAL_CAPACITY];
+        private Handler[][] handlers = new Handler[INITIAL_CAPACITY][];
+        private int size;
+
+        Handler[] get(int key) {
+            int slot = findSlot(keys, handlers, key);
+            return handlers[slot] != null ? handlers[slot] : NO_HANDLERS;
+        }
+
+        void add(int key, Handler handler) {
+            int slot = findSlot(keys, handlers, key);
+            Handler[] current = handlers[slot];
+            if (current == null) {
+                if ((size + 1) * 2 > keys.length) {
+                    grow();
+                    slot = findSlot(keys, handlers, key);
+                }
+                keys[slot] = key;
+                handlers[slot] = new Handler[]{handler};
+                size++;
+                return;
+            }
+            for (Handler h : current) {
+                if (h == handler) {
+                    return;
+                }
+            }
+            Handler[] updated = new Handler[current.length + 1];
+            System.arraycopy(current, 0, updated, 0, current.length);
+            updated[current.length] = handler;
+            handlers[slot] = updated;
+        }
+
+        /**
+         * Removes the handler from all keys. Keys stay in the table with no handlers, so the
+         * probe sequences of other keys aren't broken.
+         */
+        void remove(Handler handler) {
+            for (int slot = 0; slot < handlers.length; slot++) {
+                Handler[] current = handlers[slot];
+                if (current == null) {
+                    continue;
+                }
+                for (int i = 0; i < current.length; i++) {
+                    if (current[i] == handler) {
+                        Handler[] updated = new Handler[current.length - 1];
+                        System.arraycopy(current, 0, updated, 0, i);
+                        System.arraycopy(current, i + 1, updated, i, current.length - i - 1);
+                        handlers[slot] = updated;
+                        break;
+                    }
+                }
+            }
+        }
+
+        private void grow() {
+            int[] oldKeys = keys;
+            Handler[][] oldHandlers = handlers;
+            keys = new int[oldKeys.length * 2];
+            handlers = new Handler[oldKeys.length * 2][];
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldHandlers[i] != null) {
+                    int slot = findSlot(keys, handlers, oldKeys[i]);
+                    keys[slot] = oldKeys[i];
+                    handlers[slot] = oldHandlers[i];
+                }
+            }
+        }
+
+        private static int findSlot(int[] keys, Handler[][] handlers, int key) {
+            int mask = keys.length - 1;
+            int slot = (key * 0x9E3779B9) >>> 16 & mask;
+            while (handlers[slot] != null && keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright (C) 2021 Sean J. Barbeau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.gpstest.nmea;
+
+import com.android.gpstest.model.GnssType;
+
+/**
+ * Base class for the values decoded from an NMEA sentence by {@link NmeaDecoder}. Sentence
+ * objects are owned by the caller and re-used for each sentence, so decoding doesn't allocate.
+ *
+ * Integer values that are missing from the sentence are {@link #UNKNOWN}, and decimal values are
+ * NaN.
+ */
+public abstract class NmeaSentence {
+
+    /**
+     * Value of integer fields that are missing from the sentence
+     */
+    public static final int UNKNOWN = -1;
+
+    NmeaTalker talker = NmeaTalker.UNKNOWN;
+    int systemId = UNKNOWN;
+
+    /**
+     * Clears the values of the previous sentence
+     */
+    void reset() {
+        talker = NmeaTalker.UNKNOWN;
+        systemId = UNKNOWN;
+    }
+
+    public NmeaTalker getTalker() {
+        return talker;
+    }
+
+    /**
+     * @return the NMEA 4.10 GNSS system ID, or UNKNOWN if the sentence doesn't have one
+     */
+    public int getSystemId() {
+        return systemId;
+    }
+
+    /**
+     * Returns the constellation the sentence is for - from the system ID if the sentence has one,
+     * and otherwise from the talker ID
+     */
+    public GnssType getGnssType() {
+        if (systemId != UNKNOWN) {
+            return NmeaTalker.systemIdToGnssType(systemId);
+        }
+        return talker.getGnssType();
+    }
+}
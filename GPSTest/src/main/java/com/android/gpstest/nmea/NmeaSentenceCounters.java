@@ -0,0 +1,193 @@
+/*
+ * Copyright (C) 2021 Sean J. Barbeau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.gpstest.nmea;
+
+import java.util.Arrays;
+
+/**
+ * Counts the valid, invalid (checksum mismatch) and truncated NMEA sentences for each address
+ * (talker ID and sentence type, like "GPGSV"), to find receivers that output corrupt data.
+ * Sentences without a readable address are counted under {@link NmeaAddress#NONE}.
+ *
+ * {@link #check(CharSequence)} validates and counts a sentence in a single pass without
+ * allocating once each address has been seen, so it can be used to reject corrupt sentences before
+ * they are parsed. Not thread-safe - counters should be updated and read on the same thread.
+ */
+public final class NmeaSentenceCounters {
+
+    private static final int INITIAL_CAPACITY = 32;
+
+    // Open addressing hash table of address keys, with the counts for each key in parallel arrays
+    private int[] keys = new int[INITIAL_CAPACITY];
+    private long[] validCounts = new long[INITIAL_CAPACITY];
+    private long[] invalidCounts = new long[INITIAL_CAPACITY];
+    private long[] truncatedCounts = new long[INITIAL_CAPACITY];
+    private boolean[] used = new boolean[INITIAL_CAPACITY];
+    private int size;
+
+    /**
+     * Validates the checksum of a sentence and counts the result under the sentence's address
+     *
+     * @return {@link NmeaChecksum#VALID}, {@link NmeaChecksum#INVALID} or
+     * {@link NmeaChecksum#TRUNCATED}
+     */
+    public int check(CharSequence sentence) {
+        int status = NmeaChecksum.validate(sentence);
+        int key = NmeaAddress.fromSentence(sentence);
+        if (key == NmeaAddress.NONE && status == NmeaChecksum.VALID) {
+            // A checksum can't make up for an unreadable address
+            status = NmeaChecksum.TRUNCATED;
+        }
+        add(key, status);
+        return status;
+    }
+
+    /**
+     * Adds a sentence with the provided address key and checksum status to the counts
+     */
+    public void add(int key, int status) {
+        int slot = findSlot(key);
+        if (!used[slot]) {
+            if ((size + 1) * 2 > keys.length) {
+                grow();
+                slot = findSlot(key);
+            }
+            used[slot] = true;
+            keys[slot] = key;
+            size++;
+        }
+        switch (status) {
+            case NmeaChecksum.VALID:
+                validCounts[slot]++;
+                break;
+            case NmeaChecksum.INVALID:
+                invalidCounts[slot]++;
+                break;
+            default:
+                truncatedCounts[slot]++;
+                break;
+        }
+    }
+
+    private int findSlot(int key) {
+        int mask = keys.length - 1;
+        int slot = (key * 0x9E3779B9) >>> 16 & mask;
+        while (used[slot] && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void grow() {
+        int[] oldKeys = keys;
+        long[] oldValid = validCounts;
+        long[] oldInvalid = invalidCounts;
+        long[] oldTruncated = truncatedCounts;
+        boolean[] oldUsed = used;
+        int capacity = oldKeys.length * 2;
+        keys = new int[capacity];
+        validCounts = new long[capacity];
+        invalidCounts = new long[capacity];
+        truncatedCounts = new long[capacity];
+        used = new boolean[capacity];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldUsed[i]) {
+                int slot = findSlot(oldKeys[i]);
+                used[slot] = true;
+                keys[slot] = oldKeys[i];
+                validCounts[slot] = oldValid[i];
+                invalidCounts[slot] = oldInvalid[i];
+                truncatedCounts[slot] = oldTruncated[i];
+            }
+        }
+    }
+
+    /**
+     * @return the number of sentences with the address and a valid checksum
+     */
+    public long getValidCount(int key) {
+        int slot = findSlot(key);
+        return used[slot] ? validCounts[slot] : 0;
+    }
+
+    /**
+     * @return the number of sentences with the address and a checksum that doesn't match
+     */
+    public long getInvalidCount(int key) {
+        int slot = findSlot(key);
+        return used[slot] ? invalidCounts[slot] : 0;
+    }
+
+    /**
+     * @return the number of sentences with the address and a missing or incomplete checksum
+     */
+    public long getTruncatedCount(int key) {
+        int slot = findSlot(key);
+        return used[slot] ? truncatedCounts[slot] : 0;
+    }
+
+    /**
+     * @return the number of addresses that have been counted
+     */
+    public int getAddressCount() {
+        return size;
+    }
+
+    /**
+     * Returns the keys of all addresses that have been counted, for reading the counts of each
+     */
+    public int[] getAddressKeys() {
+        int[] result = new int[size];
+        int count = 0;
+        for (int i = 0; i < keys.length; i++) {
+            if (used[i]) {
+                result[count++] = keys[i];
+            }
+        }
+        return result;
+    }
+
+    public void clear() {
+        Arrays.fill(used, false);
+        Arrays.fill(validCounts, 0);
+        Arrays.fill(invalidCounts, 0);
+        Arrays.fill(truncatedCounts, 0);
+        size = 0;
+    }
+
+    /**
+     * @return the counts of each address with "valid/invalid/truncated", e.g.
+     * "GPGSV 120/2/0, GPGGA 40/0/1"
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < keys.length; i++) {
+            if (!used[i]) {
+                continue;
+            }
+            if (sb.length() > 0) {
+                sb.append(", ");
+            }
+            sb.append(keys[i] == NmeaAddress.NONE ? "?" : NmeaAddress.toString(keys[i]))
+                    .append(' ').append(validCounts[i])
+                    .append('/').append(invalidCounts[i])
+                    .append('/').append(truncatedCounts[i]);
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright (C) 2021 Sean J. Barbeau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.gpstest.nmea;
+
+import com.android.gpstest.model.GnssType;
+
+/**
+ * NMEA talker IDs of GNSS receivers - the two characters after the "$" in the address of a
+ * sentence, like "GP" in "$GPGGA"
+ */
+public enum NmeaTalker {
+    GP(GnssType.NAVSTAR),
+    GL(GnssType.GLONASS),
+    GA(GnssType.GALILEO),
+    GB(GnssType.BEIDOU),
+    BD(GnssType.BEIDOU),
+    GQ(GnssType.QZSS),
+    GI(GnssType.IRNSS),
+    /**
+     * Combined solution from more than one constellation
+     */
+    GN(GnssType.UNKNOWN),
+    UNKNOWN(GnssType.UNKNOWN);
+
+    private final GnssType gnssType;
+
+    NmeaTalker(GnssType gnssType) {
+        this.gnssType = gnssType;
+    }
+
+    /**
+     * @return the constellation of the talker, or GnssType.UNKNOWN for GN and unknown talkers
+     */
+    public GnssType getGnssType() {
+        return gnssType;
+    }
+
+    /**
+     * Returns the talker of the sentence held by the tokenizer, without allocating
+     *
+     * @return the talker, or UNKNOWN if the sentence doesn't have a known GNSS talker ID
+     */
+    public static NmeaTalker fromAddress(NmeaTokenizer tokenizer) {
+        if (tokenizer.getFieldLength(0) < 3) {
+            return UNKNOWN;
+        }
+        CharSequence sentence = tokenizer.getSentence();
+        int start = tokenizer.getFieldStart(0) + 1;
+        return fromChars(sentence.charAt(start), sentence.charAt(start + 1));
+    }
+
+    static NmeaTalker fromChars(char first, char second) {
+        switch (first) {
+            case 'G':
+                switch (second) {
+                    case 'P':
+                        return GP;
+                    case 'L':
+                        return GL;
+                    case 'A':
+                        return GA;
+                    case 'B':
+                        return GB;
+                    case 'Q':
+                        return GQ;
+                    case 'I':
+                        return GI;
+                    case 'N':
+                        return GN;
+                    default:
+                        return UNKNOWN;
+                }
+            case 'B':
+                return second == 'D' ? BD : UNKNOWN;
+            default:
+                return UNKNOWN;
+        }
+    }
+
+    /**
+     * Converts a GNSS system ID, added to GSA, GSV, GBS and other sentences in NMEA 4.10, to the
+     * constellation
+     *
+     * @return the constellation, or GnssType.UNKNOWN if the system ID isn't known
+     */
+    public static GnssType systemIdToGnssType(int systemId) {
+        switch (systemId) {
+            case 1:
+                return GnssType.NAVSTAR;
+            case 2:
+                return GnssType.GLONASS;
+            case 3:
+                return GnssType.GALILEO;
+            case 4:
+                return GnssType.BEIDOU;
+            case 5:
+                return GnssType.QZSS;
+            case 6:
+                return GnssType.IRNSS;
+            default:
+                return GnssType.UNKNOWN;
+        }
+    }
+}
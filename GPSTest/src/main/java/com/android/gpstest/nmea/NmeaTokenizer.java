@@ -0,0 +1,334 @@
+/*
+ * Copyright (C) 2021 Sean J. Barbeau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.gpstest.nmea;
+
+/**
+ * Splits an NMEA sentence into its comma-separated fields without allocating - the start and end
+ * of each field within the original CharSequence are recorded, and numbers are parsed directly
+ * from those ranges. A tokenizer is re-used for each sentence by calling {@link #tokenize(CharSequence)},
+ * and isn't thread-safe.
+ *
+ * Fields are numbered the same way as the result of {@code sentence.split(",")} - field 0 is the
+ * address including the start delimiter (e.g., "$GPGGA"), and field 1 is the first data field.
+ * Leading and trailing whitespace (e.g., the CR LF line ending) and the "*hh" checksum aren't part
+ * of any field. For example, "$GPGSA,A,3,,,2.5,1.3,2.1*39" has 7 fields, where field 3 is empty
+ * and field 6 is "2.1".
+ */
+public final class NmeaTokenizer {
+
+    private static final int INITIAL_CAPACITY = 24;
+
+    /**
+     * Largest mantissa that a double holds exactly (2^53)
+     */
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+
+    /**
+     * Powers of ten that a double holds exactly
+     */
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private CharSequence sentence;
+    private int[] fieldStarts = new int[INITIAL_CAPACITY];
+    private int[] fieldEnds = new int[INITIAL_CAPACITY];
+    private int fieldCount;
+    private int checksumIndex;
+
+    /**
+     * Splits the provided sentence into fields, replacing the fields of the previous sentence. The
+     * sentence is referenced, not copied, until the next call.
+     *
+     * @param sentence an NMEA sentence, with or without the checksum and line ending
+     * @return the number of fields in the sentence (0 if the sentence is empty)
+     */
+    public int tokenize(CharSequence sentence) {
+        this.sentence = sentence;
+        fieldCount = 0;
+        checksumIndex = -1;
+        int start = 0;
+        int end = sentence.length();
+        while (start < end && sentence.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && sentence.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        if (start == end) {
+            return 0;
+        }
+        int fieldStart = start;
+        for (int i = start; i < end; i++) {
+            char c = sentence.charAt(i);
+            if (c == ',') {
+                addField(fieldStart, i);
+                fieldStart = i + 1;
+            } else if (c == '*') {
+                checksumIndex = i;
+                end = i;
+                break;
+            }
+        }
+        addField(fieldStart, end);
+        return fieldCount;
+    }
+
+    private void addField(int start, int end) {
+        if (fieldCount == fieldStarts.length) {
+            int[] starts = new int[fieldCount * 2];
+            int[] ends = new int[fieldCount * 2];
+            System.arraycopy(fieldStarts, 0, starts, 0, fieldCount);
+            System.arraycopy(fieldEnds, 0, ends, 0, fieldCount);
+            fieldStarts = starts;
+            fieldEnds = ends;
+        }
+        fieldStarts[fieldCount] = start;
+        fieldEnds[fieldCount] = end;
+        fieldCount++;
+    }
+
+    /**
+     * @return the sentence passed to the last call to {@link #tokenize(CharSequence)}
+     */
+    public CharSequence getSentence() {
+        return sentence;
+    }
+
+    public int getFieldCount() {
+        return fieldCount;
+    }
+
+    /**
+     * @return the index of the '*' that starts the checksum in the sentence, or -1 if the sentence
+     * doesn't have a checksum
+     */
+    public int getChecksumIndex() {
+        return checksumIndex;
+    }
+
+    /**
+     * @return the index in the sentence of the first character of the field
+     */
+    public int getFieldStart(int field) {
+        checkField(field);
+        return fieldStarts[field];
+    }
+
+    /**
+     * @return the index in the sentence after the last character of the field
+     */
+    public int getFieldEnd(int field) {
+        checkField(field);
+        return fieldEnds[field];
+    }
+
+    /**
+     * @return the number of characters in the field, or 0 if the sentence doesn't have the field
+     */
+    public int getFieldLength(int field) {
+        return field < fieldCount ? fieldEnds[field] - fieldStarts[field] : 0;
+    }
+
+    /**
+     * @return true if the field is empty or the sentence doesn't have the field
+     */
+    public boolean isEmpty(int field) {
+        return getFieldLength(field) == 0;
+    }
+
+    /**
+     * @return the first character of the field, or {@code defaultValue} if the field is empty
+     */
+    public char getChar(int field, char defaultValue) {
+        return isEmpty(field) ? defaultValue : sentence.charAt(fieldStarts[field]);
+    }
+
+    /**
+     * @return true if the field has exactly the same characters as {@code value}
+     */
+    public boolean fieldEquals(int field, CharSequence value) {
+        int length = getFieldLength(field);
+        if (field >= fieldCount || length != value.length()) {
+            return false;
+        }
+        int start = fieldStarts[field];
+        for (int i = 0; i < length; i++) {
+            if (sentence.charAt(start + i) != value.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns true if the sentence type - the last three characters of the address, like "GGA" in
+     * "$GPGGA" - equals {@code type}, regardless of the talker ID
+     */
+    public boolean isSentenceType(CharSequence type) {
+        int length = type.length();
+        // Address is the start delimiter, a talker ID of at least 2 characters, and the type
+        if (getFieldLength(0) < 3 + length) {
+            return false;
+        }
+        int end = fieldEnds[0];
+        int start = end - length;
+        for (int i = 0; i < length; i++) {
+            if (sentence.charAt(start + i) != type.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the field as a String. This allocates, so prefer the other accessors where possible.
+     *
+     * @return the field, or an empty String if the sentence doesn't have the field
+     */
+    public String getString(int field) {
+        if (field >= fieldCount) {
+            return "";
+        }
+        return sentence.subSequence(fieldStarts[field], fieldEnds[field]).toString();
+    }
+
+    /**
+     * Parses the field as a decimal number like "-24.0" or "2804.732835". The result is the same as
+     * {@link Double#parseDouble(String)} for the field.
+     *
+     * @return the value of the field, or {@link Double#NaN} if the field is empty, missing, or isn't
+     * a number
+     */
+    public double getDouble(int field) {
+        if (isEmpty(field)) {
+            return Double.NaN;
+        }
+        int i = fieldStarts[field];
+        int end = fieldEnds[field];
+        boolean negative = false;
+        char c = sentence.charAt(i);
+        if (c == '-' || c == '+') {
+            negative = c == '-';
+            i++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int fractionDigits = 0;
+        boolean isFraction = false;
+        for (; i < end; i++) {
+            c = sentence.charAt(i);
+            if (c >= '0' && c <= '9') {
+                if (mantissa >= MAX_EXACT_MANTISSA / 10) {
+                    // Too many digits for an exact result
+                    return parseDoubleSlow(field);
+                }
+                mantissa = mantissa * 10 + (c - '0');
+                digits++;
+                if (isFraction) {
+                    fractionDigits++;
+                }
+            } else if (c == '.' && !isFraction) {
+                isFraction = true;
+            } else if (c == 'e' || c == 'E') {
+                return parseDoubleSlow(field);
+            } else {
+                return Double.NaN;
+            }
+        }
+        if (digits == 0 || fractionDigits >= POWERS_OF_TEN.length) {
+            return digits == 0 ? Double.NaN : parseDoubleSlow(field);
+        }
+        // Both values are exact, so the division is correctly rounded, the same as parseDouble()
+        double value = mantissa / POWERS_OF_TEN[fractionDigits];
+        return negative ? -value : value;
+    }
+
+    private double parseDoubleSlow(int field) {
+        try {
+            return Double.parseDouble(getString(field));
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+
+    /**
+     * Parses the field as a decimal integer like "08" or "-3"
+     *
+     * @return the value of the field, or {@code defaultValue} if the field is empty, missing, isn't
+     * an integer, or doesn't fit in an int
+     */
+    public int getInt(int field, int defaultValue) {
+        if (isEmpty(field)) {
+            return defaultValue;
+        }
+        int i = fieldStarts[field];
+        int end = fieldEnds[field];
+        boolean negative = false;
+        char c = sentence.charAt(i);
+        if (c == '-' || c == '+') {
+            negative = c == '-';
+            i++;
+        }
+        if (i == end) {
+            return defaultValue;
+        }
+        long value = 0;
+        for (; i < end; i++) {
+            c = sentence.charAt(i);
+            if (c < '0' || c > '9') {
+                return defaultValue;
+            }
+            value = value * 10 + (c - '0');
+            if (value > (long) Integer.MAX_VALUE + 1) {
+                return defaultValue;
+            }
+        }
+        value = negative ? -value : value;
+        return value > Integer.MAX_VALUE ? defaultValue : (int) value;
+    }
+
+    /**
+     * Parses the field as a hexadecimal integer like "1F"
+     *
+     * @return the value of the field, or {@code defaultValue} if the field is empty, missing, isn't
+     * a hexadecimal integer, or has more than 8 digits
+     */
+    public int getHex(int field, int defaultValue) {
+        int length = getFieldLength(field);
+        if (length == 0 || length > 8) {
+            return defaultValue;
+        }
+        int start = fieldStarts[field];
+        int value = 0;
+        for (int i = start; i < start + length; i++) {
+            int digit = NmeaChecksum.hexValue(sentence.charAt(i));
+            if (digit < 0) {
+                return defaultValue;
+            }
+            value = (value << 4) | digit;
+        }
+        return value;
+    }
+
+    private void checkField(int field) {
+        if (field < 0 || field >= fieldCount) {
+            throw new IndexOutOfBoundsException("field " + field + ", count " + fieldCount);
+        }
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright (C) 2021 Sean J. Barbeau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.gpstest.nmea;
+
+
+/**
+ * Recommended minimum specific GNSS data (RMC) - time, date, position, speed and course. For
+ * example, "$GNRMC,001031.00,A,3747.6193,N,12226.1283,W,0.02,,181120,,,A,V*06", where the last field
+ * is the NMEA 4.10 navigational status.
+ */
+public final class RmcSentence extends NmeaSentence {
+
+    int timeOfDayMillis;
+    char status;
+    double latitude;
+    double longitude;
+    double speedKnots;
+    double course;
+    int day;
+    int month;
+    int year;
+    double magneticVariation;
+    char modeIndicator;
+    char navigationalStatus;
+
+    @Override
+    void reset() {
+        super.reset();
+        timeOfDayMillis = UNKNOWN;
+        status = 0;
+        latitude = Double.NaN;
+        longitude = Double.NaN;
+        speedKnots = Double.NaN;
+        course = Double.NaN;
+        day = UNKNOWN;
+        month = UNKNOWN;
+        year = UNKNOWN;
+        magneticVariation = Double.NaN;
+        modeIndicator = 0;
+        navigationalStatus = 0;
+    }
+
+    /**
+     * @return UTC time of the fix in milliseconds since midnight, or UNKNOWN
+     */
+    public int getTimeOfDayMillis() {
+        return timeOfDayMillis;
+    }
+
+    /**
+     * @return 'A' if the data is valid or 'V' for a navigation receiver warning, or 0 if unknown
+     */
+    public char getStatus() {
+        return status;
+    }
+
+    /**
+     * @return latitude in decimal degrees, negative for south
+     */
+    public double getLatitude() {
+        return latitude;
+    }
+
+    /**
+     * @return longitude in decimal degrees, negative for west
+     */
+    public double getLongitude() {
+        return longitude;
+    }
+
+    public double getSpeedKnots() {
+        return speedKnots;
+    }
+
+    /**
+     * @return course over ground in degrees from true north
+     */
+    public double getCourse() {
+        return course;
+    }
+
+    public int getDay() {
+        return day;
+    }
+
+    public int getMonth() {
+        return month;
+    }
+
+    /**
+     * @return four-digit year (from the two-digit year in the sentence), or UNKNOWN
+     */
+    public int getYear() {
+        return year;
+    }
+
+    /**
+     * @return magnetic variation in degrees, negative for west
+     */
+    public double getMagneticVariation() {
+        return magneticVariation;
+    }
+
+    /**
+     * @return positioning mode indicator (e.g., 'A' autonomous, 'D' differential, 'N' not valid),
+     * or 0 if the sentence doesn't have one
+     */
+    public char getModeIndicator() {
+        return modeIndicator;
+    }
+
+    /**
+     * @return NMEA 4.10 navigational status ('S' safe, 'C' caution, 'U' unsafe, 'V' not valid), or
+     * 0 if the sentence doesn't have one
+     */
+    public char getNavigationalStatus() {
+        return navigationalStatus;
+    }
+}
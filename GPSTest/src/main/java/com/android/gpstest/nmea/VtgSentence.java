@@ -0,0 +1,70 @@
+/*
+ * Copyright (C) 2021 Sean J. Barbeau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.gpstest.nmea;
+
+
+/**
+ * Course over ground and ground speed (VTG). For example, "$GPVTG,054.7,T,034.4,M,005.5,N,010.2,K,A*2B".
+ */
+public final class VtgSentence extends NmeaSentence {
+
+    double courseTrue;
+    double courseMagnetic;
+    double speedKnots;
+    double speedKmh;
+    char modeIndicator;
+
+    @Override
+    void reset() {
+        super.reset();
+        courseTrue = Double.NaN;
+        courseMagnetic = Double.NaN;
+        speedKnots = Double.NaN;
+        speedKmh = Double.NaN;
+        modeIndicator = 0;
+    }
+
+    /**
+     * @return course over ground in degrees from true north
+     */
+    public double getCourseTrue() {
+        return courseTrue;
+    }
+
+    /**
+     * @return course over ground in degrees from magnetic north
+     */
+    public double getCourseMagnetic() {
+        return courseMagnetic;
+    }
+
+    public double getSpeedKnots() {
+        return speedKnots;
+    }
+
+    public double getSpeedKmh() {
+        return speedKmh;
+    }
+
+    /**
+     * @return positioning mode indicator (e.g., 'A' autonomous, 'D' differential, 'N' not valid),
+     * or 0 if the sentence doesn't have one
+     */
+    public char getModeIndicator() {
+        return modeIndicator;
+    }
+}
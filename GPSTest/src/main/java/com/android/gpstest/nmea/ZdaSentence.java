@@ -0,0 +1,76 @@
+/*
+ * Copyright (C) 2021 Sean J. Barbeau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.gpstest.nmea;
+
+
+/**
+ * Time and date (ZDA). For example, "$GPZDA,201530.00,04,07,2002,00,00*60".
+ */
+public final class ZdaSentence extends NmeaSentence {
+
+    int timeOfDayMillis;
+    int day;
+    int month;
+    int year;
+    int localZoneHours;
+    int localZoneMinutes;
+
+    @Override
+    void reset() {
+        super.reset();
+        timeOfDayMillis = UNKNOWN;
+        day = UNKNOWN;
+        month = UNKNOWN;
+        year = UNKNOWN;
+        localZoneHours = 0;
+        localZoneMinutes = 0;
+    }
+
+    /**
+     * @return UTC time in milliseconds since midnight, or UNKNOWN
+     */
+    public int getTimeOfDayMillis() {
+        return timeOfDayMillis;
+    }
+
+    public int getDay() {
+        return day;
+    }
+
+    public int getMonth() {
+        return month;
+    }
+
+    public int getYear() {
+        return year;
+    }
+
+    /**
+     * @return hours of the local time zone offset from UTC (-13 to 13), or 0 if not provided
+     */
+    public int getLocalZoneHours() {
+        return localZoneHours;
+    }
+
+    /**
+     * @return minutes of the local time zone offset from UTC, with the same sign as the hours, or
+     * 0 if not provided
+     */
+    public int getLocalZoneMinutes() {
+        return localZoneMinutes;
+    }
+}
@@ -15,18 +15,125 @@
  */
 package com.android.gpstest.util;
 
+import com.android.gpstest.model.CarrierBand;
+import com.android.gpstest.model.GnssType;
 import com.android.gpstest.model.SatelliteStatus;
+import com.android.gpstest.model.SbasType;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static com.android.gpstest.model.CarrierBand.B1;
+import static com.android.gpstest.model.CarrierBand.B1C;
+import static com.android.gpstest.model.CarrierBand.B1_2;
+import static com.android.gpstest.model.CarrierBand.B2;
+import static com.android.gpstest.model.CarrierBand.B2A;
+import static com.android.gpstest.model.CarrierBand.B3;
+import static com.android.gpstest.model.CarrierBand.E1;
+import static com.android.gpstest.model.CarrierBand.E5;
+import static com.android.gpstest.model.CarrierBand.E5A;
+import static com.android.gpstest.model.CarrierBand.E5B;
+import static com.android.gpstest.model.CarrierBand.E6;
+import static com.android.gpstest.model.CarrierBand.L1;
+import static com.android.gpstest.model.CarrierBand.L1_C;
+import static com.android.gpstest.model.CarrierBand.L2;
+import static com.android.gpstest.model.CarrierBand.L3;
+import static com.android.gpstest.model.CarrierBand.L4;
+import static com.android.gpstest.model.CarrierBand.L5;
+import static com.android.gpstest.model.CarrierBand.L6;
+import static com.android.gpstest.model.CarrierBand.S;
 
 public class CarrierFreqUtils {
 
     /**
      * An unknown carrier frequency that doesn't match any known frequencies
      */
-    public static String CF_UNKNOWN = "unknown";
+    public static String CF_UNKNOWN = CarrierBand.UNKNOWN.getLabel();
     /**
      * Carrier frequencies aren't supported by the device for this signal
      */
-    public static String CF_UNSUPPORTED = "unsupported";
+    public static String CF_UNSUPPORTED = CarrierBand.UNSUPPORTED.getLabel();
+
+    private static final float TOLERANCE_MHZ = 1f;
+
+    /**
+     * Bands of each GNSS constellation, indexed by GnssType ordinal. SBAS bands depend on the SBAS
+     * system, so they are in SBAS_BANDS instead.
+     */
+    private static final BandTable[] GNSS_BANDS = new BandTable[GnssType.values().length];
+
+    /**
+     * Bands of each SBAS system, indexed by SbasType ordinal
+     */
+    private static final BandTable[] SBAS_BANDS = new BandTable[SbasType.values().length];
+
+    static {
+        // Frequencies are listed in order of precedence, for frequencies that are within the
+        // tolerance of two bands (GPS L3 and L4)
+        GNSS_BANDS[GnssType.NAVSTAR.ordinal()] = new BandTable()
+                .add(1575.42f, L1)
+                .add(1227.6f, L2)
+                .add(1381.05f, L3)
+                .add(1379.913f, L4)
+                .add(1176.45f, L5)
+                .build();
+        GNSS_BANDS[GnssType.GLONASS.ordinal()] = new BandTable()
+                // Actual range is 1598.0625 MHz to 1605.375, but allow padding for float comparisons - #103
+                .addRange(1598.0f, 1606.0f, L1)
+                // Actual range is 1242.9375 MHz to 1248.625, but allow padding for float comparisons - #103
+                .addRange(1242.0f, 1249.0f, L2)
+                // Exact range is unclear - appears to be 1202.025 - 1207.14 - #103
+                .add(1207.14f, L3)
+                .add(1176.45f, L5)
+                .add(1575.42f, L1_C)
+                .build();
+        GNSS_BANDS[GnssType.BEIDOU.ordinal()] = new BandTable()
+                .add(1561.098f, B1)
+                .add(1589.742f, B1_2)
+                .add(1575.42f, B1C)
+                .add(1207.14f, B2)
+                .add(1176.45f, B2A)
+                .add(1268.52f, B3)
+                .build();
+        GNSS_BANDS[GnssType.QZSS.ordinal()] = new BandTable()
+                .add(1575.42f, L1)
+                .add(1227.6f, L2)
+                .add(1176.45f, L5)
+                .add(1278.75f, L6)
+                .build();
+        GNSS_BANDS[GnssType.GALILEO.ordinal()] = new BandTable()
+                .add(1575.42f, E1)
+                .add(1191.795f, E5)
+                .add(1176.45f, E5A)
+                .add(1207.14f, E5B)
+                .add(1278.75f, E6)
+                .build();
+        GNSS_BANDS[GnssType.IRNSS.ordinal()] = new BandTable()
+                .add(1176.45f, L5)
+                .add(2492.028f, S)
+                .build();
+
+        // EGNOS - https://gssc.esa.int/navipedia/index.php/EGNOS_Space_Segment
+        SBAS_BANDS[SbasType.EGNOS.ordinal()] = new BandTable()
+                .add(1575.42f, L1)
+                .add(1176.45f, L5)
+                .build();
+        // MSAS (Japan) - https://gssc.esa.int/navipedia/index.php/MSAS_Space_Segment
+        SBAS_BANDS[SbasType.MSAS.ordinal()] = new BandTable()
+                .add(1575.42f, L1)
+                .add(1176.45f, L5)
+                .build();
+        // GAGAN (India)
+        SBAS_BANDS[SbasType.GAGAN.ordinal()] = new BandTable()
+                .add(1575.42f, L1)
+                .build();
+        SBAS_BANDS[SbasType.WAAS.ordinal()] = new BandTable()
+                .add(1575.42f, L1)
+                .add(1176.45f, L5)
+                .build();
+    }
 
     /**
      * Returns the label that should be displayed for a given GNSS constellation, svid, and carrier
@@ -37,139 +144,46 @@ public class CarrierFreqUtils {
      * frequency in MHz, "unsupported" if CF aren't supported on this device, or "unknown" if no carrier frequency label is found
      */
     public static String getCarrierFrequencyLabel(SatelliteStatus status) {
+        return status.getCarrierBand().getLabel();
+    }
+
+    /**
+     * Classifies the carrier frequency of a signal. SatelliteStatus.getCarrierBand() caches the
+     * result, and should be used instead of calling this directly.
+     *
+     * @param status Satellite signal to get the carrier band for
+     * @return the band of the signal's carrier frequency, CarrierBand.UNSUPPORTED if CF aren't
+     * supported on this device, or CarrierBand.UNKNOWN if the frequency doesn't match a known band
+     */
+    public static CarrierBand getCarrierBand(SatelliteStatus status) {
         if (!SatelliteUtils.isGnssCarrierFrequenciesSupported() || !status.getHasCarrierFrequency()) {
-            return CF_UNSUPPORTED;
+            return CarrierBand.UNSUPPORTED;
         }
-        float carrierFrequencyMhz = MathUtils.toMhz(status.getCarrierFrequencyHz());
-        int svid = status.getSvid();
-
-        final float TOLERANCE_MHZ = 1f;
-        switch (status.getGnssType()) {
-            case NAVSTAR:
-                if (MathUtils.fuzzyEquals(carrierFrequencyMhz, 1575.42f, TOLERANCE_MHZ)) {
-                    return "L1";
-                } else if (MathUtils.fuzzyEquals(carrierFrequencyMhz, 1227.6f, TOLERANCE_MHZ)) {
-                    return "L2";
-                } else if (MathUtils.fuzzyEquals(carrierFrequencyMhz, 1381.05f, TOLERANCE_MHZ)) {
-                    return "L3";
-                } else if (MathUtils.fuzzyEquals(carrierFrequencyMhz, 1379.913f, TOLERANCE_MHZ)) {
-                    return "L4";
-                } else if (MathUtils.fuzzyEquals(carrierFrequencyMhz, 1176.45f, TOLERANCE_MHZ)) {
-                    return "L5";
-                }
-                break;
-            case GLONASS:
-                if (carrierFrequencyMhz >= 1598.0f && carrierFrequencyMhz <= 1606.0f) {
-                    // Actual range is 1598.0625 MHz to 1605.375, but allow padding for float comparisons - #103
-                    return "L1";
-                } else if (carrierFrequencyMhz >= 1242.0f && carrierFrequencyMhz <= 1249.0f) {
-                    // Actual range is 1242.9375 MHz to 1248.625, but allow padding for float comparisons - #103
-                    return "L2";
-                } else if (MathUtils.fuzzyEquals(carrierFrequencyMhz, 1207.14f, TOLERANCE_MHZ)) {
-                    // Exact range is unclear - appears to be 1202.025 - 1207.14 - #103
-                    return "L3";
-                } else if (MathUtils.fuzzyEquals(carrierFrequencyMhz, 1176.45f, TOLERANCE_MHZ)) {
-                    return "L5";
-                } else if (MathUtils.fuzzyEquals(carrierFrequencyMhz, 1575.42f, TOLERANCE_MHZ)) {
-                    return "L1-C";
-                }
-                break;
-            case BEIDOU:
-                if (MathUtils.fuzzyEquals(carrierFrequencyMhz, 1561.098f, TOLERANCE_MHZ)) {
-                    return "B1";
-                } else if (MathUtils.fuzzyEquals(carrierFrequencyMhz, 1589.742f, TOLERANCE_MHZ)) {
-                    return "B1-2";
-                } else if (MathUtils.fuzzyEquals(carrierFrequencyMhz, 1575.42f, TOLERANCE_MHZ)) {
-                    return "B1C";
-                } else if (MathUtils.fuzzyEquals(carrierFrequencyMhz, 1207.14f, TOLERANCE_MHZ)) {
-                    return "B2";
-                } else if (MathUtils.fuzzyEquals(carrierFrequencyMhz, 1176.45f, TOLERANCE_MHZ)) {
-                    return "B2a";
-                } else if (MathUtils.fuzzyEquals(carrierFrequencyMhz, 1268.52f, TOLERANCE_MHZ)) {
-                    return "B3";
-                }
-                break;
-            case QZSS:
-                if (MathUtils.fuzzyEquals(carrierFrequencyMhz, 1575.42f, TOLERANCE_MHZ)) {
-                    return "L1";
-                } else if (MathUtils.fuzzyEquals(carrierFrequencyMhz, 1227.6f, TOLERANCE_MHZ)) {
-                    return "L2";
-                } else if (MathUtils.fuzzyEquals(carrierFrequencyMhz, 1176.45f, TOLERANCE_MHZ)) {
-                    return "L5";
-                } else if (MathUtils.fuzzyEquals(carrierFrequencyMhz, 1278.75f, TOLERANCE_MHZ)) {
-                    return "L6";
-                }
-                break;
-            case GALILEO:
-                if (MathUtils.fuzzyEquals(carrierFrequencyMhz, 1575.42f, TOLERANCE_MHZ)) {
-                    return "E1";
-                } else if (MathUtils.fuzzyEquals(carrierFrequencyMhz, 1191.795f, TOLERANCE_MHZ)) {
-                    return "E5";
-                } else if (MathUtils.fuzzyEquals(carrierFrequencyMhz, 1176.45f, TOLERANCE_MHZ)) {
-                    return "E5a";
-                } else if (MathUtils.fuzzyEquals(carrierFrequencyMhz, 1207.14f, TOLERANCE_MHZ)) {
-                    return "E5b";
-                } else if (MathUtils.fuzzyEquals(carrierFrequencyMhz, 1278.75f, TOLERANCE_MHZ)) {
-                    return "E6";
-                }
-                break;
-            case IRNSS:
-                if (MathUtils.fuzzyEquals(carrierFrequencyMhz, 1176.45f, TOLERANCE_MHZ)) {
-                    return "L5";
-                } else if (MathUtils.fuzzyEquals(carrierFrequencyMhz, 2492.028f, TOLERANCE_MHZ)) {
-                    return "S";
-                }
-                break;
-            case SBAS:
-                if (svid == 120 || svid == 123 || svid == 126 || svid == 136) {
-                    // EGNOS - https://gssc.esa.int/navipedia/index.php/EGNOS_Space_Segment
-                    if (MathUtils.fuzzyEquals(carrierFrequencyMhz, 1575.42f, TOLERANCE_MHZ)) {
-                        return "L1";
-                    } else if (MathUtils.fuzzyEquals(carrierFrequencyMhz, 1176.45f, TOLERANCE_MHZ)) {
-                        return "L5";
-                    }
-                } else if (svid == 129 || svid == 137) {
-                    // MSAS (Japan) - https://gssc.esa.int/navipedia/index.php/MSAS_Space_Segment
-                    if (MathUtils.fuzzyEquals(carrierFrequencyMhz, 1575.42f, TOLERANCE_MHZ)) {
-                        return "L1";
-                    } else if (MathUtils.fuzzyEquals(carrierFrequencyMhz, 1176.45f, TOLERANCE_MHZ)) {
-                        return "L5";
-                    }
-                } else if (svid == 127 || svid == 128 || svid == 139) {
-                    // GnssType.GAGAN (India)
-                    if (MathUtils.fuzzyEquals(carrierFrequencyMhz, 1575.42f, TOLERANCE_MHZ)) {
-                        return "L1";
-                    }
-                } else if (svid == 133) {
-                    // GnssType.WAAS;
-                    if (MathUtils.fuzzyEquals(carrierFrequencyMhz, 1575.42f, TOLERANCE_MHZ)) {
-                        return "L1";
-                    } else if (MathUtils.fuzzyEquals(carrierFrequencyMhz, 1176.45f, TOLERANCE_MHZ)) {
-                        return "L5";
-                    }
-                } else if (svid == 135) {
-                    // GnssType.WAAS;
-                    if (MathUtils.fuzzyEquals(carrierFrequencyMhz, 1575.42f, TOLERANCE_MHZ)) {
-                        return "L1";
-                    } else if (MathUtils.fuzzyEquals(carrierFrequencyMhz, 1176.45f, TOLERANCE_MHZ)) {
-                        return "L5";
-                    }
-                } else if (svid == 138) {
-                    // GnssType.WAAS;
-                    if (MathUtils.fuzzyEquals(carrierFrequencyMhz, 1575.42f, TOLERANCE_MHZ)) {
-                        return "L1";
-                    } else if (MathUtils.fuzzyEquals(carrierFrequencyMhz, 1176.45f, TOLERANCE_MHZ)) {
-                        return "L5";
-                    }
-                }
-                break;
-            case UNKNOWN:
-                break;
-            default:
-                break;
+        return getCarrierBand(status.getGnssType(), status.getSvid(),
+                MathUtils.toMhz(status.getCarrierFrequencyHz()));
+    }
+
+    /**
+     * Classifies a carrier frequency using the band table of the constellation, or of the SBAS
+     * system for SBAS satellites
+     *
+     * @param gnssType            constellation of the satellite
+     * @param svid                svid of the satellite, used to find the SBAS system
+     * @param carrierFrequencyMhz carrier frequency of the signal in MHz
+     * @return the band of the carrier frequency, or CarrierBand.UNKNOWN if the frequency doesn't
+     * match a known band
+     */
+    public static CarrierBand getCarrierBand(GnssType gnssType, int svid, float carrierFrequencyMhz) {
+        BandTable table;
+        if (gnssType == GnssType.SBAS) {
+            table = SBAS_BANDS[SatelliteUtils.getSbasConstellationType(svid).ordinal()];
+        } else {
+            table = GNSS_BANDS[gnssType.ordinal()];
         }
-        // Unknown carrier frequency for given constellation and svid
-        return CF_UNKNOWN;
+        if (table == null) {
+            return CarrierBand.UNKNOWN;
+        }
+        return table.find(carrierFrequencyMhz);
     }
 
     /**
@@ -185,4 +199,92 @@ public class CarrierFreqUtils {
     public static boolean isPrimaryCarrier(String label) {
         return label.equals("L1") || label.equals("E1") || label.equals("L1-C") || label.equals("B1");
     }
+
+    /**
+     * Frequency ranges of the bands of one constellation, sorted by frequency so a carrier
+     * frequency can be classified with a binary search
+     */
+    private static final class BandTable {
+
+        private List<Row> rows = new ArrayList<>();
+
+        private double[] mins;
+        private double[] maxs;
+        private CarrierBand[] bands;
+
+        private static final class Row implements Comparable<Row> {
+            double min;
+            double max;
+            final CarrierBand band;
+            final int precedence;
+
+            Row(double min, double max, CarrierBand band, int precedence) {
+                this.min = min;
+                this.max = max;
+                this.band = band;
+                this.precedence = precedence;
+            }
+
+            @Override
+            public int compareTo(Row other) {
+                return Double.compare(min, other.min);
+            }
+        }
+
+        /**
+         * Adds a band for frequencies within TOLERANCE_MHZ of the provided frequency
+         */
+        BandTable add(float frequencyMhz, CarrierBand band) {
+            return addRange(frequencyMhz - (double) TOLERANCE_MHZ, frequencyMhz + (double) TOLERANCE_MHZ, band);
+        }
+
+        /**
+         * Adds a band for frequencies from minMhz to maxMhz inclusive
+         */
+        BandTable addRange(double minMhz, double maxMhz, CarrierBand band) {
+            rows.add(new Row(minMhz, maxMhz, band, rows.size()));
+            return this;
+        }
+
+        BandTable build() {
+            Collections.sort(rows);
+            // Where neighboring ranges overlap, the band that was added first keeps the overlap
+            for (int i = 0; i < rows.size() - 1; i++) {
+                Row low = rows.get(i);
+                Row high = rows.get(i + 1);
+                if (low.max >= high.min) {
+                    if (low.precedence < high.precedence) {
+                        high.min = Math.nextUp(low.max);
+                    } else {
+                        low.max = Math.nextAfter(high.min, Double.NEGATIVE_INFINITY);
+                    }
+                }
+            }
+            mins = new double[rows.size()];
+            maxs = new double[rows.size()];
+            bands = new CarrierBand[rows.size()];
+            for (int i = 0; i < rows.size(); i++) {
+                mins[i] = rows.get(i).min;
+                maxs[i] = rows.get(i).max;
+                bands[i] = rows.get(i).band;
+            }
+            rows = null;
+            return this;
+        }
+
+        /**
+         * @return the band that contains the frequency, or CarrierBand.UNKNOWN
+         */
+        CarrierBand find(double frequencyMhz) {
+            int i = Arrays.binarySearch(mins, frequencyMhz);
+            if (i < 0) {
+                // Index of the last range that starts below the frequency
+                i = -i - 2;
+            }
+            if (i >= 0 && frequencyMhz <= maxs[i]) {
+                return bands[i];
+            }
+            return CarrierBand.UNKNOWN;
+        }
+    }
 }
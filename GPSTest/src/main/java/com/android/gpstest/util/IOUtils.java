@@ -37,6 +37,7 @@ import com.android.gpstest.Application;
 import com.android.gpstest.BuildConfig;
 import com.android.gpstest.R;
 import com.android.gpstest.io.FileToDeleteFilter;
+import com.android.gpstest.io.LogSessionManifest;
 import com.google.zxing.integration.android.IntentIntegrator;
 
 import java.io.File;
@@ -44,7 +45,11 @@ import java.io.FileFilter;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
 
 import static com.android.gpstest.util.LocationUtils.isValidLatitude;
 import static com.android.gpstest.util.LocationUtils.isValidLongitude;
@@ -61,7 +66,8 @@ public class IOUtils {
 
     private static StringBuilder mNmeaOutput = new StringBuilder();
 
-    private static final int MAX_FILES_STORED = 100;
+    // Maximum number of logs kept by deleteOldFiles() - a rotated session is one log
+    private static final int MAX_LOGS_STORED = 100;
 
     /**
      * Returns the ground truth location encapsulated in the Intent if the provided Intent has a
@@ -296,7 +302,9 @@ public class IOUtils {
     }
 
     /**
-     * Deletes old files in the given baseDirectory, except the fileNotToDelete
+     * Deletes empty files and the oldest logs in the given baseDirectory, except the logs of the
+     * fileNotToDelete. All segments of a rotated session, and their manifest and indexes, are
+     * counted and deleted as one log.
      *
      * @param baseDirectory   base directory in which to delete files
      * @param fileNotToDelete file not to delete
@@ -308,14 +316,36 @@ public class IOUtils {
         for (File pastFile : baseDirectory.listFiles(filter)) {
             pastFile.delete();
         }
-        // - Trim the number of files with data
-        File[] pastFiles = baseDirectory.listFiles();
-        int filesToDeleteCount = pastFiles.length - MAX_FILES_STORED;
-        if (filesToDeleteCount > 0) {
-            Arrays.sort(pastFiles);
-            for (int i = 0; i < filesToDeleteCount; ++i) {
-                pastFiles[i].delete();
+        // - Trim the number of logs with data, deleting the segments, manifest and indexes of a log
+        // together. Log names start with the date, so the oldest logs are first.
+        Map<String, List<File>> logs = new TreeMap<>();
+        for (File pastFile : baseDirectory.listFiles()) {
+            String logName = LogSessionManifest.getLogName(pastFile);
+            List<File> logFiles = logs.get(logName);
+            if (logFiles == null) {
+                logFiles = new ArrayList<>();
+                logs.put(logName, logFiles);
             }
+            logFiles.add(pastFile);
+        }
+        Set<String> retainedLogs = new HashSet<>();
+        for (File file : fileNotToDelete) {
+            if (file != null) {
+                retainedLogs.add(LogSessionManifest.getLogName(file));
+            }
+        }
+        int logsToDeleteCount = logs.size() - MAX_LOGS_STORED;
+        for (Map.Entry<String, List<File>> log : logs.entrySet()) {
+            if (logsToDeleteCount <= 0) {
+                break;
+            }
+            if (retainedLogs.contains(log.getKey())) {
+                continue;
+            }
+            for (File file : log.getValue()) {
+                file.delete();
+            }
+            logsToDeleteCount--;
         }
     }
 
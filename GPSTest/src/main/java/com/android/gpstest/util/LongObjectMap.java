@@ -0,0 +1,213 @@
+/*
+ * Copyright (C) 2021 Sean J. Barbeau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.gpstest.util;
+
+import java.util.Arrays;
+
+/**
+ * A map from primitive long keys (such as a {@link com.android.gpstest.model.SatelliteKey}) to
+ * values, which doesn't box keys or allocate an entry per mapping.
+ *
+ * Entries are kept in insertion order in parallel arrays, and can be read by index with
+ * {@link #keyAt(int)} and {@link #valueAt(int)}. An open addressing hash table of indexes is used
+ * for lookups. {@link #remove(long)} moves the last entry into the index of the removed entry, so
+ * entries are only in insertion order until one is removed. Not thread-safe.
+ *
+ * @param <V> type of the values
+ */
+public final class LongObjectMap<V> {
+
+    private static final int INITIAL_CAPACITY = 8;
+
+    private long[] keys;
+    private Object[] values;
+    private int size;
+
+    // Index + 1 of the entry for each slot, or 0 for an empty slot. Always at least twice the size.
+    private int[] table;
+
+    public LongObjectMap() {
+        this(INITIAL_CAPACITY);
+    }
+
+    /**
+     * @param capacity expected number of entries - the map grows if more are added
+     */
+    public LongObjectMap(int capacity) {
+        capacity = Math.max(capacity, 1);
+        keys = new long[capacity];
+        values = new Object[capacity];
+        table = new int[tableSize(capacity)];
+    }
+
+    /**
+     * @return the value for the key, or null if the map doesn't contain the key
+     */
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        int index = table[findSlot(key)] - 1;
+        return index >= 0 ? (V) values[index] : null;
+    }
+
+    public boolean containsKey(long key) {
+        return table[findSlot(key)] != 0;
+    }
+
+    /**
+     * Maps the key to the value, replacing any existing value for the key
+     *
+     * @return the previous value for the key, or null if the map didn't contain the key
+     */
+    @SuppressWarnings("unchecked")
+    public V put(long key, V value) {
+        int slot = findSlot(key);
+        int index = table[slot] - 1;
+        if (index >= 0) {
+            V previous = (V) values[index];
+            values[index] = value;
+            return previous;
+        }
+        if (size == keys.length) {
+            grow();
+            slot = findSlot(key);
+        }
+        keys[size] = key;
+        values[size] = value;
+        size++;
+        table[slot] = size;
+        return null;
+    }
+
+    /**
+     * Removes the entry for the key. The last entry is moved to the index of the removed entry, so
+     * when iterating by index, iterate from the last index to remove entries as they are visited.
+     *
+     * @return the value for the key, or null if the map didn't contain the key
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(long key) {
+        int slot = findSlot(key);
+        int index = table[slot] - 1;
+        if (index < 0) {
+            return null;
+        }
+        V previous = (V) values[index];
+        deleteSlot(slot);
+        int last = size - 1;
+        if (index != last) {
+            keys[index] = keys[last];
+            values[index] = values[last];
+            table[findSlot(keys[index])] = index + 1;
+        }
+        values[last] = null;
+        size--;
+        return previous;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @param index index of the entry, from 0 to size() - 1, in insertion order
+     */
+    public long keyAt(int index) {
+        return keys[index];
+    }
+
+    /**
+     * @param index index of the entry, from 0 to size() - 1, in insertion order
+     */
+    @SuppressWarnings("unchecked")
+    public V valueAt(int index) {
+        return (V) values[index];
+    }
+
+    /**
+     * Removes all entries, keeping the capacity for re-use
+     */
+    public void clear() {
+        Arrays.fill(values, 0, size, null);
+        Arrays.fill(table, 0);
+        size = 0;
+    }
+
+    private int homeSlot(long key) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash >>> 32) & (table.length - 1);
+    }
+
+    private int findSlot(long key) {
+        int mask = table.length - 1;
+        int slot = homeSlot(key);
+        int index;
+        while ((index = table[slot] - 1) >= 0 && keys[index] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Empties a slot, moving back following entries of the same probe sequence so they can still
+     * be found
+     */
+    private void deleteSlot(int slot) {
+        int mask = table.length - 1;
+        int hole = slot;
+        int next = (hole + 1) & mask;
+        while (table[next] != 0) {
+            int home = homeSlot(keys[table[next] - 1]);
+            // The entry can fill the hole unless its home slot is after the hole
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                table[hole] = table[next];
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        table[hole] = 0;
+    }
+
+    private void grow() {
+        int capacity = keys.length * 2;
+        keys = Arrays.copyOf(keys, capacity);
+        values = Arrays.copyOf(values, capacity);
+        table = new int[tableSize(capacity)];
+        for (int i = 0; i < size; i++) {
+            table[findSlot(keys[i])] = i + 1;
+        }
+    }
+
+    private static int tableSize(int capacity) {
+        // Power of two at least twice the capacity, so slots are found quickly
+        return Integer.highestOneBit(capacity * 4 - 1);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("{");
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(keys[i]).append('=').append(values[i]);
+        }
+        return sb.append('}').toString();
+    }
+}
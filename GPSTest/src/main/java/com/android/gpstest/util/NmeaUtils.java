@@ -15,15 +15,34 @@
  */
 package com.android.gpstest.util;
 
-import android.text.TextUtils;
 import android.util.Log;
 
 import com.android.gpstest.model.DilutionOfPrecision;
+import com.android.gpstest.nmea.NmeaTokenizer;
 
+/**
+ * Helpers for reading values from NMEA sentences. Sentences are split into fields using an
+ * {@link NmeaTokenizer}, so a value can be read without allocating a String for each field.
+ */
 public class NmeaUtils {
 
     private static final String TAG = "NmeaUtils";
 
+    private static final int ALTITUDE_INDEX = 9;
+    private static final int PDOP_INDEX = 15;
+    private static final int HDOP_INDEX = 16;
+    private static final int VDOP_INDEX = 17;
+
+    /**
+     * Tokenizers for the String versions of the methods, so callers on any thread can use them
+     */
+    private static final ThreadLocal<NmeaTokenizer> TOKENIZER = new ThreadLocal<NmeaTokenizer>() {
+        @Override
+        protected NmeaTokenizer initialValue() {
+            return new NmeaTokenizer();
+        }
+    };
+
     /**
      * Given a $GPGGA, $GNGNS, or $GNGGA NMEA sentence, return the altitude above mean sea level (geoid
      * altitude),
@@ -44,32 +63,39 @@ public class NmeaUtils {
      * parsed
      */
     public static Double getAltitudeMeanSeaLevel(String nmeaSentence) {
-        final int ALTITUDE_INDEX = 9;
-        String[] tokens = nmeaSentence.split(",");
+        NmeaTokenizer tokenizer = TOKENIZER.get();
+        tokenizer.tokenize(nmeaSentence);
+        double altitude = getAltitudeMeanSeaLevel(tokenizer);
+        return Double.isNaN(altitude) ? null : altitude;
+    }
 
-        if (nmeaSentence.startsWith("$GPGGA") || nmeaSentence.startsWith("$GNGNS") || nmeaSentence.startsWith("$GNGGA")) {
-            String altitude;
-            try {
-                altitude = tokens[ALTITUDE_INDEX];
-            } catch (ArrayIndexOutOfBoundsException e) {
-                Log.e(TAG, "Bad NMEA sentence for geoid altitude - " + nmeaSentence + " :" + e);
-                return null;
+    /**
+     * Same as {@link #getAltitudeMeanSeaLevel(String)}, for a sentence that has already been split
+     * into fields
+     *
+     * @param tokenizer a tokenizer holding a $GPGGA, $GNGNS, or $GNGGA NMEA sentence
+     * @return the altitude above mean sea level (geoid altitude), or NaN if altitude can't be
+     * parsed
+     */
+    public static double getAltitudeMeanSeaLevel(NmeaTokenizer tokenizer) {
+        if (tokenizer.fieldEquals(0, "$GPGGA") || tokenizer.fieldEquals(0, "$GNGNS") || tokenizer.fieldEquals(0, "$GNGGA")) {
+            if (tokenizer.getFieldCount() <= ALTITUDE_INDEX) {
+                Log.e(TAG, "Bad NMEA sentence for geoid altitude - " + tokenizer.getSentence());
+                return Double.NaN;
             }
-            if (!TextUtils.isEmpty(altitude)) {
-                Double altitudeParsed = null;
-                try {
-                    altitudeParsed = Double.parseDouble(altitude);
-                } catch (NumberFormatException e) {
-                    Log.e(TAG, "Bad geoid altitude value of '" + altitude + "' in NMEA sentence " + nmeaSentence + " :" + e);
+            if (!tokenizer.isEmpty(ALTITUDE_INDEX)) {
+                double altitude = tokenizer.getDouble(ALTITUDE_INDEX);
+                if (Double.isNaN(altitude)) {
+                    Log.e(TAG, "Bad geoid altitude value of '" + tokenizer.getString(ALTITUDE_INDEX) + "' in NMEA sentence " + tokenizer.getSentence());
                 }
-                return altitudeParsed;
+                return altitude;
             } else {
-                Log.w(TAG, "Couldn't parse geoid altitude from NMEA: " + nmeaSentence);
-                return null;
+                Log.w(TAG, "Couldn't parse geoid altitude from NMEA: " + tokenizer.getSentence());
+                return Double.NaN;
             }
         } else {
-            Log.w(TAG, "Input must be $GPGGA, $GNGNS, or $GNGGA NMEA: " + nmeaSentence);
-            return null;
+            Log.w(TAG, "Input must be $GPGGA, $GNGNS, or $GNGGA NMEA: " + tokenizer.getSentence());
+            return Double.NaN;
         }
     }
 
@@ -88,43 +114,41 @@ public class NmeaUtils {
      * @return the dilution of precision, or null if dilution of precision can't be parsed
      */
     public static DilutionOfPrecision getDop(String nmeaSentence) {
-        final int PDOP_INDEX = 15;
-        final int HDOP_INDEX = 16;
-        final int VDOP_INDEX = 17;
-        String[] tokens = nmeaSentence.split(",");
+        NmeaTokenizer tokenizer = TOKENIZER.get();
+        tokenizer.tokenize(nmeaSentence);
+        return getDop(tokenizer);
+    }
 
-        if (nmeaSentence.startsWith("$GNGSA") || nmeaSentence.startsWith("$GPGSA")) {
-            String pdop, hdop, vdop;
-            try {
-                pdop = tokens[PDOP_INDEX];
-                hdop = tokens[HDOP_INDEX];
-                vdop = tokens[VDOP_INDEX];
-            } catch (ArrayIndexOutOfBoundsException e) {
-                Log.e(TAG, "Bad NMEA message for parsing DOP - " + nmeaSentence + " :" + e);
+    /**
+     * Same as {@link #getDop(String)}, for a sentence that has already been split into fields
+     *
+     * @param tokenizer a tokenizer holding a $GNGSA or $GPGSA NMEA sentence
+     * @return the dilution of precision, or null if dilution of precision can't be parsed
+     */
+    public static DilutionOfPrecision getDop(NmeaTokenizer tokenizer) {
+        if (tokenizer.fieldEquals(0, "$GNGSA") || tokenizer.fieldEquals(0, "$GPGSA")) {
+            if (tokenizer.getFieldCount() <= VDOP_INDEX) {
+                Log.e(TAG, "Bad NMEA message for parsing DOP - " + tokenizer.getSentence());
                 return null;
             }
 
-            // See https://github.com/barbeau/gpstest/issues/71#issuecomment-263169174
-            if (vdop.contains("*")) {
-                vdop = vdop.split("\\*")[0];
-            }
-
-            if (!TextUtils.isEmpty(pdop) && !TextUtils.isEmpty(hdop) && !TextUtils.isEmpty(vdop)) {
-                DilutionOfPrecision dop = null;
-                try {
-                    dop = new DilutionOfPrecision(Double.valueOf(pdop), Double.valueOf(hdop),
-                            Double.valueOf(vdop));
-                } catch (NumberFormatException e) {
+            // The checksum isn't part of the VDOP field - see https://github.com/barbeau/gpstest/issues/71#issuecomment-263169174
+            if (!tokenizer.isEmpty(PDOP_INDEX) && !tokenizer.isEmpty(HDOP_INDEX) && !tokenizer.isEmpty(VDOP_INDEX)) {
+                double pdop = tokenizer.getDouble(PDOP_INDEX);
+                double hdop = tokenizer.getDouble(HDOP_INDEX);
+                double vdop = tokenizer.getDouble(VDOP_INDEX);
+                if (Double.isNaN(pdop) || Double.isNaN(hdop) || Double.isNaN(vdop)) {
                     // See https://github.com/barbeau/gpstest/issues/71#issuecomment-263169174
-                    Log.e(TAG, "Invalid DOP values in NMEA: " + nmeaSentence);
+                    Log.e(TAG, "Invalid DOP values in NMEA: " + tokenizer.getSentence());
+                    return null;
                 }
-                return dop;
+                return new DilutionOfPrecision(pdop, hdop, vdop);
             } else {
-                Log.w(TAG, "Empty DOP values in NMEA: " + nmeaSentence);
+                Log.w(TAG, "Empty DOP values in NMEA: " + tokenizer.getSentence());
                 return null;
             }
         } else {
-            Log.w(TAG, "Input must be a $GNGSA NMEA: " + nmeaSentence);
+            Log.w(TAG, "Input must be a $GNGSA NMEA: " + tokenizer.getSentence());
             return null;
         }
     }
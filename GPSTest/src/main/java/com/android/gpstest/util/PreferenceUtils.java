@@ -23,6 +23,7 @@ import com.android.gpstest.Application;
 import com.android.gpstest.R;
 import com.android.gpstest.model.GnssType;
 
+import java.util.Collections;
 import java.util.LinkedHashSet;
 import java.util.Set;
 
@@ -36,6 +37,10 @@ public class PreferenceUtils {
     public static final int CAPABILITY_SUPPORTED = 1;
     public static final int CAPABILITY_LOCATION_DISABLED = 2;
 
+    // Last parsed GNSS filter preference, guarded by the class
+    private static String sGnssFilterString;
+    private static Set<GnssType> sGnssFilter = Collections.emptySet();
+
     /**
      * Gets the string description of a CAPABILITY_* constant
      * @param capability CAPABILITY_* constant defined in this class
@@ -184,15 +189,19 @@ public class PreferenceUtils {
 
     /**
      * Gets a set of GnssTypes that should have their satellites displayed that has been saved to preferences. (All are shown if empty or null)
-     * @return a set of GnssTypes that should have their satellites displayed that has been saved to preferences. (All are shown if empty or null)
+     * The filter is read for each satellite status, so the parsed set is cached until the preference changes.
+     * @return an unmodifiable set of GnssTypes that should have their satellites displayed that has been saved to preferences. (All are shown if empty or null)
      */
-    public static Set<GnssType> getGnssFilter() {
-        Set<GnssType> filter = new LinkedHashSet<>();
+    public static synchronized Set<GnssType> getGnssFilter() {
         Resources r = Application.get().getResources();
         String filterString = getString(r.getString(R.string.pref_key_default_sat_filter));
         if (filterString == null) {
-            return filter;
+            return Collections.emptySet();
         }
+        if (filterString.equals(sGnssFilterString)) {
+            return sGnssFilter;
+        }
+        Set<GnssType> filter = new LinkedHashSet<>();
         String[] parsedFilter = filterString.split(",");
         for (String s : parsedFilter) {
             GnssType gnssType = GnssType.fromString(s);
@@ -200,7 +209,9 @@ public class PreferenceUtils {
                 filter.add(gnssType);
             }
         }
-        return filter;
+        sGnssFilterString = filterString;
+        sGnssFilter = Collections.unmodifiableSet(filter);
+        return sGnssFilter;
     }
 
     /**
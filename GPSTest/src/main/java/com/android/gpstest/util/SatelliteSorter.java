@@ -0,0 +1,168 @@
+/*
+ * Copyright (C) 2021 Sean J. Barbeau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.gpstest.util;
+
+import com.android.gpstest.model.SatelliteStatus;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Sorts lists of signals in place by the sort orders in R.array.sort_sats, without allocating once
+ * its buffers are big enough for the lists. Not thread-safe.
+ *
+ * For each signal a single 64-bit key is computed that orders the signals by all of the fields of
+ * the sort order, with the signal's index in the list in the lowest bits. The keys are sorted as
+ * primitives, and the indexes are then read back from them to reorder the list. As the index is
+ * part of each key, signals with equal fields keep their order in the list.
+ */
+public final class SatelliteSorter {
+
+    // Below constants must match arrays.xml sort_sats order
+    public static final int SORT_CONSTELLATION = 0;
+    public static final int SORT_CARRIER_FREQUENCY = 1;
+    public static final int SORT_CN0 = 2;
+    public static final int SORT_USED = 3;
+    public static final int SORT_CONSTELLATION_CARRIER_FREQUENCY = 4;
+    public static final int SORT_CONSTELLATION_CN0 = 5;
+    public static final int SORT_CONSTELLATION_USED = 6;
+
+    // Key fields, from the most to the least significant. At most 5 + 32 + 10 + 16 = 63 bits are
+    // used, so keys are never negative.
+    private static final int TYPE_BITS = 5;
+    private static final int FLOAT_BITS = 32;
+    private static final int USED_BITS = 1;
+    private static final int SVID_BITS = 10;
+    private static final int INDEX_BITS = 16;
+
+    private static final long MAX_SVID = (1L << SVID_BITS) - 1;
+    private static final long INDEX_MASK = (1L << INDEX_BITS) - 1;
+
+    /**
+     * Maximum number of signals that can be sorted
+     */
+    public static final int MAX_SIZE = 1 << INDEX_BITS;
+
+    private long[] keys = new long[64];
+
+    private SatelliteStatus[] sorted = new SatelliteStatus[64];
+
+    /**
+     * Sorts the signals in place. Signals with the same values for all fields of the sort order
+     * keep their order.
+     *
+     * @param statuses signals to sort, at most {@link #MAX_SIZE}
+     * @param sortBy   SORT_* constant, the index of the sort order in R.array.sort_sats
+     * @param sbas     true to sort by the SBAS type instead of the GNSS type in the sort orders
+     *                 that start with the constellation, for lists of SBAS signals
+     */
+    public void sort(List<SatelliteStatus> statuses, int sortBy, boolean sbas) {
+        final int size = statuses.size();
+        if (size > MAX_SIZE) {
+            throw new IllegalArgumentException("Can't sort more than " + MAX_SIZE + " signals - " + size);
+        }
+        if (keys.length < size) {
+            keys = new long[Math.max(size, keys.length * 2)];
+            sorted = new SatelliteStatus[keys.length];
+        }
+        for (int i = 0; i < size; i++) {
+            keys[i] = sortKey(statuses.get(i), sortBy, sbas, i);
+        }
+        Arrays.sort(keys, 0, size);
+
+        for (int i = 0; i < size; i++) {
+            sorted[i] = statuses.get((int) (keys[i] & INDEX_MASK));
+        }
+        for (int i = 0; i < size; i++) {
+            statuses.set(i, sorted[i]);
+        }
+        // Don't hold on to the signals until the next sort
+        Arrays.fill(sorted, 0, size, null);
+    }
+
+    /**
+     * Computes the sort key of a signal, which orders signals by the fields of the sort order and
+     * then by their index
+     *
+     * @param status signal to compute the key for
+     * @param sortBy SORT_* constant
+     * @param sbas   true to use the SBAS type instead of the GNSS type for the constellation
+     * @param index  index of the signal in the list, less than {@link #MAX_SIZE}
+     * @return the sort key of the signal
+     */
+    static long sortKey(SatelliteStatus status, int sortBy, boolean sbas, int index) {
+        long key = 0;
+        switch (sortBy) {
+            case SORT_CONSTELLATION:
+                key = append(key, type(status, sbas), TYPE_BITS);
+                key = append(key, svid(status), SVID_BITS);
+                break;
+            case SORT_CARRIER_FREQUENCY:
+                key = append(key, ascending(status.getCarrierFrequencyHz()), FLOAT_BITS);
+                key = append(key, svid(status), SVID_BITS);
+                break;
+            case SORT_CN0:
+                key = append(key, descending(status.getCn0DbHz()), FLOAT_BITS);
+                break;
+            case SORT_USED:
+                key = append(key, status.getUsedInFix() ? 0 : 1, USED_BITS);
+                key = append(key, svid(status), SVID_BITS);
+                break;
+            case SORT_CONSTELLATION_CARRIER_FREQUENCY:
+                key = append(key, type(status, sbas), TYPE_BITS);
+                key = append(key, ascending(status.getCarrierFrequencyHz()), FLOAT_BITS);
+                key = append(key, svid(status), SVID_BITS);
+                break;
+            case SORT_CONSTELLATION_CN0:
+                key = append(key, type(status, sbas), TYPE_BITS);
+                key = append(key, descending(status.getCn0DbHz()), FLOAT_BITS);
+                break;
+            case SORT_CONSTELLATION_USED:
+                key = append(key, type(status, sbas), TYPE_BITS);
+                key = append(key, status.getUsedInFix() ? 0 : 1, USED_BITS);
+                key = append(key, svid(status), SVID_BITS);
+                break;
+        }
+        return append(key, index, INDEX_BITS);
+    }
+
+    private static long append(long key, long value, int bits) {
+        return key << bits | value;
+    }
+
+    private static long type(SatelliteStatus status, boolean sbas) {
+        return sbas ? status.getSbasType().ordinal() : status.getGnssType().ordinal();
+    }
+
+    private static long svid(SatelliteStatus status) {
+        return Math.min(Math.max(status.getSvid(), 0), MAX_SVID);
+    }
+
+    /**
+     * @return 32 bits that order floats the same way as Float.compare(), as an unsigned value
+     */
+    private static long ascending(float value) {
+        int bits = Float.floatToIntBits(value);
+        // Flip the other bits of negative values so they order the same as signed ints, then flip
+        // the sign bit so they order the same as unsigned ints
+        bits ^= (bits >> 31) & 0x7FFFFFFF;
+        return (bits ^ 0x80000000) & 0xFFFFFFFFL;
+    }
+
+    private static long descending(float value) {
+        return 0xFFFFFFFFL - ascending(value);
+    }
+}
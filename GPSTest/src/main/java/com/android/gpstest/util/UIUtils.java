@@ -49,10 +49,10 @@ import androidx.fragment.app.FragmentManager;
 
 import com.android.gpstest.Application;
 import com.android.gpstest.BuildConfig;
+import com.android.gpstest.Capability;
 import com.android.gpstest.R;
 import com.android.gpstest.dialog.ShareDialogFragment;
-import com.android.gpstest.io.CsvFileLogger;
-import com.android.gpstest.io.JsonFileLogger;
+import com.android.gpstest.io.BaseFileLogger;
 import com.android.gpstest.model.GnssType;
 import com.google.android.material.chip.Chip;
 
@@ -275,37 +275,37 @@ public class UIUtils {
         body.append("GNSS HW Year: " + IOUtils.getGnssHardwareYear() + "\n");
 
         // Raw GNSS measurement capability
-        int capability = Application.getPrefs().getInt(Application.get().getString(R.string.capability_key_raw_measurements), PreferenceUtils.CAPABILITY_UNKNOWN);
+        int capability = Application.getCapabilities().get(Capability.RAW_MEASUREMENTS);
         if (capability != PreferenceUtils.CAPABILITY_UNKNOWN) {
             body.append(Application.get().getString(R.string.capability_title_raw_measurements, PreferenceUtils.getCapabilityDescription(capability)));
         }
 
         // Navigation messages capability
-        capability = Application.getPrefs().getInt(Application.get().getString(R.string.capability_key_nav_messages), PreferenceUtils.CAPABILITY_UNKNOWN);
+        capability = Application.getCapabilities().get(Capability.NAV_MESSAGES);
         if (capability != PreferenceUtils.CAPABILITY_UNKNOWN) {
             body.append(Application.get().getString(R.string.capability_title_nav_messages, PreferenceUtils.getCapabilityDescription(capability)));
         }
 
         // NMEA capability
-        capability = Application.getPrefs().getInt(Application.get().getString(R.string.capability_key_nmea), PreferenceUtils.CAPABILITY_UNKNOWN);
+        capability = Application.getCapabilities().get(Capability.NMEA);
         if (capability != PreferenceUtils.CAPABILITY_UNKNOWN) {
             body.append(Application.get().getString(R.string.capability_title_nmea, PreferenceUtils.getCapabilityDescription(capability)));
         }
 
         // Inject PSDS capability
-        capability = Application.getPrefs().getInt(Application.get().getString(R.string.capability_key_inject_psds), PreferenceUtils.CAPABILITY_UNKNOWN);
+        capability = Application.getCapabilities().get(Capability.INJECT_PSDS);
         if (capability != PreferenceUtils.CAPABILITY_UNKNOWN) {
             body.append(Application.get().getString(R.string.capability_title_inject_psds, PreferenceUtils.getCapabilityDescription(capability)));
         }
 
         // Inject time capability
-        capability = Application.getPrefs().getInt(Application.get().getString(R.string.capability_key_inject_time), PreferenceUtils.CAPABILITY_UNKNOWN);
+        capability = Application.getCapabilities().get(Capability.INJECT_TIME);
         if (capability != PreferenceUtils.CAPABILITY_UNKNOWN) {
             body.append(Application.get().getString(R.string.capability_title_inject_time, PreferenceUtils.getCapabilityDescription(capability)));
         }
 
         // Delete assist capability
-        capability = Application.getPrefs().getInt(Application.get().getString(R.string.capability_key_delete_assist), PreferenceUtils.CAPABILITY_UNKNOWN);
+        capability = Application.getCapabilities().get(Capability.DELETE_ASSIST);
         if (capability != PreferenceUtils.CAPABILITY_UNKNOWN) {
             body.append(Application.get().getString(R.string.capability_title_delete_assist, PreferenceUtils.getCapabilityDescription(capability)));
         }
@@ -497,19 +497,19 @@ public class UIUtils {
      * @param activity
      * @param location
      * @param loggingEnabled true if logging is enabled, false if it is not
-     * @param csvFileLogger the file logger being used to log files
      * @param alternateFileUri The URI for a file if a file other than the one current used by the FileLogger should be used (e.g., one previously picked from the folder browse button), or null if no alternate file is chosen and the file from the file logger should be shared.
+     * @param fileLoggers the file loggers being used to log files. All files of their current sessions are shared.
      * @return a dialog for sharing location and files
      */
     public static void showShareFragmentDialog(AppCompatActivity activity, final Location location,
-                                               boolean loggingEnabled, CsvFileLogger csvFileLogger,
-                                               JsonFileLogger jsonFileLogger, Uri alternateFileUri) {
-        ArrayList<File> files = new ArrayList<>(2);
-        if (csvFileLogger != null && csvFileLogger.getFile() != null) {
-            files.add(csvFileLogger.getFile());
-        }
-        if (jsonFileLogger != null && jsonFileLogger.getFile() != null) {
-            files.add(jsonFileLogger.getFile());
+                                               boolean loggingEnabled, Uri alternateFileUri,
+                                               BaseFileLogger... fileLoggers) {
+        ArrayList<File> files = new ArrayList<>(fileLoggers.length);
+        for (BaseFileLogger fileLogger : fileLoggers) {
+            if (fileLogger != null) {
+                // Share all segments of a rotated log and its manifest, not only the current segment
+                files.addAll(fileLogger.getSessionFiles());
+            }
         }
 
         FragmentManager fm = activity.getSupportFragmentManager();
@@ -526,11 +526,10 @@ public class UIUtils {
         ShareDialogFragment.Listener shareListener = new ShareDialogFragment.Listener() {
             @Override
             public void onLogFileSent() {
-                if (csvFileLogger != null) {
-                    csvFileLogger.close();
-                }
-                if (jsonFileLogger != null) {
-                    jsonFileLogger.close();
+                for (BaseFileLogger fileLogger : fileLoggers) {
+                    if (fileLogger != null) {
+                        fileLogger.close();
+                    }
                 }
             }
 
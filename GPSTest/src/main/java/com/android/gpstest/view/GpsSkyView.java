@@ -8,7 +8,6 @@ import android.graphics.Paint;
 import android.graphics.Path;
 import android.graphics.RectF;
 import android.location.GnssMeasurementsEvent;
-import android.location.GnssStatus;
 import android.location.GpsSatellite;
 import android.location.GpsStatus;
 import android.location.Location;
@@ -27,6 +26,8 @@ import com.android.gpstest.Application;
 import com.android.gpstest.GpsTestListener;
 import com.android.gpstest.R;
 import com.android.gpstest.model.GnssType;
+import com.android.gpstest.model.SatelliteSnapshot;
+import com.android.gpstest.nmea.NmeaEpoch;
 import com.android.gpstest.util.MathUtils;
 import com.android.gpstest.util.SatelliteUtils;
 import com.android.gpstest.util.UIUtils;
@@ -85,6 +86,9 @@ public class GpsSkyView extends View implements GpsTestListener {
 
     private int mSvCount;
 
+    // Copy of the latest satellites, as the snapshots passed to setSnapshot() are re-used
+    private final SatelliteSnapshot mSnapshot = new SatelliteSnapshot();
+
     private boolean mUseLegacyGnssApi = false;
 
     private boolean mIsSnrBad = false;
@@ -217,65 +221,22 @@ public class GpsSkyView extends View implements GpsTestListener {
     public void setStopped() {
         mStarted = false;
         mSvCount = 0;
+        mSnapshot.clear();
         invalidate();
     }
 
-    @RequiresApi(api = Build.VERSION_CODES.N)
-    public synchronized void setGnssStatus(GnssStatus status) {
+    /**
+     * Shows the satellites in the provided snapshot, which is copied into a snapshot owned by this
+     * view so it can be drawn later
+     *
+     * @param snapshot satellites from the latest GnssStatus
+     */
+    public synchronized void setSnapshot(SatelliteSnapshot snapshot) {
         mUseLegacyGnssApi = false;
         mIsSnrBad = false;
-        if (mPrns == null) {
-            /**
-             * We need to allocate arrays big enough so we don't overflow them.  Per
-             * https://developer.android.com/reference/android/location/GnssStatus.html#getSvid(int)
-             * 255 should be enough to contain all known satellites world-wide.
-             */
-            final int MAX_LENGTH = 255;
-            mPrns = new int[MAX_LENGTH];
-            mSnrCn0s = new float[MAX_LENGTH];
-            mElevs = new float[MAX_LENGTH];
-            mAzims = new float[MAX_LENGTH];
-            mConstellationType = new int[MAX_LENGTH];
-            mHasEphemeris = new boolean[MAX_LENGTH];
-            mHasAlmanac = new boolean[MAX_LENGTH];
-            mUsedInFix = new boolean[MAX_LENGTH];
-        }
-
-        int length = status.getSatelliteCount();
-        mSvCount = 0;
-        int svInViewCount = 0;
-        int svUsedCount = 0;
-        float cn0InViewSum = 0.0f;
-        float cn0UsedSum = 0.0f;
-        mSnrCn0InViewAvg = 0.0f;
-        mSnrCn0UsedAvg = 0.0f;
-        while (mSvCount < length) {
-            mSnrCn0s[mSvCount] = status.getCn0DbHz(mSvCount);  // Store C/N0 values (see #65)
-            mElevs[mSvCount] = status.getElevationDegrees(mSvCount);
-            mAzims[mSvCount] = status.getAzimuthDegrees(mSvCount);
-            mPrns[mSvCount] = status.getSvid(mSvCount);
-            mConstellationType[mSvCount] = status.getConstellationType(mSvCount);
-            mHasEphemeris[mSvCount] = status.hasEphemerisData(mSvCount);
-            mHasAlmanac[mSvCount] = status.hasAlmanacData(mSvCount);
-            mUsedInFix[mSvCount] = status.usedInFix(mSvCount);
-            // If satellite is in view, add signal to calculate avg
-            if (status.getCn0DbHz(mSvCount) != 0.0f) {
-                svInViewCount++;
-                cn0InViewSum = cn0InViewSum + status.getCn0DbHz(mSvCount);
-            }
-            if (status.usedInFix(mSvCount)) {
-                svUsedCount++;
-                cn0UsedSum = cn0UsedSum + status.getCn0DbHz(mSvCount);
-            }
-            mSvCount++;
-        }
-
-        if (svInViewCount > 0) {
-            mSnrCn0InViewAvg = cn0InViewSum / svInViewCount;
-        }
-        if (svUsedCount > 0) {
-            mSnrCn0UsedAvg = cn0UsedSum / svUsedCount;
-        }
+        mSnapshot.copyFrom(snapshot);
+        mSnrCn0InViewAvg = snapshot.getCn0InViewAvg();
+        mSnrCn0UsedAvg = snapshot.getCn0UsedAvg();
 
         mStarted = true;
         invalidate();
@@ -658,7 +619,17 @@ public class GpsSkyView extends View implements GpsTestListener {
 
         drawNorthIndicator(canvas, minScreenDimen);
 
-        if (mElevs != null) {
+        SatelliteSnapshot snapshot = mSnapshot;
+        if (!mUseLegacyGnssApi) {
+            for (int i = 0; i < snapshot.getCount(); i++) {
+                float elev = snapshot.getElevationDegrees(i);
+                float azim = snapshot.getAzimuthDegrees(i);
+                if (elev != 0.0f || azim != 0.0f) {
+                    drawSatellite(canvas, minScreenDimen, elev, azim, snapshot.getCn0DbHz(i),
+                            snapshot.getSvid(i), snapshot.getConstellationType(i), snapshot.usedInFix(i));
+                }
+            }
+        } else if (mElevs != null) {
             int numSats = mSvCount;
 
             for (int i = 0; i < numSats; i++) {
@@ -707,9 +678,8 @@ public class GpsSkyView extends View implements GpsTestListener {
 
     }
 
-    @RequiresApi(api = Build.VERSION_CODES.N)
     @Override
-    public void onSatelliteStatusChanged(GnssStatus status) {
+    public void onSatelliteStatusChanged(SatelliteSnapshot snapshot) {
     }
 
     @Override
@@ -727,7 +697,7 @@ public class GpsSkyView extends View implements GpsTestListener {
     }
 
     @Override
-    public void onNmeaMessage(String message, long timestamp) {
+    public void onNmeaEpoch(NmeaEpoch epoch) {
     }
 
     @Deprecated
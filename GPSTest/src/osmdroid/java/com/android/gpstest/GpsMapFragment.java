@@ -20,7 +20,6 @@ package com.android.gpstest;
 import android.content.SharedPreferences;
 import android.graphics.Color;
 import android.location.GnssMeasurementsEvent;
-import android.location.GnssStatus;
 import android.location.GpsStatus;
 import android.location.Location;
 import android.os.Build;
@@ -38,6 +37,8 @@ import androidx.fragment.app.Fragment;
 
 import com.android.gpstest.map.MapViewModelController;
 import com.android.gpstest.map.OnMapClickListener;
+import com.android.gpstest.model.SatelliteSnapshot;
+import com.android.gpstest.nmea.NmeaEpoch;
 import com.android.gpstest.util.MapUtils;
 import com.android.gpstest.util.MathUtils;
 
@@ -355,7 +356,7 @@ public class GpsMapFragment extends Fragment implements GpsTestListener, MapView
 
     @RequiresApi(api = Build.VERSION_CODES.N)
     @Override
-    public void onSatelliteStatusChanged(GnssStatus status) {
+    public void onSatelliteStatusChanged(SatelliteSnapshot snapshot) {
     }
 
     @Override
@@ -372,7 +373,7 @@ public class GpsMapFragment extends Fragment implements GpsTestListener, MapView
     }
 
     @Override
-    public void onNmeaMessage(String message, long timestamp) {
+    public void onNmeaEpoch(NmeaEpoch epoch) {
     }
 
     @Override
@@ -0,0 +1,102 @@
+/*
+ * Copyright (C) 2021 Sean J. Barbeau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.gpstest;
+
+import com.android.gpstest.util.PreferenceUtils;
+
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
+
+public class CapabilityRegistryTest {
+
+    /**
+     * Records each batch of saved capabilities
+     */
+    private static class RecordingStore implements CapabilityRegistry.Store {
+        final Map<Capability, Integer> saved = new EnumMap<>(Capability.class);
+        final List<Map<Capability, Integer>> writes = new ArrayList<>();
+        int loadCount;
+
+        @Override
+        public int load(Capability capability) {
+            loadCount++;
+            Integer value = saved.get(capability);
+            return value == null ? PreferenceUtils.CAPABILITY_UNKNOWN : value;
+        }
+
+        @Override
+        public void save(Map<Capability, Integer> values) {
+            writes.add(values);
+            saved.putAll(values);
+        }
+    }
+
+    private final RecordingStore store = new RecordingStore();
+    private final ArrayDeque<Runnable> scheduled = new ArrayDeque<>();
+
+    @Test
+    public void testWritesOnlyChanges() {
+        store.saved.put(Capability.NMEA, PreferenceUtils.CAPABILITY_SUPPORTED);
+        CapabilityRegistry registry = new CapabilityRegistry(store, scheduled::add);
+
+        assertEquals(PreferenceUtils.CAPABILITY_SUPPORTED, registry.get(Capability.NMEA));
+        assertEquals(PreferenceUtils.CAPABILITY_UNKNOWN, registry.get(Capability.RAW_MEASUREMENTS));
+        // Capabilities are loaded once
+        assertEquals(Capability.values().length, store.loadCount);
+
+        // Reporting the saved value on every NMEA message doesn't write anything
+        for (int i = 0; i < 100; i++) {
+            assertFalse(registry.set(Capability.NMEA, PreferenceUtils.CAPABILITY_SUPPORTED));
+        }
+        assertEquals(0, scheduled.size());
+        assertEquals(Capability.values().length, store.loadCount);
+
+        // Changes are written together in one batch, with the last value of each capability
+        assertTrue(registry.set(Capability.RAW_MEASUREMENTS, PreferenceUtils.CAPABILITY_UNKNOWN + 1));
+        assertTrue(registry.set(Capability.RAW_MEASUREMENTS, PreferenceUtils.CAPABILITY_SUPPORTED));
+        assertTrue(registry.set(Capability.MEASUREMENT_DELTA_RANGE, PreferenceUtils.CAPABILITY_NOT_SUPPORTED));
+        assertEquals(1, scheduled.size());
+        assertEquals(0, store.writes.size());
+        assertEquals(PreferenceUtils.CAPABILITY_SUPPORTED, registry.get(Capability.RAW_MEASUREMENTS));
+
+        scheduled.poll().run();
+        assertEquals(1, store.writes.size());
+        assertEquals(2, store.writes.get(0).size());
+        assertEquals(PreferenceUtils.CAPABILITY_SUPPORTED, (int) store.saved.get(Capability.RAW_MEASUREMENTS));
+        assertEquals(PreferenceUtils.CAPABILITY_NOT_SUPPORTED, (int) store.saved.get(Capability.MEASUREMENT_DELTA_RANGE));
+
+        // Nothing left to write
+        registry.flush();
+        assertEquals(1, store.writes.size());
+
+        // A change after the write schedules another one, and an explicit flush writes it early
+        assertTrue(registry.set(Capability.NAV_MESSAGES, PreferenceUtils.CAPABILITY_LOCATION_DISABLED));
+        assertEquals(1, scheduled.size());
+        registry.flush();
+        assertEquals(2, store.writes.size());
+        scheduled.poll().run();
+        assertEquals(2, store.writes.size());
+    }
+}
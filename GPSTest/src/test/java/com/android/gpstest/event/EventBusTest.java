@@ -0,0 +1,194 @@
+/*
+ * Copyright (C) 2021 Sean J. Barbeau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.gpstest.event;
+
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertTrue;
+
+public class EventBusTest {
+
+    private static final Topic<Integer> NUMBERS = new Topic<>("Numbers");
+    private static final Topic<String> WORDS = new Topic<>("Words");
+
+    /**
+     * Runs tasks when told to, like a Looper that is busy until run() is called
+     */
+    private static class QueueExecutor implements Executor {
+        final ArrayDeque<Runnable> tasks = new ArrayDeque<>();
+
+        @Override
+        public void execute(Runnable task) {
+            tasks.add(task);
+        }
+
+        void run() {
+            while (!tasks.isEmpty()) {
+                tasks.poll().run();
+            }
+        }
+    }
+
+    private final EventBus bus = new EventBus();
+    private final QueueExecutor executor = new QueueExecutor();
+
+    @Test
+    public void testLatest() {
+        List<Integer> received = new ArrayList<>();
+        Subscription<Integer> subscription = bus.subscribe(NUMBERS, received::add, DeliveryPolicy.LATEST, executor);
+
+        bus.publish(NUMBERS, 1);
+        bus.publish(NUMBERS, 2);
+        bus.publish(NUMBERS, 3);
+        // Only one delivery is scheduled for conflated events
+        assertEquals(1, executor.tasks.size());
+        executor.run();
+        assertEquals(1, received.size());
+        assertEquals(3, (int) received.get(0));
+        assertEquals(2, subscription.getDroppedCount());
+        assertEquals(1, subscription.getDeliveredCount());
+
+        // The latest event while paused is delivered on resume
+        subscription.setPaused(true);
+        bus.publish(NUMBERS, 4);
+        bus.publish(NUMBERS, 5);
+        assertEquals(0, executor.tasks.size());
+        subscription.setPaused(false);
+        executor.run();
+        assertEquals(2, received.size());
+        assertEquals(5, (int) received.get(1));
+
+        // Events published to other topics aren't delivered
+        bus.publish(WORDS, "six");
+        executor.run();
+        assertEquals(2, received.size());
+    }
+
+    @Test
+    public void testQueue() {
+        List<Integer> received = new ArrayList<>();
+        Subscription<Integer> subscription = bus.subscribe(NUMBERS, received::add, DeliveryPolicy.QUEUE, 3, executor);
+
+        for (int i = 1; i <= 5; i++) {
+            bus.publish(NUMBERS, i);
+        }
+        executor.run();
+        // Oldest events are dropped when the queue is full
+        assertEquals(3, received.size());
+        assertEquals(3, (int) received.get(0));
+        assertEquals(5, (int) received.get(2));
+        assertEquals(2, subscription.getDroppedCount());
+
+        // Events are still queued while paused
+        subscription.setPaused(true);
+        bus.publish(NUMBERS, 6);
+        bus.publish(NUMBERS, 7);
+        executor.run();
+        assertEquals(3, received.size());
+        subscription.setPaused(false);
+        executor.run();
+        assertEquals(5, received.size());
+        assertEquals(7, (int) received.get(4));
+    }
+
+    @Test
+    public void testDrop() {
+        List<Integer> received = new ArrayList<>();
+        Subscription<Integer> subscription = bus.subscribe(NUMBERS, received::add, DeliveryPolicy.DROP, executor);
+
+        bus.publish(NUMBERS, 1);
+        bus.publish(NUMBERS, 2);
+        executor.run();
+        assertEquals(1, received.size());
+        assertEquals(1, (int) received.get(0));
+
+        // All events are dropped while paused
+        subscription.setPaused(true);
+        bus.publish(NUMBERS, 3);
+        subscription.setPaused(false);
+        executor.run();
+        assertEquals(1, received.size());
+        assertEquals(2, subscription.getDroppedCount());
+    }
+
+    /**
+     * Test that a subscriber with a backlog doesn't hold up other subscribers on the same executor
+     */
+    @Test
+    public void testInterleaving() {
+        List<String> received = new ArrayList<>();
+        bus.subscribe(NUMBERS, n -> received.add("queue" + n), DeliveryPolicy.QUEUE, executor);
+        bus.subscribe(NUMBERS, n -> received.add("latest" + n), DeliveryPolicy.LATEST, executor);
+
+        bus.publish(NUMBERS, 1);
+        bus.publish(NUMBERS, 2);
+        bus.publish(NUMBERS, 3);
+        executor.run();
+        assertEquals("queue1", received.get(0));
+        assertEquals("latest3", received.get(1));
+        assertEquals("queue2", received.get(2));
+        assertEquals("queue3", received.get(3));
+    }
+
+    @Test
+    public void testUnsubscribe() {
+        List<Integer> received = new ArrayList<>();
+        Subscription<Integer> subscription = bus.subscribe(NUMBERS, received::add, DeliveryPolicy.LATEST, executor);
+        assertEquals(1, bus.getSubscriptionCount(NUMBERS));
+
+        // Events that aren't delivered yet are dropped
+        bus.publish(NUMBERS, 1);
+        bus.unsubscribe(subscription);
+        executor.run();
+        bus.publish(NUMBERS, 2);
+        executor.run();
+        assertEquals(0, received.size());
+        assertTrue(subscription.isCancelled());
+        assertEquals(0, bus.getSubscriptionCount(NUMBERS));
+        assertEquals(0, bus.getSubscriptionCount(WORDS));
+    }
+
+    @Test
+    public void testGroup() {
+        List<Integer> received = new ArrayList<>();
+        SubscriptionGroup group = new SubscriptionGroup(bus);
+        group.setHidden(true);
+        Subscription<Integer> subscription = group.add(bus.subscribe(NUMBERS, received::add, DeliveryPolicy.LATEST, executor));
+        assertTrue(subscription.isPaused());
+
+        bus.publish(NUMBERS, 1);
+        executor.run();
+        assertEquals(0, received.size());
+        group.setHidden(false);
+        executor.run();
+        assertEquals(1, received.size());
+
+        group.cancel();
+        assertTrue(subscription.isCancelled());
+        assertEquals(0, bus.getSubscriptionCount(NUMBERS));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidCapacity() {
+        bus.subscribe(NUMBERS, n -> { }, DeliveryPolicy.QUEUE, 0, executor);
+    }
+}
@@ -0,0 +1,279 @@
+/*
+ * Copyright (C) 2021 Sean J. Barbeau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.gpstest.io;
+
+import org.junit.Test;
+
+import java.io.BufferedWriter;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.zip.GZIPOutputStream;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.fail;
+
+public class BinaryLogConverterTest {
+
+    private static final String VERSION = "v3.9.5 (18082-google), Manufacturer: Google, Model: Pixel 5 ";
+
+    /**
+     * Test that records written in the binary format are converted to the same CSV records that
+     * CsvFileLogger would write
+     */
+    @Test
+    public void testConvertToCsv() throws IOException {
+        ByteArrayOutputStream binary = new ByteArrayOutputStream();
+        StringWriter expected = new StringWriter();
+        BufferedWriter expectedWriter = new BufferedWriter(expected);
+        CsvLogFormat.writeHeader(expectedWriter, VERSION);
+
+        BinaryRecordEncoder encoder = new BinaryRecordEncoder();
+        CsvRecordEncoder csv = new CsvRecordEncoder();
+        BinaryLogFormat.DeltaState state = new BinaryLogFormat.DeltaState();
+        BinaryLogFormat.writeHeader(encoder, binary, VERSION);
+
+        // Two epochs, so the second is delta-encoded against the first
+        RawMeasurementRecord raw = new RawMeasurementRecord();
+        for (int epoch = 0; epoch < 2; epoch++) {
+            setClock(raw, epoch);
+            BinaryLogFormat.encodeEpochHeader(encoder, raw, 2, state);
+            for (int i = 0; i < 2; i++) {
+                setMeasurement(raw, epoch, i);
+                BinaryLogFormat.encodeMeasurement(encoder, raw);
+                CsvLogFormat.encodeRaw(csv, raw);
+                writeLine(csv, expectedWriter);
+            }
+            encoder.writeTo(binary);
+        }
+
+        FixRecord fix = new FixRecord();
+        fix.provider = "gps";
+        fix.latitude = 28.0587;
+        fix.longitude = -82.4139;
+        fix.altitude = 13.5;
+        fix.speed = 1.25f;
+        fix.accuracy = 3.9f;
+        fix.timeMillis = 1608135135000L;
+        BinaryLogFormat.encodeFix(encoder, fix, fix.provider.getBytes(BinaryLogFormat.UTF_8));
+        encoder.writeTo(binary);
+        CsvLogFormat.encodeFix(csv, fix);
+        writeLine(csv, expectedWriter);
+
+        NavMessageRecord nav = new NavMessageRecord();
+        nav.svid = 7;
+        nav.type = 0x0101;
+        nav.status = 1;
+        nav.messageId = 3;
+        nav.submessageId = -1;
+        nav.ensureDataCapacity(40);
+        for (int i = 0; i < 40; i++) {
+            nav.data[i] = (byte) (i * 7 - 128);
+        }
+        nav.dataLength = 40;
+        BinaryLogFormat.encodeNav(encoder, nav);
+        encoder.writeTo(binary);
+        CsvLogFormat.encodeNav(csv, nav);
+        writeLine(csv, expectedWriter);
+
+        // Logging resumed in the same file - delta state starts again from zero
+        encoder.begin(BinaryLogFormat.RECORD_SYNC).writeTo(binary);
+        state.reset();
+
+        long[] timestamps = {1608135135100L, 1608135135200L, 1608135134900L};
+        for (long timestamp : timestamps) {
+            String sentence = " $GPGSV,3,1,12,01,05,060,18,02,17,259,43,04,56,287,28,05,08,318,21*7C\r\n";
+            BinaryLogFormat.encodeNmea(encoder, sentence, timestamp, state);
+            encoder.writeTo(binary);
+            CsvLogFormat.encodeNmea(csv, sentence, timestamp);
+            writeLine(csv, expectedWriter);
+        }
+
+        // Unknown record types are skipped
+        encoder.begin(42).putLong(123).writeTo(binary);
+        expectedWriter.flush();
+
+        StringWriter actual = new StringWriter();
+        long count = BinaryLogConverter.convertToCsv(
+                new ByteArrayInputStream(binary.toByteArray()), new BufferedWriter(actual));
+        assertEquals(9, count);
+        assertEquals(expected.toString(), actual.toString());
+    }
+
+    /**
+     * Test that a record that was only partially written is treated as the end of the log
+     */
+    @Test
+    public void testTruncatedRecord() throws IOException {
+        ByteArrayOutputStream binary = new ByteArrayOutputStream();
+        BinaryRecordEncoder encoder = new BinaryRecordEncoder();
+        BinaryLogFormat.DeltaState state = new BinaryLogFormat.DeltaState();
+        BinaryLogFormat.writeHeader(encoder, binary, VERSION);
+        BinaryLogFormat.encodeNmea(encoder, "$GPGGA", 1000L, state);
+        encoder.writeTo(binary);
+        int completeLength = binary.size();
+        BinaryLogFormat.encodeNmea(encoder, "$GPRMC", 2000L, state);
+        encoder.writeTo(binary);
+
+        byte[] truncated = Arrays.copyOf(binary.toByteArray(), completeLength + 4);
+        long count = BinaryLogConverter.convertToCsv(
+                new ByteArrayInputStream(truncated), new BufferedWriter(new StringWriter()));
+        assertEquals(1, count);
+    }
+
+    /**
+     * Test converting a compressed file that was appended to after logging resumed, which
+     * contains two GZIP members
+     */
+    @Test
+    public void testConvertCompressedFile() throws IOException {
+        File binaryFile = File.createTempFile("gnss_log", ".bin.gz");
+        File csvFile = File.createTempFile("gnss_log", ".txt");
+        try {
+            BinaryRecordEncoder encoder = new BinaryRecordEncoder();
+            BinaryLogFormat.DeltaState state = new BinaryLogFormat.DeltaState();
+            try (OutputStream out = new GZIPOutputStream(new FileOutputStream(binaryFile), 512, true)) {
+                BinaryLogFormat.writeHeader(encoder, out, VERSION);
+                BinaryLogFormat.encodeNmea(encoder, "$GPGGA", 1000L, state);
+                encoder.writeTo(out);
+            }
+            state.reset();
+            try (OutputStream out = new GZIPOutputStream(new FileOutputStream(binaryFile, true), 512, true)) {
+                encoder.begin(BinaryLogFormat.RECORD_SYNC).writeTo(out);
+                BinaryLogFormat.encodeNmea(encoder, "$GPRMC", 2000L, state);
+                encoder.writeTo(out);
+            }
+
+            assertEquals(2, BinaryLogConverter.convertToCsv(binaryFile, csvFile));
+        } finally {
+            binaryFile.delete();
+            csvFile.delete();
+        }
+    }
+
+    /**
+     * Test converting a compressed file that was sync flushed but not closed, as left when the app
+     * is killed while logging, which ends without a GZIP trailer
+     */
+    @Test
+    public void testConvertTruncatedCompressedFile() throws IOException {
+        File binaryFile = File.createTempFile("gnss_log", ".bin.gz");
+        File csvFile = File.createTempFile("gnss_log", ".txt");
+        try {
+            BinaryRecordEncoder encoder = new BinaryRecordEncoder();
+            BinaryLogFormat.DeltaState state = new BinaryLogFormat.DeltaState();
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            OutputStream out = new GZIPOutputStream(bytes, 512, true);
+            BinaryLogFormat.writeHeader(encoder, out, VERSION);
+            BinaryLogFormat.encodeNmea(encoder, "$GPGGA", 1000L, state);
+            encoder.writeTo(out);
+            BinaryLogFormat.encodeNmea(encoder, "$GPRMC", 2000L, state);
+            encoder.writeTo(out);
+            out.flush();
+            int flushedLength = bytes.size();
+            BinaryLogFormat.encodeNmea(encoder, "$GPGSA", 3000L, state);
+            encoder.writeTo(out);
+            out.flush();
+
+            // All flushed records are converted
+            try (OutputStream file = new FileOutputStream(binaryFile)) {
+                bytes.writeTo(file);
+            }
+            assertEquals(3, BinaryLogConverter.convertToCsv(binaryFile, csvFile));
+
+            // A partially written flush is treated as the end of the log
+            try (OutputStream file = new FileOutputStream(binaryFile)) {
+                file.write(bytes.toByteArray(), 0, flushedLength + 3);
+            }
+            assertEquals(2, BinaryLogConverter.convertToCsv(binaryFile, csvFile));
+        } finally {
+            binaryFile.delete();
+            csvFile.delete();
+        }
+    }
+
+    /**
+     * Test that files that aren't binary logs are rejected
+     */
+    @Test
+    public void testInvalidHeader() {
+        byte[] csv = "# \n# Header Description:\n".getBytes(BinaryLogFormat.UTF_8);
+        try {
+            BinaryLogConverter.convertToCsv(new ByteArrayInputStream(csv),
+                    new BufferedWriter(new StringWriter()));
+            fail("Expected IOException for a file that isn't a binary log");
+        } catch (IOException e) {
+            // Expected
+        }
+    }
+
+    private static void setClock(RawMeasurementRecord r, int epoch) {
+        r.elapsedRealtimeMillis = 123456789L + epoch * 1000L;
+        r.timeNanos = 98765432100000L + epoch * 1000000000L;
+        r.hasLeapSecond = epoch == 0;
+        r.leapSecond = epoch == 0 ? 18 : 0;
+        r.hasTimeUncertaintyNanos = false;
+        r.timeUncertaintyNanos = 0;
+        r.fullBiasNanos = -1292434067865392658L - epoch * 17;
+        r.hasBiasNanos = true;
+        r.biasNanos = 0.254716038703918 + epoch;
+        r.hasBiasUncertaintyNanos = true;
+        r.biasUncertaintyNanos = 40.1;
+        r.hasDriftNanosPerSecond = epoch == 1;
+        r.driftNanosPerSecond = epoch == 1 ? -13.87 : 0;
+        r.hasDriftUncertaintyNanosPerSecond = epoch == 1;
+        r.driftUncertaintyNanosPerSecond = epoch == 1 ? 0.5 : 0;
+        r.hardwareClockDiscontinuityCount = 3;
+    }
+
+    private static void setMeasurement(RawMeasurementRecord r, int epoch, int index) {
+        r.svid = 10 + index;
+        r.timeOffsetNanos = 0;
+        r.state = 16431;
+        r.receivedSvTimeNanos = 302387654321012L + epoch;
+        r.receivedSvTimeUncertaintyNanos = 12;
+        r.cn0DbHz = 38.599998474121094 + index;
+        r.pseudorangeRateMetersPerSecond = -567.3452301025391;
+        r.pseudorangeRateUncertaintyMetersPerSecond = 0.0534;
+        r.accumulatedDeltaRangeState = 16;
+        r.accumulatedDeltaRangeMeters = -123456.78125;
+        r.accumulatedDeltaRangeUncertaintyMeters = 3.4028234663852886E38;
+        r.hasCarrierFrequencyHz = index == 1;
+        r.carrierFrequencyHz = index == 1 ? 1.57542003E9f : 0;
+        r.hasCarrierCycles = false;
+        r.carrierCycles = 0;
+        r.hasCarrierPhase = false;
+        r.carrierPhase = 0;
+        r.hasCarrierPhaseUncertainty = false;
+        r.carrierPhaseUncertainty = 0;
+        r.multipathIndicator = 0;
+        r.hasSnrInDb = index == 0;
+        r.snrInDb = index == 0 ? 22.5 : 0;
+        r.constellationType = 1 + index * 5;
+        r.hasAutomaticGainControlLevelDb = true;
+        r.automaticGainControlLevelDb = -4.25;
+    }
+
+    private static void writeLine(CsvRecordEncoder csv, BufferedWriter writer) throws IOException {
+        csv.writeTo(writer);
+        writer.newLine();
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright (C) 2021 Sean J. Barbeau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.gpstest.io;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertTrue;
+
+public class BinaryLogReaderTest {
+
+    private static final String VERSION = "v3.9.5 (18082-google), Manufacturer: Google, Model: Pixel 5 ";
+
+    /**
+     * Test reading the records between two UTC times, starting at the sync record of an index
+     * entry so delta-encoded values are decoded without the preceding records
+     */
+    @Test
+    public void testReadTimeRange() throws IOException {
+        File binaryFile = File.createTempFile("gnss_log", ".bin");
+        File indexFile = LogTimeIndex.getFile(binaryFile);
+        try {
+            BinaryRecordEncoder encoder = new BinaryRecordEncoder();
+            BinaryLogFormat.DeltaState state = new BinaryLogFormat.DeltaState();
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            BinaryLogFormat.writeHeader(encoder, bytes, VERSION);
+            try (DataOutputStream index = LogTimeIndex.openForAppend(indexFile, 3)) {
+                for (int i = 0; i < 10; i++) {
+                    long time = 1611051330000L + i * 1000;
+                    if (i % 3 == 0) {
+                        // Written the same way as BinaryFileLogger.preIndexEntry()
+                        state.reset();
+                        encoder.begin(BinaryLogFormat.RECORD_SYNC).writeTo(bytes);
+                        LogTimeIndex.writeEntry(index, bytes.size(), LogTimeIndex.UNKNOWN_TIME, time);
+                    }
+                    BinaryLogFormat.encodeNmea(encoder, "$GPGGA", time, state);
+                    encoder.writeTo(bytes);
+                }
+            }
+            try (OutputStream file = new FileOutputStream(binaryFile)) {
+                bytes.writeTo(file);
+            }
+
+            final List<Long> timestamps = new ArrayList<>();
+            CsvLogReader.Handler handler = new CsvLogReader.HandlerAdapter() {
+                @Override
+                public void onNmea(CharSequence sentence, long timestamp) {
+                    timestamps.add(timestamp);
+                }
+            };
+
+            assertEquals(10, BinaryLogReader.read(binaryFile, handler));
+
+            timestamps.clear();
+            assertEquals(3, BinaryLogReader.read(binaryFile, 1611051333500L, 1611051336000L, handler));
+            assertEquals("[1611051334000, 1611051335000, 1611051336000]", timestamps.toString());
+
+            // Without an index the file is read from the start
+            assertTrue(indexFile.delete());
+            timestamps.clear();
+            assertEquals(3, BinaryLogReader.read(binaryFile, 1611051333500L, 1611051336000L, handler));
+            assertEquals("[1611051334000, 1611051335000, 1611051336000]", timestamps.toString());
+        } finally {
+            binaryFile.delete();
+            indexFile.delete();
+        }
+    }
+}
@@ -0,0 +1,282 @@
+/*
+ * Copyright (C) 2021 Sean J. Barbeau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.gpstest.io;
+
+import org.junit.Test;
+
+import java.io.BufferedWriter;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
+
+public class CsvLogReaderTest {
+
+    /**
+     * Test reading back records written by CsvLogFormat, with a buffer smaller than a line so the
+     * buffer has to be refilled and grown
+     */
+    @Test
+    public void testReadRecords() throws IOException {
+        StringWriter out = new StringWriter();
+        BufferedWriter writer = new BufferedWriter(out);
+        CsvLogFormat.writeHeader(writer, "v1.0 (1-google), Manufacturer: Google, Model: Pixel 5 ");
+        CsvRecordEncoder encoder = new CsvRecordEncoder();
+
+        RawMeasurementRecord raw = new RawMeasurementRecord();
+        raw.elapsedRealtimeMillis = 123456L;
+        raw.timeNanos = 987654321000L;
+        raw.fullBiasNanos = -1295453567437291452L;
+        raw.hasBiasNanos = true;
+        raw.biasNanos = -0.123456789;
+        raw.hardwareClockDiscontinuityCount = 3;
+        raw.svid = 27;
+        raw.state = 16431;
+        raw.receivedSvTimeNanos = 309378654312345L;
+        raw.receivedSvTimeUncertaintyNanos = 12;
+        raw.cn0DbHz = 42.1;
+        raw.pseudorangeRateMetersPerSecond = -512.25;
+        raw.hasCarrierFrequencyHz = true;
+        raw.carrierFrequencyHz = 1.57542E9f;
+        raw.constellationType = 1;
+        CsvLogFormat.encodeRaw(encoder, raw);
+        encoder.writeTo(writer);
+        writer.newLine();
+
+        FixRecord fix = new FixRecord();
+        fix.provider = "gps";
+        fix.latitude = 28.0583;
+        fix.longitude = -82.4139;
+        fix.altitude = 12.5;
+        fix.accuracy = 3.9f;
+        fix.timeMillis = 1611051330000L;
+        CsvLogFormat.encodeFix(encoder, fix);
+        encoder.writeTo(writer);
+        // Windows line endings are also supported
+        writer.write("\r\n");
+
+        NavMessageRecord nav = new NavMessageRecord();
+        nav.svid = 7;
+        nav.type = 257;
+        nav.messageId = 2;
+        nav.ensureDataCapacity(40);
+        for (int i = 0; i < 40; i++) {
+            nav.data[i] = (byte) (i * 7);
+        }
+        nav.dataLength = 40;
+        CsvLogFormat.encodeNav(encoder, nav);
+        encoder.writeTo(writer);
+        writer.newLine();
+
+        CsvLogFormat.encodeNmea(encoder, "$GPGGA,172814.0,3723.46587704,N,12202.26957864,W,2,6,1.2,18.893,M,-25.669,M,2.0,0031*4F\r\n", 1611051330500L);
+        encoder.writeTo(writer);
+        writer.newLine();
+        writer.write("Raw,1,2,3");
+        writer.newLine();
+        writer.write("Unknown,1,2");
+        writer.newLine();
+        // Truncated last line without a line break
+        writer.write("Fix,gps,28.05");
+        writer.flush();
+
+        final List<String> events = new ArrayList<>();
+        CsvLogReader reader = new CsvLogReader(new ByteArrayInputStream(out.toString().getBytes("UTF-8")), 32);
+        long count = reader.read(new CsvLogReader.Handler() {
+            @Override
+            public void onRaw(RawMeasurementRecord r) {
+                events.add("Raw");
+                assertEquals(123456L, r.getElapsedRealtimeMillis());
+                assertEquals(987654321000L, r.getTimeNanos());
+                assertFalse(r.hasLeapSecond());
+                assertEquals(-1295453567437291452L, r.getFullBiasNanos());
+                assertTrue(r.hasBiasNanos());
+                assertEquals(-0.123456789, r.getBiasNanos());
+                assertFalse(r.hasBiasUncertaintyNanos());
+                assertEquals(3, r.getHardwareClockDiscontinuityCount());
+                assertEquals(27, r.getSvid());
+                assertEquals(16431, r.getState());
+                assertEquals(309378654312345L, r.getReceivedSvTimeNanos());
+                assertEquals(42.1, r.getCn0DbHz());
+                assertEquals(-512.25, r.getPseudorangeRateMetersPerSecond());
+                assertTrue(r.hasCarrierFrequencyHz());
+                assertEquals(1.57542E9f, r.getCarrierFrequencyHz());
+                assertFalse(r.hasCarrierPhase());
+                assertEquals(1, r.getConstellationType());
+                assertFalse(r.hasAutomaticGainControlLevelDb());
+            }
+
+            @Override
+            public void onFix(FixRecord r) {
+                events.add("Fix");
+                assertEquals("gps", r.getProvider());
+                assertEquals(28.0583, r.getLatitude());
+                assertEquals(-82.4139, r.getLongitude());
+                assertEquals(12.5, r.getAltitude());
+                assertEquals(3.9f, r.getAccuracy());
+                assertEquals(1611051330000L, r.getTimeMillis());
+            }
+
+            @Override
+            public void onNav(NavMessageRecord r) {
+                events.add("Nav");
+                assertEquals(7, r.getSvid());
+                assertEquals(257, r.getType());
+                assertEquals(2, r.getMessageId());
+                assertEquals(40, r.getDataLength());
+                for (int i = 0; i < 40; i++) {
+                    assertEquals((byte) (i * 7), r.getData()[i]);
+                }
+            }
+
+            @Override
+            public void onNmea(CharSequence sentence, long timestamp) {
+                events.add("NMEA");
+                assertEquals("$GPGGA,172814.0,3723.46587704,N,12202.26957864,W,2,6,1.2,18.893,M,-25.669,M,2.0,0031*4F",
+                        sentence.toString());
+                assertEquals('$', sentence.charAt(0));
+                assertEquals(1611051330500L, timestamp);
+            }
+        });
+
+        assertEquals(4, count);
+        assertEquals("[Raw, Fix, Nav, NMEA]", events.toString());
+        // The short Raw line and the truncated Fix line
+        assertEquals(2, reader.getSkippedLineCount());
+    }
+
+    /**
+     * Test that values that aren't written by CsvRecordEncoder, such as exponents and NaN, are
+     * still parsed
+     */
+    @Test
+    public void testParseUnusualNumbers() throws IOException {
+        String line = "Fix,network,1.5E-3,NaN,-0.000000001,+2,1234567890.12345678,-9223372036854775808";
+        final FixRecord[] result = new FixRecord[1];
+        CsvLogReader reader = new CsvLogReader(new ByteArrayInputStream(line.getBytes("UTF-8")));
+        reader.read(new CsvLogReader.HandlerAdapter() {
+            @Override
+            public void onFix(FixRecord r) {
+                result[0] = r;
+            }
+        });
+        assertEquals("network", result[0].getProvider());
+        assertEquals(1.5E-3, result[0].getLatitude());
+        assertTrue(Double.isNaN(result[0].getLongitude()));
+        assertEquals(-0.000000001, result[0].getAltitude());
+        assertEquals(2f, result[0].getSpeed());
+        assertEquals(1234567890.12345678f, result[0].getAccuracy());
+        assertEquals(Long.MIN_VALUE, result[0].getTimeMillis());
+    }
+
+    /**
+     * Test reading a compressed file that was sync flushed but not closed, as left when the app is
+     * killed while logging, which ends without a GZIP trailer
+     */
+    @Test
+    public void testReadTruncatedCompressedFile() throws IOException {
+        File file = File.createTempFile("gnss_log", ".txt.gz");
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            OutputStream out = new GZIPOutputStream(bytes, 512, true);
+            out.write("# Header\nNMEA,$GPGGA,1000\nNMEA,$GPRMC,2000\n".getBytes("UTF-8"));
+            out.flush();
+            int flushedLength = bytes.size();
+            out.write("NMEA,$GPGSA,3000\n".getBytes("UTF-8"));
+            out.flush();
+
+            final List<Long> timestamps = new ArrayList<>();
+            CsvLogReader.Handler handler = new CsvLogReader.HandlerAdapter() {
+                @Override
+                public void onNmea(CharSequence sentence, long timestamp) {
+                    timestamps.add(timestamp);
+                }
+            };
+
+            // All flushed records are read
+            try (OutputStream fileOut = new FileOutputStream(file)) {
+                bytes.writeTo(fileOut);
+            }
+            assertEquals(3, CsvLogReader.read(file, handler));
+            assertEquals("[1000, 2000, 3000]", timestamps.toString());
+
+            // A partially written flush is treated as the end of the log
+            timestamps.clear();
+            try (OutputStream fileOut = new FileOutputStream(file)) {
+                fileOut.write(bytes.toByteArray(), 0, flushedLength + 3);
+            }
+            assertEquals(2, CsvLogReader.read(file, handler));
+            assertEquals("[1000, 2000]", timestamps.toString());
+        } finally {
+            file.delete();
+        }
+    }
+
+    /**
+     * Test reading the records between two UTC times, starting at an indexed offset and rebuilding
+     * a missing index
+     */
+    @Test
+    public void testReadTimeRange() throws IOException {
+        File file = File.createTempFile("gnss_log", ".txt");
+        File indexFile = LogTimeIndex.getFile(file);
+        try {
+            try (OutputStream out = new FileOutputStream(file)) {
+                out.write("# Header\n".getBytes("UTF-8"));
+                for (int i = 0; i < 10; i++) {
+                    out.write(("NMEA,$GPGGA,," + (1611051330000L + i * 1000) + "\n").getBytes("UTF-8"));
+                }
+            }
+            LogTimeIndex.rebuild(file, 3);
+
+            final List<Long> timestamps = new ArrayList<>();
+            CsvLogReader.Handler handler = new CsvLogReader.HandlerAdapter() {
+                @Override
+                public void onNmea(CharSequence sentence, long timestamp) {
+                    timestamps.add(timestamp);
+                }
+            };
+
+            // Starts at the entry for 1611051333000 and skips the record before the range
+            assertEquals(3, CsvLogReader.read(file, 1611051333500L, 1611051336000L, handler));
+            assertEquals("[1611051334000, 1611051335000, 1611051336000]", timestamps.toString());
+
+            // A range starting before the log
+            timestamps.clear();
+            assertEquals(2, CsvLogReader.read(file, 0, 1611051331000L, handler));
+            assertEquals("[1611051330000, 1611051331000]", timestamps.toString());
+
+            // A missing index is rebuilt
+            assertTrue(indexFile.delete());
+            timestamps.clear();
+            assertEquals(1, CsvLogReader.read(file, 1611051339000L, Long.MAX_VALUE, handler));
+            assertEquals("[1611051339000]", timestamps.toString());
+            assertTrue(indexFile.exists());
+        } finally {
+            file.delete();
+            indexFile.delete();
+        }
+    }
+}
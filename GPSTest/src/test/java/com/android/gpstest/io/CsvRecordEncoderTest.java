@@ -0,0 +1,123 @@
+/*
+ * Copyright (C) 2021 Sean J. Barbeau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.gpstest.io;
+
+import org.junit.Test;
+
+import java.io.StringWriter;
+import java.util.Locale;
+import java.util.Random;
+
+import static junit.framework.Assert.assertEquals;
+
+public class CsvRecordEncoderTest {
+
+    /**
+     * Test encoding integer values
+     */
+    @Test
+    public void testAppendLong() {
+        CsvRecordEncoder encoder = new CsvRecordEncoder();
+        assertEquals("0", encoder.reset().append(0L).toString());
+        assertEquals("-1", encoder.reset().append(-1).toString());
+        assertEquals("1234567890123", encoder.reset().append(1234567890123L).toString());
+        assertEquals("9223372036854775807", encoder.reset().append(Long.MAX_VALUE).toString());
+        assertEquals("-9223372036854775808", encoder.reset().append(Long.MIN_VALUE).toString());
+        assertEquals("-128", encoder.reset().append((byte) -128).toString());
+    }
+
+    /**
+     * Test encoding doubles with trailing zeros removed
+     */
+    @Test
+    public void testAppendDouble() {
+        CsvRecordEncoder encoder = new CsvRecordEncoder();
+        assertEquals("0.0", encoder.reset().appendDouble(0.0, 9).toString());
+        assertEquals("-0.0", encoder.reset().appendDouble(-0.0, 9).toString());
+        assertEquals("3.0", encoder.reset().appendDouble(3, 9).toString());
+        assertEquals("-1.5", encoder.reset().appendDouble(-1.5, 9).toString());
+        assertEquals("23.299999237", encoder.reset().appendDouble(23.299999237060547, 9).toString());
+        assertEquals("1575420032.0", encoder.reset().appendDouble(1575420032f, 9).toString());
+        assertEquals("0.001", encoder.reset().appendDouble(1e-3, 9).toString());
+        assertEquals("NaN", encoder.reset().appendDouble(Double.NaN, 9).toString());
+        assertEquals("1.0E12", encoder.reset().appendDouble(1e12, 9).toString());
+    }
+
+    /**
+     * Test that small values keep all significant digits instead of being rounded to the fraction
+     * digits
+     */
+    @Test
+    public void testAppendSmallDouble() {
+        CsvRecordEncoder encoder = new CsvRecordEncoder();
+        double[] values = {2.5e-10, -2.5e-10, 1.2345678901e-5, 1e-9, 9.99999999999e-4,
+                Double.MIN_VALUE};
+        for (double value : values) {
+            String encoded = encoder.reset().appendDouble(value, 9).toString();
+            assertEquals(Double.toString(value), encoded);
+            assertEquals(value, Double.parseDouble(encoded), 0);
+        }
+    }
+
+    /**
+     * Test that fixed precision output matches String.format() "%f", which was previously used to
+     * write "Fix" records
+     */
+    @Test
+    public void testAppendFixedMatchesFormat() {
+        CsvRecordEncoder encoder = new CsvRecordEncoder();
+        double[] values = {0.0, -0.0, 28.0788, -82.4106, 0.1234565, 89.9999995, 1e-7, -5e-7,
+                (double) 0.1f, 19.2, Double.NaN};
+        for (double value : values) {
+            assertEquals(String.format(Locale.US, "%f", value),
+                    encoder.reset().appendFixed(value, 6).toString());
+        }
+
+        Random random = new Random(42);
+        for (int i = 0; i < 100000; i++) {
+            double value = random.nextDouble() * 360 - 180;
+            assertEquals(String.format(Locale.US, "%f", value),
+                    encoder.reset().appendFixed(value, 6).toString());
+            float floatValue = random.nextFloat() * 100;
+            assertEquals(String.format(Locale.US, "%f", floatValue),
+                    encoder.reset().appendFixed(floatValue, 6).toString());
+        }
+    }
+
+    /**
+     * Test building a full record, including trimming whitespace from an NMEA sentence
+     */
+    @Test
+    public void testRecord() throws Exception {
+        CsvRecordEncoder encoder = new CsvRecordEncoder();
+        encoder.reset()
+                .append("NMEA").delimiter()
+                .appendTrimmed(" $GPGSA,A,3,03,14,16,22,23,26,,,,,,,3.6,1.8,3.1*38\r\n").delimiter()
+                .append(1486073203000L);
+        StringWriter writer = new StringWriter();
+        encoder.writeTo(writer);
+        assertEquals("NMEA,$GPGSA,A,3,03,14,16,22,23,26,,,,,,,3.6,1.8,3.1*38,1486073203000", writer.toString());
+
+        // Records longer than the initial buffer should grow it
+        encoder.reset();
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            encoder.append(i).delimiter();
+            expected.append(i).append(',');
+        }
+        assertEquals(expected.toString(), encoder.toString());
+    }
+}
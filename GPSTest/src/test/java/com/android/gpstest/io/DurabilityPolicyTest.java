@@ -0,0 +1,91 @@
+/*
+ * Copyright (C) 2021 Sean J. Barbeau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.gpstest.io;
+
+import org.junit.Test;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
+
+public class DurabilityPolicyTest {
+
+    /**
+     * Test when each policy mode decides that buffered records should be flushed
+     */
+    @Test
+    public void testIsFlushDue() {
+        DurabilityPolicy policy = DurabilityPolicy.DEFAULT;
+        assertFalse(policy.isFlushDue(100000, 100000L, true));
+
+        policy = DurabilityPolicy.everyRecords(10);
+        assertFalse(policy.isFlushDue(9, 100000L, true));
+        assertTrue(policy.isFlushDue(10, 0L, false));
+
+        policy = DurabilityPolicy.everyMillis(1000L);
+        assertFalse(policy.isFlushDue(100000, 999L, true));
+        assertTrue(policy.isFlushDue(1, 1000L, false));
+
+        policy = DurabilityPolicy.everyEpoch();
+        assertFalse(policy.isFlushDue(100000, 100000L, false));
+        assertTrue(policy.isFlushDue(1, 0L, true));
+    }
+
+    /**
+     * Test that enabling sync keeps the mode and threshold of the policy
+     */
+    @Test
+    public void testWithSync() {
+        DurabilityPolicy policy = DurabilityPolicy.everyRecords(25);
+        assertFalse(policy.isSync());
+
+        DurabilityPolicy synced = policy.withSync(true);
+        assertTrue(synced.isSync());
+        assertFalse(policy.isSync());
+        assertEquals(DurabilityPolicy.Mode.RECORDS, synced.getMode());
+        assertEquals(25L, synced.getThreshold());
+    }
+
+    /**
+     * Test that invalid thresholds are rejected
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidRecordCount() {
+        DurabilityPolicy.everyRecords(0);
+    }
+
+    /**
+     * Test that flush latency and size statistics are accumulated
+     */
+    @Test
+    public void testFlushMetrics() {
+        FlushMetrics metrics = new FlushMetrics();
+        assertEquals(0, metrics.getAverageLatencyNanos());
+        assertEquals(0, metrics.getAverageBytes());
+
+        metrics.add(1000L, 4096L);
+        metrics.add(3000L, 0L);
+
+        assertEquals(2, metrics.getFlushCount());
+        assertEquals(2000L, metrics.getAverageLatencyNanos());
+        assertEquals(3000L, metrics.getMaxLatencyNanos());
+        assertEquals(3000L, metrics.getLastLatencyNanos());
+        assertEquals(4096L, metrics.getTotalBytes());
+        assertEquals(2048L, metrics.getAverageBytes());
+        assertEquals(4096L, metrics.getMaxBytes());
+        assertEquals(0L, metrics.getLastBytes());
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright (C) 2021 Sean J. Barbeau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.gpstest.io;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Arrays;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
+
+public class JsonLogFormatTest {
+
+    /**
+     * Test writing an epoch with two measurements, a fix, a navigation message and an NMEA
+     * sentence, and parsing the result
+     */
+    @Test
+    public void testWriteRecords() throws IOException {
+        ObjectMapper mapper = new ObjectMapper();
+        StringWriter writer = new StringWriter();
+        JsonGenerator g = mapper.getFactory().createGenerator(writer);
+        g.writeStartArray();
+
+        RawMeasurementRecord raw = new RawMeasurementRecord();
+        raw.elapsedRealtimeMillis = 1000L;
+        raw.timeNanos = 123456789L;
+        raw.fullBiasNanos = -1234567890123456789L;
+        raw.hasBiasNanos = true;
+        raw.biasNanos = 0.5;
+        raw.hardwareClockDiscontinuityCount = 2;
+        JsonLogFormat.writeEpochStart(g, raw);
+        raw.svid = 5;
+        raw.constellationType = 1;
+        raw.cn0DbHz = 42.25;
+        raw.hasCarrierFrequencyHz = true;
+        raw.carrierFrequencyHz = 1.57542E9f;
+        JsonLogFormat.writeMeasurement(g, raw);
+        raw.svid = 12;
+        raw.hasCarrierFrequencyHz = false;
+        JsonLogFormat.writeMeasurement(g, raw);
+        JsonLogFormat.writeEpochEnd(g);
+
+        FixRecord fix = new FixRecord();
+        fix.provider = "gps";
+        fix.latitude = 28.0583;
+        fix.longitude = -82.4139;
+        fix.timeMillis = 1611051330000L;
+        JsonLogFormat.writeFix(g, fix);
+
+        NavMessageRecord nav = new NavMessageRecord();
+        nav.svid = 7;
+        nav.type = 257;
+        nav.data[0] = 1;
+        nav.data[1] = -1;
+        nav.dataLength = 2;
+        JsonLogFormat.writeNav(g, nav);
+
+        char[] sentence = "  $GPGGA,1*00".toCharArray();
+        JsonLogFormat.writeNmea(g, sentence, 2, sentence.length - 2, 1611051330500L);
+
+        g.writeEndArray();
+        g.close();
+
+        JsonNode records = mapper.readTree(writer.toString());
+        assertEquals(4, records.size());
+
+        JsonNode epoch = records.get(0);
+        assertEquals("Raw", epoch.get("type").asText());
+        assertEquals(1000L, epoch.get("elapsedRealtimeMillis").asLong());
+        JsonNode clock = epoch.get("clock");
+        assertEquals(123456789L, clock.get("timeNanos").asLong());
+        assertEquals(-1234567890123456789L, clock.get("fullBiasNanos").asLong());
+        assertEquals(0.5, clock.get("biasNanos").asDouble());
+        // Optional values that aren't available are omitted
+        assertFalse(clock.has("leapSecond"));
+        JsonNode measurements = epoch.get("measurements");
+        assertEquals(2, measurements.size());
+        assertEquals(5, measurements.get(0).get("svid").asInt());
+        assertEquals(42.25, measurements.get(0).get("cn0DbHz").asDouble());
+        assertEquals(1.57542E9f, (float) measurements.get(0).get("carrierFrequencyHz").asDouble());
+        assertEquals(12, measurements.get(1).get("svid").asInt());
+        assertFalse(measurements.get(1).has("carrierFrequencyHz"));
+
+        JsonNode fixNode = records.get(1);
+        assertEquals("Fix", fixNode.get("type").asText());
+        assertEquals("gps", fixNode.get("provider").asText());
+        assertEquals(-82.4139, fixNode.get("longitude").asDouble());
+        assertEquals(1611051330000L, fixNode.get("timeMillis").asLong());
+
+        JsonNode navNode = records.get(2);
+        assertEquals("Nav", navNode.get("type").asText());
+        assertEquals(257, navNode.get("navType").asInt());
+        assertTrue(Arrays.equals(new byte[]{1, -1}, navNode.get("data").binaryValue()));
+
+        JsonNode nmeaNode = records.get(3);
+        assertEquals("NMEA", nmeaNode.get("type").asText());
+        assertEquals("$GPGGA,1*00", nmeaNode.get("sentence").asText());
+        assertEquals(1611051330500L, nmeaNode.get("timestamp").asLong());
+    }
+}
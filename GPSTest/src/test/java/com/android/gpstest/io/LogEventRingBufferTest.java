@@ -0,0 +1,134 @@
+/*
+ * Copyright (C) 2021 Sean J. Barbeau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.gpstest.io;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertTrue;
+
+public class LogEventRingBufferTest {
+
+    /**
+     * Test that events are drained in the order they were offered, and that the capacity is
+     * rounded up to a power of two
+     */
+    @Test
+    public void testOfferAndDrain() {
+        LogEventRingBuffer buffer = new LogEventRingBuffer(3);
+        assertEquals(4, buffer.capacity());
+
+        assertTrue(buffer.offer(LogEvent.TYPE_NMEA, "$GPGGA", 1L, 10L));
+        assertTrue(buffer.offer(LogEvent.TYPE_LOCATION, "fix", 2L, 20L));
+        assertEquals(2, buffer.size());
+
+        final List<String> payloads = new ArrayList<>();
+        final List<Long> times = new ArrayList<>();
+        int drained = buffer.drain(event -> {
+            payloads.add((String) event.payload);
+            times.add(event.timeMillis);
+        }, 10);
+
+        assertEquals(2, drained);
+        assertEquals("$GPGGA", payloads.get(0));
+        assertEquals("fix", payloads.get(1));
+        assertEquals(1L, (long) times.get(0));
+        assertEquals(2L, (long) times.get(1));
+        assertEquals(0, buffer.size());
+        assertEquals(2, buffer.peakSize());
+    }
+
+    /**
+     * Test that offers fail when the buffer is full, and succeed again after the consumer drains it
+     */
+    @Test
+    public void testFullBuffer() {
+        LogEventRingBuffer buffer = new LogEventRingBuffer(4);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(buffer.offer(LogEvent.TYPE_NMEA, "s" + i, i, i));
+        }
+        assertFalse(buffer.offer(LogEvent.TYPE_NMEA, "s4", 4, 4));
+        assertEquals(4, buffer.size());
+
+        // Drain a single event to make room for one more
+        assertEquals(1, buffer.drain(event -> assertEquals("s0", event.payload), 1));
+        assertTrue(buffer.offer(LogEvent.TYPE_NMEA, "s4", 4, 4));
+
+        final List<String> payloads = new ArrayList<>();
+        buffer.drain(event -> payloads.add((String) event.payload), 10);
+        assertEquals(4, payloads.size());
+        assertEquals("s1", payloads.get(0));
+        assertEquals("s4", payloads.get(3));
+    }
+
+    /**
+     * Test that slots are cleared after they are drained so payloads aren't retained
+     */
+    @Test
+    public void testSlotsCleared() {
+        LogEventRingBuffer buffer = new LogEventRingBuffer(2);
+        final LogEvent[] seen = new LogEvent[1];
+        buffer.offer(LogEvent.TYPE_NMEA, "payload", 1, 1);
+        buffer.drain(event -> seen[0] = event, 1);
+        assertNull(seen[0].payload);
+        assertEquals(LogEvent.TYPE_NONE, seen[0].type);
+    }
+
+    /**
+     * Test that events offered concurrently from several producer threads are all received exactly once
+     */
+    @Test
+    public void testMultipleProducers() throws InterruptedException {
+        final int producers = 4;
+        final int eventsPerProducer = 10000;
+        final LogEventRingBuffer buffer = new LogEventRingBuffer(64);
+        final boolean[] received = new boolean[producers * eventsPerProducer];
+
+        Thread[] threads = new Thread[producers];
+        for (int p = 0; p < producers; p++) {
+            final int producer = p;
+            threads[p] = new Thread(() -> {
+                for (int i = 0; i < eventsPerProducer; i++) {
+                    long id = (long) producer * eventsPerProducer + i;
+                    while (!buffer.offer(LogEvent.TYPE_NMEA, null, id, id)) {
+                        Thread.yield();
+                    }
+                }
+            });
+            threads[p].start();
+        }
+
+        int total = 0;
+        while (total < received.length) {
+            total += buffer.drain(event -> {
+                assertFalse(received[(int) event.timeMillis]);
+                received[(int) event.timeMillis] = true;
+            }, 16);
+        }
+        for (Thread t : threads) {
+            t.join();
+        }
+        for (boolean r : received) {
+            assertTrue(r);
+        }
+        assertEquals(0, buffer.size());
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright (C) 2021 Sean J. Barbeau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.gpstest.io;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertSame;
+import static junit.framework.Assert.assertTrue;
+
+public class LogSessionManifestTest {
+
+    /**
+     * Test that segment time ranges and record counts are updated as records are written
+     */
+    @Test
+    public void testSegmentRecords() {
+        LogSessionManifest manifest = new LogSessionManifest("gnss_log_2021_01_19_10_15_30");
+        LogSessionManifest.Segment segment = manifest.getOrAddSegment("gnss_log_2021_01_19_10_15_30.txt");
+        assertEquals(0, segment.getRecordCount());
+
+        segment.addRecord(1611051330000L);
+        segment.addRecord(1611051331000L);
+        // NMEA timestamps can be slightly earlier than the previous record
+        segment.addRecord(1611051329500L);
+
+        assertEquals(3, segment.getRecordCount());
+        assertEquals(1611051329500L, segment.getFirstRecordTimeMillis());
+        assertEquals(1611051331000L, segment.getLastRecordTimeMillis());
+        assertSame(segment, manifest.getOrAddSegment("gnss_log_2021_01_19_10_15_30.txt"));
+        assertEquals(1, manifest.getSegments().size());
+    }
+
+    /**
+     * Test writing a manifest and reading it back
+     */
+    @Test
+    public void testWriteAndRead() throws IOException {
+        File directory = new File(System.getProperty("java.io.tmpdir"));
+        File file = LogSessionManifest.getFile(directory, "gnss_log_2021_01_19_10_15_30", "txt");
+        assertEquals("gnss_log_2021_01_19_10_15_30.txt.manifest.json", file.getName());
+        assertTrue(LogSessionManifest.isManifestFile(file));
+        assertFalse(LogSessionManifest.isManifestFile(new File(directory, "gnss_log_2021_01_19_10_15_30.json")));
+
+        try {
+            LogSessionManifest manifest = new LogSessionManifest("gnss_log_2021_01_19_10_15_30");
+            LogSessionManifest.Segment first = manifest.getOrAddSegment("gnss_log_2021_01_19_10_15_30.txt");
+            first.addRecord(1000L);
+            first.addRecord(2000L);
+            first.setSizeBytes(10485760L);
+            LogSessionManifest.Segment second = manifest.getOrAddSegment("gnss_log_2021_01_19_10_15_30_002.txt");
+            second.addRecord(3000L);
+            second.setSizeBytes(512L);
+
+            ObjectMapper mapper = new ObjectMapper();
+            manifest.write(mapper, file);
+            LogSessionManifest read = LogSessionManifest.read(mapper, file);
+
+            assertEquals("gnss_log_2021_01_19_10_15_30", read.getSessionName());
+            assertEquals(2, read.getSegments().size());
+            LogSessionManifest.Segment readFirst = read.getSegments().get(0);
+            assertEquals("gnss_log_2021_01_19_10_15_30.txt", readFirst.getFileName());
+            assertEquals(1000L, readFirst.getFirstRecordTimeMillis());
+            assertEquals(2000L, readFirst.getLastRecordTimeMillis());
+            assertEquals(2, readFirst.getRecordCount());
+            assertEquals(10485760L, readFirst.getSizeBytes());
+            LogSessionManifest.Segment readSecond = read.getSegments().get(1);
+            assertEquals("gnss_log_2021_01_19_10_15_30_002.txt", readSecond.getFileName());
+            assertEquals(1, readSecond.getRecordCount());
+
+            // Continuing the session adds records to the existing segment
+            read.getOrAddSegment("gnss_log_2021_01_19_10_15_30_002.txt").addRecord(4000L);
+            assertEquals(2, read.getSegments().get(1).getRecordCount());
+        } finally {
+            file.delete();
+        }
+    }
+
+    /**
+     * Test that all files of a session belong to the same log, and other files to their own log
+     */
+    @Test
+    public void testGetLogName() {
+        String session = "gnss_log_2021_01_19_10_15_30";
+        String[] sessionFiles = {
+                session + ".txt",
+                session + "_002.txt",
+                session + "_002.txt.idx",
+                session + ".txt.manifest.json",
+        };
+        for (String name : sessionFiles) {
+            assertEquals(name, session + ".txt", LogSessionManifest.getLogName(new File(name)));
+        }
+        // Compressed segments don't have indexes
+        assertEquals(session + ".txt", LogSessionManifest.getLogName(new File(session + "_003.txt.gz")));
+        // The JSON log of the same session is a different log
+        assertEquals(session + ".json", LogSessionManifest.getLogName(new File(session + "_002.json")));
+        assertEquals(session + ".json", LogSessionManifest.getLogName(new File(session + ".json.manifest.json")));
+
+        assertEquals("notes.txt", LogSessionManifest.getLogName(new File("notes.txt")));
+        assertEquals("notes", LogSessionManifest.getLogName(new File("notes")));
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright (C) 2021 Sean J. Barbeau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.gpstest.io;
+
+import org.junit.Test;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.RandomAccessFile;
+import java.io.Writer;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertTrue;
+
+public class LogTimeIndexTest {
+
+    /**
+     * Test writing entries, including appending to an existing index with a partially written
+     * entry, and finding offsets by time
+     */
+    @Test
+    public void testWriteAndFind() throws IOException {
+        File logFile = File.createTempFile("gnss_log", ".txt");
+        File indexFile = LogTimeIndex.getFile(logFile);
+        assertTrue(LogTimeIndex.isIndexFile(indexFile));
+        assertEquals(logFile, LogTimeIndex.getLogFile(indexFile));
+        try {
+            try (DataOutputStream out = LogTimeIndex.openForAppend(indexFile, 100)) {
+                for (int i = 0; i < 10; i++) {
+                    LogTimeIndex.writeEntry(out, i * 1000L, 5000L + i * 10, 1611051330000L + i * 10);
+                }
+                // Partially written entry, e.g. if the app was killed
+                out.writeLong(99999L);
+            }
+            try (DataOutputStream out = LogTimeIndex.openForAppend(indexFile, 100)) {
+                LogTimeIndex.writeEntry(out, 10000L, 5100L, 1611051330100L);
+            }
+
+            try (LogTimeIndex index = LogTimeIndex.open(indexFile)) {
+                assertEquals(100, index.getInterval());
+                assertEquals(11, index.getEntryCount());
+                assertEquals(10000L, index.getOffset(10));
+                assertEquals(5100L, index.getElapsedRealtimeMillis(10));
+                assertEquals(1611051330100L, index.getUtcTimeMillis(10));
+
+                // Before the first entry starts at the beginning of the file
+                assertEquals(0L, index.findOffsetByUtcTime(1611051320000L));
+                assertEquals(0L, index.findOffsetByElapsedRealtime(5000L));
+                // Between entries starts at the earlier entry
+                assertEquals(3000L, index.findOffsetByUtcTime(1611051330035L));
+                assertEquals(4000L, index.findOffsetByElapsedRealtime(5040L));
+                // After the last entry
+                assertEquals(10000L, index.findOffsetByUtcTime(Long.MAX_VALUE));
+            }
+        } finally {
+            logFile.delete();
+            indexFile.delete();
+        }
+    }
+
+    /**
+     * Test rebuilding the index of a CSV log and reading the log from an indexed offset
+     */
+    @Test
+    public void testRebuild() throws IOException {
+        File logFile = File.createTempFile("gnss_log", ".txt");
+        File indexFile = LogTimeIndex.getFile(logFile);
+        try {
+            try (Writer writer = new OutputStreamWriter(new FileOutputStream(logFile), "UTF-8")) {
+                writer.write("# Header\n#\n");
+                for (int i = 0; i < 10; i++) {
+                    writer.write("NMEA,$GPGGA,," + (1611051330000L + i * 1000) + "\n");
+                }
+            }
+
+            assertEquals(indexFile, LogTimeIndex.rebuild(logFile, 3));
+
+            try (LogTimeIndex index = LogTimeIndex.open(indexFile)) {
+                // Records 0, 3, 6 and 9
+                assertEquals(4, index.getEntryCount());
+                assertEquals(LogTimeIndex.UNKNOWN_TIME, index.getElapsedRealtimeMillis(0));
+                assertEquals(1611051333000L, index.getUtcTimeMillis(1));
+
+                long offset = index.findOffsetByUtcTime(1611051337500L);
+                try (RandomAccessFile file = new RandomAccessFile(logFile, "r")) {
+                    file.seek(offset);
+                    assertEquals("NMEA,$GPGGA,,1611051336000", file.readLine());
+                }
+                // Entries with unknown times are skipped, so reading starts at the beginning
+                assertEquals(0L, index.findOffsetByElapsedRealtime(Long.MAX_VALUE));
+            }
+        } finally {
+            logFile.delete();
+            indexFile.delete();
+        }
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright (C) 2021 Sean J. Barbeau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.gpstest.io;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
+
+public class MappedSegmentOutputStreamTest {
+
+    /**
+     * Test writing across several segments and that the file is truncated to the bytes written
+     * when the stream is closed
+     */
+    @Test
+    public void testWriteAcrossSegments() throws IOException {
+        File file = File.createTempFile("mapped", ".txt");
+        try {
+            ByteArrayOutputStream expected = new ByteArrayOutputStream();
+            MappedSegmentOutputStream stream = new MappedSegmentOutputStream(file, 64);
+            for (int i = 0; i < 50; i++) {
+                byte[] bytes = ("NMEA,$GPGGA," + i + "\n").getBytes("UTF-8");
+                stream.write(bytes, 0, bytes.length);
+                expected.write(bytes, 0, bytes.length);
+                stream.write('#');
+                expected.write('#');
+            }
+            // Preallocated space is included in the file until it is closed
+            assertTrue(file.length() > expected.size());
+            assertEquals(expected.size(), stream.length());
+            stream.close();
+
+            assertEquals(expected.size(), file.length());
+            assertTrue(Arrays.equals(expected.toByteArray(), readFile(file)));
+        } finally {
+            file.delete();
+        }
+    }
+
+    /**
+     * Test that re-opening an existing file appends to it
+     */
+    @Test
+    public void testAppend() throws IOException {
+        File file = File.createTempFile("mapped", ".txt");
+        try {
+            MappedSegmentOutputStream stream = new MappedSegmentOutputStream(file, 16);
+            byte[] first = "first line\n".getBytes("UTF-8");
+            stream.write(first, 0, first.length);
+            stream.close();
+
+            stream = new MappedSegmentOutputStream(file, 16);
+            byte[] second = "second, longer line\n".getBytes("UTF-8");
+            stream.write(second, 0, second.length);
+            stream.force();
+            stream.close();
+            // Closing twice has no effect
+            stream.close();
+
+            assertEquals("first line\nsecond, longer line\n", new String(readFile(file), "UTF-8"));
+        } finally {
+            file.delete();
+        }
+    }
+
+    /**
+     * Test removing the preallocated space left at the end of a file by a stream that wasn't
+     * closed, so that a new stream appends after the data
+     */
+    @Test
+    public void testTruncatePreallocatedSpace() throws IOException {
+        File file = File.createTempFile("mapped", ".txt");
+        try {
+            assertFalse(MappedSegmentOutputStream.mayHavePreallocatedSpace(file));
+            assertEquals(0, MappedSegmentOutputStream.truncatePreallocatedSpace(file));
+
+            // The file as left by a stream with a segment larger than the scan buffer
+            byte[] first = "first line\n".getBytes("UTF-8");
+            try (OutputStream out = new FileOutputStream(file)) {
+                out.write(first);
+                out.write(new byte[20000]);
+            }
+            assertTrue(MappedSegmentOutputStream.mayHavePreallocatedSpace(file));
+            assertEquals(first.length, MappedSegmentOutputStream.truncatePreallocatedSpace(file));
+            assertEquals(first.length, file.length());
+            assertFalse(MappedSegmentOutputStream.mayHavePreallocatedSpace(file));
+
+            MappedSegmentOutputStream stream = new MappedSegmentOutputStream(file, 16);
+            byte[] second = "second line\n".getBytes("UTF-8");
+            stream.write(second, 0, second.length);
+            stream.close();
+            assertEquals("first line\nsecond line\n", new String(readFile(file), "UTF-8"));
+
+            // A file with only zeros is truncated to nothing
+            try (OutputStream out = new FileOutputStream(file)) {
+                out.write(new byte[100]);
+            }
+            assertEquals(0, MappedSegmentOutputStream.truncatePreallocatedSpace(file));
+        } finally {
+            file.delete();
+        }
+    }
+
+    private static byte[] readFile(File file) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (InputStream in = new FileInputStream(file)) {
+            byte[] buffer = new byte[1024];
+            int n;
+            while ((n = in.read(buffer)) > 0) {
+                out.write(buffer, 0, n);
+            }
+        }
+        return out.toByteArray();
+    }
+}
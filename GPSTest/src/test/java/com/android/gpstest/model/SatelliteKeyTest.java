@@ -0,0 +1,69 @@
+/*
+ * Copyright (C) 2021 Sean J. Barbeau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.gpstest.model;
+
+import org.junit.Test;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertNull;
+
+public class SatelliteKeyTest {
+
+    @Test
+    public void testSatelliteKey() {
+        long gps = SatelliteKey.satellite(GnssType.NAVSTAR, SbasType.UNKNOWN, 12);
+        assertEquals(12, SatelliteKey.getSvid(gps));
+        assertEquals(GnssType.NAVSTAR, SatelliteKey.getGnssType(gps));
+        assertEquals(SbasType.UNKNOWN, SatelliteKey.getSbasType(gps));
+        assertEquals(SatelliteKey.NO_BAND, SatelliteKey.getBand(gps));
+        assertEquals("12 NAVSTAR", SatelliteKey.toString(gps));
+
+        // The same svid in another constellation is a different satellite
+        assertFalse(gps == SatelliteKey.satellite(GnssType.GLONASS, SbasType.UNKNOWN, 12));
+        // SBAS type is ignored for other constellations
+        assertEquals(gps, SatelliteKey.satellite(GnssType.NAVSTAR, SbasType.WAAS, 12));
+
+        long waas = SatelliteKey.satellite(GnssType.SBAS, SbasType.WAAS, 135);
+        long egnos = SatelliteKey.satellite(GnssType.SBAS, SbasType.EGNOS, 135);
+        assertFalse(waas == egnos);
+        assertEquals(SbasType.WAAS, SatelliteKey.getSbasType(waas));
+        assertEquals("135 SBAS WAAS", SatelliteKey.toString(waas));
+    }
+
+    @Test
+    public void testSignalKey() {
+        long gps = SatelliteKey.satellite(GnssType.NAVSTAR, SbasType.UNKNOWN, 12);
+        int l1 = CarrierBand.L1.getNumber();
+        int l5 = CarrierBand.L5.getNumber();
+        long gpsL1 = SatelliteKey.signal(gps, l1);
+        long gpsL5 = SatelliteKey.signal(gps, l5);
+
+        assertFalse(gpsL1 == gpsL5);
+        assertFalse(gpsL1 == gps);
+        assertEquals(gps, SatelliteKey.toSatellite(gpsL1));
+        assertEquals(gps, SatelliteKey.toSatellite(gpsL5));
+        assertEquals(l5, SatelliteKey.getBand(gpsL5));
+        assertEquals(12, SatelliteKey.getSvid(gpsL5));
+        assertEquals(GnssType.NAVSTAR, SatelliteKey.getGnssType(gpsL5));
+        assertEquals(gpsL5, SatelliteKey.signal(gpsL1, l5));
+        assertEquals("12 NAVSTAR L5", SatelliteKey.toString(gpsL5));
+
+        assertEquals(CarrierBand.L5, CarrierBand.fromNumber(SatelliteKey.getBand(gpsL5)));
+        assertEquals(CarrierBand.UNSUPPORTED, CarrierBand.fromNumber(CarrierBand.UNSUPPORTED.getNumber()));
+        assertNull(CarrierBand.fromNumber(SatelliteKey.NO_BAND));
+    }
+}
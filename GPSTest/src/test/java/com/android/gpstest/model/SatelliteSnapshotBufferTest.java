@@ -0,0 +1,60 @@
+/*
+ * Copyright (C) 2021 Sean J. Barbeau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.gpstest.model;
+
+import android.location.GnssStatus;
+
+import org.junit.Test;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
+
+public class SatelliteSnapshotBufferTest {
+
+    private static void fill(SatelliteSnapshot snapshot, int svid) {
+        snapshot.clear();
+        snapshot.add(svid, GnssStatus.CONSTELLATION_GPS, 30.0f, 45.0f, 90.0f, 0,
+                SatelliteStatus.NO_DATA);
+    }
+
+    @Test
+    public void testRotation() {
+        SatelliteSnapshotBuffer buffer = new SatelliteSnapshotBuffer();
+        assertEquals(0, buffer.getFront().getCount());
+
+        fill(buffer.getBack(), 1);
+        buffer.publish();
+        SatelliteSnapshot front = buffer.getFront();
+        assertEquals(1, front.getSvid(0));
+        // The front doesn't change until a newer snapshot is published
+        assertTrue(front == buffer.getFront());
+
+        // The producer never gets the front snapshot while the consumer holds it
+        fill(buffer.getBack(), 2);
+        assertFalse(front == buffer.getBack());
+        buffer.publish();
+        assertFalse(front == buffer.getBack());
+        fill(buffer.getBack(), 3);
+        buffer.publish();
+        assertFalse(front == buffer.getBack());
+        assertEquals(1, front.getSvid(0));
+
+        // Only the latest snapshot is delivered
+        front = buffer.getFront();
+        assertEquals(3, front.getSvid(0));
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright (C) 2021 Sean J. Barbeau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.gpstest.model;
+
+import android.location.GnssStatus;
+
+import org.junit.Test;
+
+import static com.android.gpstest.model.SatelliteSnapshot.FLAG_HAS_ALMANAC;
+import static com.android.gpstest.model.SatelliteSnapshot.FLAG_HAS_CARRIER_FREQUENCY;
+import static com.android.gpstest.model.SatelliteSnapshot.FLAG_HAS_EPHEMERIS;
+import static com.android.gpstest.model.SatelliteSnapshot.FLAG_USED_IN_FIX;
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
+
+public class SatelliteSnapshotTest {
+
+    @Test
+    public void testSnapshot() {
+        // Start with a capacity that's too small so the snapshot grows
+        SatelliteSnapshot snapshot = new SatelliteSnapshot(1);
+        snapshot.add(3, GnssStatus.CONSTELLATION_GPS, 40.0f, 45.0f, 120.0f,
+                FLAG_HAS_ALMANAC | FLAG_HAS_EPHEMERIS | FLAG_USED_IN_FIX | FLAG_HAS_CARRIER_FREQUENCY,
+                1575.42e6f);
+        snapshot.add(65, GnssStatus.CONSTELLATION_GLONASS, 20.0f, 30.0f, 43.0f,
+                FLAG_USED_IN_FIX, SatelliteStatus.NO_DATA);
+        snapshot.add(9, GnssStatus.CONSTELLATION_GPS, 0.0f, 10.0f, 300.0f,
+                FLAG_HAS_ALMANAC, SatelliteStatus.NO_DATA);
+
+        assertEquals(3, snapshot.getCount());
+        assertEquals(3, snapshot.getSvid(0));
+        assertEquals(GnssType.NAVSTAR, snapshot.getGnssType(0));
+        assertEquals(GnssStatus.CONSTELLATION_GPS, snapshot.getConstellationType(0));
+        assertEquals(40.0f, snapshot.getCn0DbHz(0));
+        assertEquals(45.0f, snapshot.getElevationDegrees(0));
+        assertEquals(120.0f, snapshot.getAzimuthDegrees(0));
+        assertTrue(snapshot.hasAlmanacData(0));
+        assertTrue(snapshot.hasEphemerisData(0));
+        assertTrue(snapshot.usedInFix(0));
+        assertTrue(snapshot.hasCarrierFrequencyHz(0));
+        assertEquals(1575.42e6f, snapshot.getCarrierFrequencyHz(0));
+
+        assertEquals(GnssType.GLONASS, snapshot.getGnssType(1));
+        assertFalse(snapshot.hasAlmanacData(1));
+        assertFalse(snapshot.hasCarrierFrequencyHz(1));
+        assertFalse(snapshot.usedInFix(2));
+
+        // The satellite with a C/N0 of 0 isn't in view
+        assertEquals(2, snapshot.getInViewCount());
+        assertEquals(2, snapshot.getUsedCount());
+        assertEquals(30.0f, snapshot.getCn0InViewAvg());
+        assertEquals(30.0f, snapshot.getCn0UsedAvg());
+
+        SatelliteStatus status = snapshot.toSatelliteStatus(0);
+        assertEquals(3, status.getSvid());
+        assertEquals(GnssType.NAVSTAR, status.getGnssType());
+        assertTrue(status.getUsedInFix());
+        assertEquals(1575.42e6f, status.getCarrierFrequencyHz());
+
+        // Copying into an existing status replaces all values
+        snapshot.copyTo(1, status);
+        assertEquals(65, status.getSvid());
+        assertEquals(GnssType.GLONASS, status.getGnssType());
+        assertFalse(status.getHasAlmanac());
+        assertFalse(status.getHasCarrierFrequency());
+        assertEquals(SatelliteStatus.NO_DATA, status.getCarrierFrequencyHz());
+
+        // A copy is independent of the original, which can be re-used
+        SatelliteSnapshot copy = new SatelliteSnapshot(1);
+        copy.copyFrom(snapshot);
+        snapshot.clear();
+        snapshot.add(10, GnssStatus.CONSTELLATION_GPS, 35.0f, 10.0f, 10.0f, 0, SatelliteStatus.NO_DATA);
+        assertEquals(1, snapshot.getCount());
+        assertEquals(10, snapshot.getSvid(0));
+        assertEquals(0, snapshot.getUsedCount());
+        assertEquals(35.0f, snapshot.getCn0InViewAvg());
+        assertEquals(3, copy.getCount());
+        assertEquals(3, copy.getSvid(0));
+        assertEquals(9, copy.getSvid(2));
+        assertEquals(30.0f, copy.getCn0UsedAvg());
+    }
+
+    @Test
+    public void testEmpty() {
+        SatelliteSnapshot snapshot = new SatelliteSnapshot(0);
+        assertEquals(0, snapshot.getCount());
+        assertEquals(0.0f, snapshot.getCn0InViewAvg());
+        assertEquals(0.0f, snapshot.getCn0UsedAvg());
+    }
+}
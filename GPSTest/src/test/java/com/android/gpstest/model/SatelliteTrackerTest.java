@@ -0,0 +1,169 @@
+/*
+ * Copyright (C) 2021 Sean J. Barbeau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.gpstest.model;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertNotNull;
+import static junit.framework.Assert.assertTrue;
+
+public class SatelliteTrackerTest {
+
+    private static SatelliteStatus gps(int svid, float cn0, boolean usedInFix) {
+        return new SatelliteStatus(svid, GnssType.NAVSTAR, cn0, true, true, usedInFix, 45f, 90f);
+    }
+
+    @Test
+    public void testAddChangeRemove() {
+        SatelliteTracker tracker = new SatelliteTracker();
+        SatelliteChanges changes = new SatelliteChanges();
+
+        tracker.update(Arrays.asList(gps(1, 30f, true), gps(2, 20f, false), gps(3, 0f, false)), changes);
+        assertEquals(3, changes.getAdded().size());
+        assertEquals(0, changes.getChanged().size());
+        assertEquals(0, changes.getRemoved().size());
+        assertEquals(3, tracker.getNumSatsTotal());
+        assertEquals(2, tracker.getNumSatsInView());
+        assertEquals(1, tracker.getNumSatsUsed());
+        assertEquals(3, tracker.getNumSignalsTotal());
+        assertEquals(2, tracker.getNumSignalsInView());
+        assertEquals(1, tracker.getNumSignalsUsed());
+        assertEquals(3, tracker.getSignalCount(GnssType.NAVSTAR));
+        Satellite sat1 = tracker.getSatellites().get(SatelliteKey.satellite(GnssType.NAVSTAR, SbasType.UNKNOWN, 1));
+        assertNotNull(sat1);
+
+        // The same epoch again doesn't change anything
+        changes.clear();
+        tracker.update(Arrays.asList(gps(1, 30f, true), gps(2, 20f, false), gps(3, 0f, false)), changes);
+        assertTrue(changes.isEmpty());
+        assertEquals(2, tracker.getNumSatsInView());
+
+        // Satellite 2 is now used, 3 is gone and 4 is new
+        changes.clear();
+        tracker.update(Arrays.asList(gps(1, 30f, true), gps(2, 25f, true), gps(4, 10f, false)), changes);
+        long key2 = SatelliteKey.satellite(GnssType.NAVSTAR, SbasType.UNKNOWN, 2);
+        long key3 = SatelliteKey.satellite(GnssType.NAVSTAR, SbasType.UNKNOWN, 3);
+        long key4 = SatelliteKey.satellite(GnssType.NAVSTAR, SbasType.UNKNOWN, 4);
+        assertEquals(1, changes.getAdded().size());
+        assertTrue(changes.getAdded().containsKey(key4));
+        assertEquals(1, changes.getChanged().size());
+        assertTrue(changes.getChanged().containsKey(key2));
+        assertEquals(1, changes.getRemoved().size());
+        assertEquals(1, changes.getRemoved().get(key3).getStatus().size());
+        assertEquals(3, tracker.getNumSatsTotal());
+        assertEquals(3, tracker.getNumSatsInView());
+        assertEquals(2, tracker.getNumSatsUsed());
+        assertEquals(2, tracker.getNumSignalsUsed());
+        // Satellites are updated in place
+        assertTrue(sat1 == tracker.getSatellites().get(sat1.getId()));
+        assertEquals(25f, tracker.getSatellites().get(key2).getStatus().valueAt(0).getCn0DbHz());
+
+        changes.clear();
+        tracker.update(null, changes);
+        assertEquals(3, changes.getRemoved().size());
+        assertEquals(0, tracker.getNumSatsTotal());
+        assertEquals(0, tracker.getNumSatsInView());
+        assertEquals(0, tracker.getNumSatsUsed());
+        assertEquals(0, tracker.getSignalCount(GnssType.NAVSTAR));
+    }
+
+    @Test
+    public void testDuplicates() {
+        SatelliteTracker tracker = new SatelliteTracker();
+        SatelliteChanges changes = new SatelliteChanges();
+
+        // Two signals with the same key - the first is kept and the second is a duplicate
+        tracker.update(Arrays.asList(gps(1, 30f, true), gps(1, 20f, false)), changes);
+        assertEquals(1, tracker.getNumSatsTotal());
+        assertEquals(2, tracker.getNumSignalsTotal());
+        assertEquals(2, tracker.getNumSignalsInView());
+        assertEquals(1, tracker.getDuplicateCarrierStatuses().size());
+        assertEquals(20f, tracker.getDuplicateCarrierStatuses().valueAt(0).getCn0DbHz());
+        assertEquals(30f, tracker.getSatellites().valueAt(0).getStatus().valueAt(0).getCn0DbHz());
+        assertFalse(tracker.isDualFrequencyPerSatInView());
+
+        // Duplicates are only kept for the epoch they were found in
+        changes.clear();
+        tracker.update(Collections.singletonList(gps(1, 30f, true)), changes);
+        assertTrue(changes.isEmpty());
+        assertEquals(0, tracker.getDuplicateCarrierStatuses().size());
+
+        tracker.clear();
+        changes.clear();
+        tracker.update(Collections.singletonList(gps(1, 30f, true)), changes);
+        assertEquals(1, changes.getAdded().size());
+    }
+
+    @Test
+    public void testReusedStatuses() {
+        SatelliteTracker tracker = new SatelliteTracker();
+        SatelliteChanges changes = new SatelliteChanges();
+
+        // The caller re-uses the same status for each epoch, so the tracker needs its own copy
+        SatelliteStatus status = gps(1, 30f, true);
+        tracker.update(Collections.singletonList(status), changes);
+        SatelliteStatus tracked = tracker.getSatellites().valueAt(0).getStatus().valueAt(0);
+        assertFalse(tracked == status);
+
+        status.setCn0DbHz(20f);
+        status.setUsedInFix(false);
+        assertEquals(30f, tracked.getCn0DbHz());
+        assertEquals(1, tracker.getNumSatsUsed());
+
+        changes.clear();
+        tracker.update(Collections.singletonList(status), changes);
+        assertEquals(1, changes.getChanged().size());
+        // The tracked status is updated in place
+        assertTrue(tracked == tracker.getSatellites().valueAt(0).getStatus().valueAt(0));
+        assertEquals(20f, tracked.getCn0DbHz());
+        assertEquals(0, tracker.getNumSatsUsed());
+        assertEquals(1, tracker.getNumSatsInView());
+    }
+
+    @Test
+    public void testReusedDuplicateStatuses() {
+        SatelliteTracker tracker = new SatelliteTracker();
+        SatelliteChanges changes = new SatelliteChanges();
+
+        // Without a carrier frequency both signals have the same signal key
+        SatelliteStatus first = gps(1, 30f, true);
+        SatelliteStatus second = gps(1, 25f, false);
+        tracker.update(Arrays.asList(first, second), changes);
+        assertEquals(1, tracker.getDuplicateCarrierStatuses().size());
+        SatelliteStatus duplicate = tracker.getDuplicateCarrierStatuses().valueAt(0);
+        assertFalse(duplicate == first || duplicate == second);
+
+        // The caller re-uses the rows for the next epoch before the statuses are read
+        first.setSvid(2);
+        first.setCn0DbHz(10f);
+        second.setSvid(3);
+        second.setCn0DbHz(15f);
+        assertEquals(1, duplicate.getSvid());
+        assertEquals(25f, duplicate.getCn0DbHz());
+
+        // The copy is re-used by the next epoch
+        changes.clear();
+        tracker.update(Arrays.asList(gps(4, 20f, true), gps(4, 35f, true)), changes);
+        assertTrue(duplicate == tracker.getDuplicateCarrierStatuses().valueAt(0));
+        assertEquals(4, duplicate.getSvid());
+        assertEquals(35f, duplicate.getCn0DbHz());
+    }
+}
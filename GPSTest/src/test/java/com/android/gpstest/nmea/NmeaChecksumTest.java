@@ -0,0 +1,103 @@
+/*
+ * Copyright (C) 2021 Sean J. Barbeau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.gpstest.nmea;
+
+import org.junit.Test;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+
+public class NmeaChecksumTest {
+
+    private static final String GSA = "$GPGSA,A,3,04,05,,09,12,,,24,,,,,2.5,1.3,2.1*39";
+    private static final String GGA = "$GPGGA,032739.0,2804.732835,N,08224.639709,W,1,08,0.8,19.2,M,-24.0,M,,*5B";
+
+    @Test
+    public void testValidate() {
+        assertEquals(NmeaChecksum.VALID, NmeaChecksum.validate(GSA));
+        assertEquals(NmeaChecksum.VALID, NmeaChecksum.validate(GGA + "\r\n"));
+        assertEquals(NmeaChecksum.VALID, NmeaChecksum.validate("!PUBX,00*33"));
+        assertEquals(NmeaChecksum.VALID, NmeaChecksum.validate(GGA.replace("*5B", "*5b")));
+
+        // Corrupted field
+        assertEquals(NmeaChecksum.INVALID, NmeaChecksum.validate(GSA.replace("2.5", "2.6")));
+
+        // Cut off
+        assertEquals(NmeaChecksum.TRUNCATED, NmeaChecksum.validate(GSA.substring(0, GSA.length() - 1)));
+        assertEquals(NmeaChecksum.TRUNCATED, NmeaChecksum.validate(GSA.substring(0, 20)));
+        assertEquals(NmeaChecksum.TRUNCATED, NmeaChecksum.validate(GSA.substring(1)));
+        assertEquals(NmeaChecksum.TRUNCATED, NmeaChecksum.validate("$GPGSA*3G"));
+        assertEquals(NmeaChecksum.TRUNCATED, NmeaChecksum.validate(""));
+
+        assertEquals(0x39, NmeaChecksum.compute(GSA, 1, GSA.indexOf('*')));
+        assertEquals(0xB, NmeaChecksum.hexValue('b'));
+        assertEquals(-1, NmeaChecksum.hexValue('g'));
+    }
+
+    @Test
+    public void testAddress() {
+        int gpgsv = NmeaAddress.pack("GPGSV");
+        assertEquals(gpgsv, NmeaAddress.fromSentence("$GPGSV,1,1,00*79"));
+        assertEquals("GPGSV", NmeaAddress.toString(gpgsv));
+        assertEquals("PUBX", NmeaAddress.toString(NmeaAddress.fromSentence("$PUBX,00*33")));
+        assertEquals(NmeaAddress.getSentenceType(gpgsv), NmeaAddress.getSentenceType(NmeaAddress.pack("GLGSV")));
+        assertFalse(NmeaAddress.pack("GPGSV") == NmeaAddress.pack("GLGSV"));
+
+        NmeaTokenizer tokenizer = new NmeaTokenizer();
+        tokenizer.tokenize(GGA);
+        assertEquals(NmeaAddress.pack("GPGGA"), NmeaAddress.fromTokenizer(tokenizer));
+
+        assertEquals(NmeaAddress.NONE, NmeaAddress.fromSentence("GPGSV,1,1,00*79"));
+        assertEquals(NmeaAddress.NONE, NmeaAddress.fromSentence("$GPGSVX,1*79"));
+        assertEquals(NmeaAddress.NONE, NmeaAddress.fromSentence("$,1*79"));
+        assertEquals(NmeaAddress.NONE, NmeaAddress.pack("gpgsv"));
+    }
+
+    @Test
+    public void testCounters() {
+        NmeaSentenceCounters counters = new NmeaSentenceCounters();
+        int gsa = NmeaAddress.pack("GPGSA");
+        int gga = NmeaAddress.pack("GPGGA");
+
+        assertEquals(NmeaChecksum.VALID, counters.check(GSA));
+        assertEquals(NmeaChecksum.VALID, counters.check(GSA));
+        assertEquals(NmeaChecksum.INVALID, counters.check(GSA.replace("2.5", "2.6")));
+        assertEquals(NmeaChecksum.TRUNCATED, counters.check(GGA.substring(0, 30)));
+        assertEquals(NmeaChecksum.TRUNCATED, counters.check("garbage"));
+
+        assertEquals(2, counters.getValidCount(gsa));
+        assertEquals(1, counters.getInvalidCount(gsa));
+        assertEquals(0, counters.getTruncatedCount(gsa));
+        assertEquals(0, counters.getValidCount(gga));
+        assertEquals(1, counters.getTruncatedCount(gga));
+        assertEquals(1, counters.getTruncatedCount(NmeaAddress.NONE));
+        assertEquals(3, counters.getAddressCount());
+        assertEquals(0, counters.getValidCount(NmeaAddress.pack("GLGSV")));
+
+        // Grow past the initial capacity
+        for (char c = 'A'; c <= 'Z'; c++) {
+            counters.add(NmeaAddress.pack("GP" + c + "XX"), NmeaChecksum.VALID);
+        }
+        assertEquals(29, counters.getAddressCount());
+        assertEquals(29, counters.getAddressKeys().length);
+        assertEquals(2, counters.getValidCount(gsa));
+        assertEquals(1, counters.getValidCount(NmeaAddress.pack("GPQXX")));
+
+        counters.clear();
+        assertEquals(0, counters.getAddressCount());
+        assertEquals(0, counters.getValidCount(gsa));
+    }
+}
@@ -0,0 +1,201 @@
+/*
+ * Copyright (C) 2021 Sean J. Barbeau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.gpstest.nmea;
+
+import com.android.gpstest.model.GnssType;
+
+import org.junit.Test;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
+
+public class NmeaDecoderTest {
+
+    private static final double DELTA = 1e-9;
+
+    private final NmeaTokenizer tokenizer = new NmeaTokenizer();
+
+    @Test
+    public void testGsa() {
+        GsaSentence gsa = new GsaSentence();
+
+        tokenizer.tokenize("$GPGSA,A,3,04,05,,09,12,,,24,,,,,2.5,1.3,2.1*39");
+        assertTrue(NmeaDecoder.decodeGsa(tokenizer, gsa));
+        assertEquals(NmeaTalker.GP, gsa.getTalker());
+        assertEquals(GnssType.NAVSTAR, gsa.getGnssType());
+        assertEquals('A', gsa.getSelectionMode());
+        assertEquals(3, gsa.getFixType());
+        assertEquals(5, gsa.getSatelliteCount());
+        assertEquals(9, gsa.getSvid(2));
+        assertEquals(24, gsa.getSvid(4));
+        assertEquals(2.5, gsa.getPdop());
+        assertEquals(1.3, gsa.getHdop());
+        assertEquals(2.1, gsa.getVdop());
+        assertEquals(NmeaSentence.UNKNOWN, gsa.getSystemId());
+
+        // NMEA 4.10 system ID for Galileo from a combined talker
+        tokenizer.tokenize("$GNGSA,A,3,03,14,16,22,23,26,,,,,,,3.6,1.8,3.1,3*3B");
+        assertTrue(NmeaDecoder.decodeGsa(tokenizer, gsa));
+        assertEquals(NmeaTalker.GN, gsa.getTalker());
+        assertEquals(3, gsa.getSystemId());
+        assertEquals(GnssType.GALILEO, gsa.getGnssType());
+        assertEquals(6, gsa.getSatelliteCount());
+
+        // Wrong type and too few fields
+        tokenizer.tokenize("$GPGGA,032739.0,2804.732835,N,08224.639709,W,1,08,0.8,19.2,M,-24.0,M,,*5B");
+        assertFalse(NmeaDecoder.decodeGsa(tokenizer, gsa));
+        assertEquals(0, gsa.getSatelliteCount());
+        tokenizer.tokenize("$GPGSA,A,3,04,05*39");
+        assertFalse(NmeaDecoder.decodeGsa(tokenizer, gsa));
+    }
+
+    @Test
+    public void testGsv() {
+        GsvSentence gsv = new GsvSentence();
+
+        tokenizer.tokenize("$GLGSV,3,1,10,65,30,043,27,66,78,332,,72,25,258,31,74,05,023,*6F");
+        assertTrue(NmeaDecoder.decodeGsv(tokenizer, gsv));
+        assertEquals(NmeaTalker.GL, gsv.getTalker());
+        assertEquals(GnssType.GLONASS, gsv.getGnssType());
+        assertEquals(3, gsv.getMessageCount());
+        assertEquals(1, gsv.getMessageNumber());
+        assertEquals(10, gsv.getSatellitesInView());
+        assertEquals(4, gsv.getSatelliteCount());
+        assertEquals(66, gsv.getSvid(1));
+        assertEquals(78, gsv.getElevation(1));
+        assertEquals(332, gsv.getAzimuth(1));
+        assertEquals(NmeaSentence.UNKNOWN, gsv.getCn0(1));
+        assertEquals(31, gsv.getCn0(2));
+        assertEquals(NmeaSentence.UNKNOWN, gsv.getSignalId());
+
+        // Last sentence with a partial group and an NMEA 4.10 signal ID
+        tokenizer.tokenize("$GAGSV,3,3,09,32,18,045,40,7*4A");
+        assertTrue(NmeaDecoder.decodeGsv(tokenizer, gsv));
+        assertEquals(NmeaTalker.GA, gsv.getTalker());
+        assertEquals(1, gsv.getSatelliteCount());
+        assertEquals(32, gsv.getSvid(0));
+        assertEquals(40, gsv.getCn0(0));
+        assertEquals(7, gsv.getSignalId());
+
+        tokenizer.tokenize("$GBGSV,1,1,00*79");
+        assertTrue(NmeaDecoder.decodeGsv(tokenizer, gsv));
+        assertEquals(NmeaTalker.GB, gsv.getTalker());
+        assertEquals(0, gsv.getSatelliteCount());
+    }
+
+    @Test
+    public void testRmc() {
+        RmcSentence rmc = new RmcSentence();
+
+        tokenizer.tokenize("$GNRMC,001031.00,A,3747.6193,N,12226.1283,W,0.02,,181120,3.1,W,A,V*06");
+        assertTrue(NmeaDecoder.decodeRmc(tokenizer, rmc));
+        assertEquals(NmeaTalker.GN, rmc.getTalker());
+        assertEquals(631000, rmc.getTimeOfDayMillis());
+        assertEquals('A', rmc.getStatus());
+        assertEquals(37 + 47.6193 / 60, rmc.getLatitude(), DELTA);
+        assertEquals(-(122 + 26.1283 / 60), rmc.getLongitude(), DELTA);
+        assertEquals(0.02, rmc.getSpeedKnots());
+        assertTrue(Double.isNaN(rmc.getCourse()));
+        assertEquals(18, rmc.getDay());
+        assertEquals(11, rmc.getMonth());
+        assertEquals(2020, rmc.getYear());
+        assertEquals(-3.1, rmc.getMagneticVariation());
+        assertEquals('A', rmc.getModeIndicator());
+        assertEquals('V', rmc.getNavigationalStatus());
+
+        // NMEA 2.0 without mode indicator
+        tokenizer.tokenize("$GPRMC,235959.99,V,,,,,,,010199,,*1F");
+        assertTrue(NmeaDecoder.decodeRmc(tokenizer, rmc));
+        assertEquals(86399990, rmc.getTimeOfDayMillis());
+        assertTrue(Double.isNaN(rmc.getLatitude()));
+        assertEquals(1999, rmc.getYear());
+        assertEquals(0, rmc.getModeIndicator());
+    }
+
+    @Test
+    public void testGst() {
+        GstSentence gst = new GstSentence();
+
+        tokenizer.tokenize("$GPGST,172814.0,0.006,0.023,0.020,273.6,0.023,0.020,0.031*6A");
+        assertTrue(NmeaDecoder.decodeGst(tokenizer, gst));
+        assertEquals(NmeaTalker.GP, gst.getTalker());
+        assertEquals((17 * 3600 + 28 * 60 + 14) * 1000, gst.getTimeOfDayMillis());
+        assertEquals(0.006, gst.getRangeRms());
+        assertEquals(0.023, gst.getSemiMajorStdDev());
+        assertEquals(0.020, gst.getSemiMinorStdDev());
+        assertEquals(273.6, gst.getOrientation());
+        assertEquals(0.023, gst.getLatitudeStdDev());
+        assertEquals(0.020, gst.getLongitudeStdDev());
+        assertEquals(0.031, gst.getAltitudeStdDev());
+    }
+
+    @Test
+    public void testVtg() {
+        VtgSentence vtg = new VtgSentence();
+
+        tokenizer.tokenize("$GQVTG,054.7,T,034.4,M,005.5,N,010.2,K,A*2B");
+        assertTrue(NmeaDecoder.decodeVtg(tokenizer, vtg));
+        assertEquals(NmeaTalker.GQ, vtg.getTalker());
+        assertEquals(GnssType.QZSS, vtg.getGnssType());
+        assertEquals(54.7, vtg.getCourseTrue());
+        assertEquals(34.4, vtg.getCourseMagnetic());
+        assertEquals(5.5, vtg.getSpeedKnots());
+        assertEquals(10.2, vtg.getSpeedKmh());
+        assertEquals('A', vtg.getModeIndicator());
+    }
+
+    @Test
+    public void testZda() {
+        ZdaSentence zda = new ZdaSentence();
+
+        tokenizer.tokenize("$GPZDA,201530.00,04,07,2002,-05,30*60");
+        assertTrue(NmeaDecoder.decodeZda(tokenizer, zda));
+        assertEquals((20 * 3600 + 15 * 60 + 30) * 1000, zda.getTimeOfDayMillis());
+        assertEquals(4, zda.getDay());
+        assertEquals(7, zda.getMonth());
+        assertEquals(2002, zda.getYear());
+        assertEquals(-5, zda.getLocalZoneHours());
+        assertEquals(-30, zda.getLocalZoneMinutes());
+    }
+
+    @Test
+    public void testGbs() {
+        GbsSentence gbs = new GbsSentence();
+
+        tokenizer.tokenize("$GNGBS,015509.00,-0.031,-0.186,0.219,19,0.000,-0.354,6.972,4,1*5B");
+        assertTrue(NmeaDecoder.decodeGbs(tokenizer, gbs));
+        assertEquals(NmeaTalker.GN, gbs.getTalker());
+        assertEquals((1 * 3600 + 55 * 60 + 9) * 1000, gbs.getTimeOfDayMillis());
+        assertEquals(-0.031, gbs.getLatitudeError());
+        assertEquals(-0.186, gbs.getLongitudeError());
+        assertEquals(0.219, gbs.getAltitudeError());
+        assertEquals(19, gbs.getFailedSvid());
+        assertEquals(0.0, gbs.getFailureProbability());
+        assertEquals(-0.354, gbs.getBias());
+        assertEquals(6.972, gbs.getBiasStdDev());
+        assertEquals(4, gbs.getSystemId());
+        assertEquals(GnssType.BEIDOU, gbs.getGnssType());
+        assertEquals(1, gbs.getSignalId());
+
+        // NMEA 3.0 without system and signal IDs
+        tokenizer.tokenize("$GPGBS,015509.00,-0.031,-0.186,0.219,,,,*5B");
+        assertTrue(NmeaDecoder.decodeGbs(tokenizer, gbs));
+        assertEquals(NmeaSentence.UNKNOWN, gbs.getFailedSvid());
+        assertEquals(NmeaSentence.UNKNOWN, gbs.getSystemId());
+        assertEquals(GnssType.NAVSTAR, gbs.getGnssType());
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright (C) 2021 Sean J. Barbeau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.gpstest.nmea;
+
+import com.android.gpstest.model.GnssType;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
+
+public class NmeaEpochAssemblerTest {
+
+    private final List<NmeaEpoch> epochs = new ArrayList<>();
+
+    /**
+     * Test assembling epochs that start with a timed sentence and are split by the UTC time
+     */
+    @Test
+    public void testEpochsByTime() {
+        NmeaEpochAssembler assembler = new NmeaEpochAssembler(epochs::add);
+
+        // All sentences of both epochs have the same timestamp, so only the UTC time splits them
+        assembler.add("$GNGGA,172814.00,2803.208136,N,08225.981423,W,1,08,1.1,-19.7,M,-24.8,M,,*5F", 1000);
+        assembler.add("$GNRMC,172814.00,A,2803.208136,N,08225.981423,W,0.5,90.0,181120,,,A*00", 1000);
+        assembler.add("$GNGSA,A,3,03,14,,,,,,,,,,,3.6,1.8,3.1,1*00", 1000);
+        assembler.add("$GNGSA,A,3,65,,,,,,,,,,,,3.6,1.8,3.1,2*00", 1000);
+        assembler.add("$GPGSV,1,1,02,03,45,120,40,09,10,300,22*00", 1000);
+        assembler.add("$GLGSV,1,1,01,65,30,043,27*00", 1000);
+        assembler.add("$GPGST,172814.00,0.006,0.023,0.020,273.6,0.023,0.020,0.031*00", 1000);
+        // Ignored
+        assembler.add("$GPVTG,054.7,T,034.4,M,005.5,N,010.2,K,A*00", 1000);
+        assertEquals(0, epochs.size());
+
+        assembler.add("$GNGGA,172815.00,2803.208136,N,08225.981423,W,1,08,1.1,-19.5,M,-24.8,M,,*5F", 1000);
+        assertEquals(1, epochs.size());
+
+        NmeaEpoch epoch = epochs.get(0);
+        assertEquals(1000, epoch.getTimestamp());
+        assertEquals((17 * 3600 + 28 * 60 + 14) * 1000, epoch.getTimeOfDayMillis());
+        assertEquals(7, epoch.getSentenceCount());
+        assertEquals(28 + 3.208136 / 60, epoch.getLatitude(), 1e-9);
+        assertEquals(-(82 + 25.981423 / 60), epoch.getLongitude(), 1e-9);
+        assertEquals(-19.7, epoch.getAltitudeMsl());
+        assertEquals(1, epoch.getFixQuality());
+        assertEquals(8, epoch.getSatellitesUsed());
+        assertEquals(0.5, epoch.getSpeedKnots());
+        assertEquals(90.0, epoch.getCourse());
+        assertEquals(3.6, epoch.getPdop());
+        assertEquals(1.8, epoch.getHdop());
+        assertEquals(3.1, epoch.getVdop());
+        assertTrue(epoch.hasErrorEllipse());
+        assertEquals(0.023, epoch.getSemiMajorStdDev());
+        assertEquals(273.6, epoch.getOrientation());
+
+        assertEquals(3, epoch.getSatelliteCount());
+        assertEquals(GnssType.NAVSTAR, epoch.getGnssType(0));
+        assertEquals(3, epoch.getSvid(0));
+        assertEquals(40, epoch.getCn0(0));
+        assertTrue(epoch.isUsedInFix(0));
+        assertEquals(9, epoch.getSvid(1));
+        assertFalse(epoch.isUsedInFix(1));
+        assertEquals(GnssType.GLONASS, epoch.getGnssType(2));
+        assertEquals(65, epoch.getSvid(2));
+        assertTrue(epoch.isUsedInFix(2));
+
+        // The second epoch is passed on by flush(), and doesn't have values from the first
+        assembler.flush();
+        assertEquals(2, epochs.size());
+        epoch = epochs.get(1);
+        assertEquals(1, epoch.getSentenceCount());
+        assertEquals(-19.5, epoch.getAltitudeMsl());
+        assertEquals(1.1, epoch.getHdop());
+        assertTrue(Double.isNaN(epoch.getPdop()));
+        assertFalse(epoch.hasErrorEllipse());
+        assertEquals(0, epoch.getSatelliteCount());
+
+        assembler.flush();
+        assertEquals(2, epochs.size());
+    }
+
+    /**
+     * Test assembling epochs that start with untimed sentences, which are split by the gap between
+     * timestamps
+     */
+    @Test
+    public void testEpochsByTimestamp() {
+        NmeaEpochAssembler assembler = new NmeaEpochAssembler(epochs::add);
+
+        assembler.add("$GPGSA,A,3,03,,,,,,,,,,,,2.5,1.3,2.1*00", 1000);
+        assembler.add("$GPGSV,1,1,01,03,45,120,40*00", 1010);
+        assembler.add("$GPGGA,172814.00,2803.208136,N,08225.981423,W,1,08,1.1,-19.7,M,-24.8,M,,*5F", 1020);
+        assembler.add("$GPGSA,A,3,03,,,,,,,,,,,,2.6,1.4,2.2*00", 2000);
+        assertEquals(1, epochs.size());
+
+        NmeaEpoch epoch = epochs.get(0);
+        assertEquals(3, epoch.getSentenceCount());
+        assertEquals((17 * 3600 + 28 * 60 + 14) * 1000, epoch.getTimeOfDayMillis());
+        assertEquals(2.5, epoch.getPdop());
+        // GSA HDOP is used rather than GGA HDOP
+        assertEquals(1.3, epoch.getHdop());
+        assertTrue(epoch.isUsedInFix(0));
+
+        assembler.flush();
+        assertEquals(2, epochs.size());
+        assertEquals(NmeaSentence.UNKNOWN, epochs.get(1).getTimeOfDayMillis());
+        assertEquals(2.6, epochs.get(1).getPdop());
+    }
+
+    /**
+     * Test that all sentence types used by the assembler reach it through a router
+     */
+    @Test
+    public void testRouted() {
+        NmeaRouter router = new NmeaRouter();
+        NmeaEpochAssembler assembler = new NmeaEpochAssembler(epochs::add);
+        assembler.subscribeTo(router);
+
+        assertTrue(router.route("$GNGGA,172814.00,2803.208136,N,08225.981423,W,1,08,1.1,-19.7,M,-24.8,M,,*5F", 1000));
+        assertTrue(router.route("$GNRMC,172814.00,A,2803.208136,N,08225.981423,W,0.5,90.0,181120,,,A*00", 1000));
+        assertTrue(router.route("$GNGSA,A,3,03,,,,,,,,,,,,3.6,1.8,3.1,1*00", 1000));
+        assertTrue(router.route("$GPGSV,1,1,02,03,45,120,40,09,10,300,22*00", 1000));
+        assertTrue(router.route("$GPGST,172814.00,0.006,0.023,0.020,273.6,0.023,0.020,0.031*00", 1000));
+        assertFalse(router.route("$GPVTG,054.7,T,034.4,M,005.5,N,010.2,K,A*00", 1000));
+        assembler.flush();
+
+        assertEquals(1, epochs.size());
+        NmeaEpoch epoch = epochs.get(0);
+        assertEquals(5, epoch.getSentenceCount());
+        assertEquals(0.5, epoch.getSpeedKnots());
+        assertEquals(3.6, epoch.getPdop());
+        assertTrue(epoch.hasErrorEllipse());
+        assertEquals(0.023, epoch.getSemiMajorStdDev());
+        assertEquals(2, epoch.getSatelliteCount());
+        assertEquals(3, epoch.getSvid(0));
+        assertTrue(epoch.isUsedInFix(0));
+        assertEquals(9, epoch.getSvid(1));
+        assertFalse(epoch.isUsedInFix(1));
+    }
+
+    @Test
+    public void testManySatellites() {
+        NmeaEpochAssembler assembler = new NmeaEpochAssembler(epochs::add);
+        for (int i = 0; i < 25; i++) {
+            assembler.add("$GPGSV,25,1,100,01,45,120,40,02,45,120,40,03,45,120,40,04,45,120,40*00", 1000);
+        }
+        assembler.flush();
+        assertEquals(100, epochs.get(0).getSatelliteCount());
+        assertEquals(4, epochs.get(0).getSvid(99));
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright (C) 2021 Sean J. Barbeau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.gpstest.nmea;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
+
+public class NmeaRouterTest {
+
+    private static final String GPGGA = "$GPGGA,032739.0,2804.732835,N,08224.639709,W,1,08,0.8,19.2,M,-24.0,M,,*5B";
+    private static final String GNGSA = "$GNGSA,A,3,03,14,16,22,23,26,,,,,,,3.6,1.8,3.1,1*3B";
+    private static final String GLGSA = "$GLGSA,A,3,65,66,,,,,,,,,,,3.6,1.8,3.1,2*3B";
+    private static final String GPGSV = "$GPGSV,1,1,00*79";
+
+    /**
+     * Records the address (field 0) and timestamp of each sentence it receives
+     */
+    private static class RecordingHandler implements NmeaRouter.Handler {
+        final List<String> sentences = new ArrayList<>();
+
+        @Override
+        public void onSentence(NmeaTokenizer tokenizer, long timestamp) {
+            sentences.add(tokenizer.getString(0) + "@" + timestamp);
+        }
+    }
+
+    @Test
+    public void testRoute() {
+        NmeaRouter router = new NmeaRouter();
+        RecordingHandler gga = new RecordingHandler();
+        RecordingHandler gsa = new RecordingHandler();
+        router.subscribe("GPGGA", gga);
+        router.subscribe("GNGGA", gga);
+        router.subscribeType("GSA", gsa);
+
+        assertTrue(router.route(GPGGA, 1));
+        assertTrue(router.route(GNGSA, 2));
+        assertTrue(router.route(GLGSA, 3));
+        assertFalse(router.route(GPGSV, 4));
+        assertFalse(router.route("garbage", 5));
+
+        assertEquals(1, gga.sentences.size());
+        assertEquals("$GPGGA@1", gga.sentences.get(0));
+        assertEquals(2, gsa.sentences.size());
+        assertEquals("$GNGSA@2", gsa.sentences.get(0));
+        assertEquals("$GLGSA@3", gsa.sentences.get(1));
+
+        // Subscribing twice doesn't deliver a sentence twice, and a second handler also receives it
+        RecordingHandler second = new RecordingHandler();
+        router.subscribe("GPGGA", gga);
+        router.subscribe("GPGGA", second);
+        router.route(GPGGA, 6);
+        assertEquals(2, gga.sentences.size());
+        assertEquals(1, second.sentences.size());
+
+        router.unsubscribe(gga);
+        router.unsubscribe(second);
+        assertFalse(router.route(GPGGA, 7));
+        assertEquals(2, gga.sentences.size());
+        assertTrue(router.route(GNGSA, 8));
+    }
+
+    @Test
+    public void testManyAddresses() {
+        NmeaRouter router = new NmeaRouter();
+        RecordingHandler handler = new RecordingHandler();
+        for (char c = 'A'; c <= 'Z'; c++) {
+            router.subscribe("GP" + c + "XX", handler);
+        }
+        router.subscribe("GPGGA", handler);
+        for (char c = 'A'; c <= 'Z'; c++) {
+            assertTrue(router.route("$GP" + c + "XX,1*00", c));
+        }
+        assertTrue(router.route(GPGGA, 0));
+        assertEquals(27, handler.sentences.size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidAddress() {
+        new NmeaRouter().subscribe("GPGGAX", new RecordingHandler());
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright (C) 2021 Sean J. Barbeau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.gpstest.nmea;
+
+import org.junit.Test;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
+
+public class NmeaTokenizerTest {
+
+    /**
+     * Test that fields match the result of String.split(), without the checksum and line ending
+     */
+    @Test
+    public void testTokenize() {
+        NmeaTokenizer tokenizer = new NmeaTokenizer();
+        final String gga = "$GPGGA,032739.0,2804.732835,N,08224.639709,W,1,08,0.8,19.2,M,-24.0,M,,*5B\r\n";
+
+        assertEquals(15, tokenizer.tokenize(gga));
+        String[] tokens = gga.trim().split(",");
+        for (int i = 0; i < 14; i++) {
+            assertEquals(tokens[i], tokenizer.getString(i));
+        }
+        // split() keeps the checksum with the last field
+        assertEquals("", tokenizer.getString(14));
+        assertEquals(gga.indexOf('*'), tokenizer.getChecksumIndex());
+        assertTrue(tokenizer.isSentenceType("GGA"));
+        assertFalse(tokenizer.isSentenceType("GSA"));
+        assertTrue(tokenizer.fieldEquals(0, "$GPGGA"));
+
+        // Re-use for a sentence with more fields than the initial capacity, and no checksum
+        StringBuilder sb = new StringBuilder("$GPGSV");
+        for (int i = 0; i < 40; i++) {
+            sb.append(',').append(i);
+        }
+        assertEquals(41, tokenizer.tokenize(sb));
+        assertEquals(-1, tokenizer.getChecksumIndex());
+        assertEquals(39, tokenizer.getInt(40, -1));
+
+        assertEquals(0, tokenizer.tokenize("\r\n"));
+        assertFalse(tokenizer.isSentenceType("GGA"));
+    }
+
+    @Test
+    public void testGetDouble() {
+        NmeaTokenizer tokenizer = new NmeaTokenizer();
+        tokenizer.tokenize("$GPGGA,032739.0,2804.732835,-19.7,+1.5,0.8,7,.5,BAD,1.2.3,-,,12345678901234567.5,1e3*00");
+
+        assertEquals(32739.0, tokenizer.getDouble(1));
+        assertEquals(2804.732835, tokenizer.getDouble(2));
+        assertEquals(-19.7, tokenizer.getDouble(3));
+        assertEquals(1.5, tokenizer.getDouble(4));
+        assertEquals(0.8, tokenizer.getDouble(5));
+        assertEquals(7.0, tokenizer.getDouble(6));
+        assertEquals(0.5, tokenizer.getDouble(7));
+        assertTrue(Double.isNaN(tokenizer.getDouble(8)));
+        assertTrue(Double.isNaN(tokenizer.getDouble(9)));
+        assertTrue(Double.isNaN(tokenizer.getDouble(10)));
+        assertTrue(Double.isNaN(tokenizer.getDouble(11)));
+        assertEquals(12345678901234567.5, tokenizer.getDouble(12));
+        assertEquals(1000.0, tokenizer.getDouble(13));
+        // Missing field
+        assertTrue(Double.isNaN(tokenizer.getDouble(14)));
+    }
+
+    @Test
+    public void testGetInt() {
+        NmeaTokenizer tokenizer = new NmeaTokenizer();
+        tokenizer.tokenize("$GPGSV,3,08,-12,,2147483647,2147483648,1.5,1F*7A");
+
+        assertEquals(3, tokenizer.getInt(1, -1));
+        assertEquals(8, tokenizer.getInt(2, -1));
+        assertEquals(-12, tokenizer.getInt(3, -1));
+        assertEquals(-1, tokenizer.getInt(4, -1));
+        assertEquals(Integer.MAX_VALUE, tokenizer.getInt(5, -1));
+        assertEquals(-1, tokenizer.getInt(6, -1));
+        assertEquals(-1, tokenizer.getInt(7, -1));
+        assertEquals(0x1F, tokenizer.getHex(8, -1));
+        assertEquals(-1, tokenizer.getInt(9, -1));
+        assertEquals('1', tokenizer.getChar(8, ' '));
+        assertEquals(' ', tokenizer.getChar(4, ' '));
+    }
+}
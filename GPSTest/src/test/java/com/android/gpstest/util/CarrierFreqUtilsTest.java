@@ -0,0 +1,109 @@
+/*
+ * Copyright (C) 2021 Sean J. Barbeau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.gpstest.util;
+
+import com.android.gpstest.model.CarrierBand;
+import com.android.gpstest.model.GnssType;
+
+import org.junit.Test;
+
+import static com.android.gpstest.util.CarrierFreqUtils.getCarrierBand;
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
+
+/**
+ * Tests the band tables without a device - see the androidTest CarrierFreqUtilsTest for labels of
+ * SatelliteStatus signals
+ */
+public class CarrierFreqUtilsTest {
+
+    @Test
+    public void testGnssBands() {
+        assertEquals(CarrierBand.L1, getCarrierBand(GnssType.NAVSTAR, 1, 1575.42f));
+        assertEquals(CarrierBand.L2, getCarrierBand(GnssType.NAVSTAR, 1, 1227.6f));
+        assertEquals(CarrierBand.L3, getCarrierBand(GnssType.NAVSTAR, 1, 1381.05f));
+        assertEquals(CarrierBand.L4, getCarrierBand(GnssType.NAVSTAR, 1, 1379.913f));
+        assertEquals(CarrierBand.L5, getCarrierBand(GnssType.NAVSTAR, 1, 1176.45f));
+
+        assertEquals(CarrierBand.L1, getCarrierBand(GnssType.GLONASS, 1, 1598.0625f));
+        assertEquals(CarrierBand.L1, getCarrierBand(GnssType.GLONASS, 1, 1605.375f));
+        assertEquals(CarrierBand.L2, getCarrierBand(GnssType.GLONASS, 1, 1242.9375f));
+        assertEquals(CarrierBand.L3, getCarrierBand(GnssType.GLONASS, 1, 1207.14f));
+        assertEquals(CarrierBand.L5, getCarrierBand(GnssType.GLONASS, 1, 1176.45f));
+        assertEquals(CarrierBand.L1_C, getCarrierBand(GnssType.GLONASS, 1, 1575.42f));
+
+        assertEquals(CarrierBand.B1, getCarrierBand(GnssType.BEIDOU, 1, 1561.098f));
+        assertEquals(CarrierBand.B1_2, getCarrierBand(GnssType.BEIDOU, 1, 1589.742f));
+        assertEquals(CarrierBand.B1C, getCarrierBand(GnssType.BEIDOU, 1, 1575.42f));
+        assertEquals(CarrierBand.B2, getCarrierBand(GnssType.BEIDOU, 1, 1207.14f));
+        assertEquals(CarrierBand.B2A, getCarrierBand(GnssType.BEIDOU, 1, 1176.45f));
+        assertEquals(CarrierBand.B3, getCarrierBand(GnssType.BEIDOU, 1, 1268.52f));
+
+        assertEquals(CarrierBand.L6, getCarrierBand(GnssType.QZSS, 1, 1278.75f));
+        assertEquals(CarrierBand.E5, getCarrierBand(GnssType.GALILEO, 1, 1191.795f));
+        assertEquals(CarrierBand.E5A, getCarrierBand(GnssType.GALILEO, 1, 1176.45f));
+        assertEquals(CarrierBand.E5B, getCarrierBand(GnssType.GALILEO, 1, 1207.14f));
+        assertEquals(CarrierBand.E6, getCarrierBand(GnssType.GALILEO, 1, 1278.75f));
+        assertEquals(CarrierBand.S, getCarrierBand(GnssType.IRNSS, 1, 2492.028f));
+
+        assertEquals(CarrierBand.UNKNOWN, getCarrierBand(GnssType.NAVSTAR, 1, 1500.0f));
+        assertEquals(CarrierBand.UNKNOWN, getCarrierBand(GnssType.NAVSTAR, 1, 1000.0f));
+        assertEquals(CarrierBand.UNKNOWN, getCarrierBand(GnssType.NAVSTAR, 1, 3000.0f));
+        assertEquals(CarrierBand.UNKNOWN, getCarrierBand(GnssType.UNKNOWN, 1, 1575.42f));
+    }
+
+    @Test
+    public void testTolerance() {
+        // Within 1 MHz of the frequency
+        assertEquals(CarrierBand.L1, getCarrierBand(GnssType.NAVSTAR, 1, 1574.5f));
+        assertEquals(CarrierBand.L1, getCarrierBand(GnssType.NAVSTAR, 1, 1576.4f));
+        assertEquals(CarrierBand.UNKNOWN, getCarrierBand(GnssType.NAVSTAR, 1, 1576.5f));
+
+        // GPS L3 and L4 are less than 2 MHz apart, and L3 takes precedence where they overlap
+        assertEquals(CarrierBand.L4, getCarrierBand(GnssType.NAVSTAR, 1, 1379.0f));
+        assertEquals(CarrierBand.L3, getCarrierBand(GnssType.NAVSTAR, 1, 1380.5f));
+        assertEquals(CarrierBand.L3, getCarrierBand(GnssType.NAVSTAR, 1, 1382.0f));
+    }
+
+    @Test
+    public void testSbasBands() {
+        // EGNOS
+        assertEquals(CarrierBand.L1, getCarrierBand(GnssType.SBAS, 120, 1575.42f));
+        assertEquals(CarrierBand.L5, getCarrierBand(GnssType.SBAS, 136, 1176.45f));
+        // MSAS
+        assertEquals(CarrierBand.L5, getCarrierBand(GnssType.SBAS, 137, 1176.45f));
+        // GAGAN only has L1
+        assertEquals(CarrierBand.L1, getCarrierBand(GnssType.SBAS, 127, 1575.42f));
+        assertEquals(CarrierBand.UNKNOWN, getCarrierBand(GnssType.SBAS, 127, 1176.45f));
+        // WAAS
+        assertEquals(CarrierBand.L5, getCarrierBand(GnssType.SBAS, 138, 1176.45f));
+        // SDCM doesn't have any known bands
+        assertEquals(CarrierBand.UNKNOWN, getCarrierBand(GnssType.SBAS, 125, 1575.42f));
+    }
+
+    @Test
+    public void testBandLabels() {
+        assertEquals("L1-C", CarrierBand.L1_C.getLabel());
+        assertEquals("E5a", CarrierBand.E5A.getLabel());
+        assertEquals(CarrierFreqUtils.CF_UNKNOWN, CarrierBand.UNKNOWN.getLabel());
+        for (CarrierBand band : CarrierBand.values()) {
+            assertEquals(CarrierFreqUtils.isPrimaryCarrier(band.getLabel()), band.isPrimary());
+        }
+        assertTrue(CarrierBand.E1.isPrimary());
+        assertFalse(CarrierBand.L5.isPrimary());
+    }
+}
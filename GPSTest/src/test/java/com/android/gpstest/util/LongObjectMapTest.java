@@ -0,0 +1,105 @@
+/*
+ * Copyright (C) 2021 Sean J. Barbeau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.gpstest.util;
+
+import org.junit.Test;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertTrue;
+
+public class LongObjectMapTest {
+
+    @Test
+    public void testPutAndGet() {
+        LongObjectMap<String> map = new LongObjectMap<>(1);
+        assertTrue(map.isEmpty());
+        assertNull(map.get(1));
+
+        assertNull(map.put(1, "a"));
+        assertNull(map.put(-1, "b"));
+        assertNull(map.put(1L << 40, "c"));
+        assertEquals("a", map.put(1, "d"));
+
+        assertEquals(3, map.size());
+        assertEquals("d", map.get(1));
+        assertEquals("b", map.get(-1));
+        assertEquals("c", map.get(1L << 40));
+        assertTrue(map.containsKey(-1));
+        assertFalse(map.containsKey(2));
+
+        // Entries are in insertion order
+        assertEquals(1, map.keyAt(0));
+        assertEquals("d", map.valueAt(0));
+        assertEquals(1L << 40, map.keyAt(2));
+        assertEquals("c", map.valueAt(2));
+    }
+
+    @Test
+    public void testGrowAndClear() {
+        LongObjectMap<Long> map = new LongObjectMap<>();
+        for (long i = 0; i < 1000; i++) {
+            map.put(i * 65536, i);
+        }
+        assertEquals(1000, map.size());
+        for (long i = 0; i < 1000; i++) {
+            assertEquals(Long.valueOf(i), map.get(i * 65536));
+            assertEquals(i * 65536, map.keyAt((int) i));
+        }
+        assertFalse(map.containsKey(1));
+
+        map.clear();
+        assertEquals(0, map.size());
+        assertNull(map.get(0));
+        map.put(5, 5L);
+        assertEquals(Long.valueOf(5), map.get(5));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    public void testRemove() {
+        LongObjectMap<Long> map = new LongObjectMap<>();
+        assertNull(map.remove(1));
+        // Keys that are a multiple of the table size collide often, so removing them needs to keep
+        // the following keys reachable
+        for (long i = 0; i < 100; i++) {
+            map.put(i << 20, i);
+        }
+        for (long i = 0; i < 100; i += 2) {
+            assertEquals(Long.valueOf(i), map.remove(i << 20));
+        }
+        assertEquals(50, map.size());
+        for (long i = 0; i < 100; i++) {
+            assertEquals(i % 2 == 0 ? null : Long.valueOf(i), map.get(i << 20));
+        }
+        for (int i = 0; i < map.size(); i++) {
+            assertEquals(map.valueAt(i), map.get(map.keyAt(i)));
+        }
+
+        // Remove while iterating from the end
+        for (int i = map.size() - 1; i >= 0; i--) {
+            if (map.valueAt(i) % 3 == 0) {
+                map.remove(map.keyAt(i));
+            }
+        }
+        for (long i = 1; i < 100; i += 2) {
+            assertEquals(i % 3 == 0 ? null : Long.valueOf(i), map.get(i << 20));
+        }
+        map.put(0, 0L);
+        assertEquals(Long.valueOf(0), map.get(0));
+    }
+}
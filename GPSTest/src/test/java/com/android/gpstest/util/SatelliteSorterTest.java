@@ -0,0 +1,173 @@
+/*
+ * Copyright (C) 2021 Sean J. Barbeau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.gpstest.util;
+
+import com.android.gpstest.model.GnssType;
+import com.android.gpstest.model.SatelliteStatus;
+import com.android.gpstest.model.SbasType;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static com.android.gpstest.util.SatelliteSorter.SORT_CARRIER_FREQUENCY;
+import static com.android.gpstest.util.SatelliteSorter.SORT_CN0;
+import static com.android.gpstest.util.SatelliteSorter.SORT_CONSTELLATION;
+import static com.android.gpstest.util.SatelliteSorter.SORT_CONSTELLATION_CARRIER_FREQUENCY;
+import static com.android.gpstest.util.SatelliteSorter.SORT_CONSTELLATION_CN0;
+import static com.android.gpstest.util.SatelliteSorter.SORT_CONSTELLATION_USED;
+import static com.android.gpstest.util.SatelliteSorter.SORT_USED;
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertTrue;
+
+public class SatelliteSorterTest {
+
+    private static final GnssType[] GNSS_TYPES = GnssType.values();
+
+    private static final SbasType[] SBAS_TYPES = SbasType.values();
+
+    private static final float[] CARRIER_FREQUENCIES_HZ = {1575.42e6f, 1176.45e6f, 1602.0e6f};
+
+    private static List<SatelliteStatus> randomSignals(int count, long seed) {
+        Random random = new Random(seed);
+        List<SatelliteStatus> signals = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            // Few distinct values, so there are many ties
+            SatelliteStatus s = new SatelliteStatus(1 + random.nextInt(8),
+                    GNSS_TYPES[random.nextInt(GNSS_TYPES.length)], random.nextInt(4) * 10.0f,
+                    true, true, random.nextBoolean(), 45.0f, 90.0f);
+            s.setSbasType(SBAS_TYPES[random.nextInt(SBAS_TYPES.length)]);
+            s.setCarrierFrequencyHz(CARRIER_FREQUENCIES_HZ[random.nextInt(CARRIER_FREQUENCIES_HZ.length)]);
+            signals.add(s);
+        }
+        return signals;
+    }
+
+    /**
+     * The orders that were previously built from comparators, for comparison
+     */
+    private static Comparator<SatelliteStatus> comparator(int sortBy, final boolean sbas) {
+        Comparator<SatelliteStatus> type = new Comparator<SatelliteStatus>() {
+            @Override
+            public int compare(SatelliteStatus a, SatelliteStatus b) {
+                return sbas ? a.getSbasType().compareTo(b.getSbasType())
+                        : a.getGnssType().compareTo(b.getGnssType());
+            }
+        };
+        Comparator<SatelliteStatus> svid = new Comparator<SatelliteStatus>() {
+            @Override
+            public int compare(SatelliteStatus a, SatelliteStatus b) {
+                return Integer.compare(a.getSvid(), b.getSvid());
+            }
+        };
+        Comparator<SatelliteStatus> used = new Comparator<SatelliteStatus>() {
+            @Override
+            public int compare(SatelliteStatus a, SatelliteStatus b) {
+                return Boolean.compare(b.getUsedInFix(), a.getUsedInFix());
+            }
+        };
+        Comparator<SatelliteStatus> cn0 = new Comparator<SatelliteStatus>() {
+            @Override
+            public int compare(SatelliteStatus a, SatelliteStatus b) {
+                return Float.compare(b.getCn0DbHz(), a.getCn0DbHz());
+            }
+        };
+        Comparator<SatelliteStatus> cf = new Comparator<SatelliteStatus>() {
+            @Override
+            public int compare(SatelliteStatus a, SatelliteStatus b) {
+                return Float.compare(a.getCarrierFrequencyHz(), b.getCarrierFrequencyHz());
+            }
+        };
+        switch (sortBy) {
+            case SORT_CONSTELLATION:
+                return chain(type, svid);
+            case SORT_CARRIER_FREQUENCY:
+                return chain(cf, svid);
+            case SORT_CN0:
+                return cn0;
+            case SORT_USED:
+                return chain(used, svid);
+            case SORT_CONSTELLATION_CARRIER_FREQUENCY:
+                return chain(type, cf, svid);
+            case SORT_CONSTELLATION_CN0:
+                return chain(type, cn0);
+            case SORT_CONSTELLATION_USED:
+                return chain(type, used, svid);
+            default:
+                throw new IllegalArgumentException();
+        }
+    }
+
+    @SafeVarargs
+    private static Comparator<SatelliteStatus> chain(final Comparator<SatelliteStatus>... comparators) {
+        return new Comparator<SatelliteStatus>() {
+            @Override
+            public int compare(SatelliteStatus a, SatelliteStatus b) {
+                for (Comparator<SatelliteStatus> c : comparators) {
+                    int result = c.compare(a, b);
+                    if (result != 0) {
+                        return result;
+                    }
+                }
+                return 0;
+            }
+        };
+    }
+
+    @Test
+    public void testSortOrders() {
+        SatelliteSorter sorter = new SatelliteSorter();
+        for (int sortBy = SORT_CONSTELLATION; sortBy <= SORT_CONSTELLATION_USED; sortBy++) {
+            for (boolean sbas : new boolean[]{false, true}) {
+                // More signals than the initial capacity of the sorter, so it grows
+                List<SatelliteStatus> signals = randomSignals(150, sortBy);
+                List<SatelliteStatus> expected = new ArrayList<>(signals);
+                // Collections.sort() is stable, as the sorter should be
+                Collections.sort(expected, comparator(sortBy, sbas));
+
+                sorter.sort(signals, sortBy, sbas);
+                for (int i = 0; i < expected.size(); i++) {
+                    assertTrue("Sort " + sortBy + " sbas " + sbas + " index " + i,
+                            expected.get(i) == signals.get(i));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testFloatKeys() {
+        SatelliteStatus negative = new SatelliteStatus(1, GnssType.NAVSTAR, -5.0f, false, false, false, 0, 0);
+        SatelliteStatus zero = new SatelliteStatus(2, GnssType.NAVSTAR, 0.0f, false, false, false, 0, 0);
+        SatelliteStatus small = new SatelliteStatus(3, GnssType.NAVSTAR, 0.5f, false, false, false, 0, 0);
+        SatelliteStatus large = new SatelliteStatus(4, GnssType.NAVSTAR, 45.0f, false, false, false, 0, 0);
+        List<SatelliteStatus> signals = new ArrayList<>(Arrays.asList(zero, large, negative, small));
+
+        new SatelliteSorter().sort(signals, SORT_CN0, false);
+        assertEquals(Arrays.asList(large, small, zero, negative), signals);
+    }
+
+    @Test
+    public void testEmpty() {
+        List<SatelliteStatus> signals = new ArrayList<>();
+        new SatelliteSorter().sort(signals, SORT_CONSTELLATION, false);
+        assertEquals(0, signals.size());
+    }
+}
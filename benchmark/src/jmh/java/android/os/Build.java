@@ -1,5 +1,5 @@
 /*
- * Copyright (C) 2019 Sean J. Barbeau
+ * Copyright (C) 2021 Sean J. Barbeau
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -13,13 +13,18 @@
  * See the License for the specific language governing permissions and
  * limitations under the License.
  */
-package com.android.gpstest.model
+package android.os;
 
 /**
- * A container class that holds a group of [satellites] from multiple constellations (e.g., GNSS,
- * SBAS) and [satelliteMetadata]. [satellites] are stored as a map, and the key to the map is the
- * combination of constellation and ID created using SatelliteUtils.createGnssSatelliteKey().
+ * JVM replacement for the Android class, so code that checks the API level runs in benchmarks.
+ * The constants in VERSION_CODES are inlined at compile time, so only VERSION is needed.
  */
-data class ConstellationFamily(
-        val satellites: Map<String, Satellite>,
-        val satelliteMetadata: SatelliteMetadata)
+public class Build {
+
+    public static class VERSION {
+        /**
+         * Benchmarks run the code paths of Android 11 devices
+         */
+        public static final int SDK_INT = Integer.getInteger("gpstest.benchmark.sdkInt", 30);
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright (C) 2021 Sean J. Barbeau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.gpstest.benchmark;
+
+import com.android.gpstest.model.GnssType;
+import com.android.gpstest.model.SatelliteStatus;
+import com.android.gpstest.model.SbasType;
+import com.android.gpstest.nmea.NmeaChecksum;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Input data for the benchmarks - NMEA sentences output by devices, and synthetic epochs with as
+ * many signals as a multi-constellation, dual-frequency device reports
+ */
+final class Corpus {
+
+    /**
+     * Number of signals in a synthetic epoch
+     */
+    static final int EPOCH_SIGNALS = 200;
+
+    /**
+     * GGA and GNS sentences output by devices (from NmeaUtilsTest)
+     */
+    static final String[] ALTITUDE_SENTENCES = {
+            "$GPGGA,032739.0,2804.732835,N,08224.639709,W,1,08,0.8,19.2,M,-24.0,M,,*5B",
+            "$GNGNS,015002.0,2804.733672,N,08224.631117,W,AAN,09,1.1,78.9,-24.0,,*23",
+            "$GNGGA,114926.00,3206.341435,N,11850.092448,E,1,11,0.9,19.9,M,2.2,M,,*7E",
+            "$GNGGA,172814.00,2803.208136,N,08225.981423,W,1,08,1.1,-19.7,M,-24.8,M,,*5F",
+    };
+
+    /**
+     * GSA sentences output by devices (from NmeaUtilsTest)
+     */
+    static final String[] DOP_SENTENCES = {
+            "$GNGSA,A,2,67,68,69,79,84,,,,,,,,1.3,1.0,0.8,2*3A",
+            "$GPGSA,A,3,03,14,16,22,23,26,,,,,,,3.6,1.8,3.1*38",
+            "$GNGSA,A,3,03,14,16,22,23,26,,,,,,,3.6,1.8,3.1,1*3B",
+            "$GPGSA,A,3,,,,,,16,18,,22,24,,,3.6,2.1,2.2*3C",
+            "$GPGSA,A,3,19,28,14,18,27,22,31,39,,,,,1.7,1.0,1.3*35",
+            "$GPGSA,A,3,04,05,,09,12,,,24,,,,,2.5,1.3,2.1*39",
+    };
+
+    /**
+     * All sentences of one epoch from a multi-constellation NMEA 4.10 device, in output order
+     */
+    static final String[] EPOCH_SENTENCES = {
+            "$GNGGA,172814.00,2803.208136,N,08225.981423,W,1,08,1.1,-19.7,M,-24.8,M,,*5F",
+            "$GNRMC,172814.00,A,2803.208136,N,08225.981423,W,0.0,,181120,,,A,V*0B",
+            "$GNGSA,A,3,02,10,12,15,18,23,25,26,,,,,1.5,0.8,1.3,1*30",
+            "$GNGSA,A,3,66,72,75,76,,,,,,,,,1.5,0.8,1.3,2*3A",
+            "$GNGSA,A,3,07,08,30,,,,,,,,,,1.5,0.8,1.3,3*31",
+            "$GPGSV,3,1,12,01,05,060,18,02,17,259,43,04,56,287,28,09,08,277,28,1*6A",
+            "$GPGSV,3,2,12,10,41,045,37,12,22,311,38,15,11,204,36,18,55,136,44,1*66",
+            "$GPGSV,3,3,12,22,20,177,31,23,38,254,40,25,42,058,39,26,70,336,45,1*69",
+            "$GLGSV,2,1,07,65,30,043,27,66,78,332,35,72,25,258,31,74,05,023,22,1*7D",
+            "$GLGSV,2,2,07,75,44,075,38,76,33,145,33,84,15,320,26,1*48",
+            "$GAGSV,2,1,05,02,21,293,33,07,59,032,41,08,36,098,38,26,12,185,30,7*7C",
+            "$GAGSV,2,2,05,30,48,237,40,7*4B",
+            "$GPGST,172814.00,0.006,0.023,0.020,273.6,0.023,0.020,0.031*5A",
+            "$GPVTG,,T,,M,0.0,N,0.0,K,A*23",
+    };
+
+    /**
+     * Talker, NMEA 4.10 system ID and signal ID of each synthetic signal group
+     */
+    private static final String[] TALKERS = {"GP", "GP", "GL", "GA", "GA", "GB", "GB", "GQ", "GQ", "GI"};
+    private static final int[] SIGNAL_IDS = {1, 7, 1, 7, 2, 1, 5, 1, 7, 1};
+
+    /**
+     * Constellation and carrier frequency of each synthetic signal group
+     */
+    private static final GnssType[] GNSS_TYPES = {GnssType.NAVSTAR, GnssType.NAVSTAR,
+            GnssType.GLONASS, GnssType.GALILEO, GnssType.GALILEO, GnssType.BEIDOU, GnssType.BEIDOU,
+            GnssType.QZSS, GnssType.QZSS, GnssType.IRNSS, GnssType.SBAS};
+    private static final float[] CARRIER_FREQUENCIES_MHZ = {1575.42f, 1176.45f, 1602.0f,
+            1575.42f, 1176.45f, 1561.098f, 1176.45f, 1575.42f, 1176.45f, 1176.45f, 1575.42f};
+
+    private Corpus() {
+    }
+
+    /**
+     * Creates the signals of an epoch spread across all constellations and frequencies. The same
+     * signals are created each time.
+     */
+    static List<SatelliteStatus> syntheticEpoch(int signalCount) {
+        Random random = new Random(42);
+        List<SatelliteStatus> signals = new ArrayList<>(signalCount);
+        for (int i = 0; i < signalCount; i++) {
+            int group = i % GNSS_TYPES.length;
+            GnssType gnssType = GNSS_TYPES[group];
+            int svid = gnssType == GnssType.SBAS ? 120 + random.nextInt(19) : 1 + random.nextInt(36);
+            SatelliteStatus status = new SatelliteStatus(svid, gnssType,
+                    10 + random.nextFloat() * 40, true, true, random.nextBoolean(),
+                    random.nextFloat() * 90, random.nextFloat() * 360);
+            status.setHasCarrierFrequency(true);
+            status.setCarrierFrequencyHz(CARRIER_FREQUENCIES_MHZ[group] * 1000000f);
+            if (gnssType == GnssType.SBAS) {
+                status.setSbasType(SbasType.WAAS);
+            }
+            signals.add(status);
+        }
+        return signals;
+    }
+
+    /**
+     * Creates the NMEA 4.10 GSV sentences for an epoch with the provided number of signals, with
+     * valid checksums
+     */
+    static String[] syntheticGsvEpoch(int signalCount) {
+        Random random = new Random(42);
+        List<String> sentences = new ArrayList<>();
+        int groups = TALKERS.length;
+        for (int group = 0; group < groups; group++) {
+            int groupSignals = signalCount / groups + (group < signalCount % groups ? 1 : 0);
+            int messageCount = (groupSignals + 3) / 4;
+            for (int message = 0; message < messageCount; message++) {
+                StringBuilder sb = new StringBuilder("$").append(TALKERS[group]).append("GSV,")
+                        .append(messageCount).append(',').append(message + 1).append(',')
+                        .append(groupSignals);
+                for (int i = message * 4; i < Math.min(groupSignals, message * 4 + 4); i++) {
+                    sb.append(',').append(1 + random.nextInt(36))
+                            .append(',').append(random.nextInt(90))
+                            .append(',').append(random.nextInt(360))
+                            .append(',').append(10 + random.nextInt(40));
+                }
+                sb.append(',').append(SIGNAL_IDS[group]);
+                int checksum = NmeaChecksum.compute(sb, 1, sb.length());
+                sb.append('*').append(Character.toUpperCase(Character.forDigit(checksum >> 4, 16)))
+                        .append(Character.toUpperCase(Character.forDigit(checksum & 0xF, 16)));
+                sentences.add(sb.toString());
+            }
+        }
+        return sentences.toArray(new String[0]);
+    }
+}
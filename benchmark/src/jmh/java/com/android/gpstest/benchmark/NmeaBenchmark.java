@@ -0,0 +1,122 @@
+/*
+ * Copyright (C) 2021 Sean J. Barbeau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.gpstest.benchmark;
+
+import com.android.gpstest.nmea.GsaSentence;
+import com.android.gpstest.nmea.GstSentence;
+import com.android.gpstest.nmea.GsvSentence;
+import com.android.gpstest.nmea.NmeaChecksum;
+import com.android.gpstest.nmea.NmeaDecoder;
+import com.android.gpstest.nmea.NmeaEpoch;
+import com.android.gpstest.nmea.NmeaEpochAssembler;
+import com.android.gpstest.nmea.NmeaTokenizer;
+import com.android.gpstest.nmea.RmcSentence;
+import com.android.gpstest.util.NmeaUtils;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * NMEA parsing cost per sentence and per epoch. Each benchmark processes a whole corpus, so ops/s
+ * is corpora per second.
+ */
+@State(Scope.Thread)
+public class NmeaBenchmark {
+
+    private final NmeaTokenizer tokenizer = new NmeaTokenizer();
+    private final GsaSentence gsa = new GsaSentence();
+    private final GsvSentence gsv = new GsvSentence();
+    private final RmcSentence rmc = new RmcSentence();
+    private final GstSentence gst = new GstSentence();
+
+    private String[] gsvEpoch;
+    private NmeaEpochAssembler assembler;
+    private NmeaEpoch lastEpoch;
+    private long timestamp;
+
+    @Setup
+    public void setup() {
+        gsvEpoch = Corpus.syntheticGsvEpoch(Corpus.EPOCH_SIGNALS);
+        assembler = new NmeaEpochAssembler(epoch -> lastEpoch = epoch);
+    }
+
+    @Benchmark
+    public void getAltitudeMeanSeaLevel(Blackhole blackhole) {
+        for (String sentence : Corpus.ALTITUDE_SENTENCES) {
+            blackhole.consume(NmeaUtils.getAltitudeMeanSeaLevel(sentence));
+        }
+    }
+
+    @Benchmark
+    public void getDop(Blackhole blackhole) {
+        for (String sentence : Corpus.DOP_SENTENCES) {
+            blackhole.consume(NmeaUtils.getDop(sentence));
+        }
+    }
+
+    @Benchmark
+    public void validateChecksum(Blackhole blackhole) {
+        for (String sentence : Corpus.EPOCH_SENTENCES) {
+            blackhole.consume(NmeaChecksum.validate(sentence));
+        }
+    }
+
+    /**
+     * Tokenizes and decodes every sentence of a device epoch
+     */
+    @Benchmark
+    public void decodeEpoch(Blackhole blackhole) {
+        for (String sentence : Corpus.EPOCH_SENTENCES) {
+            tokenizer.tokenize(sentence);
+            blackhole.consume(NmeaDecoder.decodeGsa(tokenizer, gsa)
+                    || NmeaDecoder.decodeGsv(tokenizer, gsv)
+                    || NmeaDecoder.decodeRmc(tokenizer, rmc)
+                    || NmeaDecoder.decodeGst(tokenizer, gst));
+        }
+    }
+
+    /**
+     * Tokenizes and decodes the GSV sentences of a synthetic 200-signal epoch
+     */
+    @Benchmark
+    public void decodeSyntheticGsvEpoch(Blackhole blackhole) {
+        for (String sentence : gsvEpoch) {
+            tokenizer.tokenize(sentence);
+            blackhole.consume(NmeaDecoder.decodeGsv(tokenizer, gsv));
+        }
+    }
+
+    /**
+     * Assembles a device epoch followed by the GSV sentences of a synthetic 200-signal epoch into
+     * one snapshot
+     */
+    @Benchmark
+    public NmeaEpoch assembleEpoch() {
+        // Each epoch is one second after the previous one, so the assembler starts a new epoch
+        timestamp += 1000;
+        for (String sentence : Corpus.EPOCH_SENTENCES) {
+            assembler.add(sentence, timestamp);
+        }
+        for (String sentence : gsvEpoch) {
+            assembler.add(sentence, timestamp);
+        }
+        assembler.flush();
+        return lastEpoch;
+    }
+}
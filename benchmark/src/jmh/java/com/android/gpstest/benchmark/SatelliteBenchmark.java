@@ -0,0 +1,82 @@
+/*
+ * Copyright (C) 2021 Sean J. Barbeau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.gpstest.benchmark;
+
+import com.android.gpstest.model.SatelliteKey;
+import com.android.gpstest.model.SatelliteStatus;
+import com.android.gpstest.util.CarrierFreqUtils;
+import com.android.gpstest.util.SatelliteUtils;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+
+/**
+ * Cost of labeling and keying every signal of a synthetic 200-signal epoch, as done for each
+ * GnssStatus update. Ops/s is epochs per second.
+ */
+@State(Scope.Thread)
+public class SatelliteBenchmark {
+
+    private List<SatelliteStatus> epoch;
+
+    @Setup
+    public void setup() {
+        epoch = Corpus.syntheticEpoch(Corpus.EPOCH_SIGNALS);
+    }
+
+    /**
+     * Classifies each signal without the band cached by SatelliteStatus, as for a new epoch
+     */
+    @Benchmark
+    public void getCarrierBand(Blackhole blackhole) {
+        for (SatelliteStatus status : epoch) {
+            blackhole.consume(CarrierFreqUtils.getCarrierBand(status));
+        }
+    }
+
+    @Benchmark
+    public void createGnssSatelliteKey(Blackhole blackhole) {
+        for (SatelliteStatus status : epoch) {
+            blackhole.consume(SatelliteUtils.createGnssSatelliteKey(status));
+        }
+    }
+
+    @Benchmark
+    public void createGnssStatusKey(Blackhole blackhole) {
+        for (SatelliteStatus status : epoch) {
+            blackhole.consume(SatelliteUtils.createGnssStatusKey(status));
+        }
+    }
+
+    @Benchmark
+    public void satelliteKey(Blackhole blackhole) {
+        for (SatelliteStatus status : epoch) {
+            blackhole.consume(SatelliteKey.satellite(status));
+        }
+    }
+
+    @Benchmark
+    public void signalKey(Blackhole blackhole) {
+        for (SatelliteStatus status : epoch) {
+            blackhole.consume(SatelliteKey.signal(SatelliteKey.satellite(status), status.getCarrierBand().getNumber()));
+        }
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright (C) 2021 Sean J. Barbeau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.gpstest.benchmark;
+
+import com.android.gpstest.model.SatelliteStatus;
+import com.android.gpstest.util.SatelliteSorter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Cost of sorting a synthetic 200-signal epoch with SatelliteSorter, which runs for the GNSS and
+ * SBAS lists on each GnssStatus update. The list is restored to the order of the epoch before each
+ * sort, so an already sorted list isn't measured - the restore is included in the result. Ops/s
+ * is epochs sorted per second.
+ */
+@State(Scope.Thread)
+public class SatelliteSorterBenchmark {
+
+    /**
+     * Index of the sort order in R.array.sort_sats
+     */
+    @Param({"0", "1", "2", "3", "4", "5", "6"})
+    public int sortBy;
+
+    private final SatelliteSorter sorter = new SatelliteSorter();
+
+    private List<SatelliteStatus> epoch;
+
+    private List<SatelliteStatus> list;
+
+    @Setup
+    public void setup() {
+        epoch = Corpus.syntheticEpoch(Corpus.EPOCH_SIGNALS);
+        list = new ArrayList<>(epoch);
+    }
+
+    @Benchmark
+    public List<SatelliteStatus> sortGnss() {
+        restore();
+        sorter.sort(list, sortBy, false);
+        return list;
+    }
+
+    @Benchmark
+    public List<SatelliteStatus> sortSbas() {
+        restore();
+        sorter.sort(list, sortBy, true);
+        return list;
+    }
+
+    private void restore() {
+        for (int i = 0; i < epoch.size(); i++) {
+            list.set(i, epoch.get(i));
+        }
+    }
+}